@@ -0,0 +1,13 @@
+package com.example.ledger.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class LedgerReactiveApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(LedgerReactiveApplication.class, args);
+    }
+}
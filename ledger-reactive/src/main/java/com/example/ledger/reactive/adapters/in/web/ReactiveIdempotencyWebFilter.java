@@ -0,0 +1,336 @@
+package com.example.ledger.reactive.adapters.in.web;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.RecordAlreadyStoredException;
+import com.example.ledger.reactive.application.port.ReactiveIdempotencyRepositoryPort;
+import com.example.ledger.reactive.domain.port.ReactiveTransactionRepositoryPort;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inbound adapter that handles idempotency key processing for POST /transactions requests,
+ * the WebFlux counterpart of the servlet stack's IdempotencyFilter:
+ * - If Idempotency-Key header is present:
+ *   - Check if key exists with same request hash → return cached response
+ *   - Check if key exists with different request hash → return 409 Conflict
+ *   - If key doesn't exist → continue processing, cache response after
+ * - If Idempotency-Key header is not present → process normally
+ *
+ * Requests are hashed with SHA-256 and records are stored in the servlet stack's format, so
+ * both stacks can serve the same keys from one database. A keyed request and its idempotency
+ * record are committed in one reactive transaction: the repository calls made by the handler
+ * join it through the subscriber context. The response is held back until that commit.
+ *
+ * Concurrent requests with the same key behave as in IdempotencyFilter: one at a time per
+ * instance, 409 with Retry-After for the others. Across instances, storing never overwrites a
+ * live record: the request that finds one, or fails on the unique (key, request hash)
+ * constraint, is rolled back and answered like a retry.
+ *
+ * Not carried over from IdempotencyFilter: caching client errors, the Bloom filter and
+ * hashing with a previous algorithm during a rollout.
+ */
+@Component
+public class ReactiveIdempotencyWebFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveIdempotencyWebFilter.class);
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String POST_TRANSACTIONS_PATH = "/transactions";
+    private static final String IN_PROGRESS_RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * Exchange attribute holding the UUID of the resource a request created, so its
+     * response can be stored as a reference.
+     */
+    public static final String CREATED_RESOURCE_ID_ATTRIBUTE =
+            ReactiveIdempotencyWebFilter.class.getName() + ".CREATED_RESOURCE_ID";
+
+    private final ReactiveIdempotencyRepositoryPort idempotencyRepository;
+    private final ReactiveTransactionRepositoryPort transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean storeReferences;
+    private final Set<String> keysInFlight = ConcurrentHashMap.newKeySet();
+
+    public ReactiveIdempotencyWebFilter(ReactiveIdempotencyRepositoryPort idempotencyRepository,
+                                        ReactiveTransactionRepositoryPort transactionRepository,
+                                        ObjectMapper objectMapper,
+                                        MeterRegistry meterRegistry,
+                                        TransactionalOperator transactionalOperator,
+                                        @Value("${idempotency.response-storage.mode:full}") String responseStorageMode) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.transactionalOperator = transactionalOperator;
+        this.storeReferences = "reference".equalsIgnoreCase(responseStorageMode);
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        // Only process POST /transactions requests
+        if (exchange.getRequest().getMethod() != HttpMethod.POST
+                || !POST_TRANSACTIONS_PATH.equals(exchange.getRequest().getPath().value())) {
+            return chain.filter(exchange);
+        }
+
+        String idempotencyKey = exchange.getRequest().getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER);
+
+        // If no idempotency key, process normally
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return chain.filter(exchange);
+        }
+
+        // Validate idempotency key format
+        if (!idempotencyRepository.isValidKey(idempotencyKey)) {
+            return writeError(exchange.getResponse(), HttpStatus.BAD_REQUEST, "Invalid idempotency key format");
+        }
+
+        // Lookups, processing and storing must not interleave with another request for the key
+        if (!keysInFlight.add(idempotencyKey)) {
+            meterRegistry.counter("idempotency.requests.in.progress").increment();
+            return handleInProgress(exchange.getResponse());
+        }
+        return processKeyedRequest(exchange, chain, idempotencyKey)
+                .doFinally(signal -> keysInFlight.remove(idempotencyKey));
+    }
+
+    private Mono<Void> processKeyedRequest(ServerWebExchange exchange, WebFilterChain chain, String idempotencyKey) {
+        meterRegistry.counter("idempotency.requests.total").increment();
+        ServerHttpResponse response = exchange.getResponse();
+
+        return DataBufferUtils.join(exchange.getRequest().getBody())
+                .map(ReactiveIdempotencyWebFilter::drain)
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> {
+                    String requestHash = sha256(body);
+                    return idempotencyRepository.getCachedResponse(idempotencyKey, requestHash)
+                            .flatMap(cached -> replay(idempotencyKey, requestHash, cached, response))
+                            .switchIfEmpty(Mono.defer(() -> idempotencyRepository
+                                    .hasKeyWithDifferentHash(idempotencyKey, requestHash)
+                                    .flatMap(conflict -> {
+                                        if (conflict) {
+                                            meterRegistry.counter("idempotency.conflicts").increment();
+                                            return handleConflict(response).thenReturn(true);
+                                        }
+                                        return process(exchange, chain, idempotencyKey, requestHash, body)
+                                                .thenReturn(true);
+                                    })))
+                            .then();
+                });
+    }
+
+    private Mono<Void> process(ServerWebExchange exchange, WebFilterChain chain,
+                               String idempotencyKey, String requestHash, byte[] body) {
+        CapturingResponse capturing = new CapturingResponse(exchange.getResponse());
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+        // The body was consumed for hashing, so the handler reads it again from memory
+        ServerWebExchange captured = exchange.mutate()
+                .request(new ServerHttpRequestDecorator(exchange.getRequest()) {
+                    @Override
+                    @NonNull
+                    public Flux<DataBuffer> getBody() {
+                        return Flux.defer(() -> Flux.just(bufferFactory.wrap(body)));
+                    }
+                })
+                .response(capturing)
+                .build();
+
+        // The handler's repository calls join this transaction, so the transaction and its
+        // idempotency record are committed together
+        return transactionalOperator.execute(transaction -> chain.filter(captured)
+                        .then(Mono.defer(() -> {
+                            int status = capturing.status();
+                            // Cache successful responses (status 200)
+                            if (status == HttpStatus.OK.value()) {
+                                Object createdId = captured.getAttribute(CREATED_RESOURCE_ID_ATTRIBUTE);
+                                IdempotencyResponse idempotencyResponse = storeReferences && createdId instanceof UUID id
+                                        ? IdempotencyResponse.reference(status, id)
+                                        : new IdempotencyResponse(status, capturing.body(), capturing.contentType());
+                                return idempotencyRepository.storeResponse(idempotencyKey, requestHash, idempotencyResponse);
+                            }
+                            if (status >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                                // Nothing is cached for a failed request, so nothing it wrote may survive either
+                                transaction.setRollbackOnly();
+                            }
+                            return Mono.empty();
+                        })))
+                .then(Mono.defer(capturing::copyBodyToResponse))
+                .onErrorResume(RecordAlreadyStoredException.class, e -> {
+                    // Another instance stored this key and hash first: ours was rolled back, and the
+                    // client gets what a retry arriving just after the winner would get
+                    meterRegistry.counter("idempotency.store.races.lost").increment();
+                    logger.info("Lost the race to store idempotency key {}, rolled back", idempotencyKey);
+                    ServerHttpResponse response = exchange.getResponse();
+                    return idempotencyRepository.getCachedResponse(idempotencyKey, requestHash)
+                            .flatMap(cached -> replay(idempotencyKey, requestHash, cached, response))
+                            .switchIfEmpty(Mono.defer(() -> idempotencyRepository
+                                    .hasKeyWithDifferentHash(idempotencyKey, requestHash)
+                                    .flatMap(conflict -> (conflict ? handleConflict(response) : handleInProgress(response))
+                                            .thenReturn(true))))
+                            .then();
+                });
+    }
+
+    /**
+     * Writes a stored response to the client; a reference is re-rendered from the transaction
+     * it points at.
+     *
+     * @return empty if nothing can be replayed and the request must be processed
+     */
+    private Mono<Boolean> replay(String idempotencyKey, String requestHash, IdempotencyResponse cached,
+                                 ServerHttpResponse response) {
+        Mono<byte[]> body = cached.isReference()
+                ? transactionRepository.findById(cached.getResourceId()).map(this::render)
+                : Mono.justOrEmpty(cached.getResponseBodyBytes());
+        return body
+                .flatMap(bytes -> {
+                    meterRegistry.counter("idempotency.cache.hits").increment();
+                    return write(response, HttpStatusCode.valueOf(cached.getStatusCode()),
+                            MediaType.parseMediaType(cached.getContentType()), bytes).thenReturn(true);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    // The transaction is gone, so the request left nothing behind: expire the record,
+                    // as storing never overwrites a live one, and run it again
+                    logger.warn("Idempotency record references missing transaction {}", cached.getResourceId());
+                    return idempotencyRepository.expireReference(idempotencyKey, requestHash, cached.getResourceId())
+                            .then(Mono.empty());
+                }));
+    }
+
+    private byte[] render(Object transaction) {
+        try {
+            return objectMapper.writeValueAsBytes(transaction);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Mono<Void> handleConflict(ServerHttpResponse response) {
+        return writeError(response, HttpStatus.CONFLICT, "Idempotency key already used with different request parameters");
+    }
+
+    private Mono<Void> handleInProgress(ServerHttpResponse response) {
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, IN_PROGRESS_RETRY_AFTER_SECONDS);
+        return writeError(response, HttpStatus.CONFLICT, "A request with this idempotency key is already being processed");
+    }
+
+    private Mono<Void> writeError(ServerHttpResponse response, HttpStatus status, String error) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsBytes(Map.of("error", error)))
+                .flatMap(bytes -> write(response, status, MediaType.APPLICATION_JSON, bytes));
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, HttpStatusCode status, MediaType contentType,
+                                    byte[] body) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(contentType);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+
+    private static byte[] drain(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Keeps what the handler writes until the transaction has committed.
+     */
+    private static final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private volatile byte[] body = new byte[0];
+
+        CapturingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        @NonNull
+        public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(Flux.from(body))
+                    .doOnNext(joined -> this.body = drain(joined))
+                    .then();
+        }
+
+        @Override
+        @NonNull
+        public Mono<Void> writeAndFlushWith(@NonNull Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        @NonNull
+        public Mono<Void> setComplete() {
+            // Completed in copyBodyToResponse
+            return Mono.empty();
+        }
+
+        int status() {
+            HttpStatusCode status = getStatusCode();
+            return status == null ? HttpStatus.OK.value() : status.value();
+        }
+
+        byte[] body() {
+            return body;
+        }
+
+        String contentType() {
+            MediaType contentType = getHeaders().getContentType();
+            return contentType == null ? null : contentType.toString();
+        }
+
+        Mono<Void> copyBodyToResponse() {
+            byte[] bytes = body;
+            return getDelegate().writeWith(Mono.fromSupplier(() -> getDelegate().bufferFactory().wrap(bytes)));
+        }
+    }
+}
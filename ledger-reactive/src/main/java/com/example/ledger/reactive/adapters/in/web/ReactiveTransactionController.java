@@ -0,0 +1,67 @@
+package com.example.ledger.reactive.adapters.in.web;
+
+import com.example.ledger.adapters.in.web.dto.CreateTransactionRequest;
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.ValidationResult;
+import com.example.ledger.reactive.application.usecase.ReactiveCreateTransactionUseCase;
+import com.example.ledger.reactive.application.usecase.ReactiveGetAllTransactionsUseCase;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Inbound adapter mirroring TransactionController: same paths, request body, responses and
+ * status codes, with the request handled on the event loop end to end.
+ */
+@RestController
+@RequestMapping("/transactions")
+@Tag(name = "Transaction Management", description = "APIs for managing financial transactions")
+public class ReactiveTransactionController {
+
+    private final ReactiveCreateTransactionUseCase createTransactionUseCase;
+    private final ReactiveGetAllTransactionsUseCase getAllTransactionsUseCase;
+
+    public ReactiveTransactionController(ReactiveCreateTransactionUseCase createTransactionUseCase,
+                                         ReactiveGetAllTransactionsUseCase getAllTransactionsUseCase) {
+        this.createTransactionUseCase = createTransactionUseCase;
+        this.getAllTransactionsUseCase = getAllTransactionsUseCase;
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a new transaction",
+            description = "Creates a new financial transaction (expense or revenue) in the ledger")
+    public Mono<ResponseEntity<Object>> createTransaction(@RequestBody CreateTransactionRequest request,
+                                                          ServerWebExchange exchange) {
+        // Validated up front, as TransactionController does, so a rejection costs no exception
+        ValidationResult validation = request.validate();
+        if (!validation.isValid()) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", validation.getMessage());
+            error.put("violations", validation.getViolations());
+            return Mono.just(ResponseEntity.badRequest().body(error));
+        }
+        Transaction transaction = new Transaction(request.getAmount(), request.getDescription(), request.getType());
+        return createTransactionUseCase.create(transaction)
+                // Lets ReactiveIdempotencyWebFilter store a reference instead of the whole response
+                .doOnNext(saved -> exchange.getAttributes()
+                        .put(ReactiveIdempotencyWebFilter.CREATED_RESOURCE_ID_ATTRIBUTE, saved.getId()))
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping
+    @Operation(summary = "Get all transactions", description = "Retrieves all transactions from the ledger")
+    public Flux<Transaction> getAllTransactions() {
+        return getAllTransactionsUseCase.getAll();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.ledger.reactive.adapters.out.persistence;
+
+import com.example.ledger.adapters.out.persistence.ResponseBodyCodec;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.RecordAlreadyStoredException;
+import com.example.ledger.reactive.application.port.ReactiveIdempotencyRepositoryPort;
+import io.r2dbc.spi.R2dbcException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outbound adapter storing idempotency keys with R2DBC, in the idempotency_keys table and
+ * format of the servlet stack's DatabaseIdempotencyAdapter: bodies are encoded with
+ * ResponseBodyCodec, and a reference record holds only the created transaction's id. Both
+ * stacks can therefore serve the same keys from one database.
+ */
+@Component
+public class R2dbcIdempotencyAdapter implements ReactiveIdempotencyRepositoryPort {
+
+    private static final int CLIENT_ERROR = 400;
+    // SQLSTATE of a unique constraint violation, on H2 and PostgreSQL alike
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final DatabaseClient databaseClient;
+
+    public R2dbcIdempotencyAdapter(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<IdempotencyResponse> getCachedResponse(String idempotencyKey, String requestHash) {
+        return databaseClient.sql("SELECT id, status_code, response_body, resource_id, expires_at"
+                        + " FROM idempotency_keys WHERE idempotency_key = :key AND request_hash = :hash")
+                .bind("key", idempotencyKey)
+                .bind("hash", requestHash)
+                .map(row -> new StoredRecord(
+                        row.get("id", Long.class),
+                        row.get("status_code", Integer.class),
+                        row.get("response_body", byte[].class),
+                        row.get("resource_id", UUID.class),
+                        row.get("expires_at", LocalDateTime.class)))
+                .one()
+                .flatMap(stored -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    if (stored.expiresAt().isBefore(now)) {
+                        // Guarded by expiry, so a cleanup run that removed the row meanwhile is not an error
+                        return databaseClient.sql("DELETE FROM idempotency_keys WHERE id = :id AND expires_at < :now")
+                                .bind("id", stored.id())
+                                .bind("now", now)
+                                .then()
+                                .then(Mono.empty());
+                    }
+                    if (stored.resourceId() != null) {
+                        return Mono.just(IdempotencyResponse.reference(stored.statusCode(), stored.resourceId()));
+                    }
+                    return Mono.just(ResponseBodyCodec.decodeResponse(stored.statusCode(), stored.body()));
+                });
+    }
+
+    @Override
+    public Mono<Void> storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response,
+                                    Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        byte[] body = response.isReference() ? null : ResponseBodyCodec.encode(response.getResponseBodyBytes(), response.getContentType());
+        // Only an expired row is replaced, so a response that is still replayed is never overwritten
+        DatabaseClient.GenericExecuteSpec update = databaseClient.sql("UPDATE idempotency_keys"
+                        + " SET status_code = :status, response_body = :body, resource_id = :resource,"
+                        + " created_at = :now, expires_at = :expires"
+                        + " WHERE idempotency_key = :key AND request_hash = :hash AND expires_at <= :now")
+                .bind("key", idempotencyKey)
+                .bind("hash", requestHash)
+                .bind("status", response.getStatusCode())
+                .bind("now", now)
+                .bind("expires", now.plus(ttl));
+        update = body == null ? update.bindNull("body", byte[].class) : update.bind("body", body);
+        update = response.isReference()
+                ? update.bind("resource", response.getResourceId())
+                : update.bindNull("resource", UUID.class);
+
+        return update.fetch().rowsUpdated().flatMap(updated -> {
+            if (updated > 0) {
+                return Mono.empty();
+            }
+            // A live row for the key and hash fails it on the unique (key, request hash) constraint
+            DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("INSERT INTO idempotency_keys"
+                            + " (idempotency_key, request_hash, status_code, response_body, resource_id, created_at, expires_at)"
+                            + " VALUES (:key, :hash, :status, :body, :resource, :created, :expires)")
+                    .bind("key", idempotencyKey)
+                    .bind("hash", requestHash)
+                    .bind("status", response.getStatusCode())
+                    .bind("created", now)
+                    .bind("expires", now.plus(ttl));
+            insert = body == null ? insert.bindNull("body", byte[].class) : insert.bind("body", body);
+            insert = response.isReference()
+                    ? insert.bind("resource", response.getResourceId())
+                    : insert.bindNull("resource", UUID.class);
+            return insert.then()
+                    .onErrorMap(R2dbcIdempotencyAdapter::isUniqueViolation,
+                            e -> new RecordAlreadyStoredException(idempotencyKey, e));
+        });
+    }
+
+    @Override
+    public Mono<Void> expireReference(String idempotencyKey, String requestHash, UUID resourceId) {
+        return databaseClient.sql("UPDATE idempotency_keys SET expires_at = :now WHERE idempotency_key = :key"
+                        + " AND request_hash = :hash AND resource_id = :resource AND expires_at > :now")
+                .bind("key", idempotencyKey)
+                .bind("hash", requestHash)
+                .bind("resource", resourceId)
+                .bind("now", LocalDateTime.now())
+                .then();
+    }
+
+    @Override
+    public Mono<Boolean> hasKeyWithDifferentHash(String idempotencyKey, String requestHash) {
+        // Cached client errors never conflict
+        return databaseClient.sql("SELECT id FROM idempotency_keys WHERE idempotency_key = :key"
+                        + " AND request_hash <> :hash AND status_code < :clientError FETCH FIRST 1 ROWS ONLY")
+                .bind("key", idempotencyKey)
+                .bind("hash", requestHash)
+                .bind("clientError", CLIENT_ERROR)
+                .map(row -> row.get("id", Long.class))
+                .first()
+                .hasElement();
+    }
+
+    @Override
+    public Mono<Integer> deleteExpiredKeys(int maxRows) {
+        LocalDateTime now = LocalDateTime.now();
+        // Oldest ids first along the expires_at index, then a delete by primary key,
+        // so each batch touches at most maxRows rows
+        return databaseClient.sql("SELECT id FROM idempotency_keys WHERE expires_at < :now"
+                        + " ORDER BY expires_at FETCH FIRST " + maxRows + " ROWS ONLY")
+                .bind("now", now)
+                .map(row -> row.get("id", Long.class))
+                .all()
+                .collectList()
+                .flatMap(ids -> ids.isEmpty()
+                        ? Mono.just(0)
+                        : deleteExpiredByIdIn(ids, now));
+    }
+
+    private Mono<Integer> deleteExpiredByIdIn(List<Long> ids, LocalDateTime now) {
+        return databaseClient.sql("DELETE FROM idempotency_keys WHERE id IN (:ids) AND expires_at < :now")
+                .bind("ids", ids)
+                .bind("now", now)
+                .fetch()
+                .rowsUpdated()
+                .map(Long::intValue);
+    }
+
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof R2dbcException r2dbcException && UNIQUE_VIOLATION.equals(r2dbcException.getSqlState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record StoredRecord(Long id, int statusCode, byte[] body, UUID resourceId, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ledger.reactive.adapters.out.persistence;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import com.example.ledger.reactive.domain.port.ReactiveTransactionRepositoryPort;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Outbound adapter storing transactions with R2DBC, in the transactions table the servlet
+ * stack's TransactionRepositoryAdapter maps with JPA.
+ *
+ * Like that adapter, save() rounds the date and amount to the precision of their columns when
+ * idempotent responses are stored as references, which are re-rendered from the row.
+ */
+@Component
+public class R2dbcTransactionRepositoryAdapter implements ReactiveTransactionRepositoryPort {
+
+    private static final String COLUMNS = "id, date, amount, description, type";
+
+    // Precision of the date and amount columns: timestamp(6) and numeric(38,2)
+    private static final ChronoUnit DATE_PRECISION = ChronoUnit.MICROS;
+    private static final int AMOUNT_SCALE = 2;
+
+    private final DatabaseClient databaseClient;
+    private final boolean roundToColumns;
+
+    public R2dbcTransactionRepositoryAdapter(DatabaseClient databaseClient,
+                                             @Value("${idempotency.response-storage.mode:full}") String responseStorageMode) {
+        this.databaseClient = databaseClient;
+        this.roundToColumns = "reference".equalsIgnoreCase(responseStorageMode);
+    }
+
+    @Override
+    public Mono<Transaction> save(Transaction given) {
+        Transaction transaction = roundToColumns
+                ? new Transaction(given.getId(), given.getDate().truncatedTo(DATE_PRECISION),
+                        given.getAmount().setScale(AMOUNT_SCALE, RoundingMode.HALF_UP),
+                        given.getDescription(), given.getType())
+                : given;
+        return databaseClient.sql("INSERT INTO transactions (" + COLUMNS + ")"
+                        + " VALUES (:id, :date, :amount, :description, :type)")
+                .bind("id", transaction.getId())
+                .bind("date", transaction.getDate())
+                .bind("amount", transaction.getAmount())
+                .bind("description", transaction.getDescription())
+                .bind("type", transaction.getType().name())
+                .then()
+                .thenReturn(transaction);
+    }
+
+    @Override
+    public Flux<Transaction> findAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM transactions")
+                .map(R2dbcTransactionRepositoryAdapter::toDomain)
+                .all();
+    }
+
+    @Override
+    public Mono<Transaction> findById(UUID id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM transactions WHERE id = :id")
+                .bind("id", id)
+                .map(R2dbcTransactionRepositoryAdapter::toDomain)
+                .one();
+    }
+
+    private static Transaction toDomain(Readable row) {
+        return new Transaction(
+                row.get("id", UUID.class),
+                row.get("date", LocalDateTime.class),
+                row.get("amount", BigDecimal.class),
+                row.get("description", String.class),
+                TransactionType.valueOf(row.get("type", String.class)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ledger.reactive.adapters.out.scheduling;
+
+import com.example.ledger.reactive.application.port.ReactiveIdempotencyRepositoryPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scheduled task for cleaning up expired idempotency keys, the non-blocking counterpart of
+ * the servlet stack's IdempotencyCleanupScheduler.
+ *
+ * Keys are deleted in bounded batches with a pause in between, until a batch comes back
+ * short or the run's time budget is spent. There is no cluster-wide lease: deletes are
+ * guarded by expiry, so nodes cleaning up at the same time only repeat each other's work.
+ * Publishes idempotency.cleanup.rows.deleted and idempotency.cleanup.batches.
+ */
+@Component
+public class ReactiveIdempotencyCleanupScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveIdempotencyCleanupScheduler.class);
+
+    private final ReactiveIdempotencyRepositoryPort idempotencyRepository;
+    private final int batchSize;
+    private final Duration pauseBetweenBatches;
+    private final Duration maxRunDuration;
+    private final Counter rowsDeleted;
+    private final Counter batches;
+
+    public ReactiveIdempotencyCleanupScheduler(ReactiveIdempotencyRepositoryPort idempotencyRepository,
+                                               @Value("${idempotency.cleanup.batch-size:1000}") int batchSize,
+                                               @Value("${idempotency.cleanup.pause-between-batches:100ms}") Duration pauseBetweenBatches,
+                                               @Value("${idempotency.cleanup.max-run-duration:5m}") Duration maxRunDuration,
+                                               MeterRegistry meterRegistry) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.batchSize = batchSize;
+        this.pauseBetweenBatches = pauseBetweenBatches;
+        this.maxRunDuration = maxRunDuration;
+        this.rowsDeleted = meterRegistry.counter("idempotency.cleanup.rows.deleted");
+        this.batches = meterRegistry.counter("idempotency.cleanup.batches");
+    }
+
+    @Scheduled(fixedRate = 3600000) // 1 hour in milliseconds
+    public Mono<Void> cleanupExpiredKeys() {
+        AtomicInteger totalDeleted = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        return Mono.defer(() -> idempotencyRepository.deleteExpiredKeys(batchSize))
+                .doOnNext(deleted -> {
+                    batches.increment();
+                    rowsDeleted.increment(deleted);
+                    totalDeleted.addAndGet(deleted);
+                })
+                .repeatWhen(completed -> completed.delayElements(pauseBetweenBatches))
+                .takeUntil(deleted -> deleted < batchSize)
+                .take(maxRunDuration)
+                .then()
+                .doOnSuccess(done -> logger.info("Completed scheduled cleanup of expired idempotency keys in {} ms: deleted {}",
+                        System.currentTimeMillis() - start, totalDeleted.get()))
+                .onErrorResume(e -> {
+                    logger.error("Error during scheduled cleanup of expired idempotency keys after deleting {} keys",
+                            totalDeleted.get(), e);
+                    return Mono.empty();
+                });
+    }
+}
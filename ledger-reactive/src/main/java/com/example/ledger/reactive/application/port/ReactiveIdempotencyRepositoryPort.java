@@ -0,0 +1,69 @@
+package com.example.ledger.reactive.application.port;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of IdempotencyRepositoryPort, limited to what a request needs:
+ * lookups, conflict checks, storing a response and batched cleanup.
+ */
+public interface ReactiveIdempotencyRepositoryPort {
+
+    /**
+     * Gets the stored response for a key and request hash. An expired record is deleted
+     * and not returned.
+     */
+    Mono<IdempotencyResponse> getCachedResponse(String idempotencyKey, String requestHash);
+
+    /**
+     * Stores a response with the default TTL.
+     */
+    default Mono<Void> storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response) {
+        return storeResponse(idempotencyKey, requestHash, response, IdempotencyRepositoryPort.DEFAULT_TTL);
+    }
+
+    /**
+     * Stores a response. Never overwrites a record for the key and request hash that has not
+     * expired: fails with RecordAlreadyStoredException if one is stored, e.g. meanwhile by
+     * another instance.
+     */
+    Mono<Void> storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response, Duration ttl);
+
+    /**
+     * Expires a reference response whose transaction does not exist, so the request can be
+     * processed and stored again. Nothing changes unless the live record for the key and hash
+     * still references resourceId.
+     */
+    Mono<Void> expireReference(String idempotencyKey, String requestHash, UUID resourceId);
+
+    /**
+     * Checks whether a successful response is stored for the key under a different request hash.
+     */
+    Mono<Boolean> hasKeyWithDifferentHash(String idempotencyKey, String requestHash);
+
+    /**
+     * Deletes at most maxRows expired keys, oldest first.
+     *
+     * @return the number of keys deleted
+     */
+    Mono<Integer> deleteExpiredKeys(int maxRows);
+
+    /**
+     * Idempotency keys are UUIDs, as in IdempotencyRepositoryPort.
+     */
+    default boolean isValidKey(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return false;
+        }
+        try {
+            UUID.fromString(idempotencyKey);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
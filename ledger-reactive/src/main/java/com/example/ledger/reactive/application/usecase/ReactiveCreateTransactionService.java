@@ -0,0 +1,21 @@
+package com.example.ledger.reactive.application.usecase;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.reactive.domain.port.ReactiveTransactionRepositoryPort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveCreateTransactionService implements ReactiveCreateTransactionUseCase {
+
+    private final ReactiveTransactionRepositoryPort repository;
+
+    public ReactiveCreateTransactionService(ReactiveTransactionRepositoryPort repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Mono<Transaction> create(Transaction transaction) {
+        return repository.save(transaction);
+    }
+}
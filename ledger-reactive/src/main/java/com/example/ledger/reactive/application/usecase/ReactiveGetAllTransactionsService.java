@@ -0,0 +1,21 @@
+package com.example.ledger.reactive.application.usecase;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.reactive.domain.port.ReactiveTransactionRepositoryPort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+@Service
+public class ReactiveGetAllTransactionsService implements ReactiveGetAllTransactionsUseCase {
+
+    private final ReactiveTransactionRepositoryPort repository;
+
+    public ReactiveGetAllTransactionsService(ReactiveTransactionRepositoryPort repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Flux<Transaction> getAll() {
+        return repository.findAll();
+    }
+}
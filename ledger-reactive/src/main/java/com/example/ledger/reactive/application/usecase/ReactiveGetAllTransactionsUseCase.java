@@ -0,0 +1,8 @@
+package com.example.ledger.reactive.application.usecase;
+
+import com.example.ledger.domain.model.Transaction;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveGetAllTransactionsUseCase {
+    Flux<Transaction> getAll();
+}
@@ -0,0 +1,30 @@
+package com.example.ledger.reactive.config;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.Map;
+
+/**
+ * Error responses of the servlet stack's GlobalExceptionHandler, for WebFlux.
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.status(400).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidRequest(ServerWebInputException ex) {
+        String errorMessage = "Invalid request format";
+        if (ex.getMostSpecificCause().getMessage() != null
+                && ex.getMostSpecificCause().getMessage().contains("TransactionType")) {
+            errorMessage = "Invalid transaction type. Must be either EXPENSE or REVENUE";
+        }
+        return ResponseEntity.status(400).body(Map.of("error", errorMessage));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.ledger.reactive.domain.port;
+
+import com.example.ledger.domain.model.Transaction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of TransactionRepositoryPort.
+ */
+public interface ReactiveTransactionRepositoryPort {
+    Mono<Transaction> save(Transaction transaction);
+    Flux<Transaction> findAll();
+    Mono<Transaction> findById(UUID id);
+}
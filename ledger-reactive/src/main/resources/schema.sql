@@ -0,0 +1,22 @@
+-- Same tables as the servlet stack's TransactionEntity and IdempotencyEntity
+CREATE TABLE IF NOT EXISTS transactions (
+    id UUID PRIMARY KEY,
+    date TIMESTAMP,
+    amount DECIMAL(38, 2),
+    description VARCHAR(255),
+    type VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INT NOT NULL,
+    response_body VARBINARY(1048576),
+    resource_id UUID,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_idempotency_keys_key_hash UNIQUE (idempotency_key, request_hash)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
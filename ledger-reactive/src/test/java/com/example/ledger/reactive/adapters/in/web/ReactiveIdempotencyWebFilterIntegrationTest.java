@@ -0,0 +1,125 @@
+package com.example.ledger.reactive.adapters.in.web;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.RecordAlreadyStoredException;
+import com.example.ledger.reactive.application.port.ReactiveIdempotencyRepositoryPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Integration tests for ReactiveIdempotencyWebFilter: replays, conflicts and key validation
+ * behave as with IdempotencyFilter on the servlet stack.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureWebTestClient
+public class ReactiveIdempotencyWebFilterIntegrationTest {
+
+    private static final String REQUEST_BODY =
+            "{\"amount\":100.00,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReactiveIdempotencyRepositoryPort idempotencyRepository;
+
+    @Test
+    public void shouldReplayCachedResponseForSameKeyAndBody() {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"amount\":100.00,\"description\":\"Supplies " + key + "\",\"type\":\"EXPENSE\"}";
+
+        byte[] first = post(key, body)
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+        double hitsBefore = meterRegistry.counter("idempotency.cache.hits").count();
+        byte[] second = post(key, body)
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        assertArrayEquals(first, second);
+        assertEquals(hitsBefore + 1, meterRegistry.counter("idempotency.cache.hits").count(), 0.0);
+        assertEquals(Long.valueOf(1), count("SELECT COUNT(*) AS n FROM transactions WHERE description = :value",
+                "Supplies " + key));
+    }
+
+    @Test
+    public void shouldRejectSameKeyWithDifferentBody() {
+        String key = UUID.randomUUID().toString();
+        post(key, REQUEST_BODY).expectStatus().isOk();
+
+        post(key, "{\"amount\":200.00,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}")
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Idempotency key already used with different request parameters");
+    }
+
+    @Test
+    public void shouldNotOverwriteALiveRecordStoredByAnotherInstance() {
+        String key = UUID.randomUUID().toString();
+        String hash = "a".repeat(64);
+        idempotencyRepository.storeResponse(key, hash, new IdempotencyResponse(200, "{\"winner\":true}")).block();
+
+        StepVerifier.create(idempotencyRepository.storeResponse(key, hash, new IdempotencyResponse(200, "{}")))
+                .expectError(RecordAlreadyStoredException.class)
+                .verify();
+
+        assertEquals("{\"winner\":true}", idempotencyRepository.getCachedResponse(key, hash).block().getResponseBody());
+    }
+
+    @Test
+    public void shouldRejectInvalidKey() {
+        post("not-a-uuid", REQUEST_BODY)
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Invalid idempotency key format");
+    }
+
+    @Test
+    public void shouldNotCacheClientErrors() {
+        String key = UUID.randomUUID().toString();
+        String invalid = "{\"amount\":-1.00,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+        post(key, invalid).expectStatus().isBadRequest();
+
+        assertEquals(Long.valueOf(0), count("SELECT COUNT(*) AS n FROM idempotency_keys WHERE idempotency_key = :value", key));
+    }
+
+    private WebTestClient.ResponseSpec post(String key, String body) {
+        return webTestClient.post().uri("/transactions")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange();
+    }
+
+    private Long count(String sql, String value) {
+        return databaseClient.sql(sql)
+                .bind("value", value)
+                .map(row -> row.get("n", Long.class))
+                .one()
+                .block();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ledger.reactive.adapters.in.web;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Integration tests for storing idempotent responses as references on the reactive stack.
+ *
+ * Only the created transaction's id is stored; a replay must still return exactly the bytes
+ * of the original response.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureWebTestClient
+@TestPropertySource(properties = "idempotency.response-storage.mode=reference")
+public class ReactiveReferenceStorageIntegrationTest {
+
+    private static final String REQUEST_BODY =
+            "{\"amount\":640.00,\"description\":\"Standing desk\",\"type\":\"EXPENSE\"}";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    public void shouldStoreReferenceAndReplayIdenticalBytes() {
+        String key = UUID.randomUUID().toString();
+
+        byte[] first = post(key);
+        StoredRow stored = databaseClient.sql("SELECT response_body, resource_id FROM idempotency_keys WHERE idempotency_key = :key")
+                .bind("key", key)
+                .map(row -> new StoredRow(row.get("response_body", byte[].class), row.get("resource_id", UUID.class)))
+                .one()
+                .block();
+        byte[] replayed = post(key);
+
+        assertNotNull(stored);
+        assertNull(stored.body());
+        assertNotNull(stored.resourceId());
+        assertArrayEquals(first, replayed);
+    }
+
+    private byte[] post(String key) {
+        return webTestClient.post().uri("/transactions")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(REQUEST_BODY)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+    }
+
+    private record StoredRow(byte[] body, UUID resourceId) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.ledger.reactive.adapters.in.web;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Integration tests for the reactive transaction endpoints: same responses and status codes
+ * as TransactionController on the servlet stack, stored through R2DBC.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureWebTestClient
+public class ReactiveTransactionControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    public void shouldCreateTransactionAndListIt() {
+        webTestClient.post().uri("/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\":42.10,\"description\":\"Reactive supplies\",\"type\":\"EXPENSE\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").exists()
+                .jsonPath("$.date").exists()
+                .jsonPath("$.amount").isEqualTo(42.10)
+                .jsonPath("$.description").isEqualTo("Reactive supplies")
+                .jsonPath("$.type").isEqualTo("EXPENSE");
+
+        webTestClient.get().uri("/transactions")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[?(@.description == 'Reactive supplies')].type").isEqualTo("EXPENSE");
+    }
+
+    @Test
+    public void shouldRejectNonPositiveAmount() {
+        webTestClient.post().uri("/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\":-5.00,\"description\":\"Refund\",\"type\":\"EXPENSE\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Amount must be positive");
+    }
+
+    @Test
+    public void shouldRejectUnknownTransactionType() {
+        webTestClient.post().uri("/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\":5.00,\"description\":\"Gift\",\"type\":\"TRANSFER\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Invalid transaction type. Must be either EXPENSE or REVENUE");
+    }
+}
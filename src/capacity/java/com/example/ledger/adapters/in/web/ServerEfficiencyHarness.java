@@ -0,0 +1,223 @@
+package com.example.ledger.adapters.in.web;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load harness comparing how efficiently a running ledger server uses the machine, so the
+ * servlet stack and the reactive stack (ledger-reactive) can be measured the same way.
+ *
+ * It only drives the server from the outside: start either jar, then point the harness at
+ * its URL and process id. For each client count, that many clients (virtual threads) create
+ * transactions with fresh idempotency keys in a closed loop; the server's CPU time over the
+ * measured window, read from the operating system, gives requests per CPU-second, i.e.
+ * throughput per core whatever the core count. Then idle-connections connections are opened
+ * and held without sending anything, and the growth of the server's resident memory and
+ * thread count, read from /proc, gives the cost of one open connection.
+ *
+ * Options:
+ * - capacity.pid: process id of the server (required)
+ * - capacity.url (http://localhost:8080): where the server listens
+ * - capacity.clients (16,256): concurrent clients per run
+ * - capacity.duration (PT20S), capacity.warmup (PT5S): measured and discarded time per run
+ * - capacity.idle-connections (5000): connections held open for the memory measurement, 0 to skip
+ * - capacity.settle (PT5S): wait before reading memory, for the server to accept everything
+ *
+ * Resident memory includes heap the server has not collected yet, so compare runs with the
+ * same -Xmx, and prefer large connection counts where the per-connection part dominates.
+ * Linux only, as it reads /proc/pid/status.
+ *
+ * Run with: mvn -Pcapacity test-compile exec:exec -Dcapacity.harness=com.example.ledger.adapters.in.web.ServerEfficiencyHarness
+ * -Dcapacity.args="--capacity.pid=12345"
+ */
+public final class ServerEfficiencyHarness {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final String REQUEST_BODY =
+            "{\"amount\":25.50,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+    private final StandardEnvironment options = new StandardEnvironment();
+    private final List<String> summary = new ArrayList<>();
+
+    private ServerEfficiencyHarness(String[] args) {
+        options.setConversionService(new ApplicationConversionService());
+        options.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new ServerEfficiencyHarness(args).run();
+    }
+
+    private void run() throws Exception {
+        Long pid = option("pid", Long.class, null);
+        if (pid == null) {
+            throw new IllegalArgumentException("--capacity.pid is required");
+        }
+        ProcessHandle server = ProcessHandle.of(pid)
+                .orElseThrow(() -> new IllegalArgumentException("No process " + pid));
+        URI baseUri = URI.create(option("url", String.class, "http://localhost:8080"));
+        Integer[] clientCounts = options.getProperty("capacity.clients", Integer[].class, new Integer[] {16, 256});
+        int idleConnections = option("idle-connections", Integer.class, 5000);
+
+        System.out.printf("Server %d (%s) at %s%n", pid, server.info().command().orElse("?"), baseUri);
+        summary.add(String.format("%8s %10s %12s %12s %9s %9s %8s",
+                "clients", "req/s", "cpu s/s", "req/cpu-s", "p50 ms", "p99 ms", "errors"));
+        for (int clients : clientCounts) {
+            load(server, baseUri.resolve("/transactions"), clients);
+        }
+        if (idleConnections > 0) {
+            holdIdleConnections(pid, baseUri, idleConnections);
+        }
+        System.out.println();
+        summary.forEach(System.out::println);
+    }
+
+    private void load(ProcessHandle server, URI uri, int clients) throws Exception {
+        Duration warmup = option("warmup", Duration.class, Duration.ofSeconds(5));
+        Duration duration = option("duration", Duration.class, Duration.ofSeconds(20));
+        Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .executor(clientThreads)
+                     .connectTimeout(REQUEST_TIMEOUT)
+                     .build()) {
+            List<Future<?>> running = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                running.add(clientThreads.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .timeout(REQUEST_TIMEOUT)
+                                .header("Content-Type", "application/json")
+                                .header("Idempotency-Key", UUID.randomUUID().toString())
+                                .POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+                                .build();
+                        long begin = System.nanoTime();
+                        String error;
+                        try {
+                            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            error = status == 200 ? null : "HTTP " + status;
+                        } catch (IOException e) {
+                            error = e.getClass().getSimpleName();
+                        }
+                        if (begin >= measureFrom) {
+                            if (error == null) {
+                                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+                                recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                            } else {
+                                errors.computeIfAbsent(error, e -> new LongAdder()).increment();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            TimeUnit.NANOSECONDS.sleep(measureFrom - System.nanoTime());
+            recorder.reset();
+            Duration cpuAtMeasureFrom = cpuTime(server);
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, deadline - System.nanoTime()));
+            Histogram histogram = recorder.getIntervalHistogram();
+            double cpuSeconds = cpuTime(server).minus(cpuAtMeasureFrom).toNanos() / 1e9;
+            for (Future<?> client : running) {
+                client.get();
+            }
+            report(clients, duration, cpuSeconds, histogram, errors);
+        }
+    }
+
+    private void report(int clients, Duration duration, double cpuSeconds, Histogram histogram,
+                        Map<String, LongAdder> errors) {
+        long errorCount = errors.values().stream().mapToLong(LongAdder::sum).sum();
+        double seconds = duration.toNanos() / 1e9;
+        String line = String.format("%8d %10.0f %12.2f %12.0f %9.3f %9.3f %8d",
+                clients,
+                histogram.getTotalCount() / seconds,
+                cpuSeconds / seconds,
+                cpuSeconds == 0 ? 0 : histogram.getTotalCount() / cpuSeconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                errorCount);
+        summary.add(line);
+        System.out.println(line + (errors.isEmpty() ? "" : "  " + errors));
+    }
+
+    /**
+     * Opens connections without sending a request, as idle keep-alive clients would hold them,
+     * and reports how much the server grew for them.
+     */
+    private void holdIdleConnections(long pid, URI baseUri, int count) throws Exception {
+        Duration settle = option("settle", Duration.class, Duration.ofSeconds(5));
+        InetSocketAddress address = new InetSocketAddress(baseUri.getHost(), baseUri.getPort());
+        long[] before = residentKbAndThreads(pid);
+        List<Socket> sockets = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                Socket socket = new Socket();
+                socket.connect(address, (int) REQUEST_TIMEOUT.toMillis());
+                sockets.add(socket);
+            }
+            TimeUnit.MILLISECONDS.sleep(settle.toMillis());
+            long[] after = residentKbAndThreads(pid);
+            summary.add("");
+            summary.add(String.format("%d idle connections: RSS %d -> %d KiB (%.1f KiB per connection), threads %d -> %d",
+                    count, before[0], after[0], (after[0] - before[0]) / (double) count, before[1], after[1]));
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    private static Duration cpuTime(ProcessHandle server) {
+        return server.info().totalCpuDuration()
+                .orElseThrow(() -> new IllegalStateException("CPU time of process " + server.pid() + " is not available"));
+    }
+
+    /**
+     * @return VmRSS in KiB and the thread count, from /proc/pid/status
+     */
+    private static long[] residentKbAndThreads(long pid) throws IOException {
+        long[] values = new long[2];
+        for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+            if (line.startsWith("VmRSS:")) {
+                values[0] = Long.parseLong(line.replaceAll("\\D+", ""));
+            } else if (line.startsWith("Threads:")) {
+                values[1] = Long.parseLong(line.replaceAll("\\D+", ""));
+            }
+        }
+        return values;
+    }
+
+    private <T> T option(String name, Class<T> type, T defaultValue) {
+        return options.getProperty("capacity." + name, type, defaultValue);
+    }
+}
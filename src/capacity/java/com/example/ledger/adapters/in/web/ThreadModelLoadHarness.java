@@ -0,0 +1,274 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.LedgerServiceApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load harness comparing request handling on platform threads against virtual threads.
+ *
+ * For each thread model, boots the application with an embedded server on a random port and
+ * the virtual-threads profile, with spring.threads.virtual.enabled switched off for platform
+ * threads, so the connection pool and Tomcat limits are the same and only the threads differ.
+ * Every JDBC statement is delayed by db-latency, standing in for the network round trip to a
+ * real database that an in-memory H2 does not have: that wait is what blocks a platform
+ * thread. Then, for each client count, that many clients (virtual threads on the client side)
+ * create transactions with fresh idempotency keys in a closed loop, and latencies are recorded
+ * in HdrHistograms and written as .hgrm percentile distributions (in milliseconds), one per
+ * run, next to a summary on stdout.
+ *
+ * Options:
+ * - capacity.modes (platform,virtual): thread models to measure
+ * - capacity.clients (1000,10000,50000): concurrent clients per run
+ * - capacity.duration (PT30S), capacity.warmup (PT5S): measured and discarded time per run
+ * - capacity.think-time (PT0S): pause between a client's requests
+ * - capacity.db-latency (PT0.005S): delay added to every JDBC statement
+ * - capacity.output (target/capacity): where the .hgrm files go
+ * Any other argument is passed to the application, e.g. --spring.datasource.hikari.maximum-pool-size=100.
+ *
+ * Client and server share the machine and the file descriptor limit: every connection takes
+ * two, so 50k clients need ulimit -n above 100000.
+ *
+ * Run with: mvn -Pcapacity test-compile exec:exec -Dcapacity.harness=com.example.ledger.adapters.in.web.ThreadModelLoadHarness
+ * -Dcapacity.jvm.args="-Djdk.tracePinnedThreads=short" to also report virtual threads pinned while blocking.
+ */
+public final class ThreadModelLoadHarness {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final String REQUEST_BODY =
+            "{\"amount\":25.50,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+    private final String[] args;
+    private final StandardEnvironment options = new StandardEnvironment();
+    private final List<String> summary = new ArrayList<>();
+
+    private ThreadModelLoadHarness(String[] args) {
+        this.args = args;
+        options.setConversionService(new ApplicationConversionService());
+        options.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new ThreadModelLoadHarness(args).run();
+    }
+
+    private void run() throws Exception {
+        String[] modes = options.getProperty("capacity.modes", String[].class, new String[] {"platform", "virtual"});
+        Integer[] clientCounts = options.getProperty("capacity.clients", Integer[].class, new Integer[] {1000, 10000, 50000});
+        Duration dbLatency = option("db-latency", Duration.class, Duration.ofMillis(5));
+
+        summary.add(String.format("%-9s %8s %10s %9s %9s %9s %9s %9s %8s",
+                "threads", "clients", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+        for (String mode : modes) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(LedgerServiceApplication.class)
+                    .profiles("virtual-threads")
+                    .properties(
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN",
+                            "server.port=0",
+                            "spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                            "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "feature.create-transaction.enabled=true")
+                    .initializers(applicationContext -> applicationContext.getBeanFactory()
+                            .addBeanPostProcessor(new DatabaseLatency(dbLatency)))
+                    .run(args);
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                System.out.printf("%s threads on port %d, %s per JDBC statement%n", mode, port, dbLatency);
+                for (int clients : clientCounts) {
+                    load(mode, port, clients);
+                }
+            } finally {
+                context.close();
+            }
+        }
+        System.out.println();
+        summary.forEach(System.out::println);
+        System.out.printf("%nHistograms written to %s%n", output().toAbsolutePath());
+    }
+
+    private void load(String mode, int port, int clients) throws Exception {
+        Duration warmup = option("warmup", Duration.class, Duration.ofSeconds(5));
+        Duration duration = option("duration", Duration.class, Duration.ofSeconds(30));
+        long thinkMillis = option("think-time", Duration.class, Duration.ZERO).toMillis();
+        URI uri = URI.create("http://localhost:" + port + "/transactions");
+        Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .executor(clientThreads)
+                     .connectTimeout(REQUEST_TIMEOUT)
+                     .build()) {
+            List<Future<?>> running = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                running.add(clientThreads.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .timeout(REQUEST_TIMEOUT)
+                                .header("Content-Type", "application/json")
+                                .header("Idempotency-Key", UUID.randomUUID().toString())
+                                .POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+                                .build();
+                        long begin = System.nanoTime();
+                        String error;
+                        try {
+                            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            error = status == 200 ? null : "HTTP " + status;
+                        } catch (IOException e) {
+                            error = e.getClass().getSimpleName();
+                        }
+                        if (begin >= measureFrom) {
+                            if (error == null) {
+                                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+                                recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                            } else {
+                                errors.computeIfAbsent(error, e -> new LongAdder()).increment();
+                            }
+                        }
+                        if (thinkMillis > 0) {
+                            Thread.sleep(thinkMillis);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : running) {
+                client.get();
+            }
+        }
+
+        report(mode, clients, duration, recorder.getIntervalHistogram(), errors);
+    }
+
+    private void report(String mode, int clients, Duration duration, Histogram histogram,
+                        Map<String, LongAdder> errors) throws IOException {
+        long errorCount = errors.values().stream().mapToLong(LongAdder::sum).sum();
+        String line = String.format("%-9s %8d %10.0f %9.3f %9.3f %9.3f %9.3f %9.3f %8d",
+                mode, clients,
+                histogram.getTotalCount() / (double) duration.toSeconds(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                errorCount);
+        summary.add(line);
+        System.out.println(line + (errors.isEmpty() ? "" : "  " + errors));
+
+        Files.createDirectories(output());
+        Path file = output().resolve("load-" + mode + "-" + clients + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private Path output() {
+        return Path.of(option("output", String.class, "target/capacity"));
+    }
+
+    private <T> T option(String name, Class<T> type, T defaultValue) {
+        return options.getProperty("capacity." + name, type, defaultValue);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Delays every statement the application executes by a fixed latency, as a database
+     * across the network would.
+     */
+    private static final class DatabaseLatency implements BeanPostProcessor {
+
+        private final long latencyMillis;
+
+        DatabaseLatency(Duration latency) {
+            this.latencyMillis = latency.toMillis();
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (!(bean instanceof DataSource dataSource) || latencyMillis == 0) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return wrap(Connection.class, super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return wrap(Connection.class, super.getConnection(username, password));
+                }
+            };
+        }
+
+        /**
+         * Proxies a connection so the statements it creates are proxied too, and a statement
+         * so each execute call sleeps first.
+         */
+        private <T> T wrap(Class<T> type, T target) {
+            InvocationHandler handler = (proxy, method, arguments) -> {
+                if (target instanceof Statement && method.getName().startsWith("execute")) {
+                    Thread.sleep(latencyMillis);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, arguments);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    @SuppressWarnings("unchecked")
+                    Class<Statement> statementType = (Class<Statement>) method.getReturnType();
+                    return wrap(statementType, (Statement) result);
+                }
+                return result;
+            };
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.LedgerServiceApplication;
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Capacity harness for the idempotency store at production volume.
+ *
+ * Boots the application without a web server against the configured database, seeds
+ * idempotency_keys (unless told to reuse an earlier seed), then runs lookups and stores
+ * through IdempotencyRepositoryPort from several threads while expired keys are cleaned up
+ * in the background, the way IdempotencyCleanupScheduler does it. Latencies are recorded in
+ * HdrHistograms and written as .hgrm percentile distributions (in milliseconds), one per
+ * operation, next to a summary on stdout.
+ *
+ * Options are Spring properties, so the datasource can be switched as well:
+ * - capacity.keys (1000000): keys to seed
+ * - capacity.expired-fraction (0.05): share of seeded keys already expired, i.e. cleanup backlog;
+ *   live keys expire evenly over the next 24 hours, like a store in steady state
+ * - capacity.seed (true): false reuses the keys seeded by an earlier run
+ * - capacity.threads (8), capacity.duration (PT1M): load generators and how long they run
+ * - capacity.lookup-ratio (0.8): share of lookups among the operations, the rest are stores
+ * - capacity.miss-ratio (0.1): share of lookups for keys that were never stored
+ * - capacity.cleanup (batched): batched (deleteExpiredKeys(batch-size) until done, repeated),
+ *   bulk (one deleteExpiredKeys() per cycle) or none
+ * - capacity.cleanup-interval (PT10S), capacity.batch-size (1000)
+ * - capacity.output (target/capacity): where the .hgrm files go
+ *
+ * Run with: mvn -Pcapacity test-compile exec:exec -Dcapacity.args="--capacity.keys=50000000 --capacity.duration=PT10M"
+ * and point it at the production database engine with --spring.datasource.url=... (plus its driver).
+ */
+public final class IdempotencyCapacityHarness {
+
+    private static final long KEY_PREFIX = 0x7ca9ac17e29b41d4L;
+    private static final int SEED_BATCH = 10_000;
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final IdempotencyRepositoryPort idempotencyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Environment environment;
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final AtomicLong nextStoredKey;
+    private final AtomicLong rowsCleaned = new AtomicLong();
+    private final AtomicLong cleanupConflicts = new AtomicLong();
+    private final long seededKeys;
+
+    private IdempotencyCapacityHarness(ConfigurableApplicationContext context) {
+        this.idempotencyRepository = context.getBean(IdempotencyRepositoryPort.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.environment = context.getEnvironment();
+        this.seededKeys = option("keys", Long.class, 1_000_000L);
+        this.nextStoredKey = new AtomicLong(seededKeys);
+        for (String operation : List.of("lookup", "store", "cleanup")) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LedgerServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:file:./target/capacity/idempotency;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.hibernate.ddl-auto=update")
+                .run(args);
+        try {
+            new IdempotencyCapacityHarness(context).run();
+        } finally {
+            context.close();
+        }
+    }
+
+    private void run() throws Exception {
+        if (option("seed", Boolean.class, true)) {
+            seed();
+        }
+
+        int threads = option("threads", Integer.class, 8);
+        Duration duration = option("duration", Duration.class, Duration.ofMinutes(1));
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<?>> load = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                load.add(executor.submit(() -> generateLoad(deadline)));
+            }
+            Future<?> cleanup = executor.submit(() -> cleanUp(deadline));
+            System.out.printf("Running %d threads for %s against %,d seeded keys%n", threads, duration, seededKeys);
+            for (Future<?> future : load) {
+                future.get();
+            }
+            cleanup.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report(duration);
+    }
+
+    /**
+     * Inserts the keys straight into the table, in batches: going through the adapter one key
+     * at a time would take hours at production volume.
+     */
+    private void seed() {
+        double expiredFraction = option("expired-fraction", Double.class, 0.05);
+        long expired = Math.round(seededKeys * expiredFraction);
+        long liveSpanSeconds = IdempotencyRepositoryPort.DEFAULT_TTL.toSeconds();
+        LocalDateTime now = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        jdbcTemplate.execute("DELETE FROM idempotency_keys");
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        for (long i = 0; i < seededKeys; i++) {
+            // Expired keys are spread over the last hour, live ones evenly over the TTL
+            LocalDateTime expiresAt = i < expired
+                    ? now.minusSeconds(1 + (i * 3600 / Math.max(expired, 1)))
+                    : now.plusSeconds(1 + ((i - expired) * liveSpanSeconds / Math.max(seededKeys - expired, 1)));
+            batch.add(new Object[] {key(i), hash(i), 200, ResponseBodyCodec.encode(body(i)),
+                    Timestamp.valueOf(expiresAt.minus(IdempotencyRepositoryPort.DEFAULT_TTL)),
+                    Timestamp.valueOf(expiresAt)});
+            if (batch.size() == SEED_BATCH || i == seededKeys - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO idempotency_keys"
+                        + " (idempotency_key, request_hash, status_code, response_body, created_at, expires_at)"
+                        + " VALUES (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+                if ((i + 1) % 1_000_000 == 0) {
+                    System.out.printf("Seeded %,d keys%n", i + 1);
+                }
+            }
+        }
+        System.out.printf("Seeded %,d keys (%,d expired) in %d s%n",
+                seededKeys, expired, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    private void generateLoad(long deadline) {
+        double lookupRatio = option("lookup-ratio", Double.class, 0.8);
+        double missRatio = option("miss-ratio", Double.class, 0.1);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Recorder lookups = recorders.get("lookup");
+        Recorder stores = recorders.get("store");
+        while (System.nanoTime() < deadline) {
+            long begin = System.nanoTime();
+            if (random.nextDouble() < lookupRatio) {
+                long i = random.nextDouble() < missRatio
+                        ? seededKeys + random.nextLong(Long.MAX_VALUE - seededKeys)
+                        : random.nextLong(seededKeys);
+                idempotencyRepository.getCachedResponse(key(i), hash(i));
+                record(lookups, begin);
+            } else {
+                long i = nextStoredKey.getAndIncrement();
+                idempotencyRepository.storeResponse(key(i), hash(i), new IdempotencyResponse(200, body(i)));
+                record(stores, begin);
+            }
+        }
+    }
+
+    /**
+     * Cleans up every cleanup-interval until the load stops, recording each delete call.
+     *
+     * IdempotencyCleanupScheduler also runs once at startup, as it would on another node whose
+     * lease overlaps; a batch that loses rows to it fails and is counted, not recorded.
+     */
+    private void cleanUp(long deadline) {
+        String mode = option("cleanup", String.class, "batched");
+        long intervalNanos = option("cleanup-interval", Duration.class, Duration.ofSeconds(10)).toNanos();
+        int batchSize = option("batch-size", Integer.class, 1000);
+        Recorder cleanups = recorders.get("cleanup");
+        while (!"none".equals(mode) && System.nanoTime() < deadline) {
+            long cycleStart = System.nanoTime();
+            try {
+                if ("bulk".equals(mode)) {
+                    rowsCleaned.addAndGet(idempotencyRepository.deleteExpiredKeys());
+                    record(cleanups, cycleStart);
+                } else {
+                    int deleted;
+                    do {
+                        long begin = System.nanoTime();
+                        deleted = idempotencyRepository.deleteExpiredKeys(batchSize);
+                        record(cleanups, begin);
+                        rowsCleaned.addAndGet(deleted);
+                    } while (deleted == batchSize && System.nanoTime() < deadline);
+                }
+            } catch (DataAccessException e) {
+                cleanupConflicts.incrementAndGet();
+            }
+            long sleepNanos = cycleStart + intervalNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(Math.min(sleepNanos, Math.max(0, deadline - System.nanoTime())));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void report(Duration duration) throws IOException {
+        Path output = Path.of(option("output", String.class, "target/capacity"));
+        Files.createDirectories(output);
+        System.out.printf("%n%-8s %10s %10s %9s %9s %9s %9s %9s%n",
+                "op", "count", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            Histogram histogram = entry.getValue().getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            System.out.printf("%-8s %10d %10.0f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    entry.getKey(),
+                    histogram.getTotalCount(),
+                    histogram.getTotalCount() / (double) duration.toSeconds(),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+            try (PrintStream out = new PrintStream(Files.newOutputStream(output.resolve(entry.getKey() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.printf("%nCleanup deleted %,d keys (%d conflicting batches); %,d expired keys left."
+                        + " Histograms written to %s%n",
+                rowsCleaned.get(), cleanupConflicts.get(), idempotencyRepository.countExpiredKeys(),
+                output.toAbsolutePath());
+    }
+
+    private <T> T option(String name, Class<T> type, T defaultValue) {
+        return environment.getProperty("capacity." + name, type, defaultValue);
+    }
+
+    private static void record(Recorder recorder, long beginNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - beginNanos);
+        recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String key(long i) {
+        return new UUID(KEY_PREFIX, i).toString();
+    }
+
+    private static String hash(long i) {
+        return String.format("%064x", i);
+    }
+
+    private static String body(long i) {
+        return "{\"id\":\"" + new UUID(KEY_PREFIX, i) + "\",\"amount\":100.00,\"description\":\"Office supplies\","
+                + "\"date\":\"2024-01-15T10:30:00\",\"type\":\"EXPENSE\"}";
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.LedgerServiceApplication;
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Latency of a first-attempt POST /transactions (a brand-new Idempotency-Key) through
+ * IdempotencyFilter and the full application, with and without IdempotencyKeyBloomFilter.
+ * The idempotency table is seeded first so the skipped lookups hit a realistically sized index.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="FirstAttemptPost"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FirstAttemptPostBenchmark {
+
+    private static final int SEEDED_KEYS = 20_000;
+    private static final String REQUEST_BODY =
+            "{\"amount\":100.00,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+    @Param({"false", "true"})
+    private boolean bloomFilter;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LedgerServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "idempotency.bloom-filter.enabled=" + bloomFilter)
+                .run();
+        IdempotencyRepositoryPort idempotencyRepository = context.getBean(IdempotencyRepositoryPort.class);
+        IdempotencyRepositoryPort.IdempotencyResponse response =
+                new IdempotencyRepositoryPort.IdempotencyResponse(200, "{\"id\":\"seeded\"}");
+        for (int i = 0; i < SEEDED_KEYS; i++) {
+            idempotencyRepository.storeResponse(new UUID(0x880e8400e29b41d4L, i).toString(),
+                    String.format("%064x", i), response);
+        }
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean(IdempotencyFilter.class))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int firstAttempt() throws Exception {
+        return mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", UUID.randomUUID().toString())
+                        .contentType("application/json")
+                        .content(REQUEST_BODY))
+                .andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ledger.adapters.in.web;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous IdempotencyFilter body handling (copy to byte[], decode to String,
+ * re-encode, SHA-256, per-byte Integer.toHexString, single-byte reads by the consumer)
+ * with CachedBodyHttpServletRequest, which hashes while capturing and supports bulk reads.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RequestBodyCapture -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBodyCaptureBenchmark {
+
+    @Param({"200", "4096", "65536"})
+    private int bodySize;
+
+    private byte[] body;
+    private final byte[] consumerBuffer = new byte[8000];
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"amount\":100.00,\"type\":\"EXPENSE\",\"description\":\"");
+        while (json.length() < bodySize - 2) {
+            json.append('x');
+        }
+        json.append("\"}");
+        body = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void legacyCaptureAndHash(Blackhole bh) throws IOException, NoSuchAlgorithmException {
+        MockHttpServletRequest request = newRequest();
+        byte[] cached = StreamUtils.copyToByteArray(request.getInputStream());
+        String requestBody = new String(cached, StandardCharsets.UTF_8);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hash = digest.digest(requestBody.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        bh.consume(hexString.toString());
+
+        // The old CachedBodyServletInputStream only implemented read(), so bulk reads
+        // fell back to InputStream's byte-by-byte loop
+        InputStream replay = new InputStream() {
+            private int index;
+
+            @Override
+            public int read() {
+                return index < cached.length ? cached[index++] : -1;
+            }
+        };
+        drain(replay, bh);
+    }
+
+    @Benchmark
+    public void incrementalCaptureAndHash(Blackhole bh) throws IOException {
+        CachedBodyHttpServletRequest wrapper = new CachedBodyHttpServletRequest(newRequest());
+        bh.consume(wrapper.getBodyHash());
+        drain(wrapper.getInputStream(), bh);
+    }
+
+    private MockHttpServletRequest newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transactions");
+        request.setContent(body);
+        return request;
+    }
+
+    private void drain(InputStream in, Blackhole bh) throws IOException {
+        int n;
+        while ((n = in.read(consumerBuffer, 0, consumerBuffer.length)) != -1) {
+            bh.consume(n);
+        }
+    }
+}
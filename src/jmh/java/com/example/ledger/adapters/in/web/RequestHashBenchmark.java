@@ -0,0 +1,43 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.config.IdempotencyProperties.RequestHash.Algorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the request hash algorithms across body sizes, including the hex encoding
+ * and algorithm tag that IdempotencyFilter stores.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RequestHash"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestHashBenchmark {
+
+    @Param({"64", "256", "1024", "16384"})
+    private int bodySize;
+
+    @Param({"SHA256", "MURMUR3"})
+    private Algorithm algorithm;
+
+    private byte[] body;
+    private RequestHasher hasher;
+
+    @Setup
+    public void setUp() {
+        body = new byte[bodySize];
+        ThreadLocalRandom.current().nextBytes(body);
+        hasher = RequestHasher.of(algorithm);
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash(body, 0, body.length);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.out.persistence.ResponseBodyCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous IdempotencyFilter response handling (ContentCachingResponseWrapper,
+ * body decoded to a String for storage, replay decoded to a String and re-encoded through
+ * getWriter()) with CapturingHttpServletResponse and byte replay through getOutputStream().
+ *
+ * Allocation per operation is the figure of interest; run with:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ResponseReplay -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseReplayBenchmark {
+
+    private static final String TRANSACTION_JSON = "{\"id\":\"3f2b8c1e-7d4a-4e9b-a5c6-1b2d3e4f5a6b\","
+            + "\"date\":\"2025-03-14T09:26:53.589793\",\"amount\":1234.56,"
+            + "\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+    private byte[] body;
+    private byte[] stored;
+
+    @Setup
+    public void setUp() {
+        body = TRANSACTION_JSON.getBytes(StandardCharsets.UTF_8);
+        stored = ResponseBodyCodec.encode(body);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse legacyReplay() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String cached = ResponseBodyCodec.decodeToString(stored);
+        response.setStatus(200);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(cached);
+        response.flushBuffer();
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse byteReplay() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        byte[] cached = ResponseBodyCodec.decode(stored);
+        response.setStatus(200);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(cached.length);
+        response.getOutputStream().write(cached);
+        return response;
+    }
+
+    @Benchmark
+    public byte[] legacyCaptureAndStore() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        wrapper.getOutputStream().write(body);
+        String responseBody = new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8);
+        byte[] encoded = ResponseBodyCodec.encode(responseBody);
+        wrapper.copyBodyToResponse();
+        return encoded;
+    }
+
+    @Benchmark
+    public byte[] captureAndStore() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CapturingHttpServletResponse wrapper = new CapturingHttpServletResponse(response);
+        wrapper.getOutputStream().write(body);
+        byte[] encoded = ResponseBodyCodec.encode(wrapper.getContent());
+        wrapper.copyBodyToResponse();
+        return encoded;
+    }
+}
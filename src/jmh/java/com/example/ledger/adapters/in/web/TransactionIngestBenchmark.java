@@ -0,0 +1,126 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.LedgerServiceApplication;
+import com.example.ledger.adapters.in.web.dto.CreateTransactionRequest;
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * CPU per create request in JSON against TransactionBinaryFormat.
+ *
+ * decode* and encode* time the body handling alone: JSON through CreateTransactionRequest
+ * into a Transaction, and the response back out, against the binary format both ways.
+ * post* time a whole POST /transactions (no idempotency key) through the application, so the
+ * saving can be read as a share of the request.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="TransactionIngest -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIngestBenchmark {
+
+    private static final String REQUEST_JSON =
+            "{\"amount\":1234.56,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+    private ObjectMapper objectMapper;
+    private byte[] jsonRequest;
+    private byte[] binaryRequest;
+    private Transaction transaction;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        jsonRequest = REQUEST_JSON.getBytes(StandardCharsets.UTF_8);
+        binaryRequest = TransactionBinaryFormat.encodeCreate(new BigDecimal("1234.56"), "Office supplies", TransactionType.EXPENSE);
+        transaction = new Transaction(new BigDecimal("1234.56"), "Office supplies", TransactionType.EXPENSE);
+    }
+
+    @Benchmark
+    public Transaction decodeJson() throws IOException {
+        CreateTransactionRequest request = objectMapper.readValue(jsonRequest, CreateTransactionRequest.class);
+        return new Transaction(request.getAmount(), request.getDescription(), request.getType());
+    }
+
+    @Benchmark
+    public Transaction decodeBinary() throws IOException {
+        return TransactionBinaryFormat.decodeCreate(binaryRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return TransactionBinaryFormat.encode(transaction);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int postJson(Application application) throws Exception {
+        return application.mockMvc.perform(post("/transactions")
+                        .contentType("application/json")
+                        .content(application.jsonRequest))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int postBinary(Application application) throws Exception {
+        return application.mockMvc.perform(post("/transactions")
+                        .contentType(TransactionBinaryFormat.MEDIA_TYPE_VALUE)
+                        .accept(TransactionBinaryFormat.MEDIA_TYPE_VALUE)
+                        .content(application.binaryRequest))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        private ConfigurableApplicationContext context;
+        private MockMvc mockMvc;
+        private byte[] jsonRequest;
+        private byte[] binaryRequest;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(LedgerServiceApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN")
+                    .run();
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+            jsonRequest = REQUEST_JSON.getBytes(StandardCharsets.UTF_8);
+            binaryRequest = TransactionBinaryFormat.encodeCreate(new BigDecimal("1234.56"), "Office supplies", TransactionType.EXPENSE);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+}
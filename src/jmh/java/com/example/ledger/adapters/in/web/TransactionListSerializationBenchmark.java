@@ -0,0 +1,76 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialising the GET /transactions response: Jackson's reflective bean serialisation against
+ * TransactionJsonSerializer, streamed to an OutputStream as the message converter does.
+ * The list is rebuilt each iteration; within one, BigDecimal caches its toString() after the
+ * first call for both variants, so the difference is the id, date and field name handling.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="TransactionListSerialization -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionListSerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"reflective", "tuned"})
+    private String serializer;
+
+    private ObjectMapper objectMapper;
+    private List<Transaction> transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if ("tuned".equals(serializer)) {
+            builder.serializerByType(Transaction.class, new TransactionJsonSerializer());
+        }
+        objectMapper = builder.build();
+    }
+
+    @Setup(Level.Iteration)
+    public void loadTransactions() {
+        Random random = new Random(47);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(new Transaction(
+                    UUID.randomUUID(),
+                    start.plus(random.nextInt(1_000_000_000), ChronoUnit.MICROS).plusDays(random.nextInt(365)),
+                    BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2),
+                    i % 2 == 0 ? "Office supplies" : "Client payment for project work",
+                    i % 3 == 0 ? TransactionType.REVENUE : TransactionType.EXPENSE));
+        }
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        // writeValue closes its target
+        objectMapper.writeValue(OutputStream.nullOutputStream(), transactions);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.LedgerServiceApplication;
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import com.example.ledger.domain.model.ValidationResult;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Cost of rejecting an invalid create request.
+ *
+ * rejectByException and rejectByResult compare the Transaction constructor throwing with
+ * Transaction.validate returning the violation. postInvalid* time a whole rejected POST
+ * /transactions through the application, for a bad amount and for an unknown type.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="TransactionValidation -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionValidationBenchmark {
+
+    private static final String INVALID_AMOUNT_JSON =
+            "{\"amount\":-50.00,\"description\":\"Refund\",\"type\":\"EXPENSE\"}";
+    private static final String INVALID_TYPE_JSON =
+            "{\"amount\":50.00,\"description\":\"Refund\",\"type\":\"TRANSFER\"}";
+
+    private final BigDecimal negativeAmount = new BigDecimal("-50.00");
+
+    @Benchmark
+    public String rejectByException() {
+        try {
+            new Transaction(negativeAmount, "Refund", TransactionType.EXPENSE);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    public String rejectByResult() {
+        ValidationResult result = Transaction.validate(negativeAmount, "Refund");
+        return result.isValid() ? null : result.getMessage();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int postInvalidAmount(Application application) throws Exception {
+        return application.mockMvc.perform(post("/transactions")
+                        .contentType("application/json")
+                        .content(INVALID_AMOUNT_JSON))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int postInvalidType(Application application) throws Exception {
+        return application.mockMvc.perform(post("/transactions")
+                        .contentType("application/json")
+                        .content(INVALID_TYPE_JSON))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        private ConfigurableApplicationContext context;
+        private MockMvc mockMvc;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(LedgerServiceApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN")
+                    .run();
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+}
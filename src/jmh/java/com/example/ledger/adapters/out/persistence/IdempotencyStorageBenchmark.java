@@ -0,0 +1,131 @@
+package com.example.ledger.adapters.out.persistence;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares storing idempotency responses as TEXT against ResponseBodyCodec-compressed VARBINARY
+ * in a file-backed H2 database: insert throughput, replay latency (point lookup + decode) and
+ * the resulting table size, which is printed at the end of each trial.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="IdempotencyStorage"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdempotencyStorageBenchmark {
+
+    private static final int SEEDED_ROWS = 20_000;
+
+    // Varied, as client descriptions are: none of them is in the codec's dictionary
+    private static final String[] DESCRIPTIONS = {
+            "Invoice %d - Hartmann GmbH consulting", "AWS eu-west-1 monthly bill", "Refund order #%d",
+            "Coffee beans and milk for the kitchen", "Payroll batch %d", "Train tickets Berlin-Hamburg",
+            "Stripe payout %d", "Domain renewal", "Client retainer - Müller & Söhne", "Laptop stand, 2 pcs",
+            "Team lunch", "Workspace seats (%d users)", "Freelance design work for the landing page",
+            "Bank fees", "Sale of used monitor", "Conference ticket", "Parking", "Customer payment INV-%d",
+            "Insurance premium", "Office rent"};
+
+    @Param({"text", "compressed"})
+    private String storage;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insert;
+    private PreparedStatement select;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("idempotency-storage-bench");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("bench"), "sa", "");
+        String bodyColumn = "text".equals(storage) ? "TEXT" : "VARBINARY(1048576)";
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE idempotency_keys (id BIGINT PRIMARY KEY, idempotency_key VARCHAR(255) NOT NULL, "
+                    + "request_hash VARCHAR(64) NOT NULL, status_code INT NOT NULL, response_body " + bodyColumn
+                    + " NOT NULL, UNIQUE (idempotency_key, request_hash))");
+        }
+        insert = connection.prepareStatement("INSERT INTO idempotency_keys VALUES (?, ?, ?, 200, ?)");
+        select = connection.prepareStatement(
+                "SELECT response_body FROM idempotency_keys WHERE idempotency_key = ? AND request_hash = ?");
+        for (int i = 0; i < SEEDED_ROWS; i++) {
+            insertRow();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("CALL DISK_SPACE_USED('IDEMPOTENCY_KEYS')")) {
+            rs.next();
+            System.out.printf("%n[%s] %d rows, table size %d bytes (%.1f bytes/row)%n",
+                    storage, nextId, rs.getLong(1), rs.getLong(1) / (double) nextId);
+        }
+        connection.close();
+        try (var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        return insertRow();
+    }
+
+    @Benchmark
+    public String replay() throws SQLException {
+        long id = ThreadLocalRandom.current().nextLong(SEEDED_ROWS);
+        select.setString(1, key(id));
+        select.setString(2, hash(id));
+        try (ResultSet rs = select.executeQuery()) {
+            rs.next();
+            return "text".equals(storage)
+                    ? rs.getString(1)
+                    : ResponseBodyCodec.decodeToString(rs.getBytes(1));
+        }
+    }
+
+    private int insertRow() throws SQLException {
+        long id = nextId++;
+        String body = responseBody(id);
+        insert.setLong(1, id);
+        insert.setString(2, key(id));
+        insert.setString(3, hash(id));
+        if ("text".equals(storage)) {
+            insert.setString(4, body);
+        } else {
+            insert.setBytes(4, ResponseBodyCodec.encode(body));
+        }
+        return insert.executeUpdate();
+    }
+
+    private static String key(long id) {
+        return new UUID(0x880e8400e29b41d4L, id).toString();
+    }
+
+    private static String hash(long id) {
+        return String.format("%064x", id);
+    }
+
+    private static String responseBody(long id) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String description = String.format(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)], random.nextInt(100, 100_000));
+        String json = "{\"id\":\"" + UUID.randomUUID() + "\",\"date\":\""
+                + String.format("2025-%02d-%02dT%02d:%02d:%02d.%06d", random.nextInt(1, 13), random.nextInt(1, 29),
+                        random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1_000_000))
+                + "\",\"amount\":" + random.nextInt(1, 100_000) + "." + String.format("%02d", random.nextInt(100))
+                + ",\"description\":\"" + description + "\",\"type\":\""
+                + (random.nextBoolean() ? "EXPENSE" : "REVENUE") + "\"}";
+        return new String(json.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.ledger.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead MetricsAspect adds to an annotated call, through a Spring AOP proxy as in the
+ * application.
+ *
+ * direct calls the target without a proxy. lookupPerCall is the previous aspect, which looked
+ * up its counter in the registry on every call; counted is MetricsAspect with its cached
+ * counter. timed adds the timer with percentiles, a percentile histogram and SLO buckets, as
+ * TransactionController declares.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="MetricsAspect -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsAspectBenchmark {
+
+    private static final ResponseEntity<String> OK = ResponseEntity.ok("created");
+
+    private Endpoints target;
+    private Endpoints lookupPerCall;
+    private Endpoints cached;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        target = new Endpoints();
+        lookupPerCall = proxy(new LookupPerCallAspect(registry));
+        cached = proxy(new MetricsAspect(registry));
+    }
+
+    private Endpoints proxy(Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> direct() {
+        return target.counted();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> lookupPerCall() {
+        return lookupPerCall.counted();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> counted() {
+        return cached.counted();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> timed() {
+        return cached.timed();
+    }
+
+    public static class Endpoints {
+
+        @TrackMetric("benchmark.counted")
+        public ResponseEntity<String> counted() {
+            return OK;
+        }
+
+        @TrackMetric(value = "benchmark.timed", timed = true, percentiles = {0.5, 0.95, 0.99},
+                percentileHistogram = true, sloMillis = {10, 50, 100})
+        public ResponseEntity<String> timed() {
+            return OK;
+        }
+    }
+
+    /**
+     * MetricsAspect as it was: a registry lookup by name on every call.
+     */
+    @Aspect
+    public static class LookupPerCallAspect {
+
+        private final MeterRegistry meterRegistry;
+
+        public LookupPerCallAspect(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Around("@annotation(trackMetric)")
+        public Object recordMetric(ProceedingJoinPoint pjp, TrackMetric trackMetric) throws Throwable {
+            meterRegistry.counter(trackMetric.value()).increment();
+            return pjp.proceed();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.ledger.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost RateLimitFilter adds to a request: finding the client's bucket and taking a
+ * token, for one hot client (allowed and throttled), one client shared by four threads, and
+ * 100,000 clients spread over the stripes.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RateLimit"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final int CLIENTS = 100_000;
+
+    private final long startNanos = System.nanoTime();
+
+    // Refills faster than it can be drained, so every request is allowed
+    private ClientRateLimiter generousLimiter;
+    // One token a second, so nearly every request is throttled
+    private ClientRateLimiter strictLimiter;
+    private String[] clientIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generousLimiter = new ClientRateLimiter(100, 1_000_000, 1_000_000);
+        strictLimiter = new ClientRateLimiter(1, 1, 1_000_000);
+        clientIds = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clientIds[i] = "client-" + i;
+            generousLimiter.tryAcquire(clientIds[i], nowMillis());
+        }
+    }
+
+    @Benchmark
+    public long hotClientAllowed() {
+        return generousLimiter.tryAcquire("client-0", nowMillis());
+    }
+
+    @Benchmark
+    public long hotClientThrottled() {
+        return strictLimiter.tryAcquire("client-0", nowMillis());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long sharedClientContended() {
+        return generousLimiter.tryAcquire("client-0", nowMillis());
+    }
+
+    @Benchmark
+    public long manyClients() {
+        return generousLimiter.tryAcquire(clientIds[ThreadLocalRandom.current().nextInt(CLIENTS)], nowMillis());
+    }
+
+    private long nowMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
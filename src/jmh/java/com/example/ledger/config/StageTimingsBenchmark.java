@@ -0,0 +1,105 @@
+package com.example.ledger.config;
+
+import com.example.ledger.LedgerServiceApplication;
+import com.example.ledger.adapters.in.web.IdempotencyFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Cost of per-stage request timing.
+ *
+ * unsampled and sampled time the StageTimings calls a keyed create makes, one per stage,
+ * outside and inside a sampled request. postKeyed times a whole keyed POST /transactions with
+ * stage timing off, and with every request sampled and given a Server-Timing header.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="StageTimings -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StageTimingsBenchmark {
+
+    private static final StageTimings.Stage[] STAGES = StageTimings.Stage.values();
+
+    @Benchmark
+    public long unsampled() {
+        return timeEveryStage();
+    }
+
+    @Benchmark
+    public long sampled() {
+        StageTimings.begin();
+        try {
+            return timeEveryStage();
+        } finally {
+            StageTimings.clear();
+        }
+    }
+
+    private static long timeEveryStage() {
+        long total = 0;
+        for (StageTimings.Stage stage : STAGES) {
+            StageTimings timings = StageTimings.current();
+            long start = timings.start();
+            timings.end(stage, start);
+            total += timings.getNanos(stage);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int postKeyed(Application application) throws Exception {
+        return application.mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", UUID.randomUUID().toString())
+                        .contentType("application/json")
+                        .content("{\"amount\":1234.56,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param({"off", "on"})
+        private String stageTiming;
+
+        private ConfigurableApplicationContext context;
+        private MockMvc mockMvc;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(LedgerServiceApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN",
+                            "stage-timing.enabled=" + "on".equals(stageTiming),
+                            "stage-timing.sample-rate=1.0",
+                            "stage-timing.server-timing-header=true")
+                    .run();
+            // MockMvc only runs the filters it is given
+            DefaultMockMvcBuilder builder = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context);
+            context.getBeanProvider(StageTimingFilter.class).ifAvailable(builder::addFilters);
+            mockMvc = builder.addFilters(context.getBean(IdempotencyFilter.class))
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.config.StageTimings;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HttpServletRequestWrapper that captures the request body once so it can be
+ * read again by the controller, and hashes it once captured.
+ *
+ * The body is copied into a single buffer (sized from Content-Length when the
+ * client sends one, up to MAX_INITIAL_BUFFER_SIZE, then grown as bytes arrive) and hashed straight from that buffer with the configured
+ * RequestHasher, so no intermediate String or second byte[] is created for hashing.
+ */
+class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final int READ_CHUNK_SIZE = 8192;
+    // Content-Length is the client's claim: never allocate more than this before bytes arrive
+    static final int MAX_INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] body;
+    private final int bodyLength;
+    private final String bodyHash;
+
+    CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
+        this(request, Sha256RequestHasher.INSTANCE);
+    }
+
+    CachedBodyHttpServletRequest(HttpServletRequest request, RequestHasher hasher) throws IOException {
+        super(request);
+
+        StageTimings timings = StageTimings.current();
+        long start = timings.start();
+        int contentLength = request.getContentLength();
+        byte[] buffer = new byte[contentLength > 0
+                ? Math.min(contentLength, MAX_INITIAL_BUFFER_SIZE)
+                : DEFAULT_BUFFER_SIZE];
+        int count = 0;
+        InputStream in = request.getInputStream();
+        while (true) {
+            if (count == buffer.length) {
+                // Probe for EOF before growing so an exact Content-Length never reallocates
+                int next = in.read();
+                if (next == -1) {
+                    break;
+                }
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + READ_CHUNK_SIZE));
+                buffer[count] = (byte) next;
+                count++;
+                continue;
+            }
+            int read = in.read(buffer, count, Math.min(buffer.length - count, READ_CHUNK_SIZE));
+            if (read == -1) {
+                break;
+            }
+            count += read;
+        }
+
+        this.body = buffer;
+        this.bodyLength = count;
+        timings.end(StageTimings.Stage.CAPTURE, start);
+
+        start = timings.start();
+        this.bodyHash = hasher.hash(buffer, 0, count);
+        timings.end(StageTimings.Stage.HASH, start);
+    }
+
+    /**
+     * @return the hash of the captured request body, from the hasher given at construction
+     */
+    String getBodyHash() {
+        return bodyHash;
+    }
+
+    /**
+     * Hashes the captured body with another algorithm, e.g. the previous one during a rollout.
+     */
+    String hashBody(RequestHasher hasher) {
+        StageTimings timings = StageTimings.current();
+        long start = timings.start();
+        String hash = hasher.hash(body, 0, bodyLength);
+        timings.end(StageTimings.Stage.HASH, start);
+        return hash;
+    }
+
+    int getBodyLength() {
+        return bodyLength;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return new CachedBodyServletInputStream(body, bodyLength);
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int getContentLength() {
+        return bodyLength;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return bodyLength;
+    }
+
+    private static class CachedBodyServletInputStream extends ServletInputStream {
+        private final byte[] body;
+        private final int length;
+        private int position;
+        private ReadListener readListener;
+
+        CachedBodyServletInputStream(byte[] body, int length) {
+            this.body = body;
+            this.length = length;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position >= length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            this.readListener = readListener;
+            try {
+                if (!isFinished()) {
+                    readListener.onDataAvailable();
+                } else {
+                    readListener.onAllDataRead();
+                }
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (isFinished()) {
+                return -1;
+            }
+            int b = body[position++] & 0xff;
+            notifyIfFinished();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (isFinished()) {
+                return -1;
+            }
+            int n = Math.min(len, length - position);
+            System.arraycopy(body, position, b, off, n);
+            position += n;
+            notifyIfFinished();
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return length - position;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, length - position));
+            position += skipped;
+            return skipped;
+        }
+
+        private void notifyIfFinished() throws IOException {
+            if (isFinished() && readListener != null) {
+                try {
+                    readListener.onAllDataRead();
+                } catch (IOException e) {
+                    readListener.onError(e);
+                    throw e;
+                }
+            }
+        }
+    }
+}
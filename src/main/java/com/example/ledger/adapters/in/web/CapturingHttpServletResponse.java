@@ -0,0 +1,227 @@
+package com.example.ledger.adapters.in.web;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HttpServletResponseWrapper that holds back the response body until it is released.
+ *
+ * Replaces ContentCachingResponseWrapper for IdempotencyFilter: that wrapper buffers the body
+ * in a chunked stream and copies it into a new byte[] on every getContentAsByteArray() call,
+ * which the filter then decoded into a String to store it. Here the body is written into a
+ * single growable buffer; {@link #getContent()} hands that buffer out as the stored bytes, and
+ * {@link #copyBodyToResponse()} writes the same bytes to the client with a Content-Length.
+ *
+ * Flushing and Content-Length set by the application are held back too, so nothing reaches
+ * the client before the filter releases the response. So are errors sent with sendError():
+ * the container would otherwise commit the response and render an error page the filter
+ * never sees, so they are captured as a JSON body instead.
+ */
+class CapturingHttpServletResponse extends HttpServletResponseWrapper {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+
+    private byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+    private int count;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CapturingHttpServletResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new CapturingServletOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            Charset charset = Charset.forName(getCharacterEncoding());
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        // Only drain the writer into the buffer; committing is up to copyBodyToResponse()
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // Set from the captured body on release
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        // Set from the captured body on release
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (!CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (!CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void sendError(int sc) {
+        HttpStatus status = HttpStatus.resolve(sc);
+        sendError(sc, status != null ? status.getReasonPhrase() : "Error");
+    }
+
+    /**
+     * Captures the error like any other response, as {"error": msg} - the shape of the
+     * application's own error bodies - so a stored client error replays what the client got.
+     */
+    @Override
+    public void sendError(int sc, String msg) {
+        resetBuffer();
+        setStatus(sc);
+        setContentType(MediaType.APPLICATION_JSON_VALUE);
+        setCharacterEncoding(StandardCharsets.UTF_8.name());
+        byte[] body = ("{\"error\":\"" + escapeJson(msg == null ? "" : msg) + "\"}").getBytes(StandardCharsets.UTF_8);
+        append(body, 0, body.length);
+    }
+
+    @Override
+    public void resetBuffer() {
+        flushBuffer();
+        count = 0;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+    }
+
+    /**
+     * @return the captured body; exactly sized, and shared with copyBodyToResponse(),
+     *         so it must not be modified
+     */
+    byte[] getContent() {
+        flushBuffer();
+        if (count != buffer.length) {
+            buffer = Arrays.copyOf(buffer, count);
+        }
+        return buffer;
+    }
+
+    int getContentSize() {
+        flushBuffer();
+        return count;
+    }
+
+    /**
+     * Writes the captured body to the wrapped response with its Content-Length.
+     */
+    void copyBodyToResponse() throws IOException {
+        flushBuffer();
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        if (count > 0) {
+            response.setContentLength(count);
+            response.getOutputStream().write(buffer, 0, count);
+        }
+        count = 0;
+    }
+
+    private static String escapeJson(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private void append(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (count + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + extra));
+        }
+    }
+
+    private class CapturingServletOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            append(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        /**
+         * The buffer always accepts more bytes, so the listener may write straight away.
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                writeListener.onWritePossible();
+            } catch (IOException | RuntimeException e) {
+                writeListener.onError(e);
+            }
+        }
+    }
+}
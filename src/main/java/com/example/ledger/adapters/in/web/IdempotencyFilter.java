@@ -1,33 +1,32 @@
 package com.example.ledger.adapters.in.web;
 
 import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.config.IdempotencyProperties;
+import com.example.ledger.config.StageTimings;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StreamUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingResponseWrapper;
-
-import jakarta.servlet.ReadListener;
-import jakarta.servlet.ServletInputStream;
-import jakarta.servlet.http.HttpServletRequestWrapper;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Inbound adapter that handles idempotency key processing for POST /transactions requests.
@@ -39,26 +38,94 @@ import java.util.Optional;
  *   - If key doesn't exist → continue processing, cache response after
  * - If Idempotency-Key header is not present → process normally
  * 
+ * A keyed request is processed in one database transaction that also stores its idempotency
+ * record, so the transaction and its record are committed together (or not at all) and the
+ * keyed write path needs a single commit. The response is only released to the client after
+ * that commit.
+ * 
+ * Request bodies are hashed with the configured RequestHasher. While a previous algorithm is
+ * configured, retries also match records stored with it, and a conflict is only reported
+ * when the stored record differs under both algorithms.
+ * 
+ * Responses are captured and replayed as raw bytes: the body the application wrote is stored
+ * as-is, and a replay writes the stored bytes to the output stream with a Content-Length,
+ * without decoding or re-encoding them. The content type is stored with the body, so e.g. a
+ * response in TransactionBinaryFormat is replayed as one.
+ * 
+ * With idempotency.response-storage.mode=reference, a successful create stores only its status
+ * and the id of the created transaction (published by the controller in the
+ * CREATED_RESOURCE_ID_ATTRIBUTE request attribute); ReferencedResponseRenderer re-renders
+ * the body on replay. Only JSON responses are stored that way, as that is what it renders.
+ * 
+ * Successful responses (200) are always stored. With idempotency.client-errors enabled, a
+ * deterministic client error (e.g. a 400 for an invalid amount) is stored too, for a shorter
+ * TTL, so retry storms of a request that can never succeed are answered from the store.
+ * Such records never cause a conflict: a corrected request may reuse the key.
+ * 
+ * When IdempotencyKeyBloomFilter is enabled, keys it has never seen skip both lookups:
+ * nothing can be stored for them yet.
+ * 
+ * Concurrent requests with the same key:
+ * - Each instance processes one request per key at a time. Any other request with that key
+ *   gets 409 with Retry-After until the first one has committed: a retry can then be replayed,
+ *   and a different request is then detected as a conflict.
+ * - Across instances the store decides: storing a record never overwrites one that is still
+ *   live, and fails with RecordAlreadyStoredException if the key and hash were stored first,
+ *   whether that is found before the insert or by the unique constraint. The request that
+ *   loses is rolled back and answered like a retry that arrived just after the winner:
+ *   replayed, or 409.
+ * 
  * This is an inbound adapter because it processes incoming HTTP requests before they reach
  * the controller, similar to how TransactionController is an inbound adapter.
  */
 @Component
 public class IdempotencyFilter extends OncePerRequestFilter {
 
-    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
     private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     private static final String POST_TRANSACTIONS_PATH = "/transactions";
+    private static final String IN_PROGRESS_RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * Request attribute holding the UUID of the resource a request created, so its
+     * response can be stored as a reference.
+     */
+    public static final String CREATED_RESOURCE_ID_ATTRIBUTE = IdempotencyFilter.class.getName() + ".CREATED_RESOURCE_ID";
 
     private final IdempotencyRepositoryPort idempotencyRepository;
     private final ObjectMapper objectMapper;
     private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+    private final IdempotencyKeyBloomFilter recentKeys;
+    private final RequestHasher requestHasher;
+    private final RequestHasher previousRequestHasher;
+    private final IdempotencyProperties.ClientErrors clientErrors;
+    private final boolean storeReferences;
+    private final ReferencedResponseRenderer responseRenderer;
+    private final Set<String> keysInFlight = ConcurrentHashMap.newKeySet();
 
     public IdempotencyFilter(IdempotencyRepositoryPort idempotencyRepository, 
                            ObjectMapper objectMapper,
-                           MeterRegistry meterRegistry) {
+                           MeterRegistry meterRegistry,
+                           PlatformTransactionManager transactionManager,
+                           IdempotencyProperties idempotencyProperties,
+                           ObjectProvider<IdempotencyKeyBloomFilter> recentKeys,
+                           ReferencedResponseRenderer responseRenderer) {
         this.idempotencyRepository = idempotencyRepository;
         this.objectMapper = objectMapper;
         this.meterRegistry = meterRegistry;
+        this.transactionManager = transactionManager;
+        this.recentKeys = recentKeys.getIfAvailable();
+        this.clientErrors = idempotencyProperties.getClientErrors();
+        this.storeReferences = idempotencyProperties.getResponseStorage().getMode()
+                == IdempotencyProperties.ResponseStorage.Mode.REFERENCE;
+        this.responseRenderer = responseRenderer;
+
+        IdempotencyProperties.RequestHash requestHash = idempotencyProperties.getRequestHash();
+        this.requestHasher = RequestHasher.of(requestHash.getAlgorithm());
+        this.previousRequestHasher = requestHash.getPreviousAlgorithm() == null
+                || requestHash.getPreviousAlgorithm() == requestHash.getAlgorithm()
+                ? null
+                : RequestHasher.of(requestHash.getPreviousAlgorithm());
     }
 
     @Override
@@ -80,176 +147,208 @@ public class IdempotencyFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Wrap request to allow reading body multiple times
-        CachedBodyHttpServletRequest requestWrapper = new CachedBodyHttpServletRequest(request);
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
-
         // Validate idempotency key format
         if (!idempotencyRepository.isValidKey(idempotencyKey)) {
             handleInvalidKey(response);
             return;
         }
 
+        // Lookups, processing and storing must not interleave with another request for the key
+        if (!keysInFlight.add(idempotencyKey)) {
+            meterRegistry.counter("idempotency.requests.in.progress").increment();
+            handleInProgress(response);
+            return;
+        }
+        try {
+            processKeyedRequest(request, response, filterChain, idempotencyKey);
+        } finally {
+            keysInFlight.remove(idempotencyKey);
+        }
+    }
+
+    private void processKeyedRequest(HttpServletRequest request, HttpServletResponse response,
+                                     FilterChain filterChain, String idempotencyKey)
+            throws ServletException, IOException {
+        StageTimings timings = StageTimings.current();
+        // Wrap request to allow reading body multiple times
+        CachedBodyHttpServletRequest requestWrapper = new CachedBodyHttpServletRequest(request, requestHasher);
+        CapturingHttpServletResponse responseWrapper = new CapturingHttpServletResponse(response);
+
         // Track idempotency request metric
         meterRegistry.counter("idempotency.requests.total").increment();
 
-        // Read request body to compute hash - this will cache it in the wrapper
-        // We need to read it through the wrapper's input stream to cache it
-        String requestBody = getRequestBody(requestWrapper);
-        String requestHash = hashRequestBody(requestBody);
+        // The wrapper hashed the body once captured; during a rollout also hash it the old way
+        String requestHash = requestWrapper.getBodyHash();
+        String previousRequestHash = previousRequestHasher == null
+                ? null
+                : requestWrapper.hashBody(previousRequestHasher);
 
-        // Check for cached response (same key, same request)
-        Optional<IdempotencyRepositoryPort.IdempotencyResponse> cachedResponse = 
-                idempotencyRepository.getCachedResponse(idempotencyKey, requestHash);
-        
-        if (cachedResponse.isPresent()) {
-            // Track cache hit metric
-            meterRegistry.counter("idempotency.cache.hits").increment();
+        if (recentKeys != null && !recentKeys.mightContain(idempotencyKey)) {
+            // Never-seen key: nothing can be cached or conflict with it
+            meterRegistry.counter("idempotency.bloom.skipped.lookups").increment();
+        } else {
+            // Check for cached response (same key, same request)
+            long start = timings.start();
+            String cachedHash = requestHash;
+            Optional<IdempotencyRepositoryPort.IdempotencyResponse> cachedResponse = 
+                    idempotencyRepository.getCachedResponse(idempotencyKey, requestHash);
+            if (cachedResponse.isEmpty() && previousRequestHash != null) {
+                cachedHash = previousRequestHash;
+                cachedResponse = idempotencyRepository.getCachedResponse(idempotencyKey, previousRequestHash);
+            }
+            timings.end(StageTimings.Stage.LOOKUP, start);
             
-            // Return cached response
-            IdempotencyRepositoryPort.IdempotencyResponse cached = cachedResponse.get();
-            response.setStatus(cached.getStatusCode());
-            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-            response.getWriter().write(cached.getResponseBody());
-            return;
-        }
+            if (replay(idempotencyKey, cachedHash, cachedResponse, response)) {
+                return;
+            }
 
-        // Check for conflict (same key, different request)
-        if (idempotencyRepository.hasKeyWithDifferentHash(idempotencyKey, requestHash)) {
-            // Track conflict metric
-            meterRegistry.counter("idempotency.conflicts").increment();
-            handleConflict(response);
-            return;
+            // Check for conflict (same key, different request)
+            // A record stored with the previous algorithm only conflicts if it differs under it too
+            start = timings.start();
+            boolean conflict = idempotencyRepository.hasKeyWithDifferentHash(idempotencyKey, requestHash)
+                    && (previousRequestHash == null
+                        || idempotencyRepository.hasKeyWithDifferentHash(idempotencyKey, previousRequestHash));
+            timings.end(StageTimings.Stage.LOOKUP, start);
+            if (conflict) {
+                // Track conflict metric
+                meterRegistry.counter("idempotency.conflicts").increment();
+                handleConflict(response);
+                return;
+            }
         }
 
+        // The use case joins this transaction, so the transaction and its idempotency
+        // record are committed together
+        TransactionStatus transaction = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        boolean stored = false;
+        UUID referencedId = null;
         try {
             // Process request with wrapped request/response
             filterChain.doFilter(requestWrapper, responseWrapper);
             
             // Cache successful responses (status 200)
             if (responseWrapper.getStatus() == HttpStatus.OK.value()) {
-                String responseBody = new String(responseWrapper.getContentAsByteArray(), StandardCharsets.UTF_8);
-                IdempotencyRepositoryPort.IdempotencyResponse idempotencyResponse = 
-                        new IdempotencyRepositoryPort.IdempotencyResponse(
-                                responseWrapper.getStatus(), 
-                                responseBody);
+                IdempotencyRepositoryPort.IdempotencyResponse idempotencyResponse;
+                // References are re-rendered as JSON, so other formats are stored in full
+                if (storeReferences && isJson(responseWrapper.getContentType())
+                        && requestWrapper.getAttribute(CREATED_RESOURCE_ID_ATTRIBUTE) instanceof UUID id) {
+                    idempotencyResponse = IdempotencyRepositoryPort.IdempotencyResponse.reference(
+                            responseWrapper.getStatus(), id);
+                    referencedId = id;
+                } else {
+                    idempotencyResponse = new IdempotencyRepositoryPort.IdempotencyResponse(
+                            responseWrapper.getStatus(), 
+                            responseWrapper.getContent(),
+                            responseWrapper.getContentType());
+                }
+                long start = timings.start();
                 idempotencyRepository.storeResponse(idempotencyKey, requestHash, idempotencyResponse);
+                timings.end(StageTimings.Stage.STORE, start);
+                stored = true;
+            } else if (clientErrors.isCacheable(responseWrapper.getStatus())) {
+                // Deterministic rejection: replay it to retries for a while instead of re-validating
+                IdempotencyRepositoryPort.IdempotencyResponse idempotencyResponse =
+                        new IdempotencyRepositoryPort.IdempotencyResponse(
+                                responseWrapper.getStatus(),
+                                responseWrapper.getContent(),
+                                responseWrapper.getContentType());
+                long start = timings.start();
+                idempotencyRepository.storeResponse(idempotencyKey, requestHash, idempotencyResponse,
+                        clientErrors.getTtl());
+                timings.end(StageTimings.Stage.STORE, start);
+                meterRegistry.counter("idempotency.client.errors.stored").increment();
+                stored = true;
+            } else if (responseWrapper.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                // Nothing is cached for a failed request, so nothing it wrote may survive either:
+                // a retry with the same key must not create a second transaction
+                transaction.setRollbackOnly();
             }
-        } finally {
-            // Copy cached response to actual response
-            responseWrapper.copyBodyToResponse();
+            // A commit that fails, e.g. on a constraint of the transaction flushed at commit,
+            // is rolled back and rethrown like any other failure
+            long start = timings.start();
+            transactionManager.commit(transaction);
+            timings.end(StageTimings.Stage.COMMIT, start);
+        } catch (IdempotencyRepositoryPort.RecordAlreadyStoredException e) {
+            // Another instance stored this key and hash first: nothing of ours may survive,
+            // and the client gets what a retry arriving just after the winner would get
+            rollback(transaction);
+            meterRegistry.counter("idempotency.store.races.lost").increment();
+            logger.info("Lost the race to store idempotency key " + idempotencyKey + ", rolled back");
+            if (!replay(idempotencyKey, requestHash, idempotencyRepository.getCachedResponse(idempotencyKey, requestHash),
+                    response)) {
+                if (idempotencyRepository.hasKeyWithDifferentHash(idempotencyKey, requestHash)) {
+                    handleConflict(response);
+                } else {
+                    handleInProgress(response);
+                }
+            }
+            return;
+        } catch (Throwable e) {
+            rollback(transaction);
+            throw e;
         }
-    }
 
-    private String getRequestBody(CachedBodyHttpServletRequest request) throws IOException {
-        return request.getCachedBody();
+        if (stored && recentKeys != null) {
+            recentKeys.put(idempotencyKey);
+        }
+        if (referencedId != null) {
+            // Only once committed, so a rolled-back transaction is never rendered
+            responseRenderer.remember(referencedId, responseWrapper.getContent());
+        }
+        // Copy cached response to actual response, only once it is durable
+        long start = timings.start();
+        responseWrapper.copyBodyToResponse();
+        timings.end(StageTimings.Stage.RESPOND, start);
     }
-    
+
     /**
-     * Custom HttpServletRequestWrapper that caches the request body
-     * to allow multiple reads via getInputStream().
+     * Rolls back, unless a failed commit already ended the transaction.
      */
-    private static class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
-        private byte[] cachedBody;
-        
-        public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
-            super(request);
-            // Cache the body immediately
-            this.cachedBody = StreamUtils.copyToByteArray(request.getInputStream());
+    private void rollback(TransactionStatus transaction) {
+        if (!transaction.isCompleted()) {
+            transactionManager.rollback(transaction);
         }
-        
-        public String getCachedBody() {
-            return new String(cachedBody, StandardCharsets.UTF_8);
-        }
-        
-        @Override
-        public ServletInputStream getInputStream() throws IOException {
-            return new CachedBodyServletInputStream(cachedBody);
+    }
+
+    /**
+     * Writes a stored response to the client; a reference is re-rendered from the transaction
+     * it points at.
+     *
+     * @param requestHash The hash the response was found under
+     *
+     * @return false if nothing can be replayed and the request must be processed
+     */
+    private boolean replay(String idempotencyKey, String requestHash,
+                           Optional<IdempotencyRepositoryPort.IdempotencyResponse> cachedResponse,
+                           HttpServletResponse response) throws IOException {
+        if (cachedResponse.isEmpty()) {
+            return false;
         }
-        
-        @Override
-        public java.io.BufferedReader getReader() throws IOException {
-            return new java.io.BufferedReader(
-                new java.io.InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
-        }
-        
-        private static class CachedBodyServletInputStream extends ServletInputStream {
-            private final byte[] cachedBody;
-            private int lastIndexRetrieved = -1;
-            private ReadListener readListener = null;
-            
-            public CachedBodyServletInputStream(byte[] cachedBody) {
-                this.cachedBody = cachedBody;
-            }
-            
-            @Override
-            public boolean isFinished() {
-                return lastIndexRetrieved == cachedBody.length - 1;
-            }
-            
-            @Override
-            public boolean isReady() {
-                return true;
-            }
-            
-            @Override
-            public void setReadListener(ReadListener readListener) {
-                this.readListener = readListener;
-                if (!isFinished()) {
-                    try {
-                        readListener.onDataAvailable();
-                    } catch (IOException e) {
-                        readListener.onError(e);
-                    }
-                } else {
-                    try {
-                        readListener.onAllDataRead();
-                    } catch (IOException e) {
-                        readListener.onError(e);
-                    }
-                }
-            }
-            
-            @Override
-            public int read() throws IOException {
-                int i;
-                if (!isFinished()) {
-                    i = cachedBody[lastIndexRetrieved + 1];
-                    lastIndexRetrieved++;
-                    if (isFinished() && readListener != null) {
-                        try {
-                            readListener.onAllDataRead();
-                        } catch (IOException e) {
-                            readListener.onError(e);
-                            throw e;
-                        }
-                    }
-                    return i;
-                } else {
-                    return -1;
-                }
-            }
+        IdempotencyRepositoryPort.IdempotencyResponse cached = cachedResponse.get();
+        byte[] body = cached.isReference()
+                ? responseRenderer.render(cached.getResourceId()).orElse(null)
+                : cached.getResponseBodyBytes();
+        if (body == null) {
+            // The transaction is gone, so the request left nothing behind: expire the record, as
+            // storing never overwrites a live one, and run it again
+            logger.warn("Idempotency record references missing transaction " + cached.getResourceId());
+            idempotencyRepository.expireReference(idempotencyKey, requestHash, cached.getResourceId());
+            return false;
         }
+
+        // Track cache hit metric
+        meterRegistry.counter("idempotency.cache.hits").increment();
+
+        // Return cached response - the stored bytes go out unchanged
+        response.setStatus(cached.getStatusCode());
+        response.setContentType(cached.getContentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return true;
     }
 
-    private String hashRequestBody(String requestBody) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(requestBody.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            log.error("Failed to compute request hash", e);
-            // Fallback to simple hash code
-            return String.valueOf(requestBody.hashCode());
-        }
+    private static boolean isJson(String contentType) {
+        return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
     }
 
     private void handleInvalidKey(HttpServletResponse response) throws IOException {
@@ -271,4 +370,15 @@ public class IdempotencyFilter extends OncePerRequestFilter {
         
         objectMapper.writeValue(response.getWriter(), errorResponse);
     }
+
+    private void handleInProgress(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.CONFLICT.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, IN_PROGRESS_RETRY_AFTER_SECONDS);
+        
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "A request with this idempotency key is already being processed");
+        
+        objectMapper.writeValue(response.getWriter(), errorResponse);
+    }
 }
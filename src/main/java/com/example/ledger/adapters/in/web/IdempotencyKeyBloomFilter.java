@@ -0,0 +1,262 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.config.IdempotencyProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Time-sliced Bloom filter of the idempotency keys stored in the last 24 hours.
+ *
+ * Almost every keyed request carries a brand-new key. When this filter has never seen a
+ * key, IdempotencyFilter can skip both store lookups (cached response and conflict check)
+ * because the answer is known to be "nothing stored". A "maybe" still goes to the store,
+ * so false positives only cost the lookups the request would have made anyway.
+ *
+ * The filter is split into 25 hourly slices used as a ring: a key goes into the slice of
+ * the hour it was stored in, a query checks the slices of the last 25 hours, and a slice is
+ * cleared when the ring comes round to it again. Old keys therefore age out without a
+ * Bloom filter ever having to delete anything.
+ *
+ * The filter is rebuilt from the store when the application starts; until that finishes it
+ * answers "maybe" for every key. It only knows keys stored through this instance, so it is
+ * only safe on a single node and is disabled by default (idempotency.bloom-filter.enabled).
+ *
+ * Metrics:
+ * - idempotency.bloom.false.positive.rate: Estimated from the number of keys per slice
+ * - idempotency.bloom.memory: Size of the bit arrays in bytes
+ */
+@Component
+@ConditionalOnProperty(name = "idempotency.bloom-filter.enabled", havingValue = "true")
+public class IdempotencyKeyBloomFilter implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyKeyBloomFilter.class);
+
+    static final int TTL_HOURS = 24;
+    static final int SLICES = TTL_HOURS + 1;
+
+    private static final long SECONDS_PER_HOUR = Duration.ofHours(1).toSeconds();
+
+    private final IdempotencyRepositoryPort idempotencyRepository;
+    private final Clock clock;
+    private final long bitsPerSlice;
+    private final int hashFunctions;
+    private final Slice[] slices = new Slice[SLICES];
+
+    private volatile boolean ready;
+
+    @Autowired
+    public IdempotencyKeyBloomFilter(IdempotencyRepositoryPort idempotencyRepository,
+                                     IdempotencyProperties idempotencyProperties,
+                                     MeterRegistry meterRegistry) {
+        this(idempotencyRepository, idempotencyProperties.getBloomFilter(), meterRegistry, Clock.systemUTC());
+    }
+
+    IdempotencyKeyBloomFilter(IdempotencyRepositoryPort idempotencyRepository,
+                              IdempotencyProperties.BloomFilter properties,
+                              MeterRegistry meterRegistry,
+                              Clock clock) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.clock = clock;
+
+        // A query ORs all slices, so each slice gets a share of the target false-positive rate
+        double keysPerSlice = Math.max(1, properties.getExpectedKeysPerDay() / (double) TTL_HOURS);
+        double sliceFalsePositiveRate = properties.getFalsePositiveRate() / SLICES;
+        long bits = (long) Math.ceil(-keysPerSlice * Math.log(sliceFalsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitsPerSlice = Math.max(Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+        this.hashFunctions = Math.max(1, (int) Math.round(bitsPerSlice / keysPerSlice * Math.log(2)));
+        for (int i = 0; i < SLICES; i++) {
+            slices[i] = new Slice(Math.toIntExact(bitsPerSlice / Long.SIZE));
+        }
+
+        Gauge.builder("idempotency.bloom.false.positive.rate", this, IdempotencyKeyBloomFilter::estimatedFalsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("idempotency.bloom.memory", this, IdempotencyKeyBloomFilter::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the keys that are still live from the store before the server takes traffic.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        try {
+            LongAdder loaded = new LongAdder();
+            idempotencyRepository.forEachLiveKey((key, expiresAt) -> {
+                put(key, expiresAt.minus(Duration.ofHours(TTL_HOURS)));
+                loaded.increment();
+            });
+            ready = true;
+            logger.info("Loaded {} idempotency keys into the Bloom filter in {} ms",
+                    loaded.sum(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            // Stay not ready: every key is a "maybe" and requests take the normal lookups
+            logger.error("Unable to load idempotency keys into the Bloom filter, lookups will not be skipped", e);
+        }
+    }
+
+    /**
+     * @return false if the key was definitely not stored in the last 24 hours,
+     *         true if it might have been (or the filter is still loading)
+     */
+    public boolean mightContain(String idempotencyKey) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(idempotencyKey);
+        long currentHour = currentHour();
+        for (Slice slice : slices) {
+            long hour = slice.hour;
+            if (hour > currentHour - SLICES && hour <= currentHour && slice.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a key stored just now.
+     */
+    public void put(String idempotencyKey) {
+        put(idempotencyKey, clock.instant());
+    }
+
+    void put(String idempotencyKey, Instant storedAt) {
+        long currentHour = currentHour();
+        long hour = Math.min(storedAt.getEpochSecond() / SECONDS_PER_HOUR, currentHour);
+        if (hour <= currentHour - SLICES) {
+            return;
+        }
+        Slice slice = slices[(int) (hour % SLICES)];
+        if (slice.hour != hour && !slice.rotate(hour)) {
+            return;
+        }
+        slice.put(hash(idempotencyKey));
+    }
+
+    double estimatedFalsePositiveRate() {
+        long currentHour = currentHour();
+        double allNegative = 1.0;
+        for (Slice slice : slices) {
+            long hour = slice.hour;
+            if (hour > currentHour - SLICES && hour <= currentHour) {
+                double fillRatio = 1 - Math.exp(-hashFunctions * slice.keys.sum() / (double) bitsPerSlice);
+                allNegative *= 1 - Math.pow(fillRatio, hashFunctions);
+            }
+        }
+        return 1 - allNegative;
+    }
+
+    double memoryBytes() {
+        return SLICES * (bitsPerSlice / Byte.SIZE);
+    }
+
+    private long currentHour() {
+        return clock.instant().getEpochSecond() / SECONDS_PER_HOUR;
+    }
+
+    private static long hash(String key) {
+        // FNV-1a over the characters, finished with the MurmurHash3 fmix64 mixer
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * One hour of keys. Bits are set with CAS, so put and mightContain need no lock;
+     * only rotating a slice to a new hour takes a lock. That is a ReentrantLock: requests
+     * on virtual threads wait for the slice to be cleared without pinning their carrier.
+     */
+    private final class Slice {
+
+        private final AtomicLongArray words;
+        private final LongAdder keys = new LongAdder();
+        private final ReentrantLock rotation = new ReentrantLock();
+        private volatile long hour = Long.MIN_VALUE;
+
+        Slice(int words) {
+            this.words = new AtomicLongArray(words);
+        }
+
+        /**
+         * Clears the slice for a newer hour. Bits are cleared before the hour is published,
+         * so readers never see old keys under the new hour.
+         *
+         * @return false if the slice already holds a newer hour
+         */
+        boolean rotate(long newHour) {
+            rotation.lock();
+            try {
+                if (hour == newHour) {
+                    return true;
+                }
+                if (hour > newHour) {
+                    return false;
+                }
+                for (int i = 0; i < words.length(); i++) {
+                    words.set(i, 0L);
+                }
+                keys.reset();
+                hour = newHour;
+                return true;
+            } finally {
+                rotation.unlock();
+            }
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = index(h1 + i * h2);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                if ((words.get(word) & mask) == 0) {
+                    words.accumulateAndGet(word, mask, (current, set) -> current | set);
+                }
+            }
+            keys.increment();
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long index(int combined) {
+            // Maps the 32-bit hash onto [0, bitsPerSlice) without a modulo
+            return ((combined & 0xffffffffL) * bitsPerSlice) >>> 32;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.out.scheduling.IdempotencyStoreMonitor;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.StoreStatistics;
+import com.example.ledger.config.IdempotencyProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint summarising the health of the idempotency store (GET /actuator/idempotency).
+ *
+ * Reports the configured store, the statistics snapshot kept by IdempotencyStoreMonitor
+ * with the ages in seconds, the cache hit ratio, and the call count, p50, p99 and max
+ * latency in milliseconds of each store operation that has been called.
+ *
+ * Only reads meters and the snapshot, so calling it never touches the store.
+ */
+@Component
+@Endpoint(id = "idempotency")
+public class IdempotencyStoreEndpoint {
+
+    private static final String OPERATION_TIMER = "idempotency.store.operation";
+
+    private final IdempotencyStoreMonitor storeMonitor;
+    private final IdempotencyProperties idempotencyProperties;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyStoreEndpoint(IdempotencyStoreMonitor storeMonitor,
+                                    IdempotencyProperties idempotencyProperties,
+                                    MeterRegistry meterRegistry) {
+        this.storeMonitor = storeMonitor;
+        this.idempotencyProperties = idempotencyProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        StoreStatistics statistics = storeMonitor.getStatistics();
+        Instant now = storeMonitor.now();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("store", idempotencyProperties.getStore().name().toLowerCase());
+        summary.put("entries", statistics.getEntries());
+        summary.put("storedBytes", statistics.getStoredBytes());
+        summary.put("oldestEntryAgeSeconds", statistics.oldestEntryAge(now).toSeconds());
+        summary.put("cleanupLagSeconds", statistics.cleanupLag(now).toSeconds());
+        summary.put("statisticsRefreshedAt", storeMonitor.getRefreshedAt());
+        summary.put("hitRatio", storeMonitor.hitRatio());
+        summary.put("operations", operations());
+        return summary;
+    }
+
+    private Map<String, Object> operations() {
+        Map<String, Object> operations = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(OPERATION_TIMER).timers()) {
+            String name = timer.getId().getTag("operation") + "." + timer.getId().getTag("outcome");
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Object> operation = new LinkedHashMap<>();
+            operation.put("count", snapshot.count());
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                operation.put("p" + Math.round(percentile.percentile() * 100) + "Millis",
+                        percentile.value(TimeUnit.MILLISECONDS));
+            }
+            operation.put("maxMillis", snapshot.max(TimeUnit.MILLISECONDS));
+            operations.put(name, operation);
+        }
+        return operations;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.ledger.adapters.in.web;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * MurmurHash3 x64 128-bit request hasher (seed 0), tagged "murmur3:".
+ *
+ * Not cryptographic: it separates accidentally different bodies, which is all conflict
+ * detection needs, at a fraction of the cost of SHA-256. Output bytes follow the
+ * reference implementation (h1 then h2, little-endian), so hashes can be checked
+ * against other MurmurHash3 libraries.
+ */
+final class Murmur3RequestHasher implements RequestHasher {
+
+    static final Murmur3RequestHasher INSTANCE = new Murmur3RequestHasher();
+    static final String TAG = "murmur3:";
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final VarHandle LONG_LE =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private Murmur3RequestHasher() {
+    }
+
+    @Override
+    public String hash(byte[] body, int offset, int length) {
+        long h1 = 0;
+        long h2 = 0;
+
+        int blocksEnd = offset + (length & ~15);
+        for (int i = offset; i < blocksEnd; i += 16) {
+            long k1 = (long) LONG_LE.get(body, i);
+            long k2 = (long) LONG_LE.get(body, i + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        // Tail: the last 0-15 bytes, little-endian
+        long k1 = 0;
+        long k2 = 0;
+        int tail = length & 15;
+        for (int i = tail - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (body[blocksEnd + i] & 0xffL);
+        }
+        for (int i = Math.min(tail, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (body[blocksEnd + i] & 0xffL);
+        }
+        if (tail > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (tail > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        byte[] digest = new byte[16];
+        LONG_LE.set(digest, 0, h1);
+        LONG_LE.set(digest, 8, h2);
+        return TAG + RequestHasher.toHex(digest);
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.application.usecase.GetTransactionUseCase;
+import com.example.ledger.config.IdempotencyProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Re-renders responses stored as references (idempotency.response-storage.mode=reference).
+ *
+ * A reference record only holds the id of the created transaction, so a replay loads the
+ * transaction and serialises it with the application's ObjectMapper, producing the same
+ * JSON the controller returned. Transactions never change once created, so rendered bodies
+ * are kept in a bounded LRU cache; the filter also seeds it with the original response,
+ * so the usual quick retry needs no lookup at all.
+ *
+ * A render comes from the stored row, which keeps the date to the microsecond and the amount
+ * to two decimals. In reference mode TransactionRepositoryAdapter therefore returns new
+ * transactions rounded to that precision, so the original response matches every render.
+ *
+ * Publishes idempotency.reference.lookups: point lookups made because a body was not cached.
+ */
+@Component
+public class ReferencedResponseRenderer {
+
+    private final GetTransactionUseCase getTransactionUseCase;
+    private final ObjectMapper objectMapper;
+    private final Counter lookups;
+    // Access-ordered, so every get updates it: guarded by renderedLock
+    private final ReentrantLock renderedLock = new ReentrantLock();
+    private final Map<UUID, byte[]> rendered;
+
+    public ReferencedResponseRenderer(GetTransactionUseCase getTransactionUseCase,
+                                      ObjectMapper objectMapper,
+                                      IdempotencyProperties idempotencyProperties,
+                                      MeterRegistry meterRegistry) {
+        this.getTransactionUseCase = getTransactionUseCase;
+        this.objectMapper = objectMapper;
+        this.lookups = meterRegistry.counter("idempotency.reference.lookups");
+
+        int cacheSize = idempotencyProperties.getResponseStorage().getRenderedCacheSize();
+        this.rendered = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @return the response body for the referenced transaction, or empty if it does not exist
+     */
+    Optional<byte[]> render(UUID transactionId) {
+        byte[] body = cached(transactionId);
+        if (body != null) {
+            return Optional.of(body);
+        }
+
+        lookups.increment();
+        Optional<byte[]> loaded = getTransactionUseCase.getById(transactionId).map(transaction -> {
+            try {
+                return objectMapper.writeValueAsBytes(transaction);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        loaded.ifPresent(bytes -> remember(transactionId, bytes));
+        return loaded;
+    }
+
+    /**
+     * Caches the body the controller returned for a transaction, once it is committed.
+     */
+    void remember(UUID transactionId, byte[] body) {
+        renderedLock.lock();
+        try {
+            rendered.put(transactionId, body);
+        } finally {
+            renderedLock.unlock();
+        }
+    }
+
+    private byte[] cached(UUID transactionId) {
+        renderedLock.lock();
+        try {
+            return rendered.get(transactionId);
+        } finally {
+            renderedLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.config.IdempotencyProperties;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hashes captured request bodies so a retried idempotent request can be matched to
+ * the one stored under its key.
+ *
+ * The hash only has to tell accidentally different bodies apart, so the algorithm is
+ * configurable (idempotency.request-hash.algorithm). Every algorithm except SHA-256 tags
+ * its hashes as "algorithm:hex". SHA-256 hashes stay untagged so that records stored
+ * before algorithms were configurable still match.
+ */
+interface RequestHasher {
+
+    byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * @return the hash of body[offset, offset + length), tagged with the algorithm
+     */
+    String hash(byte[] body, int offset, int length);
+
+    static RequestHasher of(IdempotencyProperties.RequestHash.Algorithm algorithm) {
+        return switch (algorithm) {
+            case SHA256 -> Sha256RequestHasher.INSTANCE;
+            case MURMUR3 -> Murmur3RequestHasher.INSTANCE;
+        };
+    }
+
+    static String toHex(byte[] bytes) {
+        byte[] hex = new byte[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            hex[i * 2] = HEX_DIGITS[v >>> 4];
+            hex[i * 2 + 1] = HEX_DIGITS[v & 0x0f];
+        }
+        return new String(hex, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ledger.adapters.in.web;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 request hasher, the default. Produces untagged lowercase hex so existing
+ * idempotency records keep matching.
+ */
+final class Sha256RequestHasher implements RequestHasher {
+
+    static final Sha256RequestHasher INSTANCE = new Sha256RequestHasher();
+
+    private Sha256RequestHasher() {
+    }
+
+    @Override
+    public String hash(byte[] body, int offset, int length) {
+        // A digest per call: requests run on virtual threads, so a thread-local one would never be reused
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(body, offset, length);
+        return RequestHasher.toHex(digest.digest());
+    }
+}
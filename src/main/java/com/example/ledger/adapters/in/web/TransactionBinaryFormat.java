@@ -0,0 +1,214 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.in.web.dto.CreateTransactionRequest;
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import com.example.ledger.domain.model.ValidationResult;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of transactions for high-volume producers, as an alternative to JSON
+ * on POST /transactions (application/x-ledger-transaction).
+ *
+ * Every message starts with a version byte, then big-endian fields:
+ * - Create request: type (1 byte), amount in minor units (8 bytes), description
+ * - Transaction: type, amount, id (16 bytes), date in microseconds since the epoch as UTC
+ *   (8 bytes), description
+ * - Transaction list: count (4 bytes), then that many transactions without the version byte
+ * A description is its UTF-8 length as an unsigned 2-byte int, then the bytes. Types are
+ * EXPENSE = 0 and REVENUE = 1; amounts have two decimal places.
+ *
+ * Add a version rather than changing a layout.
+ */
+public final class TransactionBinaryFormat {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-ledger-transaction";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    static final byte VERSION_1 = 1;
+
+    private static final int AMOUNT_SCALE = 2;
+    private static final int MAX_DESCRIPTION_BYTES = 0xFFFF;
+    // type, amount, id, date and the description length
+    private static final int TRANSACTION_FIXED_BYTES = 1 + 8 + 16 + 8 + 2;
+    private static final TransactionType[] TYPES = {TransactionType.EXPENSE, TransactionType.REVENUE};
+
+    private TransactionBinaryFormat() {
+    }
+
+    /**
+     * Decodes a create request straight into a new Transaction.
+     *
+     * @throws IOException if the message is malformed
+     * @throws IllegalArgumentException if the request is invalid, e.g. its type code is unknown
+     */
+    public static Transaction decodeCreate(byte[] message) throws IOException {
+        CreateTransactionRequest request = decodeCreateRequest(message);
+        ValidationResult validation = request.validate();
+        if (!validation.isValid()) {
+            throw new IllegalArgumentException(validation.getMessage());
+        }
+        return new Transaction(request.getAmount(), request.getDescription(), request.getType());
+    }
+
+    /**
+     * Decodes a create request without validating its values, for the caller to check with
+     * {@link CreateTransactionRequest#validate()}. An unknown type code is kept as the request's
+     * invalid type, as an unknown type name in JSON is, so it is reported with the other violations.
+     *
+     * @throws IOException if the message is malformed
+     */
+    public static CreateTransactionRequest decodeCreateRequest(byte[] message) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        try {
+            readVersion(buffer);
+            CreateTransactionRequest request = new CreateTransactionRequest();
+            int typeCode = buffer.get();
+            if (isTypeCode(typeCode)) {
+                request.setType(TYPES[typeCode]);
+            } else {
+                request.setTypeName(Integer.toString(typeCode));
+            }
+            request.setAmount(BigDecimal.valueOf(buffer.getLong(), AMOUNT_SCALE));
+            request.setDescription(readDescription(buffer));
+            if (buffer.hasRemaining()) {
+                throw new IOException(buffer.remaining() + " unexpected bytes after the transaction");
+            }
+            return request;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated transaction message", e);
+        }
+    }
+
+    /**
+     * Encodes a create request; the client side of {@link #decodeCreate(byte[])}.
+     */
+    public static byte[] encodeCreate(BigDecimal amount, String description, TransactionType type) {
+        byte[] descriptionBytes = descriptionBytes(description);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 1 + 8 + 2 + descriptionBytes.length);
+        buffer.put(VERSION_1);
+        buffer.put(typeCode(type));
+        buffer.putLong(minorUnits(amount));
+        buffer.putShort((short) descriptionBytes.length);
+        buffer.put(descriptionBytes);
+        return buffer.array();
+    }
+
+    public static byte[] encode(Transaction transaction) {
+        byte[] descriptionBytes = descriptionBytes(transaction.getDescription());
+        ByteBuffer buffer = ByteBuffer.allocate(1 + TRANSACTION_FIXED_BYTES + descriptionBytes.length);
+        buffer.put(VERSION_1);
+        putTransaction(buffer, transaction, descriptionBytes);
+        return buffer.array();
+    }
+
+    public static byte[] encode(List<Transaction> transactions) {
+        byte[][] descriptions = new byte[transactions.size()][];
+        int length = 1 + 4;
+        for (int i = 0; i < descriptions.length; i++) {
+            descriptions[i] = descriptionBytes(transactions.get(i).getDescription());
+            length += TRANSACTION_FIXED_BYTES + descriptions[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(VERSION_1);
+        buffer.putInt(descriptions.length);
+        for (int i = 0; i < descriptions.length; i++) {
+            putTransaction(buffer, transactions.get(i), descriptions[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes an encoded transaction, e.g. a create response; the client side of
+     * {@link #encode(Transaction)}.
+     */
+    public static Transaction decode(byte[] message) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        try {
+            readVersion(buffer);
+            return readTransaction(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated transaction message", e);
+        }
+    }
+
+    private static void putTransaction(ByteBuffer buffer, Transaction transaction, byte[] descriptionBytes) {
+        buffer.put(typeCode(transaction.getType()));
+        buffer.putLong(minorUnits(transaction.getAmount()));
+        buffer.putLong(transaction.getId().getMostSignificantBits());
+        buffer.putLong(transaction.getId().getLeastSignificantBits());
+        LocalDateTime date = transaction.getDate();
+        buffer.putLong(date.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + date.getNano() / 1_000);
+        buffer.putShort((short) descriptionBytes.length);
+        buffer.put(descriptionBytes);
+    }
+
+    private static Transaction readTransaction(ByteBuffer buffer) throws IOException {
+        TransactionType type = readType(buffer);
+        BigDecimal amount = BigDecimal.valueOf(buffer.getLong(), AMOUNT_SCALE);
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        long micros = buffer.getLong();
+        LocalDateTime date = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+        return new Transaction(id, date, amount, readDescription(buffer), type);
+    }
+
+    private static void readVersion(ByteBuffer buffer) throws IOException {
+        byte version = buffer.get();
+        if (version != VERSION_1) {
+            throw new IOException("Unsupported transaction message version " + version);
+        }
+    }
+
+    private static TransactionType readType(ByteBuffer buffer) throws IOException {
+        int code = buffer.get();
+        if (!isTypeCode(code)) {
+            throw new IOException("Unknown transaction type code " + code);
+        }
+        return TYPES[code];
+    }
+
+    private static boolean isTypeCode(int code) {
+        return code >= 0 && code < TYPES.length;
+    }
+
+    private static String readDescription(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String description = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return description;
+    }
+
+    private static byte typeCode(TransactionType type) {
+        return switch (type) {
+            case EXPENSE -> 0;
+            case REVENUE -> 1;
+        };
+    }
+
+    private static long minorUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static byte[] descriptionBytes(String description) {
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_DESCRIPTION_BYTES) {
+            throw new IllegalArgumentException("Description must not exceed " + MAX_DESCRIPTION_BYTES + " bytes");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.in.web.dto.CreateTransactionRequest;
+import com.example.ledger.config.StageTimings;
+import com.example.ledger.domain.model.Transaction;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads and writes application/x-ledger-transaction with TransactionBinaryFormat.
+ *
+ * A request body is decoded straight into a CreateTransactionRequest: no JSON tree, no BigDecimal
+ * or enum parsing from text. Responses are written in the format when the client asks for it
+ * in Accept, for a Transaction or a List of them.
+ *
+ * Registered after the JSON converter (see WebMvcConfig), so clients that accept anything
+ * still get JSON.
+ */
+public class TransactionBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public TransactionBinaryHttpMessageConverter() {
+        super(TransactionBinaryFormat.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return Transaction.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(@NonNull Class<?> clazz, @Nullable MediaType mediaType) {
+        return CreateTransactionRequest.class == clazz && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return CreateTransactionRequest.class == type && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, @NonNull Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (Transaction.class == clazz) {
+            return true;
+        }
+        return type != null && List.class.isAssignableFrom(clazz)
+                && ResolvableType.forType(type).asCollection().resolveGeneric(0) == Transaction.class;
+    }
+
+    @Override
+    @NonNull
+    public List<MediaType> getSupportedMediaTypes(@NonNull Class<?> clazz) {
+        // Offered for lists too; canWrite checks their element type
+        return Transaction.class == clazz || CreateTransactionRequest.class == clazz
+                || List.class.isAssignableFrom(clazz)
+                ? getSupportedMediaTypes()
+                : List.of();
+    }
+
+    @Override
+    @NonNull
+    public Object read(@NonNull Type type, @Nullable Class<?> contextClass, @NonNull HttpInputMessage inputMessage)
+            throws IOException {
+        return readInternal(CreateTransactionRequest.class, inputMessage);
+    }
+
+    @Override
+    @NonNull
+    protected Object readInternal(@NonNull Class<?> clazz, @NonNull HttpInputMessage inputMessage)
+            throws IOException {
+        // Sized from Content-Length: readAllBytes() would start with a 16 KiB buffer for ~30 bytes
+        long contentLength = inputMessage.getHeaders().getContentLength();
+        byte[] message = contentLength >= 0 && contentLength < Integer.MAX_VALUE
+                ? inputMessage.getBody().readNBytes((int) contentLength)
+                : inputMessage.getBody().readAllBytes();
+        try {
+            return TransactionBinaryFormat.decodeCreateRequest(message);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(@NonNull Object value, @Nullable Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        StageTimings timings = StageTimings.current();
+        long start = timings.start();
+        byte[] body = value instanceof Transaction transaction
+                ? TransactionBinaryFormat.encode(transaction)
+                : TransactionBinaryFormat.encode((List<Transaction>) value);
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+        timings.end(StageTimings.Stage.SERIALIZE, start);
+    }
+}
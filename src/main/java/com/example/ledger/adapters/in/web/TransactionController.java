@@ -3,8 +3,10 @@ package com.example.ledger.adapters.in.web;
 import com.example.ledger.adapters.in.web.dto.CreateTransactionRequest;
 import com.example.ledger.application.usecase.CreateTransactionUseCase;
 import com.example.ledger.application.usecase.GetAllTransactionsUseCase;
+import com.example.ledger.config.StageTimings;
 import com.example.ledger.config.TrackMetric;
 import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.ValidationResult;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,9 +15,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/transactions")
@@ -31,7 +37,8 @@ public class TransactionController {
         this.getAllTransactionsUseCase = getAllTransactionsUseCase;
 
     }
-    @TrackMetric("transactions.created")
+    @TrackMetric(value = "transactions.created", timed = true, percentiles = {0.5, 0.95, 0.99},
+            percentileHistogram = true, sloMillis = {10, 50, 100})
     @PostMapping
     @Operation(
         summary = "Create a new transaction",
@@ -67,7 +74,8 @@ public class TransactionController {
                     name = "Validation Error",
                     value = """
                         {
-                          "error": "Amount must be positive"
+                          "error": "Amount must be positive",
+                          "violations": ["Amount must be positive"]
                         }
                         """
                 )
@@ -89,21 +97,54 @@ public class TransactionController {
             )
         )
     })
-    public ResponseEntity<Transaction> createTransaction(
+    public ResponseEntity<?> createTransaction(
         @Parameter(description = "Transaction details", required = true)
-        @RequestBody CreateTransactionRequest request) {
+        @RequestBody CreateTransactionRequest request,
+        HttpServletRequest httpRequest) {
 
-        // Convert DTO to domain model
-        Transaction transaction = new Transaction(
-                request.getAmount(),
-                request.getDescription(),
-                request.getType()
-        );
+        return create(request, httpRequest);
+    }
+
+    @TrackMetric(value = "transactions.created", timed = true, percentiles = {0.5, 0.95, 0.99},
+            percentileHistogram = true, sloMillis = {10, 50, 100})
+    @PostMapping(consumes = TransactionBinaryFormat.MEDIA_TYPE_VALUE)
+    @Operation(
+        summary = "Create a new transaction from the binary format",
+        description = "Same as the JSON create, for high-volume producers: the body is decoded by "
+                + "TransactionBinaryHttpMessageConverter. Send Accept: "
+                + TransactionBinaryFormat.MEDIA_TYPE_VALUE + " to get the response in the same format"
+    )
+    public ResponseEntity<?> createTransactionFromBinary(
+        @Parameter(description = "Transaction in application/x-ledger-transaction", required = true)
+        @RequestBody CreateTransactionRequest request,
+        HttpServletRequest httpRequest) {
+
+        return create(request, httpRequest);
+    }
+
+    private ResponseEntity<?> create(CreateTransactionRequest request, HttpServletRequest httpRequest) {
+        // Checked here rather than left to the Transaction constructor, so that rejecting a
+        // request does not cost an exception
+        StageTimings timings = StageTimings.current();
+        long start = timings.start();
+        ValidationResult validation = request.validate();
+        timings.end(StageTimings.Stage.VALIDATE, start);
+        if (!validation.isValid()) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", validation.getMessage());
+            error.put("violations", validation.getViolations());
+            // JSON even for a client that only accepts the binary format, as GlobalExceptionHandler does
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(error);
+        }
 
+        Transaction transaction = new Transaction(request.getAmount(), request.getDescription(), request.getType());
         Transaction savedTransaction = createTransactionUseCase.create(transaction);
+        // Lets IdempotencyFilter store a reference instead of the whole response
+        httpRequest.setAttribute(IdempotencyFilter.CREATED_RESOURCE_ID_ATTRIBUTE, savedTransaction.getId());
         return ResponseEntity.ok(savedTransaction);
     }
-    @TrackMetric("transactions.fetched")
+    @TrackMetric(value = "transactions.fetched", timed = true, percentiles = {0.5, 0.95, 0.99},
+            percentileHistogram = true, sloMillis = {50, 250, 1000})
     @GetMapping
     @Operation(
         summary = "Get all transactions",
@@ -0,0 +1,178 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Writes a Transaction straight to the JsonGenerator, instead of Jackson's reflective bean
+ * serialisation, producing exactly the same bytes:
+ * {"id":"…","date":"2024-01-15T10:30:00.123456","amount":25.50,"description":"…","type":"EXPENSE"}
+ *
+ * Field names and enum names are pre-encoded SerializedStrings, which the generator copies as
+ * cached UTF-8 bytes. The id and date are formatted into a char buffer kept for the whole
+ * response (a SerializerProvider attribute) instead of into Strings, so a list of transactions
+ * shares one buffer. It is not kept per thread: requests run on virtual threads, which would
+ * never reuse it. The date follows DateTimeFormatter.ISO_LOCAL_DATE_TIME
+ * as jackson-datatype-jsr310 does (fraction without trailing zeros, none for a whole second).
+ * Amounts go through writeNumber(BigDecimal), as before: BigDecimal caches its toString().
+ *
+ * Registered with the application's ObjectMapper by Spring Boot (@JsonComponent), so the
+ * controller, ReferencedResponseRenderer and anything else serialising transactions use it.
+ */
+@JsonComponent
+public class TransactionJsonSerializer extends StdSerializer<Transaction> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString DATE = new SerializedString("date");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString[] TYPE_NAMES;
+
+    static {
+        TransactionType[] types = TransactionType.values();
+        TYPE_NAMES = new SerializableString[types.length];
+        for (TransactionType type : types) {
+            TYPE_NAMES[type.ordinal()] = new SerializedString(type.name());
+        }
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // Longest text written from the buffer: a UUID
+    private static final int BUFFER_LENGTH = 36;
+    private static final Object BUFFER_ATTRIBUTE = TransactionJsonSerializer.class;
+
+    public TransactionJsonSerializer() {
+        super(Transaction.class);
+    }
+
+    @Override
+    public void serialize(Transaction transaction, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(transaction);
+        // The generator copies the chars it is given, so the id and date can share it
+        char[] buffer = buffer(provider);
+
+        gen.writeFieldName(ID);
+        UUID id = transaction.getId();
+        if (id == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(buffer, 0, formatUuid(id, buffer));
+        }
+
+        gen.writeFieldName(DATE);
+        LocalDateTime date = transaction.getDate();
+        if (date == null) {
+            gen.writeNull();
+        } else if (date.getYear() < 0 || date.getYear() > 9999) {
+            // Signed or 5+ digit years: rare enough to leave to the formatter
+            gen.writeString(date.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } else {
+            gen.writeString(buffer, 0, formatDate(date, buffer));
+        }
+
+        gen.writeFieldName(AMOUNT);
+        if (transaction.getAmount() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(transaction.getAmount());
+        }
+
+        gen.writeFieldName(DESCRIPTION);
+        gen.writeString(transaction.getDescription());
+
+        gen.writeFieldName(TYPE);
+        if (transaction.getType() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(TYPE_NAMES[transaction.getType().ordinal()]);
+        }
+
+        gen.writeEndObject();
+    }
+
+    private static char[] buffer(SerializerProvider provider) {
+        char[] buffer = (char[]) provider.getAttribute(BUFFER_ATTRIBUTE);
+        if (buffer == null) {
+            buffer = new char[BUFFER_LENGTH];
+            provider.setAttribute(BUFFER_ATTRIBUTE, buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes the UUID as UUID.toString() does.
+     *
+     * @return the number of chars written
+     */
+    static int formatUuid(UUID id, char[] buffer) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        hex(msb >>> 32, buffer, 0, 8);
+        buffer[8] = '-';
+        hex(msb >>> 16, buffer, 9, 4);
+        buffer[13] = '-';
+        hex(msb, buffer, 14, 4);
+        buffer[18] = '-';
+        hex(lsb >>> 48, buffer, 19, 4);
+        buffer[23] = '-';
+        hex(lsb, buffer, 24, 12);
+        return 36;
+    }
+
+    /**
+     * Writes a date with a year from 0 to 9999 as DateTimeFormatter.ISO_LOCAL_DATE_TIME does.
+     *
+     * @return the number of chars written
+     */
+    static int formatDate(LocalDateTime date, char[] buffer) {
+        digits(date.getYear(), buffer, 0, 4);
+        buffer[4] = '-';
+        digits(date.getMonthValue(), buffer, 5, 2);
+        buffer[7] = '-';
+        digits(date.getDayOfMonth(), buffer, 8, 2);
+        buffer[10] = 'T';
+        digits(date.getHour(), buffer, 11, 2);
+        buffer[13] = ':';
+        digits(date.getMinute(), buffer, 14, 2);
+        buffer[16] = ':';
+        digits(date.getSecond(), buffer, 17, 2);
+        int nano = date.getNano();
+        if (nano == 0) {
+            return 19;
+        }
+        int fractionDigits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            fractionDigits--;
+        }
+        buffer[19] = '.';
+        digits(nano, buffer, 20, fractionDigits);
+        return 20 + fractionDigits;
+    }
+
+    private static void hex(long value, char[] buffer, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = HEX_DIGITS[(int) value & 0xF];
+            value >>>= 4;
+        }
+    }
+
+    private static void digits(int value, char[] buffer, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
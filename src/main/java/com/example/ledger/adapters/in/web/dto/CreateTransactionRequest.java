@@ -1,13 +1,25 @@
 package com.example.ledger.adapters.in.web.dto;
 
+import com.example.ledger.domain.model.Transaction;
 import com.example.ledger.domain.model.TransactionType;
+import com.example.ledger.domain.model.ValidationResult;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.math.BigDecimal;
 
+/**
+ * Body of POST /transactions.
+ *
+ * The type is read from JSON as text: a name that is no TransactionType is kept and reported
+ * by {@link #validate()}, rather than failing deserialisation with an exception.
+ */
 @Schema(description = "Request object for creating a new transaction")
 public class CreateTransactionRequest {
-    
+
+    public static final String INVALID_TYPE_MESSAGE = "Invalid transaction type. Must be either EXPENSE or REVENUE";
+    private static final TransactionType[] TYPES = TransactionType.values();
+
     @Schema(description = "Transaction amount (must be positive)", example = "25.50", required = true)
     private BigDecimal amount;
     
@@ -17,6 +29,9 @@ public class CreateTransactionRequest {
     @Schema(description = "Transaction type", example = "EXPENSE", allowableValues = {"EXPENSE", "REVENUE"}, required = true)
     private TransactionType type;
 
+    // Set when the type names no TransactionType, e.g. an unknown binary type code; type is then null
+    private String invalidType;
+
     // Getters and setters
     public BigDecimal getAmount() {
         return amount;
@@ -40,5 +55,30 @@ public class CreateTransactionRequest {
 
     public void setType(TransactionType type) {
         this.type = type;
+        this.invalidType = null;
+    }
+
+    // Jackson reads the type through here: the explicit @JsonSetter wins over setType
+    @JsonSetter("type")
+    public void setTypeName(String typeName) {
+        TransactionType resolved = null;
+        if (typeName != null) {
+            for (TransactionType candidate : TYPES) {
+                if (candidate.name().equals(typeName)) {
+                    resolved = candidate;
+                    break;
+                }
+            }
+        }
+        this.type = resolved;
+        this.invalidType = resolved == null ? typeName : null;
+    }
+
+    /**
+     * Validates the request as the Transaction constructor would, plus the type name.
+     */
+    public ValidationResult validate() {
+        ValidationResult result = Transaction.validate(amount, description);
+        return invalidType == null ? result : result.withViolation(INVALID_TYPE_MESSAGE);
     }
 }
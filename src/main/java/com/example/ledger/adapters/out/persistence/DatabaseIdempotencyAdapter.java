@@ -2,27 +2,49 @@ package com.example.ledger.adapters.out.persistence;
 
 import com.example.ledger.adapters.out.persistence.entity.IdempotencyEntity;
 import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiConsumer;
 
 /**
  * Database-backed implementation of IdempotencyRepositoryPort.
  * 
  * This adapter stores idempotency keys and their responses in a database table.
+ * Response bodies are stored compressed (see ResponseBodyCodec), or not at all when the
+ * response is stored as a reference (resource_id).
  * It handles expiration checking and cleanup of expired keys.
+ * This is the default store (idempotency.store=database).
  */
 @Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "database", matchIfMissing = true)
 public class DatabaseIdempotencyAdapter implements IdempotencyRepositoryPort {
 
-    private static final int DEFAULT_TTL_HOURS = 24;
+    private static final int LIVE_KEYS_PAGE_SIZE = 10_000;
+    private static final int CLIENT_ERROR = 400;
+    private static final int SIZE_SAMPLE = 100;
+    // SQLSTATE of a unique constraint violation, on H2 and PostgreSQL alike
+    private static final String UNIQUE_VIOLATION = "23505";
+    
+    private static final String TABLE = "idempotency_keys";
     
     private final IdempotencyJpaRepository idempotencyJpaRepository;
+    private final TableRowEstimates rowEstimates;
 
-    public DatabaseIdempotencyAdapter(IdempotencyJpaRepository idempotencyJpaRepository) {
+    public DatabaseIdempotencyAdapter(IdempotencyJpaRepository idempotencyJpaRepository, JdbcTemplate jdbcTemplate) {
         this.idempotencyJpaRepository = idempotencyJpaRepository;
+        this.rowEstimates = new TableRowEstimates(jdbcTemplate);
     }
 
     @Override
@@ -40,50 +62,64 @@ public class DatabaseIdempotencyAdapter implements IdempotencyRepositoryPort {
 
         IdempotencyEntity entity = entityOpt.get();
         
-        // Check if expired - if so, delete and return empty
-        if (entity.getExpiresAt().isBefore(LocalDateTime.now())) {
-            idempotencyJpaRepository.delete(entity);
+        // Check if expired - if so, delete and return empty. Deleted by a guarded query, not
+        // by entity, so a cleanup run that removed the row meanwhile is not an error
+        LocalDateTime now = LocalDateTime.now();
+        if (entity.getExpiresAt().isBefore(now)) {
+            idempotencyJpaRepository.deleteExpiredByIdIn(List.of(entity.getId()), now);
             return Optional.empty();
         }
 
-        // Return cached response
-        IdempotencyResponse response = new IdempotencyResponse(
-                entity.getStatusCode(),
-                entity.getResponseBody()
-        );
-        return Optional.of(response);
+        if (entity.getResourceId() != null) {
+            return Optional.of(IdempotencyResponse.reference(entity.getStatusCode(), entity.getResourceId()));
+        }
+
+        // Return cached response - the body is only decompressed here, on replay
+        return Optional.of(ResponseBodyCodec.decodeResponse(entity.getStatusCode(), entity.getResponseBody()));
     }
 
     @Override
-    public void storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response) {
+    public void storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response,
+                              Duration ttl) {
         if (idempotencyKey == null || requestHash == null || response == null) {
             return;
         }
 
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime expiresAt = now.plusHours(DEFAULT_TTL_HOURS);
+        LocalDateTime expiresAt = now.plus(ttl);
+        // A reference stores just the resource id; the body is re-rendered on replay
+        byte[] body = response.isReference() ? null : ResponseBodyCodec.encode(response.getResponseBodyBytes(), response.getContentType());
 
-        // Check if entity already exists
-        Optional<IdempotencyEntity> existingEntityOpt = idempotencyJpaRepository
-                .findByIdempotencyKeyAndRequestHash(idempotencyKey, requestHash);
-
-        IdempotencyEntity entity;
-        if (existingEntityOpt.isPresent()) {
-            // Update existing entity
-            entity = existingEntityOpt.get();
-        } else {
-            // Create new entity
-            entity = new IdempotencyEntity();
-            entity.setIdempotencyKey(idempotencyKey);
-            entity.setRequestHash(requestHash);
-            entity.setCreatedAt(now);
+        // A row left behind by an expired response is reused, as the unique constraint still covers it
+        if (idempotencyJpaRepository.replaceExpired(idempotencyKey, requestHash, response.getStatusCode(), body,
+                response.getResourceId(), now, expiresAt) > 0) {
+            return;
         }
 
+        IdempotencyEntity entity = new IdempotencyEntity();
+        entity.setIdempotencyKey(idempotencyKey);
+        entity.setRequestHash(requestHash);
         entity.setStatusCode(response.getStatusCode());
-        entity.setResponseBody(response.getResponseBody());
+        entity.setResponseBody(body);
+        entity.setResourceId(response.getResourceId());
+        entity.setCreatedAt(now);
         entity.setExpiresAt(expiresAt);
 
-        idempotencyJpaRepository.save(entity);
+        // Inserted right away (the id is an identity column). A live row for the key and hash
+        // fails it on the unique constraint, once the transaction that stored it has committed
+        try {
+            idempotencyJpaRepository.save(entity);
+        } catch (DataIntegrityViolationException e) {
+            if (isUniqueViolation(e)) {
+                throw new RecordAlreadyStoredException(idempotencyKey, e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void expireReference(String idempotencyKey, String requestHash, UUID resourceId) {
+        idempotencyJpaRepository.expireReference(idempotencyKey, requestHash, resourceId, LocalDateTime.now());
     }
 
     @Override
@@ -107,13 +143,80 @@ public class DatabaseIdempotencyAdapter implements IdempotencyRepositoryPort {
             return false;
         }
 
-        // Check if key exists with a different hash
-        return idempotencyJpaRepository.existsByIdempotencyKeyAndRequestHashNot(idempotencyKey, requestHash);
+        // Check if key exists with a different hash; cached client errors never conflict
+        return idempotencyJpaRepository.existsByIdempotencyKeyAndRequestHashNotAndStatusCodeLessThan(
+                idempotencyKey, requestHash, CLIENT_ERROR);
+    }
+
+    @Override
+    public int deleteExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        return idempotencyJpaRepository.deleteByExpiresAtBefore(now);
     }
 
     @Override
-    public void deleteExpiredKeys() {
+    public int deleteExpiredKeys(int maxRows) {
         LocalDateTime now = LocalDateTime.now();
-        idempotencyJpaRepository.deleteByExpiresAtBefore(now);
+        // Walks the expires_at index for the oldest ids, then deletes them by primary key
+        // so each batch is a short transaction touching at most maxRows rows
+        List<Long> ids = idempotencyJpaRepository.findExpiredIds(now, PageRequest.of(0, maxRows));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return idempotencyJpaRepository.deleteExpiredByIdIn(ids, now);
+    }
+
+    @Override
+    public long countExpiredKeys() {
+        return idempotencyJpaRepository.countByExpiresAtBefore(LocalDateTime.now());
+    }
+
+    @Override
+    public void forEachLiveKey(BiConsumer<String, Instant> action) {
+        LocalDateTime now = LocalDateTime.now();
+        ZoneId zone = ZoneId.systemDefault();
+        PageRequest page = PageRequest.of(0, LIVE_KEYS_PAGE_SIZE);
+        long afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = idempotencyJpaRepository.findLiveKeysAfter(now, afterId, page);
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                action.accept((String) row[1], ((LocalDateTime) row[2]).atZone(zone).toInstant());
+            }
+        } while (rows.size() == LIVE_KEYS_PAGE_SIZE);
+    }
+
+    /**
+     * Estimated rather than counted:
+     * - entries is the database's own row estimate for the table (see TableRowEstimates), so
+     *   on PostgreSQL it trails writes until autovacuum next analyzes the table
+     * - storedBytes is entries times the average stored body of the newest rows
+     * - oldestEntry is the creation time of the lowest id, found with index probes
+     */
+    @Override
+    public StoreStatistics statistics() {
+        Object[] range = idempotencyJpaRepository.findIdRangeAndOldestExpiry().get(0);
+        if (range[0] == null) {
+            return new StoreStatistics(0, 0, null, null);
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long entries = rowEstimates.estimate(TABLE);
+        Number averageSize = idempotencyJpaRepository.averageStoredSizeOfNewest(SIZE_SAMPLE);
+        long storedBytes = averageSize == null ? 0 : Math.round(averageSize.doubleValue() * entries);
+        Instant oldestEntry = idempotencyJpaRepository.findCreatedAtById((Long) range[0])
+                .map(createdAt -> createdAt.atZone(zone).toInstant())
+                .orElse(null);
+        Instant oldestExpiry = ((LocalDateTime) range[2]).atZone(zone).toInstant();
+        return new StoreStatistics(entries, storedBytes, oldestEntry, oldestExpiry);
+    }
+
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 }
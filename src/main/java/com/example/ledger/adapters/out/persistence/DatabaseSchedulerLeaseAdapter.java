@@ -0,0 +1,69 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.adapters.out.persistence.entity.SchedulerLeaseEntity;
+import com.example.ledger.application.port.SchedulerLeasePort;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Database-backed implementation of SchedulerLeasePort.
+ * 
+ * Each job has one row in scheduler_leases holding its current owner and when the lease ends.
+ * A lease is taken with a conditional UPDATE that only matches an expired row, or by inserting
+ * the row the first time a job runs; the primary key makes concurrent inserts fail for all
+ * nodes but one. Lease times come from each node's clock, so clocks must agree to well within
+ * the lease durations.
+ */
+@Component
+public class DatabaseSchedulerLeaseAdapter implements SchedulerLeasePort {
+
+    private final SchedulerLeaseJpaRepository schedulerLeaseJpaRepository;
+
+    public DatabaseSchedulerLeaseAdapter(SchedulerLeaseJpaRepository schedulerLeaseJpaRepository) {
+        this.schedulerLeaseJpaRepository = schedulerLeaseJpaRepository;
+    }
+
+    @Override
+    public boolean tryAcquire(String jobName, String owner, Duration lockAtMostFor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockUntil = now.plus(lockAtMostFor);
+
+        if (schedulerLeaseJpaRepository.takeExpiredLease(jobName, owner, now, lockUntil) == 1) {
+            return true;
+        }
+        if (schedulerLeaseJpaRepository.existsById(jobName)) {
+            // Held by another node
+            return false;
+        }
+
+        // First run of this job anywhere in the cluster
+        SchedulerLeaseEntity lease = new SchedulerLeaseEntity();
+        lease.setJobName(jobName);
+        lease.setOwner(owner);
+        lease.setLockedAt(now);
+        lease.setLockUntil(lockUntil);
+        try {
+            schedulerLeaseJpaRepository.saveAndFlush(lease);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted it first
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String jobName, String owner, Duration lockAtLeastFor) {
+        Optional<SchedulerLeaseEntity> lease = schedulerLeaseJpaRepository.findById(jobName);
+        if (lease.isEmpty() || !owner.equals(lease.get().getOwner())) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime heldUntil = lease.get().getLockedAt().plus(lockAtLeastFor);
+        schedulerLeaseJpaRepository.updateLeaseEnd(jobName, owner, heldUntil.isAfter(now) ? heldUntil : now);
+    }
+}
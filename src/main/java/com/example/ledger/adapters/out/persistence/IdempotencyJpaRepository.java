@@ -1,25 +1,71 @@
 package com.example.ledger.adapters.out.persistence;
 
 import com.example.ledger.adapters.out.persistence.entity.IdempotencyEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface IdempotencyJpaRepository extends JpaRepository<IdempotencyEntity, Long> {
     
     Optional<IdempotencyEntity> findByIdempotencyKeyAndRequestHash(String idempotencyKey, String requestHash);
     
-    boolean existsByIdempotencyKeyAndRequestHashNot(String idempotencyKey, String requestHash);
+    boolean existsByIdempotencyKeyAndRequestHashNotAndStatusCodeLessThan(String idempotencyKey, String requestHash,
+                                                                        int statusCode);
+    
+    // Only an expired row is replaced, so a response that is still replayed is never overwritten
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyEntity e SET e.statusCode = :statusCode, e.responseBody = :responseBody, "
+            + "e.resourceId = :resourceId, e.createdAt = :now, e.expiresAt = :expiresAt "
+            + "WHERE e.idempotencyKey = :idempotencyKey AND e.requestHash = :requestHash AND e.expiresAt <= :now")
+    int replaceExpired(String idempotencyKey, String requestHash, Integer statusCode, byte[] responseBody,
+                       UUID resourceId, LocalDateTime now, LocalDateTime expiresAt);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyEntity e SET e.expiresAt = :now WHERE e.idempotencyKey = :idempotencyKey "
+            + "AND e.requestHash = :requestHash AND e.resourceId = :resourceId AND e.expiresAt > :now")
+    int expireReference(String idempotencyKey, String requestHash, UUID resourceId, LocalDateTime now);
     
     @Modifying
     @Transactional
     @Query("DELETE FROM IdempotencyEntity e WHERE e.expiresAt < :now")
-    void deleteByExpiresAtBefore(LocalDateTime now);
+    int deleteByExpiresAtBefore(LocalDateTime now);
+    
+    @Query("SELECT e.id FROM IdempotencyEntity e WHERE e.expiresAt < :now ORDER BY e.expiresAt")
+    List<Long> findExpiredIds(LocalDateTime now, Pageable pageable);
+    
+    // Re-checks expiry so a row refreshed after findExpiredIds is never removed
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyEntity e WHERE e.id IN :ids AND e.expiresAt < :now")
+    int deleteExpiredByIdIn(Collection<Long> ids, LocalDateTime now);
+    
+    long countByExpiresAtBefore(LocalDateTime now);
+    
+    // Keyset pagination on id: each row is [id, idempotencyKey, expiresAt]
+    @Query("SELECT e.id, e.idempotencyKey, e.expiresAt FROM IdempotencyEntity e "
+            + "WHERE e.expiresAt > :now AND e.id > :afterId ORDER BY e.id")
+    List<Object[]> findLiveKeysAfter(LocalDateTime now, Long afterId, Pageable pageable);
+    
+    // Each aggregate is a single probe of the primary key or expires_at index: [min id, max id, min expiresAt]
+    @Query("SELECT MIN(e.id), MAX(e.id), MIN(e.expiresAt) FROM IdempotencyEntity e")
+    List<Object[]> findIdRangeAndOldestExpiry();
+    
+    @Query("SELECT e.createdAt FROM IdempotencyEntity e WHERE e.id = :id")
+    Optional<LocalDateTime> findCreatedAtById(Long id);
+    
+    // A reference row stores only its 16 byte resource id
+    @Query(value = "SELECT AVG(COALESCE(OCTET_LENGTH(response_body), 16)) FROM "
+            + "(SELECT response_body FROM idempotency_keys ORDER BY id DESC FETCH FIRST :sampleSize ROWS ONLY) newest",
+            nativeQuery = true)
+    Number averageStoredSizeOfNewest(int sampleSize);
 }
-
-
-
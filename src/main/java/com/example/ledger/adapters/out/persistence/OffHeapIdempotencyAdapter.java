@@ -0,0 +1,660 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.config.IdempotencyProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Embedded, off-heap implementation of IdempotencyRepositoryPort for single-node deployments.
+ *
+ * Nothing is kept on the Java heap and no database is involved:
+ * - index.dat is a memory-mapped open-addressing hash table keyed by the 16 bytes of the
+ *   idempotency key (a UUID). Each 32 byte slot holds the key, a reference to the record
+ *   and its expiry, so a lookup is a few probes into mapped memory.
+ * - Records (request hash, status code and the ResponseBodyCodec-encoded body, or just the
+ *   resource id for a reference response) are appended
+ *   to slab segments, slab-00.dat .. slab-25.dat. Segments form an hourly timing wheel: a
+ *   record goes to the segment of the hour it expires in.
+ * - Expiry walks the wheel. Once a segment's hour has passed, its records are unlinked from
+ *   the index and the segment is reused from the start, so the slab never needs compaction.
+ * - Everything lives in mapped files, so a restart only remaps them. If the index does not
+ *   match the configured capacity it is rebuilt from the segments.
+ *
+ * One record is kept per idempotency key: storing a key again replaces its record, unless that
+ * is still live and was stored for the same request hash. The files
+ * take no part in database transactions, so a record stored within one is only written once
+ * it commits: a rolled-back request leaves nothing to replay. Writes
+ * are not forced to disk until shutdown, so a crash can lose the most recent keys, much
+ * like an asynchronously replicated cache.
+ *
+ * When a segment or the index is full, new keys are not stored and a warning is logged:
+ * requests still succeed, but they lose idempotency protection until space frees up.
+ *
+ * Enabled with idempotency.store=offheap (see application-idempotency-offheap.yml).
+ */
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "offheap")
+public class OffHeapIdempotencyAdapter implements IdempotencyRepositoryPort {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapIdempotencyAdapter.class);
+
+    static final int TTL_HOURS = (int) DEFAULT_TTL.toHours();
+    static final int WHEEL_SIZE = TTL_HOURS + 2;
+    static final int MAX_INDEX_CAPACITY = 1 << 25;
+    private static final int CLIENT_ERROR = 400;
+
+    private static final long SECONDS_PER_HOUR = Duration.ofHours(1).toSeconds();
+    private static final int MAGIC = 0x4c494458; // "LIDX"
+
+    // Index layout: header, then capacity slots of [keyHi][keyLo][record ref][expires at][state]
+    private static final int INDEX_HEADER = 64;
+    private static final int SLOT_SIZE = 32;
+    private static final int SLOT_KEY_LO = 8;
+    private static final int SLOT_REF = 16;
+    private static final int SLOT_EXPIRES = 24;
+    private static final int SLOT_STATE = 28;
+    private static final int EMPTY = 0;
+    private static final int USED = 1;
+    private static final int DELETED = 2;
+    private static final double MAX_LOAD = 0.75;
+
+    // Segment layout: header, then records of
+    // [keyHi][keyLo][expires at][status][hash length][hash][body length][body]
+    // where a reference response has body length REFERENCE and a 16 byte resource id as body
+    private static final int SEGMENT_HEADER = 32;
+    private static final int SEGMENT_HOUR = 4;
+    private static final int SEGMENT_WRITE_POSITION = 12;
+    private static final int SEGMENT_RECORDS = 16;
+    private static final int RECORD_FIXED = 8 + 8 + 8 + 4 + 2 + 4;
+    private static final int REFERENCE = -1;
+    private static final int REFERENCE_LENGTH = 16;
+
+    private final Path directory;
+    private final int capacity;
+    private final int segmentSize;
+    private final Clock clock;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer index;
+    private final FileChannel[] segmentChannels = new FileChannel[WHEEL_SIZE];
+    private final MappedByteBuffer[] segments = new MappedByteBuffer[WHEEL_SIZE];
+
+    // Counted under the write lock and mirrored in the index header
+    private int usedSlots;
+    private int deletedSlots;
+
+    @Autowired
+    public OffHeapIdempotencyAdapter(IdempotencyProperties properties) {
+        this(properties.getOffHeap().getDirectory(),
+                properties.getOffHeap().getIndexCapacity(),
+                (int) properties.getOffHeap().getSegmentSize().toBytes(),
+                Clock.systemUTC());
+    }
+
+    OffHeapIdempotencyAdapter(Path directory, int indexCapacity, int segmentSize, Clock clock) {
+        if (indexCapacity <= 0 || indexCapacity > MAX_INDEX_CAPACITY) {
+            throw new IllegalArgumentException("Index capacity must be between 1 and " + MAX_INDEX_CAPACITY);
+        }
+        if (segmentSize <= SEGMENT_HEADER) {
+            throw new IllegalArgumentException("Segment size must be larger than " + SEGMENT_HEADER + " bytes");
+        }
+        this.directory = directory;
+        // Power of two so the home slot is a mask rather than a modulo
+        int slots = Integer.highestOneBit(indexCapacity);
+        this.capacity = slots < indexCapacity ? slots << 1 : slots;
+        this.segmentSize = segmentSize;
+        this.clock = clock;
+        try {
+            Files.createDirectories(directory);
+            long indexSize = INDEX_HEADER + (long) capacity * SLOT_SIZE;
+            indexChannel = open(directory.resolve("index.dat"));
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                segmentChannels[i] = open(directory.resolve(String.format("slab-%02d.dat", i)));
+                segments[i] = segmentChannels[i].map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                if (segments[i].getInt(0) != MAGIC || segments[i].getInt(SEGMENT_WRITE_POSITION) > segmentSize) {
+                    resetSegment(i, Long.MIN_VALUE);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open idempotency store in " + directory, e);
+        }
+
+        if (index.getInt(0) == MAGIC && index.getInt(4) == capacity) {
+            usedSlots = index.getInt(8);
+            deletedSlots = index.getInt(12);
+            logger.info("Remapped idempotency store in {} with {} keys", directory, usedSlots);
+        } else {
+            rebuildIndex();
+        }
+    }
+
+    @Override
+    public Optional<IdempotencyResponse> getCachedResponse(String idempotencyKey, String requestHash) {
+        UUID key = parse(idempotencyKey);
+        if (key == null || requestHash == null) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            if (slot < 0 || isExpired(slot)) {
+                return Optional.empty();
+            }
+            long ref = index.getLong(slotOffset(slot) + SLOT_REF);
+            MappedByteBuffer segment = segments[segmentOf(ref)];
+            int position = positionOf(ref) + 24;
+            int statusCode = segment.getInt(position);
+            if (!hashMatches(segment, position + 4, requestHash)) {
+                return Optional.empty();
+            }
+            position += 6 + segment.getShort(position + 4);
+            if (segment.getInt(position) == REFERENCE) {
+                UUID resourceId = new UUID(segment.getLong(position + 4), segment.getLong(position + 12));
+                return Optional.of(IdempotencyResponse.reference(statusCode, resourceId));
+            }
+            byte[] body = new byte[segment.getInt(position)];
+            segment.get(position + 4, body);
+            // The body is only decompressed here, on replay
+            return Optional.of(ResponseBodyCodec.decodeResponse(statusCode, body));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response,
+                              Duration ttl) {
+        UUID key = parse(idempotencyKey);
+        if (key == null || requestHash == null || response == null) {
+            return;
+        }
+        if (ttl.compareTo(DEFAULT_TTL) > 0) {
+            // The timing wheel only spans DEFAULT_TTL worth of hours
+            throw new IllegalArgumentException("TTL must not exceed " + DEFAULT_TTL + ": " + ttl);
+        }
+
+        // A live response is never overwritten, as its request was processed already
+        if (findLiveRecord(key, requestHash) >= 0) {
+            throw new RecordAlreadyStoredException(idempotencyKey, null);
+        }
+
+        byte[] hash = requestHash.getBytes(StandardCharsets.UTF_8);
+        byte[] body = response.isReference() ? null : ResponseBodyCodec.encode(response.getResponseBodyBytes(), response.getContentType());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(idempotencyKey, key, hash, response, body, ttl);
+                }
+            });
+        } else {
+            write(idempotencyKey, key, hash, response, body, ttl);
+        }
+    }
+
+    private void write(String idempotencyKey, UUID key, byte[] hash, IdempotencyResponse response, byte[] body,
+                       Duration ttl) {
+        long expiresAt = clock.instant().getEpochSecond() + ttl.toSeconds();
+        long hour = expiresAt / SECONDS_PER_HOUR;
+        int segmentIndex = (int) (hour % WHEEL_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            // The wheel has come round: whatever the segment holds expired long ago
+            MappedByteBuffer segment = segments[segmentIndex];
+            if (segment.getLong(SEGMENT_HOUR) != hour) {
+                expireSegment(segmentIndex);
+                resetSegment(segmentIndex, hour);
+            }
+
+            int position = segment.getInt(SEGMENT_WRITE_POSITION);
+            int length = RECORD_FIXED + hash.length + (body == null ? REFERENCE_LENGTH : body.length);
+            if (position + length > segmentSize) {
+                logger.warn("Idempotency segment for hour {} is full, key {} not stored", hour, idempotencyKey);
+                return;
+            }
+
+            long hi = key.getMostSignificantBits();
+            long lo = key.getLeastSignificantBits();
+            int slot = findSlot(hi, lo);
+            if (slot < 0) {
+                if (usedSlots + 1 > capacity * MAX_LOAD) {
+                    logger.warn("Idempotency index is full ({} keys), key {} not stored", usedSlots, idempotencyKey);
+                    return;
+                }
+                slot = claimSlot(hi, lo);
+            }
+
+            // Write the record before publishing it in the index
+            segment.putLong(position, hi);
+            segment.putLong(position + 8, lo);
+            segment.putLong(position + 16, expiresAt);
+            segment.putInt(position + 24, response.getStatusCode());
+            segment.putShort(position + 28, (short) hash.length);
+            segment.put(position + 30, hash);
+            if (body == null) {
+                segment.putInt(position + 30 + hash.length, REFERENCE);
+                segment.putLong(position + 34 + hash.length, response.getResourceId().getMostSignificantBits());
+                segment.putLong(position + 42 + hash.length, response.getResourceId().getLeastSignificantBits());
+            } else {
+                segment.putInt(position + 30 + hash.length, body.length);
+                segment.put(position + 34 + hash.length, body);
+            }
+            segment.putInt(SEGMENT_WRITE_POSITION, position + length);
+            segment.putInt(SEGMENT_RECORDS, segment.getInt(SEGMENT_RECORDS) + 1);
+
+            int offset = slotOffset(slot);
+            index.putLong(offset + SLOT_REF, ref(segmentIndex, position));
+            index.putInt(offset + SLOT_EXPIRES, (int) expiresAt);
+            writeIndexHeader();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void expireReference(String idempotencyKey, String requestHash, UUID resourceId) {
+        UUID key = parse(idempotencyKey);
+        if (key == null || requestHash == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int slot = findLiveRecord(key, requestHash);
+            if (slot < 0) {
+                return;
+            }
+            long ref = index.getLong(slotOffset(slot) + SLOT_REF);
+            MappedByteBuffer segment = segments[segmentOf(ref)];
+            int position = positionOf(ref);
+            int body = position + 30 + segment.getShort(position + 28);
+            if (segment.getInt(body) == REFERENCE
+                    && segment.getLong(body + 4) == resourceId.getMostSignificantBits()
+                    && segment.getLong(body + 12) == resourceId.getLeastSignificantBits()) {
+                // In the record too, so rebuilding the index does not bring it back
+                long now = clock.instant().getEpochSecond();
+                segment.putLong(position + 16, now);
+                index.putInt(slotOffset(slot) + SLOT_EXPIRES, (int) now);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the slot of the key's unexpired record if it was stored with requestHash, or -1
+     */
+    private int findLiveRecord(UUID key, String requestHash) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            if (slot < 0 || isExpired(slot)) {
+                return -1;
+            }
+            long ref = index.getLong(slotOffset(slot) + SLOT_REF);
+            return hashMatches(segments[segmentOf(ref)], positionOf(ref) + 28, requestHash) ? slot : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isValidKey(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return false;
+        }
+        return parse(idempotencyKey) != null;
+    }
+
+    @Override
+    public boolean hasKeyWithDifferentHash(String idempotencyKey, String requestHash) {
+        UUID key = parse(idempotencyKey);
+        if (key == null || requestHash == null) {
+            return false;
+        }
+
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            if (slot < 0 || isExpired(slot)) {
+                return false;
+            }
+            long ref = index.getLong(slotOffset(slot) + SLOT_REF);
+            MappedByteBuffer segment = segments[segmentOf(ref)];
+            int position = positionOf(ref);
+            // Cached client errors never conflict
+            return segment.getInt(position + 24) < CLIENT_ERROR
+                    && !hashMatches(segment, position + 28, requestHash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Advances the timing wheel: every segment whose hour has passed is unlinked from the
+     * index and emptied.
+     *
+     * @return the number of keys removed
+     */
+    @Override
+    public int deleteExpiredKeys() {
+        long currentHour = clock.instant().getEpochSecond() / SECONDS_PER_HOUR;
+        int removed = 0;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                long hour = segments[i].getLong(SEGMENT_HOUR);
+                if (hour != Long.MIN_VALUE && hour < currentHour) {
+                    removed += expireSegment(i);
+                    resetSegment(i, Long.MIN_VALUE);
+                }
+            }
+            if (deletedSlots > capacity / 4) {
+                rebuildIndex();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return removed;
+    }
+
+    /**
+     * Expiry empties whole segments, so it is not batched: one call advances the wheel
+     * and maxRows is ignored. The scheduler's next call finds nothing left and stops.
+     */
+    @Override
+    public int deleteExpiredKeys(int maxRows) {
+        return deleteExpiredKeys();
+    }
+
+    @Override
+    public long countExpiredKeys() {
+        lock.readLock().lock();
+        try {
+            long expired = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                if (index.getInt(slotOffset(slot) + SLOT_STATE) == USED && isExpired(slot)) {
+                    expired++;
+                }
+            }
+            return expired;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachLiveKey(BiConsumer<String, Instant> action) {
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < capacity; slot++) {
+                int offset = slotOffset(slot);
+                if (index.getInt(offset + SLOT_STATE) == USED && !isExpired(slot)) {
+                    UUID key = new UUID(index.getLong(offset), index.getLong(offset + SLOT_KEY_LO));
+                    long expiresAt = Integer.toUnsignedLong(index.getInt(offset + SLOT_EXPIRES));
+                    action.accept(key.toString(), Instant.ofEpochSecond(expiresAt));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read from the index header and the segment headers:
+     * - entries is the number of keys in the index, expired ones not yet unlinked included
+     * - storedBytes is what the segments hold, replaced records included until their segment is reused
+     * - records carry no creation time, so oldestEntry is the start of the oldest segment's
+     *   hour less DEFAULT_TTL, and oldestExpiry the end of that hour, by when all its records expired
+     */
+    @Override
+    public StoreStatistics statistics() {
+        lock.readLock().lock();
+        try {
+            long storedBytes = 0;
+            long oldestHour = Long.MAX_VALUE;
+            for (MappedByteBuffer segment : segments) {
+                long hour = segment.getLong(SEGMENT_HOUR);
+                if (hour == Long.MIN_VALUE || segment.getInt(SEGMENT_RECORDS) == 0) {
+                    continue;
+                }
+                storedBytes += segment.getInt(SEGMENT_WRITE_POSITION) - SEGMENT_HEADER;
+                oldestHour = Math.min(oldestHour, hour);
+            }
+            if (oldestHour == Long.MAX_VALUE) {
+                return new StoreStatistics(usedSlots, 0, null, null);
+            }
+            Instant hourStart = Instant.ofEpochSecond(oldestHour * SECONDS_PER_HOUR);
+            return new StoreStatistics(usedSlots, storedBytes,
+                    hourStart.minus(DEFAULT_TTL), hourStart.plusSeconds(SECONDS_PER_HOUR));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            writeIndexHeader();
+            index.force();
+            indexChannel.close();
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                segments[i].force();
+                segmentChannels[i].close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unlinks the records of a segment from the index, unless a newer record replaced them.
+     */
+    private int expireSegment(int segmentIndex) {
+        MappedByteBuffer segment = segments[segmentIndex];
+        int end = segment.getInt(SEGMENT_WRITE_POSITION);
+        int removed = 0;
+        for (int position = SEGMENT_HEADER; position < end; position = nextRecord(segment, position)) {
+            int slot = findSlot(segment.getLong(position), segment.getLong(position + 8));
+            if (slot >= 0 && index.getLong(slotOffset(slot) + SLOT_REF) == ref(segmentIndex, position)) {
+                index.putInt(slotOffset(slot) + SLOT_STATE, DELETED);
+                usedSlots--;
+                deletedSlots++;
+                removed++;
+            }
+        }
+        writeIndexHeader();
+        return removed;
+    }
+
+    /**
+     * Clears the index and re-inserts every unexpired record, oldest segment first so
+     * later records win. Used when the index is missing or resized, and to purge tombstones.
+     */
+    private void rebuildIndex() {
+        for (long offset = 0; offset < INDEX_HEADER + (long) capacity * SLOT_SIZE; offset += 8) {
+            index.putLong((int) offset, 0L);
+        }
+        usedSlots = 0;
+        deletedSlots = 0;
+
+        long now = clock.instant().getEpochSecond();
+        Integer[] order = new Integer[WHEEL_SIZE];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingLong(i -> segments[i].getLong(SEGMENT_HOUR)));
+        for (int segmentIndex : order) {
+            MappedByteBuffer segment = segments[segmentIndex];
+            int end = segment.getInt(SEGMENT_WRITE_POSITION);
+            for (int position = SEGMENT_HEADER; position < end; position = nextRecord(segment, position)) {
+                long expiresAt = segment.getLong(position + 16);
+                if (expiresAt <= now) {
+                    continue;
+                }
+                long hi = segment.getLong(position);
+                long lo = segment.getLong(position + 8);
+                int slot = findSlot(hi, lo);
+                if (slot < 0) {
+                    if (usedSlots + 1 > capacity * MAX_LOAD) {
+                        continue;
+                    }
+                    slot = claimSlot(hi, lo);
+                }
+                index.putLong(slotOffset(slot) + SLOT_REF, ref(segmentIndex, position));
+                index.putInt(slotOffset(slot) + SLOT_EXPIRES, (int) expiresAt);
+            }
+        }
+        index.putInt(0, MAGIC);
+        index.putInt(4, capacity);
+        writeIndexHeader();
+        logger.info("Rebuilt idempotency index in {} with {} keys", directory, usedSlots);
+    }
+
+    /**
+     * Linear probing from the key's home slot, stopping at the first never-used slot.
+     *
+     * @return the slot holding the key, or -1
+     */
+    private int findSlot(long hi, long lo) {
+        int mask = capacity - 1;
+        for (int slot = home(hi, lo), probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            int offset = slotOffset(slot);
+            int state = index.getInt(offset + SLOT_STATE);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && index.getLong(offset) == hi && index.getLong(offset + SLOT_KEY_LO) == lo) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Takes the first free or deleted slot on the key's probe path. The key must not be present.
+     */
+    private int claimSlot(long hi, long lo) {
+        int mask = capacity - 1;
+        int slot = home(hi, lo);
+        while (index.getInt(slotOffset(slot) + SLOT_STATE) == USED) {
+            slot = (slot + 1) & mask;
+        }
+        int offset = slotOffset(slot);
+        if (index.getInt(offset + SLOT_STATE) == DELETED) {
+            deletedSlots--;
+        }
+        index.putLong(offset, hi);
+        index.putLong(offset + SLOT_KEY_LO, lo);
+        index.putInt(offset + SLOT_STATE, USED);
+        usedSlots++;
+        return slot;
+    }
+
+    private boolean isExpired(int slot) {
+        long expiresAt = Integer.toUnsignedLong(index.getInt(slotOffset(slot) + SLOT_EXPIRES));
+        return expiresAt <= clock.instant().getEpochSecond();
+    }
+
+    private int home(long hi, long lo) {
+        // MurmurHash3 fmix64 over both halves; UUIDv4 bits are random but other versions are not
+        long h = hi ^ Long.rotateLeft(lo, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & (capacity - 1);
+    }
+
+    private void resetSegment(int segmentIndex, long hour) {
+        MappedByteBuffer segment = segments[segmentIndex];
+        segment.putInt(0, MAGIC);
+        segment.putLong(SEGMENT_HOUR, hour);
+        segment.putInt(SEGMENT_WRITE_POSITION, SEGMENT_HEADER);
+        segment.putInt(SEGMENT_RECORDS, 0);
+    }
+
+    private void writeIndexHeader() {
+        index.putInt(8, usedSlots);
+        index.putInt(12, deletedSlots);
+    }
+
+    private static boolean hashMatches(MappedByteBuffer segment, int position, String requestHash) {
+        byte[] expected = requestHash.getBytes(StandardCharsets.UTF_8);
+        if (segment.getShort(position) != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (segment.get(position + 2 + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int nextRecord(MappedByteBuffer segment, int position) {
+        int hashLength = segment.getShort(position + 28);
+        int bodyLength = segment.getInt(position + 30 + hashLength);
+        return position + RECORD_FIXED + hashLength + (bodyLength == REFERENCE ? REFERENCE_LENGTH : bodyLength);
+    }
+
+    private static int slotOffset(int slot) {
+        return INDEX_HEADER + slot * SLOT_SIZE;
+    }
+
+    private static long ref(int segmentIndex, int position) {
+        return ((long) segmentIndex << 32) | position;
+    }
+
+    private static int segmentOf(long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    private static int positionOf(long ref) {
+        return (int) ref;
+    }
+
+    private static UUID parse(String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(idempotencyKey);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
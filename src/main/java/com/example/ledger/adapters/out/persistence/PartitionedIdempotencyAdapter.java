@@ -0,0 +1,392 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Time-partitioned implementation of IdempotencyRepositoryPort.
+ *
+ * Every key expires exactly 24 hours after it is stored, so instead of one table
+ * cleaned up row by row, keys are written to a ring of hourly tables
+ * (idempotency_keys_p00 .. idempotency_keys_p26), chosen by the hour they were stored in.
+ *
+ * - Lookups only probe the 25 tables that can still hold live keys (the current hour
+ *   and the 24 before it) and filter the oldest one on expires_at.
+ * - Each table's primary key only covers its own hour, so storing first looks for the key and
+ *   hash in the live tables and reports a live one as a lost race.
+ * - Expiry truncates the two tables that come next in the ring. That costs the same no matter
+ *   how many keys they hold and leaves no dead rows or index bloat behind.
+ * - The extra table in the ring means one missed cleanup run does no harm: the next run
+ *   truncates it before it is written to again.
+ *
+ * Enabled with idempotency.store=partitioned (see application-idempotency-partitioned.yml).
+ * Response bodies are stored compressed (see ResponseBodyCodec), or not at all when the
+ * response is stored as a reference (resource_id).
+ */
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "partitioned")
+public class PartitionedIdempotencyAdapter implements IdempotencyRepositoryPort {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedIdempotencyAdapter.class);
+
+    static final int TTL_HOURS = (int) DEFAULT_TTL.toHours();
+    static final int LIVE_PARTITIONS = TTL_HOURS + 1;
+    private static final int CLIENT_ERROR = 400;
+    static final int PARTITIONS = LIVE_PARTITIONS + 2;
+
+    private static final String TABLE_PREFIX = "idempotency_keys_p";
+    private static final long SECONDS_PER_HOUR = Duration.ofHours(1).toSeconds();
+    private static final int SIZE_SAMPLE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final TableRowEstimates rowEstimates;
+
+    /**
+     * Lookup statements for the live partitions of the hour they were built for.
+     */
+    private volatile LiveQueries liveQueries;
+
+    @Autowired
+    public PartitionedIdempotencyAdapter(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Clock.systemDefaultZone());
+    }
+
+    PartitionedIdempotencyAdapter(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.rowEstimates = new TableRowEstimates(jdbcTemplate);
+        createPartitions();
+    }
+
+    @Override
+    public Optional<IdempotencyResponse> getCachedResponse(String idempotencyKey, String requestHash) {
+        if (idempotencyKey == null || requestHash == null) {
+            return Optional.empty();
+        }
+
+        LiveQueries queries = liveQueries();
+        List<IdempotencyResponse> responses = jdbcTemplate.query(
+                queries.findResponse,
+                (rs, rowNum) -> {
+                    UUID resourceId = rs.getObject("resource_id", UUID.class);
+                    return resourceId != null
+                            ? IdempotencyResponse.reference(rs.getInt("status_code"), resourceId)
+                            // The body is only decompressed here, on replay
+                            : ResponseBodyCodec.decodeResponse(rs.getInt("status_code"), rs.getBytes("response_body"));
+                },
+                queries.arguments(idempotencyKey, requestHash, Timestamp.valueOf(LocalDateTime.now(clock))));
+
+        return responses.stream().findFirst();
+    }
+
+    @Override
+    public void storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response,
+                              Duration ttl) {
+        if (idempotencyKey == null || requestHash == null || response == null) {
+            return;
+        }
+        if (ttl.compareTo(DEFAULT_TTL) > 0) {
+            // Partitions are dropped once every key in them is DEFAULT_TTL old
+            throw new IllegalArgumentException("TTL must not exceed " + DEFAULT_TTL + ": " + ttl);
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        Timestamp createdAt = Timestamp.valueOf(now);
+        Timestamp expiresAt = Timestamp.valueOf(now.plus(ttl));
+        byte[] body = response.isReference() ? null : ResponseBodyCodec.encode(response.getResponseBodyBytes(), response.getContentType());
+        UUID resourceId = response.getResourceId();
+        long hour = currentHour();
+        String table = table(partition(hour));
+
+        // The primary key only covers one partition, so look for the key and hash in the others
+        LiveQueries queries = liveQueries();
+        Timestamp nowTimestamp = Timestamp.valueOf(now);
+        if (!jdbcTemplate.queryForList(queries.findStored, Integer.class,
+                queries.arguments(idempotencyKey, requestHash, nowTimestamp)).isEmpty()) {
+            throw new RecordAlreadyStoredException(idempotencyKey, null);
+        }
+        // A short-lived response that expired within the hour still holds the primary key
+        if (jdbcTemplate.update("UPDATE " + table + " SET status_code = ?, response_body = ?, resource_id = ?,"
+                        + " created_at = ?, expires_at = ? WHERE idempotency_key = ? AND request_hash = ?"
+                        + " AND expires_at <= ?",
+                response.getStatusCode(), body, resourceId, createdAt, expiresAt, idempotencyKey, requestHash,
+                nowTimestamp) > 0) {
+            return;
+        }
+        // A concurrent request that stored the key and hash in this partition first fails the insert
+        // on the primary key once it commits. Only two inserts that straddle the hour, landing in
+        // different partitions before either has committed, can both succeed
+        try {
+            jdbcTemplate.update("INSERT INTO " + table
+                            + " (idempotency_key, request_hash, status_code, response_body, resource_id, created_at,"
+                            + " expires_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    idempotencyKey, requestHash, response.getStatusCode(), body, resourceId, createdAt, expiresAt);
+        } catch (DuplicateKeyException e) {
+            throw new RecordAlreadyStoredException(idempotencyKey, e);
+        }
+    }
+
+    /**
+     * Rarely needed, so it simply updates each live partition in turn.
+     */
+    @Override
+    public void expireReference(String idempotencyKey, String requestHash, UUID resourceId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+        long hour = currentHour();
+        for (int age = 0; age < LIVE_PARTITIONS; age++) {
+            jdbcTemplate.update("UPDATE " + table(partition(hour - age)) + " SET expires_at = ?"
+                            + " WHERE idempotency_key = ? AND request_hash = ? AND resource_id = ? AND expires_at > ?",
+                    now, idempotencyKey, requestHash, resourceId, now);
+        }
+    }
+
+    @Override
+    public boolean isValidKey(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return false;
+        }
+
+        // Validate UUID format
+        try {
+            UUID.fromString(idempotencyKey);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean hasKeyWithDifferentHash(String idempotencyKey, String requestHash) {
+        if (idempotencyKey == null || requestHash == null) {
+            return false;
+        }
+
+        LiveQueries queries = liveQueries();
+        List<Integer> matches = jdbcTemplate.queryForList(
+                queries.findDifferentHash,
+                Integer.class,
+                queries.arguments(idempotencyKey, requestHash, Timestamp.valueOf(LocalDateTime.now(clock))));
+        return !matches.isEmpty();
+    }
+
+    /**
+     * Truncates the partitions that come next in the ring. Every key in them has expired.
+     *
+     * The partitions are not counted first, that would cost as much as deleting row by row:
+     * the result is the database's row estimate for them (see TableRowEstimates), the same
+     * whichever instance runs the cleanup.
+     *
+     * @return the estimated number of keys the truncated partitions held
+     */
+    @Override
+    public int deleteExpiredKeys() {
+        long hour = currentHour();
+        Map<String, Long> rows = partitionRows();
+        long dropped = 0;
+        for (int ahead = 1; ahead < PARTITIONS - LIVE_PARTITIONS + 1; ahead++) {
+            String table = table(partition(hour + ahead));
+            jdbcTemplate.execute("TRUNCATE TABLE " + table);
+            long truncated = rows.getOrDefault(table, 0L);
+            if (truncated > 0) {
+                logger.debug("Truncated {} holding about {} expired idempotency keys", table, truncated);
+                dropped += truncated;
+            }
+        }
+        return (int) Math.min(dropped, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Truncating a partition costs the same regardless of its size, so expired keys
+     * are not deleted in batches: this rotates the partitions once and maxRows is ignored.
+     * The scheduler's next call finds nothing left to drop and stops.
+     */
+    @Override
+    public int deleteExpiredKeys(int maxRows) {
+        return deleteExpiredKeys();
+    }
+
+    /**
+     * An estimate, taken from the database's row estimates rather than by scanning the partitions:
+     * the keys in the partitions at least TTL_HOURS old. The oldest live partition is counted
+     * whole although its keys expire over the hour, and client errors stored with a shorter TTL
+     * are not counted until their partition gets that old.
+     */
+    @Override
+    public long countExpiredKeys() {
+        long hour = currentHour();
+        Map<String, Long> rows = partitionRows();
+        long expired = 0;
+        for (int age = TTL_HOURS; age < PARTITIONS; age++) {
+            expired += rows.getOrDefault(table(partition(hour - age)), 0L);
+        }
+        return expired;
+    }
+
+    @Override
+    public void forEachLiveKey(BiConsumer<String, Instant> action) {
+        ZoneId zone = clock.getZone();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+        long hour = currentHour();
+        for (int age = 0; age < LIVE_PARTITIONS; age++) {
+            jdbcTemplate.query(
+                    "SELECT idempotency_key, expires_at FROM " + table(partition(hour - age)) + " WHERE expires_at > ?",
+                    rs -> {
+                        action.accept(rs.getString(1), rs.getTimestamp(2).toLocalDateTime().atZone(zone).toInstant());
+                    },
+                    now);
+        }
+    }
+
+    /**
+     * Partitions are never counted:
+     * - entries is the sum of the database's row estimates for the partitions (see
+     *   TableRowEstimates), so every instance reports the whole store
+     * - storedBytes is entries times the average stored body of up to SIZE_SAMPLE rows of
+     *   the newest non-empty partition
+     * - oldestEntry and oldestExpiry come from the first row found in the oldest non-empty
+     *   partition, accurate to the hour the partition covers
+     */
+    @Override
+    public StoreStatistics statistics() {
+        long hour = currentHour();
+        Map<String, Long> rows = partitionRows();
+        long entries = 0;
+        Double averageSize = null;
+        for (int age = 0; age < PARTITIONS; age++) {
+            String table = table(partition(hour - age));
+            long partitionRows = rows.getOrDefault(table, 0L);
+            if (partitionRows > 0 && averageSize == null) {
+                // Newest first, so this is the newest non-empty partition; a reference row stores
+                // only its 16 byte resource id
+                averageSize = jdbcTemplate.queryForObject("SELECT AVG(COALESCE(OCTET_LENGTH(response_body), 16))"
+                        + " FROM (SELECT response_body FROM " + table + " FETCH FIRST " + SIZE_SAMPLE + " ROWS ONLY) sample",
+                        Double.class);
+            }
+            entries += partitionRows;
+        }
+        long storedBytes = averageSize == null ? 0 : Math.round(averageSize * entries);
+
+        ZoneId zone = clock.getZone();
+        for (int age = PARTITIONS - 1; age >= 0; age--) {
+            List<Instant[]> first = jdbcTemplate.query(
+                    "SELECT created_at, expires_at FROM " + table(partition(hour - age)) + " FETCH FIRST 1 ROWS ONLY",
+                    (rs, rowNum) -> new Instant[] {
+                            rs.getTimestamp(1).toLocalDateTime().atZone(zone).toInstant(),
+                            rs.getTimestamp(2).toLocalDateTime().atZone(zone).toInstant()});
+            if (!first.isEmpty()) {
+                return new StoreStatistics(entries, storedBytes, first.get(0)[0], first.get(0)[1]);
+            }
+        }
+        return new StoreStatistics(entries, storedBytes, null, null);
+    }
+
+    /**
+     * @return the estimated row count of every partition, by table name
+     */
+    private Map<String, Long> partitionRows() {
+        return rowEstimates.estimates(TABLE_PREFIX + "%");
+    }
+
+    private void createPartitions() {
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table(partition) + " ("
+                    + "idempotency_key VARCHAR(255) NOT NULL, "
+                    + "request_hash VARCHAR(64) NOT NULL, "
+                    + "status_code INTEGER NOT NULL, "
+                    + "response_body VARBINARY(1048576), "
+                    + "resource_id UUID, "
+                    + "created_at TIMESTAMP NOT NULL, "
+                    + "expires_at TIMESTAMP NOT NULL, "
+                    + "PRIMARY KEY (idempotency_key, request_hash))");
+        }
+    }
+
+    private LiveQueries liveQueries() {
+        long hour = currentHour();
+        LiveQueries queries = liveQueries;
+        if (queries == null || queries.hour != hour) {
+            queries = new LiveQueries(hour);
+            liveQueries = queries;
+        }
+        return queries;
+    }
+
+    private long currentHour() {
+        return Math.floorDiv(clock.instant().getEpochSecond(), SECONDS_PER_HOUR);
+    }
+
+    static int partition(long hour) {
+        return (int) Math.floorMod(hour, (long) PARTITIONS);
+    }
+
+    static String table(int partition) {
+        return String.format("%s%02d", TABLE_PREFIX, partition);
+    }
+
+    /**
+     * UNION ALL statements over the live partitions for one hour, newest partition first.
+     */
+    private static final class LiveQueries {
+
+        private final long hour;
+        private final String findResponse;
+        private final String findDifferentHash;
+        private final String findStored;
+
+        LiveQueries(long hour) {
+            this.hour = hour;
+            List<String> storedSelects = new ArrayList<>(LIVE_PARTITIONS);
+            List<String> responseSelects = new ArrayList<>(LIVE_PARTITIONS);
+            List<String> conflictSelects = new ArrayList<>(LIVE_PARTITIONS);
+            for (int age = 0; age < LIVE_PARTITIONS; age++) {
+                String table = table(partition(hour - age));
+                storedSelects.add("SELECT 1 FROM " + table
+                        + " WHERE idempotency_key = ? AND request_hash = ? AND expires_at > ?");
+                responseSelects.add("SELECT status_code, response_body, resource_id, expires_at FROM " + table
+                        + " WHERE idempotency_key = ? AND request_hash = ? AND expires_at > ?");
+                conflictSelects.add("SELECT 1 FROM " + table
+                        + " WHERE idempotency_key = ? AND request_hash <> ? AND expires_at > ?"
+                        + " AND status_code < " + CLIENT_ERROR);
+            }
+            this.findResponse = "SELECT status_code, response_body, resource_id FROM ("
+                    + String.join(" UNION ALL ", responseSelects)
+                    + ") live ORDER BY expires_at DESC FETCH FIRST 1 ROWS ONLY";
+            this.findDifferentHash = "SELECT 1 FROM ("
+                    + String.join(" UNION ALL ", conflictSelects)
+                    + ") live FETCH FIRST 1 ROWS ONLY";
+            this.findStored = "SELECT 1 FROM ("
+                    + String.join(" UNION ALL ", storedSelects)
+                    + ") live FETCH FIRST 1 ROWS ONLY";
+        }
+
+        Object[] arguments(String idempotencyKey, String requestHash, Timestamp now) {
+            Object[] arguments = new Object[LIVE_PARTITIONS * 3];
+            for (int i = 0; i < arguments.length; i += 3) {
+                arguments[i] = idempotencyKey;
+                arguments[i + 1] = requestHash;
+                arguments[i + 2] = now;
+            }
+            return arguments;
+        }
+    }
+}
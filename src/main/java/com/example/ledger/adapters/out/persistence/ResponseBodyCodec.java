@@ -0,0 +1,232 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes idempotency response bodies for storage.
+ *
+ * Bodies are deflated with a preset dictionary built from the JSON structure of the
+ * responses: field names, punctuation, the TransactionType names and the date layout. That
+ * lets even a ~200 byte response compress (plain deflate needs far more input before
+ * back-references pay off); the values themselves, ids, amounts and descriptions, are
+ * whatever clients send and are left to deflate.
+ *
+ * Stored layout: one format byte, the raw length as a 4-byte big-endian int, then the
+ * payload. The format byte keeps old rows readable if the dictionary is ever changed:
+ * add a new format rather than editing a dictionary.
+ *
+ * A body whose content type is not IdempotencyResponse.DEFAULT_CONTENT_TYPE, e.g. a binary
+ * transaction, has CONTENT_TYPE set in the format byte and the content type after the raw
+ * length, as a length byte and US-ASCII. Storing it with the body keeps every store's
+ * schema unchanged and lets a replay send the body with the content type it was sent with.
+ */
+public final class ResponseBodyCodec {
+
+    static final byte FORMAT_STORED = 0;
+    static final byte FORMAT_DEFLATE_DICT_V1 = 1;
+    static final byte FORMAT_DEFLATE_DICT_V2 = 2;
+    static final byte CONTENT_TYPE = 0x40;
+
+    private static final int HEADER_LENGTH = 5;
+    private static final int MAX_CONTENT_TYPE_LENGTH = 0xFF;
+    private static final int MAX_POOLED = 64;
+
+    /**
+     * Only read: rows written with it expire within DEFAULT_TTL of the upgrade, after which it
+     * can be removed. It held sample values that real responses rarely repeat.
+     */
+    private static final byte[] DICTIONARY_V1 = (
+            "Client payment for project workOffice supplies0123456789.00"
+            + "{\"error\":\"Amount must be positive\"}"
+            + "\"description\":\"\",\"type\":\"REVENUE\"}"
+            + "{\"id\":\"\",\"date\":\"2025-01-01T00:00:00.000000\",\"amount\":"
+            + ",\"description\":\"\",\"type\":\"EXPENSE\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Structure shared by the responses: the error body, then the Transaction fields around
+     * a zeroed date. Deflate prefers matches closer to the end of the dictionary, so the
+     * most common fragments go last.
+     */
+    private static final byte[] DICTIONARY_V2 = (
+            "{\"error\":\"\",\"violations\":[\"\"]}"
+            + "\",\"type\":\"REVENUE\"}"
+            + "{\"id\":\"\",\"date\":\"2000-01-01T00:00:00.000000\",\"amount\":"
+            + ",\"description\":\"\",\"type\":\"EXPENSE\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    // Deflater/Inflater hold native zlib state, so they are pooled rather than created per call
+    private static final Queue<Deflater> DEFLATERS = new ConcurrentLinkedQueue<>();
+    private static final Queue<Inflater> INFLATERS = new ConcurrentLinkedQueue<>();
+
+    private ResponseBodyCodec() {
+    }
+
+    public static byte[] encode(String body) {
+        return encode(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] encode(byte[] raw) {
+        return encode(raw, 0, raw.length);
+    }
+
+    public static byte[] encode(byte[] raw, int offset, int length) {
+        return encode(raw, offset, length, null);
+    }
+
+    /**
+     * @param contentType The body's content type; null or DEFAULT_CONTENT_TYPE store none
+     */
+    public static byte[] encode(byte[] raw, String contentType) {
+        return encode(raw, 0, raw.length, contentType);
+    }
+
+    private static byte[] encode(byte[] raw, int offset, int length, String contentType) {
+        byte[] type = contentType == null || IdempotencyResponse.DEFAULT_CONTENT_TYPE.equals(contentType)
+                ? null
+                : contentType.getBytes(StandardCharsets.US_ASCII);
+        if (type != null && type.length > MAX_CONTENT_TYPE_LENGTH) {
+            throw new IllegalArgumentException("Content type must not exceed " + MAX_CONTENT_TYPE_LENGTH + " bytes");
+        }
+        int header = type == null ? HEADER_LENGTH : HEADER_LENGTH + 1 + type.length;
+
+        Deflater deflater = DEFLATERS.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        try {
+            deflater.setDictionary(DICTIONARY_V2);
+            deflater.setInput(raw, offset, length);
+            deflater.finish();
+
+            // Only worth keeping if it saves space; otherwise store the raw bytes
+            byte[] out = new byte[header + length];
+            int written = header;
+            while (!deflater.finished() && written < out.length) {
+                written += deflater.deflate(out, written, out.length - written);
+            }
+            if (deflater.finished() && written < out.length) {
+                writeHeader(out, FORMAT_DEFLATE_DICT_V2, length, type);
+                return Arrays.copyOf(out, written);
+            }
+            writeHeader(out, FORMAT_STORED, length, type);
+            System.arraycopy(raw, offset, out, header, length);
+            return out;
+        } finally {
+            deflater.reset();
+            release(DEFLATERS, deflater);
+        }
+    }
+
+    public static byte[] decode(byte[] stored) {
+        int payload = payloadOffset(stored);
+        int rawLength = ((stored[1] & 0xff) << 24) | ((stored[2] & 0xff) << 16)
+                | ((stored[3] & 0xff) << 8) | (stored[4] & 0xff);
+
+        switch (stored[0] & ~CONTENT_TYPE) {
+            case FORMAT_STORED:
+                return Arrays.copyOfRange(stored, payload, payload + rawLength);
+            case FORMAT_DEFLATE_DICT_V1:
+                return inflate(stored, payload, rawLength, DICTIONARY_V1);
+            case FORMAT_DEFLATE_DICT_V2:
+                return inflate(stored, payload, rawLength, DICTIONARY_V2);
+            default:
+                throw new IllegalArgumentException("Unknown response body format: " + stored[0]);
+        }
+    }
+
+    public static String decodeToString(byte[] stored) {
+        return new String(decode(stored), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the content type the body was encoded with, DEFAULT_CONTENT_TYPE if none was stored
+     */
+    public static String contentType(byte[] stored) {
+        int payload = payloadOffset(stored);
+        if (payload == HEADER_LENGTH) {
+            return IdempotencyResponse.DEFAULT_CONTENT_TYPE;
+        }
+        return new String(stored, HEADER_LENGTH + 1, payload - HEADER_LENGTH - 1, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return the response stored with statusCode and a body encoded by {@link #encode(byte[], String)}
+     */
+    public static IdempotencyResponse decodeResponse(int statusCode, byte[] stored) {
+        return new IdempotencyResponse(statusCode, decode(stored), contentType(stored));
+    }
+
+    private static int payloadOffset(byte[] stored) {
+        if (stored.length < HEADER_LENGTH) {
+            throw new IllegalArgumentException("Stored response body is truncated");
+        }
+        if ((stored[0] & CONTENT_TYPE) == 0) {
+            return HEADER_LENGTH;
+        }
+        if (stored.length == HEADER_LENGTH || stored.length < HEADER_LENGTH + 1 + (stored[HEADER_LENGTH] & 0xff)) {
+            throw new IllegalArgumentException("Stored response body is truncated");
+        }
+        return HEADER_LENGTH + 1 + (stored[HEADER_LENGTH] & 0xff);
+    }
+
+    private static byte[] inflate(byte[] stored, int payload, int rawLength, byte[] dictionary) {
+        Inflater inflater = INFLATERS.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            inflater.setInput(stored, payload, stored.length - payload);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.finished() || inflater.needsInput()) {
+                        throw new IllegalArgumentException("Stored response body is truncated");
+                    }
+                }
+                read += n;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Stored response body is corrupt", e);
+        } finally {
+            inflater.reset();
+            release(INFLATERS, inflater);
+        }
+    }
+
+    private static void writeHeader(byte[] out, byte format, int rawLength, byte[] contentType) {
+        out[0] = contentType == null ? format : (byte) (format | CONTENT_TYPE);
+        out[1] = (byte) (rawLength >>> 24);
+        out[2] = (byte) (rawLength >>> 16);
+        out[3] = (byte) (rawLength >>> 8);
+        out[4] = (byte) rawLength;
+        if (contentType != null) {
+            out[HEADER_LENGTH] = (byte) contentType.length;
+            System.arraycopy(contentType, 0, out, HEADER_LENGTH + 1, contentType.length);
+        }
+    }
+
+    private static <T> void release(Queue<T> pool, T item) {
+        // size() is O(n) on ConcurrentLinkedQueue but the pool is tiny
+        if (pool.size() < MAX_POOLED) {
+            pool.offer(item);
+        } else if (item instanceof Deflater deflater) {
+            deflater.end();
+        } else if (item instanceof Inflater inflater) {
+            inflater.end();
+        }
+    }
+}
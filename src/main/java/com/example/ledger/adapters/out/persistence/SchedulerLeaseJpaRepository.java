@@ -0,0 +1,25 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.adapters.out.persistence.entity.SchedulerLeaseEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface SchedulerLeaseJpaRepository extends JpaRepository<SchedulerLeaseEntity, String> {
+    
+    // Single conditional UPDATE so two nodes can never both take an expired lease
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLeaseEntity l SET l.owner = :owner, l.lockedAt = :now, l.lockUntil = :lockUntil "
+            + "WHERE l.jobName = :jobName AND l.lockUntil <= :now")
+    int takeExpiredLease(String jobName, String owner, LocalDateTime now, LocalDateTime lockUntil);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLeaseEntity l SET l.lockUntil = :lockUntil "
+            + "WHERE l.jobName = :jobName AND l.owner = :owner")
+    int updateLeaseEnd(String jobName, String owner, LocalDateTime lockUntil);
+}
@@ -1,25 +1,50 @@
 package com.example.ledger.adapters.out.persistence;
 
 import com.example.ledger.adapters.out.persistence.entity.TransactionEntity;
+import com.example.ledger.config.IdempotencyProperties;
+import com.example.ledger.config.StageTimings;
 import com.example.ledger.domain.model.Transaction;
 import com.example.ledger.domain.port.TransactionRepositoryPort;
 import org.springframework.stereotype.Component;
 
+import java.math.RoundingMode;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
+/**
+ * JPA implementation of TransactionRepositoryPort.
+ *
+ * When idempotent responses are stored as references (idempotency.response-storage.mode=reference)
+ * they are re-rendered from the row on replay, so save() rounds the date and amount to the
+ * precision of their columns, timestamp(6) and numeric(38,2): the transaction it returns, and
+ * with it the original response, is then exactly what every render shows. Otherwise the
+ * transaction is returned as given, e.g. an amount of 100 stays 100.
+ */
 @Component
 public class TransactionRepositoryAdapter implements TransactionRepositoryPort {
 
+    private static final ChronoUnit DATE_PRECISION = ChronoUnit.MICROS;
+    private static final int AMOUNT_SCALE = 2;
+
     private final TransactionJpaRepository jpaRepository;
+    private final boolean roundToColumns;
 
-    public TransactionRepositoryAdapter(TransactionJpaRepository jpaRepository) {
+    public TransactionRepositoryAdapter(TransactionJpaRepository jpaRepository,
+                                        IdempotencyProperties idempotencyProperties) {
         this.jpaRepository = jpaRepository;
+        this.roundToColumns = idempotencyProperties.getResponseStorage().getMode()
+                == IdempotencyProperties.ResponseStorage.Mode.REFERENCE;
     }
 
     @Override
     public Transaction save(Transaction transaction) {
+        StageTimings timings = StageTimings.current();
+        long start = timings.start();
         TransactionEntity entity = mapToEntity(transaction);
         TransactionEntity saved = jpaRepository.save(entity);
+        timings.end(StageTimings.Stage.PERSIST, start);
         return mapToDomain(saved);
     }
 
@@ -30,11 +55,16 @@ public class TransactionRepositoryAdapter implements TransactionRepositoryPort {
                 .toList();
     }
 
+    @Override
+    public Optional<Transaction> findById(UUID id) {
+        return jpaRepository.findById(id).map(this::mapToDomain);
+    }
+
     private TransactionEntity mapToEntity(Transaction tx) {
         TransactionEntity entity = new TransactionEntity();
         entity.setId(tx.getId());
-        entity.setDate(tx.getDate());
-        entity.setAmount(tx.getAmount());
+        entity.setDate(roundToColumns ? tx.getDate().truncatedTo(DATE_PRECISION) : tx.getDate());
+        entity.setAmount(roundToColumns ? tx.getAmount().setScale(AMOUNT_SCALE, RoundingMode.HALF_UP) : tx.getAmount());
         entity.setDescription(tx.getDescription());
         entity.setType(tx.getType());
         return entity;
@@ -3,10 +3,12 @@ package com.example.ledger.adapters.out.persistence.entity;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "idempotency_keys", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"idempotency_key", "request_hash"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"idempotency_key", "request_hash"}),
+       indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
 public class IdempotencyEntity {
 
     @Id
@@ -22,8 +24,18 @@ public class IdempotencyEntity {
     @Column(name = "status_code", nullable = false)
     private Integer statusCode;
 
-    @Column(name = "response_body", nullable = false, columnDefinition = "TEXT")
-    private String responseBody;
+    /**
+     * Response body as encoded by ResponseBodyCodec (compressed, with a format header).
+     * Null when only a reference to the created resource is stored.
+     */
+    @Column(name = "response_body", length = 1048576)
+    private byte[] responseBody;
+
+    /**
+     * Id of the created resource when the response is stored as a reference.
+     */
+    @Column(name = "resource_id")
+    private UUID resourceId;
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
@@ -65,11 +77,11 @@ public class IdempotencyEntity {
         this.statusCode = statusCode;
     }
 
-    public String getResponseBody() {
+    public byte[] getResponseBody() {
         return responseBody;
     }
 
-    public void setResponseBody(String responseBody) {
+    public void setResponseBody(byte[] responseBody) {
         this.responseBody = responseBody;
     }
 
@@ -88,6 +100,12 @@ public class IdempotencyEntity {
     public void setExpiresAt(LocalDateTime expiresAt) {
         this.expiresAt = expiresAt;
     }
-}
 
+    public UUID getResourceId() {
+        return resourceId;
+    }
 
+    public void setResourceId(UUID resourceId) {
+        this.resourceId = resourceId;
+    }
+}
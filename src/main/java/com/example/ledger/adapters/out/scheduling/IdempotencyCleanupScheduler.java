@@ -1,47 +1,129 @@
 package com.example.ledger.adapters.out.scheduling;
 
 import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.config.IdempotencyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Scheduled task for cleaning up expired idempotency keys.
- * 
+ *
  * This is an outbound infrastructure adapter that uses Spring's scheduling
  * mechanism to periodically trigger cleanup operations via the application port.
- * 
+ *
  * Runs periodically to delete expired idempotency keys from the database,
  * preventing unbounded growth and maintaining database health.
+ *
+ * Keys are deleted in bounded batches with a pause in between, and each run
+ * stops once its time budget is spent, so cleanup never holds long locks
+ * or competes with live requests for long. Progress is published as metrics:
+ * - idempotency.cleanup.rows.deleted: Keys removed
+ * - idempotency.cleanup.batches: Delete batches executed
+ * - idempotency.cleanup.duration: Duration of each run
+ * - idempotency.cleanup.backlog: Expired keys left when the last run ran out of time
+ *
+ * Every node fires this schedule, but runs hold a cluster-wide lease (ScheduledJobLease),
+ * so only one node cleans up per period.
  */
 @Component
 public class IdempotencyCleanupScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(IdempotencyCleanupScheduler.class);
 
+    static final String JOB_NAME = "idempotency-cleanup";
+
     private final IdempotencyRepositoryPort idempotencyRepository;
+    private final IdempotencyProperties.Cleanup cleanupProperties;
+    private final ScheduledJobLease scheduledJobLease;
+    private final Counter rowsDeleted;
+    private final Counter batches;
+    private final Timer runDuration;
+    private final AtomicLong backlog = new AtomicLong();
 
-    public IdempotencyCleanupScheduler(IdempotencyRepositoryPort idempotencyRepository) {
+    public IdempotencyCleanupScheduler(IdempotencyRepositoryPort idempotencyRepository,
+                                       IdempotencyProperties idempotencyProperties,
+                                       ScheduledJobLease scheduledJobLease,
+                                       MeterRegistry meterRegistry) {
         this.idempotencyRepository = idempotencyRepository;
+        this.cleanupProperties = idempotencyProperties.getCleanup();
+        if (cleanupProperties.getLockAtLeastFor().compareTo(cleanupProperties.getLockAtMostFor()) > 0) {
+            // Releasing would then keep the lease past the time it was taken for
+            throw new IllegalArgumentException("idempotency.cleanup.lock-at-least-for ("
+                    + cleanupProperties.getLockAtLeastFor() + ") must not exceed lock-at-most-for ("
+                    + cleanupProperties.getLockAtMostFor() + ")");
+        }
+        this.scheduledJobLease = scheduledJobLease;
+        this.rowsDeleted = meterRegistry.counter("idempotency.cleanup.rows.deleted");
+        this.batches = meterRegistry.counter("idempotency.cleanup.batches");
+        this.runDuration = meterRegistry.timer("idempotency.cleanup.duration");
+        meterRegistry.gauge("idempotency.cleanup.backlog", backlog);
     }
 
     /**
      * Scheduled task to delete expired idempotency keys.
-     * Runs every hour (3600000 milliseconds).
+     * Runs every hour (3600000 milliseconds), on whichever node holds the lease.
      */
     @Scheduled(fixedRate = 3600000) // 1 hour in milliseconds
     public void cleanupExpiredKeys() {
-        long startTime = System.currentTimeMillis();
+        scheduledJobLease.runExclusively(JOB_NAME, cleanupProperties.getLockAtMostFor(),
+                cleanupProperties.getLockAtLeastFor(), this::runCleanup);
+    }
+
+    private void runCleanup() {
+        long startTime = System.nanoTime();
+        long deadline = startTime + cleanupProperties.getMaxRunDuration().toNanos();
+        int batchSize = cleanupProperties.getBatchSize();
+        long pauseMillis = cleanupProperties.getPauseBetweenBatches().toMillis();
         logger.info("Starting scheduled cleanup of expired idempotency keys");
-        
+
+        long totalDeleted = 0;
+        int batchCount = 0;
         try {
-            idempotencyRepository.deleteExpiredKeys();
-            long duration = System.currentTimeMillis() - startTime;
-            logger.info("Completed scheduled cleanup of expired idempotency keys in {} ms", duration);
+            boolean outOfTime = false;
+            while (true) {
+                int deleted = idempotencyRepository.deleteExpiredKeys(batchSize);
+                batchCount++;
+                totalDeleted += deleted;
+                batches.increment();
+                rowsDeleted.increment(deleted);
+
+                if (deleted < batchSize) {
+                    break;
+                }
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pauseMillis) >= deadline) {
+                    outOfTime = true;
+                    break;
+                }
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+
+            backlog.set(outOfTime ? idempotencyRepository.countExpiredKeys() : 0);
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            if (outOfTime) {
+                logger.warn("Stopped cleanup of expired idempotency keys after {} ms: deleted {} in {} batches, {} still expired",
+                        duration, totalDeleted, batchCount, backlog.get());
+            } else {
+                logger.info("Completed scheduled cleanup of expired idempotency keys in {} ms: deleted {} in {} batches",
+                        duration, totalDeleted, batchCount);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Cleanup of expired idempotency keys interrupted after deleting {} keys", totalDeleted);
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
             logger.error("Error during scheduled cleanup of expired idempotency keys after {} ms", duration, e);
+        } finally {
+            runDuration.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
         }
     }
 }
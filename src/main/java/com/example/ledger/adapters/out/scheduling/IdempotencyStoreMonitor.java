@@ -0,0 +1,116 @@
+package com.example.ledger.adapters.out.scheduling;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.StoreStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Keeps a periodically refreshed snapshot of the idempotency store's statistics and
+ * publishes it as gauges:
+ * - idempotency.store.entries: Stored records, expired ones awaiting cleanup included
+ * - idempotency.store.bytes: Bytes taken by the stored responses
+ * - idempotency.store.oldest.entry.age: Seconds since the oldest stored record was written
+ * - idempotency.store.cleanup.lag: Seconds the oldest expired record has been waiting for cleanup
+ * - idempotency.cache.hit.ratio: Share of keyed requests answered from the store
+ *
+ * The statistics come from IdempotencyRepositoryPort.statistics(), which every store keeps
+ * cheap, and are only refreshed once a minute, so scraping the gauges never touches the store.
+ * The ages are computed against the current time on each read.
+ *
+ * Every node refreshes its own snapshot; no lease is needed since nothing is modified.
+ */
+@Component
+public class IdempotencyStoreMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStoreMonitor.class);
+
+    private final IdempotencyRepositoryPort idempotencyRepository;
+    private final Clock clock;
+    private final Counter requests;
+    private final Counter hits;
+
+    private volatile StoreStatistics statistics = new StoreStatistics(0, 0, null, null);
+    private volatile Instant refreshedAt;
+
+    @Autowired
+    public IdempotencyStoreMonitor(IdempotencyRepositoryPort idempotencyRepository, MeterRegistry meterRegistry) {
+        this(idempotencyRepository, meterRegistry, Clock.systemUTC());
+    }
+
+    IdempotencyStoreMonitor(IdempotencyRepositoryPort idempotencyRepository, MeterRegistry meterRegistry,
+                            Clock clock) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.clock = clock;
+        // The same counters IdempotencyFilter increments
+        this.requests = meterRegistry.counter("idempotency.requests.total");
+        this.hits = meterRegistry.counter("idempotency.cache.hits");
+
+        Gauge.builder("idempotency.store.entries", this, monitor -> monitor.statistics.getEntries())
+                .description("Stored idempotency records, expired ones awaiting cleanup included")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.store.bytes", this, monitor -> monitor.statistics.getStoredBytes())
+                .baseUnit("bytes")
+                .description("Bytes taken by stored idempotent responses")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.store.oldest.entry.age", this,
+                        monitor -> monitor.statistics.oldestEntryAge(monitor.clock.instant()).toSeconds())
+                .baseUnit("seconds")
+                .description("Age of the oldest stored idempotency record")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.store.cleanup.lag", this,
+                        monitor -> monitor.statistics.cleanupLag(monitor.clock.instant()).toSeconds())
+                .baseUnit("seconds")
+                .description("How long the oldest expired idempotency record has been waiting for cleanup")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.cache.hit.ratio", this, IdempotencyStoreMonitor::hitRatio)
+                .description("Share of keyed requests answered from the idempotency store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refreshes the snapshot once a minute, starting at startup.
+     */
+    @Scheduled(fixedDelay = 60000) // 1 minute in milliseconds
+    public void refresh() {
+        try {
+            statistics = idempotencyRepository.statistics();
+            refreshedAt = clock.instant();
+        } catch (Exception e) {
+            // Keep publishing the last snapshot; refreshedAt shows how stale it is
+            logger.warn("Unable to refresh idempotency store statistics", e);
+        }
+    }
+
+    public StoreStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return when the snapshot was taken, or null before the first refresh
+     */
+    public Instant getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public Instant now() {
+        return clock.instant();
+    }
+
+    /**
+     * @return cache hits per keyed request since startup, 0 before the first request
+     */
+    public double hitRatio() {
+        double total = requests.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.ledger.adapters.out.scheduling;
+
+import com.example.ledger.application.port.SchedulerLeasePort;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Runs scheduled jobs on one node of the cluster at a time.
+ *
+ * Every node fires the same @Scheduled methods; wrapping a job's body in
+ * {@link #runExclusively} makes the nodes race for a lease via SchedulerLeasePort,
+ * and only the winner runs the job. If the winner dies mid-run its lease expires after
+ * lockAtMostFor and another node picks the job up on its next tick.
+ *
+ * Publishes per-job metrics, tagged with job:
+ * - scheduler.lease.acquired: Runs this node won
+ * - scheduler.lease.skipped: Runs skipped because another node held the lease
+ */
+@Component
+public class ScheduledJobLease {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledJobLease.class);
+
+    private final SchedulerLeasePort schedulerLeasePort;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+
+    public ScheduledJobLease(SchedulerLeasePort schedulerLeasePort, MeterRegistry meterRegistry) {
+        this.schedulerLeasePort = schedulerLeasePort;
+        this.meterRegistry = meterRegistry;
+        this.owner = nodeName() + "/" + UUID.randomUUID();
+    }
+
+    /**
+     * Runs the job if this node can take its lease, otherwise skips it.
+     *
+     * @param jobName Name identifying the job across the cluster
+     * @param lockAtMostFor How long the lease lasts if this node dies while running the job;
+     *                      must be longer than the job ever runs
+     * @param lockAtLeastFor Minimum time the lease is held, so nodes firing a little later
+     *                       skip this period; keep it just below the schedule's rate, and
+     *                       no longer than lockAtMostFor
+     * @param job The job's body
+     * @return true if the job ran on this node
+     */
+    public boolean runExclusively(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable job) {
+        boolean acquired;
+        try {
+            acquired = schedulerLeasePort.tryAcquire(jobName, owner, lockAtMostFor);
+        } catch (Exception e) {
+            logger.error("Could not acquire lease for scheduled job {}, skipping this run", jobName, e);
+            acquired = false;
+        }
+        if (!acquired) {
+            meterRegistry.counter("scheduler.lease.skipped", "job", jobName).increment();
+            logger.debug("Skipping scheduled job {}: lease held by another node", jobName);
+            return false;
+        }
+
+        meterRegistry.counter("scheduler.lease.acquired", "job", jobName).increment();
+        try {
+            job.run();
+        } finally {
+            try {
+                schedulerLeasePort.release(jobName, owner, lockAtLeastFor);
+            } catch (Exception e) {
+                // The lease still expires after lockAtMostFor
+                logger.warn("Could not release lease for scheduled job {}", jobName, e);
+            }
+        }
+        return true;
+    }
+
+    String getOwner() {
+        return owner;
+    }
+
+    private static String nodeName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
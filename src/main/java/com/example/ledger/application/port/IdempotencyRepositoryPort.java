@@ -1,6 +1,11 @@
 package com.example.ledger.application.port;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
 
 /**
  * Port for idempotency key operations.
@@ -10,6 +15,12 @@ import java.util.Optional;
  */
 public interface IdempotencyRepositoryPort {
     
+    /**
+     * How long a stored response is kept by default, aligned with client retry windows.
+     * Stores may size their expiry structures for it, so no TTL may exceed it.
+     */
+    Duration DEFAULT_TTL = Duration.ofHours(24);
+    
     /**
      * Retrieves a cached response for the given idempotency key if it exists
      * and the request hash matches the stored request hash.
@@ -22,13 +33,43 @@ public interface IdempotencyRepositoryPort {
     Optional<IdempotencyResponse> getCachedResponse(String idempotencyKey, String requestHash);
     
     /**
-     * Stores a response for the given idempotency key and request hash.
+     * Stores a response for the given idempotency key and request hash, kept for DEFAULT_TTL.
      * 
      * @param idempotencyKey The idempotency key sent by the client
      * @param requestHash The hash of the request body
      * @param response The response to cache (status code and body)
      */
-    void storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response);
+    default void storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response) {
+        storeResponse(idempotencyKey, requestHash, response, DEFAULT_TTL);
+    }
+    
+    /**
+     * Stores a response for the given idempotency key and request hash with its own TTL,
+     * e.g. a shorter one for cached client errors.
+     * 
+     * Only ever adds a record: a response still stored for the key and hash is never
+     * overwritten, as it belongs to a request that was processed already. An expired one may
+     * be replaced.
+     * 
+     * @param idempotencyKey The idempotency key sent by the client
+     * @param requestHash The hash of the request body
+     * @param response The response to cache (status code and body)
+     * @param ttl How long the response is replayed; at most DEFAULT_TTL
+     * @throws RecordAlreadyStoredException if a response that has not expired is already stored
+     *         for the key and hash, e.g. by a concurrent request on another instance
+     */
+    void storeResponse(String idempotencyKey, String requestHash, IdempotencyResponse response, Duration ttl);
+    
+    /**
+     * Expires a reference response whose resource does not exist, e.g. because it was removed
+     * after the response was stored, so the request can be processed and stored again.
+     * Nothing changes unless the live record for the key and hash still references resourceId.
+     * 
+     * @param idempotencyKey The idempotency key sent by the client
+     * @param requestHash The hash of the request body
+     * @param resourceId The missing resource the stored reference points at
+     */
+    void expireReference(String idempotencyKey, String requestHash, UUID resourceId);
     
     /**
      * Validates that an idempotency key has a valid format.
@@ -42,6 +83,9 @@ public interface IdempotencyRepositoryPort {
      * Check if an idempotency key exists with a different request hash.
      * This is used to detect conflicts (same key, different request).
      * 
+     * Only successful (non-error) responses count: a request that was rejected with a client
+     * error had no effect, so the client may correct it and retry under the same key.
+     * 
      * @param idempotencyKey The idempotency key to check
      * @param requestHash The hash of the current request body
      * @return true if the key exists with a different hash, false otherwise
@@ -49,29 +93,203 @@ public interface IdempotencyRepositoryPort {
     boolean hasKeyWithDifferentHash(String idempotencyKey, String requestHash);
     
     /**
-     * Deletes all expired idempotency keys from storage.
-     * This method is used by scheduled cleanup tasks to maintain database health.
+     * Deletes all expired idempotency keys from storage in one go.
+     * 
+     * @return the number of keys removed
      */
-    void deleteExpiredKeys();
+    int deleteExpiredKeys();
     
+    /**
+     * Deletes at most maxRows expired idempotency keys.
+     * This method is used by scheduled cleanup tasks to remove expired keys in
+     * small, short-lived batches instead of one large delete.
+     * 
+     * @param maxRows The maximum number of keys to remove in this call
+     * @return the number of keys removed; fewer than maxRows means no expired keys are left
+     */
+    int deleteExpiredKeys(int maxRows);
+    
+    /**
+     * Counts expired idempotency keys that are still stored, i.e. the cleanup backlog.
+     * 
+     * @return the number of expired keys awaiting deletion
+     */
+    long countExpiredKeys();
+    
+    /**
+     * Visits every idempotency key that has not expired yet, together with its expiry time.
+     * Used to warm up in-memory structures at startup; keys may be visited in any order and
+     * a key stored with several request hashes may be visited more than once.
+     * 
+     * @param action Called with each live key and the time it expires
+     */
+    void forEachLiveKey(BiConsumer<String, Instant> action);
+
+    /**
+     * Summarises what the store holds, for monitoring.
+     *
+     * Must stay cheap enough to call every minute on a large store: implementations derive
+     * the figures from counters they maintain or from a few index lookups, never by counting
+     * or scanning every record, so the figures may be approximate.
+     *
+     * @return the current statistics
+     */
+    StoreStatistics statistics();
+
+    /**
+     * Approximate size and age of an idempotency store. Each implementation documents how
+     * it estimates the figures.
+     *
+     * entries and storedBytes are estimates rather than counts: the database store, for one,
+     * takes the database's row estimate for its table, which may trail recent writes.
+     * Use them for trends and alerts, not for exact totals.
+     */
+    class StoreStatistics {
+        private final long entries;
+        private final long storedBytes;
+        private final Instant oldestEntry;
+        private final Instant oldestExpiry;
+
+        /**
+         * @param entries Stored records, including expired ones not yet removed; may be an estimate
+         * @param storedBytes Bytes taken by the stored responses; may be an estimate
+         * @param oldestEntry When the oldest stored record was written, or null if the store is empty
+         * @param oldestExpiry When the first stored record expires or expired, or null if the store is empty
+         */
+        public StoreStatistics(long entries, long storedBytes, Instant oldestEntry, Instant oldestExpiry) {
+            this.entries = entries;
+            this.storedBytes = storedBytes;
+            this.oldestEntry = oldestEntry;
+            this.oldestExpiry = oldestExpiry;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getStoredBytes() {
+            return storedBytes;
+        }
+
+        public Instant getOldestEntry() {
+            return oldestEntry;
+        }
+
+        public Instant getOldestExpiry() {
+            return oldestExpiry;
+        }
+
+        /**
+         * @return how long ago the oldest stored record was written, zero for an empty store
+         */
+        public Duration oldestEntryAge(Instant now) {
+            return oldestEntry == null || oldestEntry.isAfter(now) ? Duration.ZERO : Duration.between(oldestEntry, now);
+        }
+
+        /**
+         * @return how long expired records have been waiting for cleanup, zero when none are stored
+         */
+        public Duration cleanupLag(Instant now) {
+            return oldestExpiry == null || oldestExpiry.isAfter(now) ? Duration.ZERO : Duration.between(oldestExpiry, now);
+        }
+    }
+
+    /**
+     * Thrown by storeResponse when a response is already stored for the key and request hash:
+     * another request with them was processed first, and the caller lost the race to store it.
+     */
+    class RecordAlreadyStoredException extends RuntimeException {
+
+        public RecordAlreadyStoredException(String idempotencyKey, Throwable cause) {
+            super("A response is already stored for idempotency key " + idempotencyKey, cause);
+        }
+    }
+
     /**
      * Response data stored for idempotency.
+     * 
+     * The body is kept as the raw UTF-8 bytes written by the application, so it can be
+     * stored and replayed without decoding it. The array is not copied: it must not be
+     * modified once handed over.
+     * 
+     * A reference response stores no body, only the id of the resource the request created;
+     * the body is re-rendered from that resource on replay.
      */
     class IdempotencyResponse {
+        /**
+         * Content type of a response stored without one; references are always re-rendered as JSON.
+         */
+        public static final String DEFAULT_CONTENT_TYPE = "application/json";
+        
         private final int statusCode;
-        private final String responseBody;
+        private final byte[] responseBody;
+        private final String contentType;
+        private final UUID resourceId;
         
-        public IdempotencyResponse(int statusCode, String responseBody) {
+        public IdempotencyResponse(int statusCode, byte[] responseBody) {
+            this(statusCode, responseBody, DEFAULT_CONTENT_TYPE);
+        }
+        
+        /**
+         * @param contentType The content type the body is replayed with; null for DEFAULT_CONTENT_TYPE
+         */
+        public IdempotencyResponse(int statusCode, byte[] responseBody, String contentType) {
+            this(statusCode, responseBody, contentType, null);
+        }
+        
+        private IdempotencyResponse(int statusCode, byte[] responseBody, String contentType, UUID resourceId) {
             this.statusCode = statusCode;
             this.responseBody = responseBody;
+            this.contentType = contentType == null ? DEFAULT_CONTENT_TYPE : contentType;
+            this.resourceId = resourceId;
+        }
+        
+        /**
+         * @return a response that stores only the status and the id of the created resource
+         */
+        public static IdempotencyResponse reference(int statusCode, UUID resourceId) {
+            return new IdempotencyResponse(statusCode, null, DEFAULT_CONTENT_TYPE, resourceId);
+        }
+        
+        public IdempotencyResponse(int statusCode, String responseBody) {
+            this(statusCode, responseBody.getBytes(StandardCharsets.UTF_8));
         }
         
         public int getStatusCode() {
             return statusCode;
         }
         
-        public String getResponseBody() {
+        /**
+         * @return the body, or null for a reference response
+         */
+        public byte[] getResponseBodyBytes() {
             return responseBody;
         }
+        
+        /**
+         * @return the body decoded as UTF-8, or null for a reference response;
+         *         replay writes getResponseBodyBytes() instead
+         */
+        public String getResponseBody() {
+            return responseBody == null ? null : new String(responseBody, StandardCharsets.UTF_8);
+        }
+        
+        /**
+         * @return the content type the response was sent with, so a replay sends the same
+         */
+        public String getContentType() {
+            return contentType;
+        }
+        
+        /**
+         * @return the id of the created resource, or null when the full body is stored
+         */
+        public UUID getResourceId() {
+            return resourceId;
+        }
+        
+        public boolean isReference() {
+            return resourceId != null;
+        }
     }
 }
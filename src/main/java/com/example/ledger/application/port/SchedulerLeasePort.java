@@ -0,0 +1,33 @@
+package com.example.ledger.application.port;
+
+import java.time.Duration;
+
+/**
+ * Port for cluster-wide leases on scheduled jobs.
+ * 
+ * Every node runs the same schedules; a lease lets exactly one of them run a job per period.
+ * Leases expire on their own, so if the node holding one dies another node takes over once
+ * the lease runs out.
+ */
+public interface SchedulerLeasePort {
+    
+    /**
+     * Takes the lease on a job if nobody holds it or the current lease has expired.
+     * 
+     * @param jobName Name identifying the job across the cluster
+     * @param owner Identifies the node taking the lease
+     * @param lockAtMostFor How long the lease lasts if it is never released, e.g. because the node died
+     * @return true if the lease was taken, false if another node holds it
+     */
+    boolean tryAcquire(String jobName, String owner, Duration lockAtMostFor);
+    
+    /**
+     * Releases a lease held by the owner, but keeps it for at least lockAtLeastFor after it
+     * was taken, so nodes whose schedules fire a little later skip this period too.
+     * 
+     * @param jobName Name identifying the job across the cluster
+     * @param owner The node that took the lease; leases held by others are left alone
+     * @param lockAtLeastFor Minimum time the lease is held, counted from when it was taken
+     */
+    void release(String jobName, String owner, Duration lockAtLeastFor);
+}
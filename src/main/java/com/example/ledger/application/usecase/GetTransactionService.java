@@ -0,0 +1,23 @@
+package com.example.ledger.application.usecase;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.port.TransactionRepositoryPort;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class GetTransactionService implements GetTransactionUseCase {
+
+    private final TransactionRepositoryPort repository;
+
+    public GetTransactionService(TransactionRepositoryPort repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Optional<Transaction> getById(UUID id) {
+        return repository.findById(id);
+    }
+}
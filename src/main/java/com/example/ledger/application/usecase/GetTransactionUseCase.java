@@ -0,0 +1,10 @@
+package com.example.ledger.application.usecase;
+
+import com.example.ledger.domain.model.Transaction;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface GetTransactionUseCase {
+    Optional<Transaction> getById(UUID id);
+}
@@ -0,0 +1,137 @@
+package com.example.ledger.config;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-client token buckets for one endpoint.
+ *
+ * Buckets are kept in striped, access-ordered maps, each bounded to its share of max-clients:
+ * when a stripe is full, its least recently used client is dropped, so memory stays flat
+ * however many clients show up. A stripe is locked only to find or create a bucket; taking a
+ * token is a compare-and-set on the bucket itself. The stripe locks are ReentrantLocks rather
+ * than monitors, so virtual threads waiting for one do not pin their carrier thread. Dropping a bucket that has refilled to
+ * capacity changes nothing (a new bucket starts full), so sweep() removes those periodically;
+ * only clients evicted while still throttled get a fresh bucket early.
+ */
+public class ClientRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final int capacity;
+    private final int refillPerSecond;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * @param capacity Burst size: tokens each client's bucket holds when full
+     * @param refillPerSecond Sustained rate: tokens added to each bucket per second
+     * @param maxClients Clients tracked at most; the least recently seen are dropped beyond that
+     */
+    public ClientRateLimiter(int capacity, int refillPerSecond, int maxClients) {
+        if (capacity < 1 || capacity > TokenBucket.MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be 1-" + TokenBucket.MAX_CAPACITY + ": " + capacity);
+        }
+        if (refillPerSecond < 1) {
+            throw new IllegalArgumentException("Refill rate must be at least 1 per second: " + refillPerSecond);
+        }
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        int clientsPerStripe = Math.max(1, (maxClients + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(clientsPerStripe);
+        }
+    }
+
+    /**
+     * Takes a token from the client's bucket.
+     *
+     * @param clientId The client, e.g. its API client id or IP address
+     * @param nowMillis The current time, from a monotonic clock starting at or after zero
+     * @return 0 if the request may proceed, otherwise how many milliseconds until it may be retried
+     */
+    public long tryAcquire(String clientId, long nowMillis) {
+        Stripe stripe = stripeFor(clientId);
+        TokenBucket bucket;
+        stripe.lock.lock();
+        try {
+            bucket = stripe.get(clientId);
+            if (bucket == null) {
+                bucket = new TokenBucket(nowMillis, capacity);
+                stripe.put(clientId, bucket);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        return bucket.tryConsume(nowMillis, capacity, refillPerSecond);
+    }
+
+    /**
+     * Drops the buckets that have refilled to capacity.
+     *
+     * @return the number of clients dropped
+     */
+    public int sweep(long nowMillis) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<TokenBucket> buckets = stripe.values().iterator();
+                while (buckets.hasNext()) {
+                    if (buckets.next().isFull(nowMillis, capacity, refillPerSecond)) {
+                        buckets.remove();
+                        removed++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the number of clients currently tracked
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getRefillPerSecond() {
+        return refillPerSecond;
+    }
+
+    private Stripe stripeFor(String clientId) {
+        int hash = clientId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, TokenBucket> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maxClients;
+
+        Stripe(int maxClients) {
+            super(16, 0.75f, true);
+            this.maxClients = maxClients;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > maxClients;
+        }
+    }
+}
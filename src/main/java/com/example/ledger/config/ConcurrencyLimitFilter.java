@@ -0,0 +1,109 @@
+package com.example.ledger.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Filter that sheds load when ledger endpoints slow down.
+ *
+ * Each configured endpoint gets a GradientConcurrencyLimit. Requests beyond the limit are
+ * rejected straight away with 503 and Retry-After, before any other filter reads the body
+ * or touches the database, so a slow database cannot fill the container's thread pool with
+ * blocked requests and push up latency for every endpoint.
+ *
+ * Enabled with concurrency-limit.enabled=true. Metrics, tagged with the endpoint:
+ * - concurrency.limit: Current limit
+ * - concurrency.in.flight: Requests in flight
+ * - concurrency.limit.rejections: Requests rejected with 503
+ */
+@Component
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper;
+    private final String retryAfterSeconds;
+    // Method, then request path, as in FeatureFlagSnapshot
+    private final Map<String, Map<String, Endpoint>> endpoints = new HashMap<>();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+        for (String endpoint : properties.getEndpoints()) {
+            String[] methodAndPath = endpoint.trim().split("\\s+", 2);
+            if (methodAndPath.length != 2) {
+                throw new IllegalArgumentException("Endpoint must be \"METHOD /path\": " + endpoint);
+            }
+            String tag = methodAndPath[0] + " " + methodAndPath[1];
+            GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+            Gauge.builder("concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder("concurrency.in.flight", limit, GradientConcurrencyLimit::getInFlight)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Counter rejections = meterRegistry.counter("concurrency.limit.rejections", "endpoint", tag);
+            endpoints.computeIfAbsent(methodAndPath[0], method -> new HashMap<>())
+                    .put(methodAndPath[1], new Endpoint(limit, rejections));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Map<String, Endpoint> paths = endpoints.get(request.getMethod());
+        Endpoint endpoint = paths == null ? null : paths.get(request.getRequestURI());
+        if (endpoint == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!endpoint.limit.tryAcquire()) {
+            endpoint.rejections.increment();
+            handleOverloaded(response);
+            return;
+        }
+        long startTime = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            endpoint.limit.release(System.nanoTime() - startTime);
+        }
+    }
+
+    private void handleOverloaded(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Service is overloaded, retry later");
+
+        objectMapper.writeValue(response.getWriter(), errorResponse);
+    }
+
+    private record Endpoint(GradientConcurrencyLimit limit, Counter rejections) {
+    }
+}
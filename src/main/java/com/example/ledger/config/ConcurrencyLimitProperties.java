@@ -0,0 +1,142 @@
+package com.example.ledger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for the adaptive concurrency limit on ledger endpoints.
+ *
+ * Example YAML:
+ * concurrency-limit:
+ *   enabled: false
+ *   endpoints: POST /transactions, GET /transactions
+ *   initial-limit: 20
+ *   min-limit: 4
+ *   max-limit: 200
+ *   tolerance: 2.0
+ *   smoothing: 0.2
+ *   window-size: 10
+ *   baseline-probe-interval: 100
+ *   retry-after: 1s
+ */
+@Component
+@ConfigurationProperties(prefix = "concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /** Whether ConcurrencyLimitFilter sheds load; off by default. */
+    private boolean enabled = false;
+
+    /** Endpoints that each get their own limit, as "METHOD /path". */
+    private List<String> endpoints = new ArrayList<>(List.of("POST /transactions", "GET /transactions"));
+
+    /** Requests allowed in flight per endpoint before any latency has been measured. */
+    private int initialLimit = 20;
+
+    /** The limit never drops below this, so an endpoint keeps serving however slow it gets. */
+    private int minLimit = 4;
+
+    /** The limit never grows beyond this; keep it below the servlet container's thread pool. */
+    private int maxLimit = 200;
+
+    /** How much slower than the baseline round trips may get before the limit shrinks, as a ratio. */
+    private double tolerance = 2.0;
+
+    /** Weight of each new limit estimate, between 0 and 1; lower reacts more slowly but jitters less. */
+    private double smoothing = 0.2;
+
+    /** Completed requests averaged into each limit update. */
+    private int windowSize = 10;
+
+    /**
+     * Windows after which the limit briefly drops to min-limit to re-measure the round trip
+     * without queueing, so the baseline follows a backend that became faster or slower.
+     */
+    private int baselineProbeInterval = 100;
+
+    /** Retry-After sent with 503 responses to rejected requests. */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<String> endpoints) {
+        this.endpoints = endpoints != null ? endpoints : new ArrayList<>();
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public int getBaselineProbeInterval() {
+        return baselineProbeInterval;
+    }
+
+    public void setBaselineProbeInterval(int baselineProbeInterval) {
+        this.baselineProbeInterval = baselineProbeInterval;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
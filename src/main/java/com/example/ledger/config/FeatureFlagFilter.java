@@ -19,48 +19,42 @@ import java.util.Map;
  * Filter that checks feature flags for specific endpoints.
  * This approach is cleaner than AOP and easier to test.
  * Endpoint-to-feature-flag mappings are configured in application.yml.
+ *
+ * Flags are evaluated against the current FeatureFlagSnapshot, for the client named in the
+ * client id header, so percentage rollouts and targeted clients apply per request.
  */
 @Component
 public class FeatureFlagFilter extends OncePerRequestFilter {
 
     private final FeatureFlagService featureFlagService;
     private final ObjectMapper objectMapper;
-    private final Map<String, String> endpointFeatureMap;
+    private final String clientIdHeader;
 
     public FeatureFlagFilter(FeatureFlagService featureFlagService, 
                            ObjectMapper objectMapper,
                            FeatureFlagProperties featureFlagProperties) {
         this.featureFlagService = featureFlagService;
         this.objectMapper = objectMapper;
-        this.endpointFeatureMap = featureFlagProperties.getEndpoints() != null 
-            ? featureFlagProperties.getEndpoints() 
-            : Map.of();
+        this.clientIdHeader = featureFlagProperties.getClientIdHeader();
     }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, 
                                    @NonNull HttpServletResponse response, 
                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
-        String method = request.getMethod();
-        String path = request.getRequestURI();
-        String endpointKey = method + " " + path;
-
         // Check if this endpoint has a feature flag requirement
-        String featureName = endpointFeatureMap.get(endpointKey);
-        
-        if (featureName != null) {
-            try {
-                featureFlagService.requireEnabled(featureName);
-            } catch (FeatureFlagDisabledException e) {
-                handleFeatureDisabled(response, e);
-                return;
-            }
+        FeatureFlagSnapshot.Flag flag = featureFlagService.snapshot()
+                .endpointFlag(request.getMethod(), request.getRequestURI());
+
+        if (flag != null && !flag.isEnabledFor(request.getHeader(clientIdHeader))) {
+            handleFeatureDisabled(response);
+            return;
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private void handleFeatureDisabled(HttpServletResponse response, FeatureFlagDisabledException e) throws IOException {
+    private void handleFeatureDisabled(HttpServletResponse response) throws IOException {
         response.setStatus(HttpStatus.FORBIDDEN.value());
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
         
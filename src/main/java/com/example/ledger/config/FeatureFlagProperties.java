@@ -9,12 +9,15 @@ import java.util.Map;
 /**
  * Configuration properties for feature flag endpoints.
  * Maps HTTP method + path to feature names from application.yml.
+ * The flags themselves are read by FeatureFlagServiceImpl.
  * 
  * Example YAML:
  * feature:
  *   endpoints:
  *     "POST /transactions": "create-transaction"
  *     "GET /transactions": "get-all-transactions"
+ *   file: /etc/ledger/feature-flags.properties
+ *   client-id-header: X-Client-Id
  */
 @Component
 @ConfigurationProperties(prefix = "feature")
@@ -22,6 +25,12 @@ public class FeatureFlagProperties {
 
     private Map<String, String> endpoints = new HashMap<>();
 
+    /** Optional properties file with flag settings that override application properties; reloaded when it changes. */
+    private String file;
+
+    /** Request header identifying the client, for percentage rollouts and client targeting. */
+    private String clientIdHeader = "X-Client-Id";
+
     public Map<String, String> getEndpoints() {
         return endpoints;
     }
@@ -29,4 +38,20 @@ public class FeatureFlagProperties {
     public void setEndpoints(Map<String, String> endpoints) {
         this.endpoints = endpoints != null ? endpoints : new HashMap<>();
     }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String getClientIdHeader() {
+        return clientIdHeader;
+    }
+
+    public void setClientIdHeader(String clientIdHeader) {
+        this.clientIdHeader = clientIdHeader;
+    }
 }
@@ -14,6 +14,17 @@ public interface FeatureFlagService {
      */
     boolean isEnabled(String featureName);
 
+    /**
+     * Checks if a feature is enabled for a client, applying the flag's percentage rollout
+     * and client targeting.
+     *
+     * @param featureName the name of the feature flag
+     * @param clientId the client making the request, or null if unknown
+     * @return true if the feature is enabled for the client, false otherwise
+     * @throws IllegalArgumentException if the feature name is unknown
+     */
+    boolean isEnabled(String featureName, String clientId);
+
     /**
      * Throws FeatureFlagDisabledException if the feature is disabled.
      *
@@ -22,5 +33,13 @@ public interface FeatureFlagService {
      * @throws IllegalArgumentException if the feature name is unknown
      */
     void requireEnabled(String featureName);
+
+    /**
+     * Returns the flags currently in effect, compiled for evaluation on the request path.
+     * The snapshot never changes; a reload publishes a new one.
+     *
+     * @return the current snapshot
+     */
+    FeatureFlagSnapshot snapshot();
 }
 
@@ -1,27 +1,67 @@
 package com.example.ledger.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
- * Default implementation of FeatureFlagService that reads from application properties.
+ * Default implementation of FeatureFlagService.
+ *
+ * Flags are read from application properties (feature.{name}.enabled, .percentage and .clients)
+ * and, if feature.file is set, from a properties file using the same keys without the feature.
+ * prefix. The file wins, and it is polled every feature.reload-interval: when it changes, the flags
+ * are recompiled into a new FeatureFlagSnapshot and swapped in atomically, so a flag can be
+ * flipped or rolled further out without a restart. A file that cannot be read or parsed is
+ * logged and the flags in effect are kept.
  */
 @Service
 public class FeatureFlagServiceImpl implements FeatureFlagService {
 
-    @Value("${feature.create-transaction.enabled:true}")
-    private boolean createTransactionEnabled;
+    private static final Logger logger = LoggerFactory.getLogger(FeatureFlagServiceImpl.class);
+
+    private static final String ENABLED_SUFFIX = ".enabled";
+    private static final String PERCENTAGE_SUFFIX = ".percentage";
+    private static final String CLIENTS_SUFFIX = ".clients";
 
-    @Value("${feature.get-all-transactions.enabled:true}")
-    private boolean getAllTransactionsEnabled;
+    private final Environment environment;
+    private final Map<String, String> endpoints;
+    private final Path file;
+    private final AtomicReference<FeatureFlagSnapshot> snapshot = new AtomicReference<>();
+    private volatile FileTime fileLastModified;
+
+    public FeatureFlagServiceImpl(FeatureFlagProperties featureFlagProperties, Environment environment) {
+        this.environment = environment;
+        this.endpoints = featureFlagProperties.getEndpoints();
+        this.file = featureFlagProperties.getFile() != null ? Path.of(featureFlagProperties.getFile()) : null;
+        // A broken file at startup is a configuration error rather than something to ride out
+        snapshot.set(compile(file != null && Files.exists(file) ? readFile() : new Properties()));
+        if (file != null && fileLastModified == null) {
+            logger.warn("Feature flag file {} not found, using application properties until it appears", file);
+        }
+    }
 
     @Override
     public boolean isEnabled(String featureName) {
-        return switch (featureName) {
-            case "create-transaction" -> createTransactionEnabled;
-            case "get-all-transactions" -> getAllTransactionsEnabled;
-            default -> throw new IllegalArgumentException("Unknown feature flag: " + featureName);
-        };
+        return requireFlag(featureName).isEnabled();
+    }
+
+    @Override
+    public boolean isEnabled(String featureName, String clientId) {
+        return requireFlag(featureName).isEnabledFor(clientId);
     }
 
     @Override
@@ -30,5 +70,65 @@ public class FeatureFlagServiceImpl implements FeatureFlagService {
             throw new FeatureFlagDisabledException("Feature '" + featureName + "' is disabled");
         }
     }
-}
 
+    @Override
+    public FeatureFlagSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Reloads the flags if the flag file changed since it was last read.
+     */
+    @Scheduled(fixedDelayString = "${feature.reload-interval:PT5S}")
+    public void reloadIfChanged() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(file).equals(fileLastModified)) {
+                return;
+            }
+            FeatureFlagSnapshot reloaded = compile(readFile());
+            snapshot.set(reloaded);
+            logger.info("Reloaded feature flags from {}: {}", file, reloaded.names());
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not reload feature flags from {}, keeping the current flags: {}", file, e.getMessage());
+        }
+    }
+
+    private FeatureFlagSnapshot.Flag requireFlag(String featureName) {
+        FeatureFlagSnapshot.Flag flag = snapshot.get().flag(featureName);
+        if (flag == null) {
+            throw new IllegalArgumentException("Unknown feature flag: " + featureName);
+        }
+        return flag;
+    }
+
+    private Properties readFile() {
+        try {
+            // Read the timestamp first: a write racing with this read is picked up next time
+            FileTime lastModified = Files.getLastModifiedTime(file);
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            fileLastModified = lastModified;
+            return properties;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read feature flag file " + file, e);
+        }
+    }
+
+    private FeatureFlagSnapshot compile(Properties fileFlags) {
+        Set<String> names = new HashSet<>();
+        for (String key : fileFlags.stringPropertyNames()) {
+            for (String suffix : new String[] {ENABLED_SUFFIX, PERCENTAGE_SUFFIX, CLIENTS_SUFFIX}) {
+                if (key.endsWith(suffix)) {
+                    names.add(key.substring(0, key.length() - suffix.length()));
+                }
+            }
+        }
+        return FeatureFlagSnapshot.compile(names, endpoints,
+                setting -> fileFlags.getProperty(setting, environment.getProperty("feature." + setting)));
+    }
+}
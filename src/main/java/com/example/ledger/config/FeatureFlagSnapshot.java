@@ -0,0 +1,172 @@
+package com.example.ledger.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable, compiled view of the feature flags and of the endpoints they guard.
+ *
+ * Built whenever the flags change and published by FeatureFlagServiceImpl, so evaluating a
+ * flag on the request path is two map lookups and some arithmetic on precomputed values:
+ * no locks, no string building, no allocation.
+ *
+ * Each flag is read from settings named after it:
+ * - {name}.enabled (default true): kill switch, false turns the feature off for everyone
+ * - {name}.percentage (default 100): share of clients the feature is rolled out to
+ * - {name}.clients: comma-separated client ids that get the feature whatever the percentage
+ */
+public final class FeatureFlagSnapshot {
+
+    private final Map<String, Flag> flags;
+    // Method, then request path; compiled once so requests need no "METHOD path" key
+    private final Map<String, Map<String, Flag>> endpointFlags;
+
+    private FeatureFlagSnapshot(Map<String, Flag> flags, Map<String, Map<String, Flag>> endpointFlags) {
+        this.flags = flags;
+        this.endpointFlags = endpointFlags;
+    }
+
+    /**
+     * Compiles the given flags and endpoint mappings.
+     *
+     * @param names The flags to compile; flags named by the endpoint mappings are added
+     * @param endpoints "METHOD /path" to flag name, as in feature.endpoints
+     * @param settings Looks up a flag setting such as "create-transaction.enabled", or returns null
+     * @throws IllegalArgumentException if a setting or an endpoint mapping is malformed
+     */
+    public static FeatureFlagSnapshot compile(Set<String> names, Map<String, String> endpoints,
+                                              Function<String, String> settings) {
+        Set<String> allNames = new HashSet<>(names);
+        allNames.addAll(endpoints.values());
+
+        Map<String, Flag> flags = new HashMap<>();
+        for (String name : allNames) {
+            flags.put(name, compileFlag(name, settings));
+        }
+
+        Map<String, Map<String, Flag>> endpointFlags = new HashMap<>();
+        for (Map.Entry<String, String> endpoint : endpoints.entrySet()) {
+            String[] methodAndPath = endpoint.getKey().trim().split("\\s+", 2);
+            if (methodAndPath.length != 2) {
+                throw new IllegalArgumentException("Endpoint must be \"METHOD /path\": " + endpoint.getKey());
+            }
+            endpointFlags.computeIfAbsent(methodAndPath[0], method -> new HashMap<>())
+                    .put(methodAndPath[1], flags.get(endpoint.getValue()));
+        }
+        return new FeatureFlagSnapshot(Map.copyOf(flags), Map.copyOf(endpointFlags));
+    }
+
+    private static Flag compileFlag(String name, Function<String, String> settings) {
+        String enabled = settings.apply(name + ".enabled");
+        String percentage = settings.apply(name + ".percentage");
+        String clients = settings.apply(name + ".clients");
+
+        int rollout = percentage == null ? 100 : Integer.parseInt(percentage.trim());
+        if (rollout < 0 || rollout > 100) {
+            throw new IllegalArgumentException("Percentage of feature '" + name + "' must be 0-100: " + rollout);
+        }
+        Set<String> clientIds = new HashSet<>();
+        if (clients != null) {
+            Arrays.stream(clients.split(","))
+                    .map(String::trim)
+                    .filter(client -> !client.isEmpty())
+                    .forEach(clientIds::add);
+        }
+        return new Flag(name, enabled == null || Boolean.parseBoolean(enabled.trim()), rollout, clientIds);
+    }
+
+    /**
+     * @return the flag, or null if there is no flag with that name
+     */
+    public Flag flag(String name) {
+        return flags.get(name);
+    }
+
+    /**
+     * @return the flag guarding the endpoint, or null if the endpoint is not guarded
+     */
+    public Flag endpointFlag(String method, String path) {
+        Map<String, Flag> paths = endpointFlags.get(method);
+        return paths == null ? null : paths.get(path);
+    }
+
+    public Set<String> names() {
+        return flags.keySet();
+    }
+
+    /**
+     * A single compiled flag.
+     */
+    public static final class Flag {
+        private static final int BUCKETS = 100;
+
+        private final String name;
+        private final boolean enabled;
+        private final int percentage;
+        private final Set<String> clients;
+        // Mixed into each client's hash so flags roll out to different clients
+        private final int salt;
+
+        Flag(String name, boolean enabled, int percentage, Set<String> clients) {
+            this.name = name;
+            this.enabled = enabled;
+            this.percentage = percentage;
+            this.clients = Collections.unmodifiableSet(clients);
+            this.salt = name.hashCode() * 0x9E3779B9;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPercentage() {
+            return percentage;
+        }
+
+        public Set<String> getClients() {
+            return clients;
+        }
+
+        /**
+         * @return true if the feature is on for everyone, i.e. enabled and fully rolled out
+         */
+        public boolean isEnabled() {
+            return enabled && percentage >= BUCKETS;
+        }
+
+        /**
+         * Targeted clients always get an enabled feature; other clients get it if their hash
+         * falls into the rolled out percentage. A request without a client id only gets a
+         * fully rolled out feature.
+         *
+         * @param clientId The client making the request, or null if unknown
+         */
+        public boolean isEnabledFor(String clientId) {
+            if (!enabled) {
+                return false;
+            }
+            if (percentage >= BUCKETS) {
+                return true;
+            }
+            if (clientId == null) {
+                return false;
+            }
+            return clients.contains(clientId) || bucket(clientId) < percentage;
+        }
+
+        /**
+         * @return the client's rollout bucket, 0-99; stable for a client across restarts and reloads
+         */
+        int bucket(String clientId) {
+            // String caches its hash code, so this is arithmetic only
+            int hash = (clientId.hashCode() ^ salt) * 0x85EBCA6B;
+            hash ^= hash >>> 16;
+            return Math.floorMod(hash, BUCKETS);
+        }
+    }
+}
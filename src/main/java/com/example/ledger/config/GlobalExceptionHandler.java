@@ -1,32 +1,40 @@
 package com.example.ledger.config;
 
+import com.example.ledger.adapters.in.web.dto.CreateTransactionRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
 
+/**
+ * Maps exceptions to JSON error responses.
+ *
+ * The content type is set explicitly, so errors are JSON even for a client that only accepts
+ * the binary transaction format.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(FeatureFlagDisabledException.class)
     public ResponseEntity<ErrorResponse> handleFeatureFlagDisabled(FeatureFlagDisabledException ex) {
         ErrorResponse error = new ErrorResponse("Feature is disabled");
-        return ResponseEntity.status(403).body(error);
+        return ResponseEntity.status(403).contentType(MediaType.APPLICATION_JSON).body(error);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
         ErrorResponse error = new ErrorResponse(ex.getMessage());
-        return ResponseEntity.status(400).body(error);
+        return ResponseEntity.status(400).contentType(MediaType.APPLICATION_JSON).body(error);
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ErrorResponse> handleInvalidRequest(HttpMessageNotReadableException ex) {
         String errorMessage = "Invalid request format";
         if (ex.getMessage() != null && ex.getMessage().contains("TransactionType")) {
-            errorMessage = "Invalid transaction type. Must be either EXPENSE or REVENUE";
+            errorMessage = CreateTransactionRequest.INVALID_TYPE_MESSAGE;
         }
         ErrorResponse error = new ErrorResponse(errorMessage);
-        return ResponseEntity.status(400).body(error);
+        return ResponseEntity.status(400).contentType(MediaType.APPLICATION_JSON).body(error);
     }
 
     public static class ErrorResponse {
@@ -0,0 +1,157 @@
+package com.example.ledger.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive limit on the requests in flight for one endpoint, in the style of the gradient
+ * algorithm: the limit follows how far round-trip times have drifted from a baseline.
+ *
+ * While round trips stay within tolerance of the baseline, the limit grows by its square root
+ * per window, probing for capacity. Once they get slower, requests are queueing somewhere
+ * downstream, so the limit shrinks in proportion, by at most half per window. Updates are
+ * smoothed and clamped to [min-limit, max-limit].
+ *
+ * The baseline is the round trip without queueing, which cannot be seen while the endpoint
+ * is saturated: every request then waits behind the others. So at startup and every
+ * baseline-probe-interval windows the limit drops to min-limit until the requests already in
+ * flight have drained, and the fastest of the next window-size round trips becomes the
+ * baseline. The limit then resumes where it was; a faster round trip seen later still
+ * lowers the baseline.
+ *
+ * Admission is a compare-and-set on the in-flight count; only the bookkeeping on completion
+ * takes a lock, a ReentrantLock so that virtual threads queueing for it do not pin their
+ * carrier thread.
+ */
+public class GradientConcurrencyLimit {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int windowSize;
+    private final int baselineProbeInterval;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by lock
+    private double estimatedLimit;
+    private boolean probing;
+    private int probeSamples;
+    private long baselineRtt;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private int windowsSinceProbe;
+
+    public GradientConcurrencyLimit(ConcurrencyLimitProperties properties) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.tolerance = properties.getTolerance();
+        this.smoothing = properties.getSmoothing();
+        this.windowSize = properties.getWindowSize();
+        this.baselineProbeInterval = properties.getBaselineProbeInterval();
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+        startProbe();
+    }
+
+    /**
+     * Admits a request if fewer than limit requests are in flight. An admitted request must
+     * be released exactly once.
+     *
+     * @return true if the request may proceed, false if it should be rejected
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Releases an admitted request and feeds its round trip into the limit.
+     *
+     * @param rttNanos How long the request took, from admission to completion
+     */
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            if (probing) {
+                probe(rttNanos, inFlightBefore);
+                return;
+            }
+            windowRttSum += rttNanos;
+            // Between probes the baseline can only come down, e.g. once a cold start is over
+            baselineRtt = Math.min(baselineRtt, rttNanos);
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+            if (++windowSamples >= windowSize) {
+                update();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void startProbe() {
+        probing = true;
+        probeSamples = 0;
+        baselineRtt = Long.MAX_VALUE;
+        limit = minLimit;
+    }
+
+    private void probe(long rttNanos, int inFlightBefore) {
+        // Requests admitted before the probe queued behind each other; wait until they are gone
+        if (inFlightBefore > minLimit) {
+            return;
+        }
+        baselineRtt = Math.min(baselineRtt, rttNanos);
+        if (++probeSamples >= windowSize) {
+            probing = false;
+            windowsSinceProbe = 0;
+            resetWindow();
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    private void update() {
+        double averageRtt = (double) windowRttSum / windowSamples;
+
+        // An endpoint that never came close to its limit says nothing about its capacity
+        if (windowMaxInFlight * 2 >= estimatedLimit) {
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baselineRtt / averageRtt));
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            estimatedLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+            limit = (int) estimatedLimit;
+        }
+        resetWindow();
+
+        if (++windowsSinceProbe >= baselineProbeInterval) {
+            startProbe();
+        }
+    }
+
+    private void resetWindow() {
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
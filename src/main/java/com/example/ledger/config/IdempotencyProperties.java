@@ -0,0 +1,409 @@
+package com.example.ledger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Configuration properties for idempotency key handling.
+ *
+ * Example YAML:
+ * idempotency:
+ *   store: database
+ *   cleanup:
+ *     batch-size: 1000
+ *     pause-between-batches: 100ms
+ *     max-run-duration: 5m
+ *     lock-at-most-for: 59m
+ *     lock-at-least-for: 55m
+ *   response-storage:
+ *     mode: full # or reference
+ *     rendered-cache-size: 10000
+ *   client-errors:
+ *     enabled: false
+ *     ttl: 10m
+ *     excluded-statuses: 401, 403, 408, 409, 429
+ *   request-hash:
+ *     algorithm: sha256
+ *     previous-algorithm: # set to the old algorithm while rolling out a new one
+ *   bloom-filter:
+ *     enabled: false
+ *     expected-keys-per-day: 1000000
+ *     false-positive-rate: 0.01
+ *   off-heap:
+ *     directory: ./data/idempotency
+ *     index-capacity: 1048576
+ *     segment-size: 64MB
+ */
+@Component
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+    /** Storage layout used for idempotency keys. */
+    private Store store = Store.DATABASE;
+
+    private Cleanup cleanup = new Cleanup();
+
+    private ResponseStorage responseStorage = new ResponseStorage();
+
+    private ClientErrors clientErrors = new ClientErrors();
+
+    private RequestHash requestHash = new RequestHash();
+
+    private BloomFilter bloomFilter = new BloomFilter();
+
+    private OffHeap offHeap = new OffHeap();
+
+    public Store getStore() {
+        return store;
+    }
+
+    public void setStore(Store store) {
+        this.store = store;
+    }
+
+    public Cleanup getCleanup() {
+        return cleanup;
+    }
+
+    public void setCleanup(Cleanup cleanup) {
+        this.cleanup = cleanup;
+    }
+
+    public RequestHash getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(RequestHash requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public BloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    public void setBloomFilter(BloomFilter bloomFilter) {
+        this.bloomFilter = bloomFilter;
+    }
+
+    public ResponseStorage getResponseStorage() {
+        return responseStorage;
+    }
+
+    public void setResponseStorage(ResponseStorage responseStorage) {
+        this.responseStorage = responseStorage;
+    }
+
+    public ClientErrors getClientErrors() {
+        return clientErrors;
+    }
+
+    public void setClientErrors(ClientErrors clientErrors) {
+        this.clientErrors = clientErrors;
+    }
+
+    public OffHeap getOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(OffHeap offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Available idempotency key stores.
+     */
+    public enum Store {
+        /** Single table, expired keys deleted in batches. */
+        DATABASE,
+        /** Ring of hourly tables, expired keys dropped by truncating whole tables. */
+        PARTITIONED,
+        /** Memory-mapped files on local disk, for single-node deployments. */
+        OFFHEAP
+    }
+
+    /**
+     * Settings for the scheduled removal of expired idempotency keys.
+     */
+    public static class Cleanup {
+
+        /** Maximum number of keys deleted per batch (one short transaction each). */
+        private int batchSize = 1000;
+
+        /** Pause between batches so live requests get the database in between. */
+        private Duration pauseBetweenBatches = Duration.ofMillis(100);
+
+        /** Time budget for a single cleanup run; leftovers are picked up by the next run. */
+        private Duration maxRunDuration = Duration.ofMinutes(5);
+
+        /**
+         * How long the cluster-wide cleanup lease is held if the node running cleanup dies;
+         * must be longer than max-run-duration and at least lock-at-least-for, and shorter
+         * than the hourly schedule so another node takes over on its next run.
+         */
+        private Duration lockAtMostFor = Duration.ofMinutes(59);
+
+        /**
+         * Minimum time the lease is held, so other nodes skip the rest of the hour; at most
+         * lock-at-most-for.
+         */
+        private Duration lockAtLeastFor = Duration.ofMinutes(55);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPauseBetweenBatches() {
+            return pauseBetweenBatches;
+        }
+
+        public void setPauseBetweenBatches(Duration pauseBetweenBatches) {
+            this.pauseBetweenBatches = pauseBetweenBatches;
+        }
+
+        public Duration getMaxRunDuration() {
+            return maxRunDuration;
+        }
+
+        public void setMaxRunDuration(Duration maxRunDuration) {
+            this.maxRunDuration = maxRunDuration;
+        }
+
+        public Duration getLockAtMostFor() {
+            return lockAtMostFor;
+        }
+
+        public void setLockAtMostFor(Duration lockAtMostFor) {
+            this.lockAtMostFor = lockAtMostFor;
+        }
+
+        public Duration getLockAtLeastFor() {
+            return lockAtLeastFor;
+        }
+
+        public void setLockAtLeastFor(Duration lockAtLeastFor) {
+            this.lockAtLeastFor = lockAtLeastFor;
+        }
+    }
+
+    /**
+     * Settings for how successful responses are stored under their idempotency key.
+     */
+    public static class ResponseStorage {
+
+        /** Whether the full response body or only a reference to the created resource is stored. */
+        private Mode mode = Mode.FULL;
+
+        /** Number of re-rendered reference responses kept in memory; 0 disables the cache. */
+        private int renderedCacheSize = 10_000;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getRenderedCacheSize() {
+            return renderedCacheSize;
+        }
+
+        public void setRenderedCacheSize(int renderedCacheSize) {
+            this.renderedCacheSize = renderedCacheSize;
+        }
+
+        /**
+         * Supported response storage modes.
+         */
+        public enum Mode {
+            /** Store the compressed response body; a replay needs no other lookup. */
+            FULL,
+            /** Store only the status and the created transaction's id; a replay re-renders it. */
+            REFERENCE
+        }
+    }
+
+    /**
+     * Settings for caching client-error (4xx) responses, so retries of a request that can
+     * never succeed are answered from the store instead of running the whole pipeline again.
+     * Only statuses that are deterministic for a given request body should be cached.
+     */
+    public static class ClientErrors {
+
+        /** Whether 4xx responses are stored under the idempotency key (200 always is). */
+        private boolean enabled = false;
+
+        /** How long a cached client error is replayed; at most 24 hours. */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 4xx statuses that are never cached because a retry may legitimately get a different
+         * answer: credentials or feature flags may change (401, 403), or the error is transient
+         * (408, 409, 429).
+         */
+        private Set<Integer> excludedStatuses = Set.of(401, 403, 408, 409, 429);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Set<Integer> getExcludedStatuses() {
+            return excludedStatuses;
+        }
+
+        public void setExcludedStatuses(Set<Integer> excludedStatuses) {
+            this.excludedStatuses = excludedStatuses;
+        }
+
+        /**
+         * @return true if a response with this status should be cached under this policy
+         */
+        public boolean isCacheable(int status) {
+            return enabled && status >= 400 && status < 500 && !excludedStatuses.contains(status);
+        }
+    }
+
+    /**
+     * Settings for hashing request bodies, which lets a retry be matched to the stored request.
+     */
+    public static class RequestHash {
+
+        /** Algorithm used to hash new requests; stored hashes are tagged with it. */
+        private Algorithm algorithm = Algorithm.SHA256;
+
+        /**
+         * Algorithm used before the current one. While set, retries also match records
+         * stored with it, so the algorithm can be switched without false conflicts.
+         * Remove once every record stored with it has expired (24 hours).
+         */
+        private Algorithm previousAlgorithm;
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(Algorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public Algorithm getPreviousAlgorithm() {
+            return previousAlgorithm;
+        }
+
+        public void setPreviousAlgorithm(Algorithm previousAlgorithm) {
+            this.previousAlgorithm = previousAlgorithm;
+        }
+
+        /**
+         * Supported request hash algorithms.
+         */
+        public enum Algorithm {
+            /** Cryptographic, untagged for compatibility with records stored before tagging. */
+            SHA256,
+            /** MurmurHash3 x64 128-bit, non-cryptographic and much faster; tagged "murmur3:". */
+            MURMUR3
+        }
+    }
+
+    /**
+     * Settings for the in-memory filter of recently stored keys that lets brand-new keys
+     * skip the store lookups. Only safe on a single node: keys stored by other instances
+     * are not in this node's filter.
+     */
+    public static class BloomFilter {
+
+        /** Whether new keys skip the store lookups when the filter has never seen them. */
+        private boolean enabled = false;
+
+        /** Expected number of keys stored per day, used to size the filter. */
+        private long expectedKeysPerDay = 1_000_000;
+
+        /** Target false-positive rate across the whole 24 hour window. */
+        private double falsePositiveRate = 0.01;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getExpectedKeysPerDay() {
+            return expectedKeysPerDay;
+        }
+
+        public void setExpectedKeysPerDay(long expectedKeysPerDay) {
+            this.expectedKeysPerDay = expectedKeysPerDay;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+    }
+
+    /**
+     * Settings for the embedded off-heap store (idempotency.store=offheap).
+     */
+    public static class OffHeap {
+
+        /** Directory holding the mapped index and slab segment files. */
+        private Path directory = Path.of("data", "idempotency");
+
+        /** Number of index slots, rounded up to a power of two; at most 75% of them are filled. */
+        private int indexCapacity = 1 << 20;
+
+        /** Size of each of the 26 hourly slab segments. */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public int getIndexCapacity() {
+            return indexCapacity;
+        }
+
+        public void setIndexCapacity(int indexCapacity) {
+            this.indexCapacity = indexCapacity;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+    }
+}
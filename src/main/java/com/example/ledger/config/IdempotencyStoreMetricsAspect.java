@@ -0,0 +1,58 @@
+package com.example.ledger.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call to the idempotency store, whichever implementation is configured.
+ *
+ * Publishes idempotency.store.operation, tagged with the port method (operation) and
+ * whether it returned or threw (outcome), with p50 and p99 and a percentile histogram
+ * so latency can also be aggregated across instances.
+ */
+@Aspect
+@Component
+public class IdempotencyStoreMetricsAspect {
+
+    static final String TIMER_NAME = "idempotency.store.operation";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public IdempotencyStoreMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.example.ledger.application.port.IdempotencyRepositoryPort.*(..))")
+    public Object timeOperation(ProceedingJoinPoint pjp) throws Throwable {
+        String operation = pjp.getSignature().getName();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = pjp.proceed();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String operation, String outcome) {
+        // Looked up per call, so the built timers are kept rather than rebuilt
+        return timers.computeIfAbsent(operation + ':' + outcome, key -> Timer.builder(TIMER_NAME)
+                .description("Latency of idempotency store calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
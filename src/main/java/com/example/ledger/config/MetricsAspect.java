@@ -1,15 +1,36 @@
 package com.example.ledger.config;
 
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the meters declared by {@link TrackMetric}.
+ *
+ * The meters of each annotated method are registered on its first call and kept, so later
+ * calls cost a map lookup by Method rather than building a meter id and searching the registry.
+ */
 @Aspect
 @Component
 public class MetricsAspect {
 
+    static final String TIMER_SUFFIX = ".duration";
+
     private final MeterRegistry meterRegistry;
+    private final Map<Method, TrackedMeters> meters = new ConcurrentHashMap<>();
 
     public MetricsAspect(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
@@ -17,10 +38,85 @@ public class MetricsAspect {
 
     @Around("@annotation(trackMetric)")
     public Object recordMetric(ProceedingJoinPoint pjp, TrackMetric trackMetric) throws Throwable {
-        String name = trackMetric.value();
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        TrackedMeters tracked = meters.get(method);
+        if (tracked == null) {
+            tracked = meters.computeIfAbsent(method, key -> register(trackMetric));
+        }
+
+        tracked.counter.increment();
+        if (!trackMetric.timed()) {
+            return pjp.proceed();
+        }
+
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.SERVER_ERROR;
+        try {
+            Object result = pjp.proceed();
+            outcome = result instanceof ResponseEntity<?> response
+                    ? Outcome.of(response.getStatusCode().value())
+                    : Outcome.SUCCESS;
+            return result;
+        } catch (Throwable e) {
+            outcome = Outcome.of(e);
+            throw e;
+        } finally {
+            tracked.timers[outcome.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private TrackedMeters register(TrackMetric trackMetric) {
+        Counter counter = meterRegistry.counter(trackMetric.value());
+        if (!trackMetric.timed()) {
+            return new TrackedMeters(counter, null);
+        }
+        // Every outcome up front, so the error series exist before the first error
+        Timer[] timers = new Timer[Outcome.values().length];
+        for (Outcome outcome : Outcome.values()) {
+            timers[outcome.ordinal()] = Timer.builder(trackMetric.value() + TIMER_SUFFIX)
+                    .tag("outcome", outcome.tag)
+                    .publishPercentiles(trackMetric.percentiles())
+                    .publishPercentileHistogram(trackMetric.percentileHistogram())
+                    .serviceLevelObjectives(Arrays.stream(trackMetric.sloMillis())
+                            .mapToObj(Duration::ofMillis)
+                            .toArray(Duration[]::new))
+                    .register(meterRegistry);
+        }
+        return new TrackedMeters(counter, timers);
+    }
+
+    private record TrackedMeters(Counter counter, Timer[] timers) {
+    }
+
+    enum Outcome {
+        SUCCESS("success"),
+        CLIENT_ERROR("client_error"),
+        SERVER_ERROR("server_error");
+
+        final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
 
-        meterRegistry.counter(name).increment();
+        static Outcome of(int status) {
+            if (status >= 500) {
+                return SERVER_ERROR;
+            }
+            return status >= 400 ? CLIENT_ERROR : SUCCESS;
+        }
 
-        return pjp.proceed();
+        /**
+         * Classifies an exception by the status GlobalExceptionHandler or Spring MVC answers with.
+         */
+        static Outcome of(Throwable e) {
+            if (e instanceof ErrorResponse errorResponse) {
+                return of(errorResponse.getStatusCode().value());
+            }
+            if (e instanceof IllegalArgumentException || e instanceof FeatureFlagDisabledException) {
+                return CLIENT_ERROR;
+            }
+            return SERVER_ERROR;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package com.example.ledger.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Filter that rate-limits each client per endpoint, so one noisy integration cannot starve
+ * everyone else.
+ *
+ * Clients are identified by the client id header, or by IP address without it. Each
+ * configured endpoint has a ClientRateLimiter with its own bucket per client; a request
+ * without a token is rejected with 429 and a Retry-After of when the next token is due.
+ * It runs before ConcurrencyLimitFilter, so throttled clients never take a concurrency slot.
+ *
+ * Enabled with rate-limit.enabled=true. Metrics, tagged with the endpoint:
+ * - rate.limit.rejections: Requests rejected with 429
+ * - rate.limit.clients: Clients currently tracked
+ * - rate.limit.capacity, rate.limit.refill.rate: Configured burst and tokens per second
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final ObjectMapper objectMapper;
+    private final String clientIdHeader;
+    // Method, then request path, as in FeatureFlagSnapshot
+    private final Map<String, Map<String, Endpoint>> endpoints = new HashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.clientIdHeader = properties.getClientIdHeader();
+        for (Map.Entry<String, RateLimitProperties.Limit> entry : properties.getEndpoints().entrySet()) {
+            String[] methodAndPath = entry.getKey().trim().split("\\s+", 2);
+            if (methodAndPath.length != 2) {
+                throw new IllegalArgumentException("Endpoint must be \"METHOD /path\": " + entry.getKey());
+            }
+            String tag = methodAndPath[0] + " " + methodAndPath[1];
+            ClientRateLimiter limiter = new ClientRateLimiter(entry.getValue().getCapacity(),
+                    entry.getValue().getRefillPerSecond(), properties.getMaxClients());
+            Gauge.builder("rate.limit.clients", limiter, ClientRateLimiter::size)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder("rate.limit.capacity", limiter, ClientRateLimiter::getCapacity)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder("rate.limit.refill.rate", limiter, ClientRateLimiter::getRefillPerSecond)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Counter rejections = meterRegistry.counter("rate.limit.rejections", "endpoint", tag);
+            endpoints.computeIfAbsent(methodAndPath[0], method -> new HashMap<>())
+                    .put(methodAndPath[1], new Endpoint(limiter, rejections));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Map<String, Endpoint> paths = endpoints.get(request.getMethod());
+        Endpoint endpoint = paths == null ? null : paths.get(request.getRequestURI());
+        if (endpoint == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String clientId = request.getHeader(clientIdHeader);
+        if (clientId == null) {
+            clientId = request.getRemoteAddr();
+        }
+        long waitMillis = endpoint.limiter.tryAcquire(clientId, nowMillis());
+        if (waitMillis > 0) {
+            endpoint.rejections.increment();
+            handleRateLimited(response, waitMillis);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Forgets clients whose buckets have refilled, so idle clients take no memory.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void sweepIdleClients() {
+        long now = nowMillis();
+        int removed = 0;
+        for (Map<String, Endpoint> paths : endpoints.values()) {
+            for (Endpoint endpoint : paths.values()) {
+                removed += endpoint.limiter.sweep(now);
+            }
+        }
+        logger.debug("Rate limiter forgot {} idle clients", removed);
+    }
+
+    private long nowMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private void handleRateLimited(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Rate limit exceeded");
+
+        objectMapper.writeValue(response.getWriter(), errorResponse);
+    }
+
+    private record Endpoint(ClientRateLimiter limiter, Counter rejections) {
+    }
+}
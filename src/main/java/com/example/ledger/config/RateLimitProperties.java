@@ -0,0 +1,101 @@
+package com.example.ledger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for per-client rate limiting.
+ * Each endpoint has its own token bucket per client.
+ *
+ * Example YAML:
+ * rate-limit:
+ *   enabled: false
+ *   client-id-header: X-Client-Id
+ *   max-clients: 1000000
+ *   endpoints:
+ *     "[POST /transactions]":
+ *       capacity: 20
+ *       refill-per-second: 10
+ *     "[GET /transactions]":
+ *       capacity: 50
+ *       refill-per-second: 25
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /** Whether RateLimitFilter throttles clients; off by default. */
+    private boolean enabled = false;
+
+    /** Request header identifying the client; requests without it are limited by IP address. */
+    private String clientIdHeader = "X-Client-Id";
+
+    /** Clients tracked per endpoint at most; the least recently seen are forgotten beyond that. */
+    private int maxClients = 1_000_000;
+
+    /** Limits per "METHOD /path". */
+    private Map<String, Limit> endpoints = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getClientIdHeader() {
+        return clientIdHeader;
+    }
+
+    public void setClientIdHeader(String clientIdHeader) {
+        this.clientIdHeader = clientIdHeader;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Map<String, Limit> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Limit> endpoints) {
+        this.endpoints = endpoints != null ? endpoints : new LinkedHashMap<>();
+    }
+
+    /**
+     * Token bucket settings for one endpoint.
+     */
+    public static class Limit {
+
+        /** Burst size: requests a client may make at once after being idle. */
+        private int capacity = 20;
+
+        /** Sustained rate: requests per second a client may make once its burst is spent. */
+        private int refillPerSecond = 10;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(int refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.ledger.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter that times the stages of a sample of requests (see StageTimings).
+ *
+ * For a sampled request, each stage that ran is recorded in the timer http.server.requests.stage,
+ * tagged with the stage, the method and the matched URI pattern, with p50, p99 and a percentile
+ * histogram. With stage-timing.server-timing-header=true the response also gets a Server-Timing
+ * header listing the stages and the total; the body is then held back until the request is done,
+ * so the header can still be set.
+ *
+ * Enabled with stage-timing.enabled=true. Runs before the rate and concurrency limits, so the
+ * total covers every filter.
+ */
+@Component
+@ConditionalOnProperty(name = "stage-timing.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class StageTimingFilter extends OncePerRequestFilter {
+
+    static final String TIMER_NAME = "http.server.requests.stage";
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+    private final boolean serverTimingHeader;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public StageTimingFilter(StageTimingProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = properties.getSampleRate();
+        this.serverTimingHeader = properties.isServerTimingHeader();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        StageTimings timings = StageTimings.begin();
+        ContentCachingResponseWrapper responseWrapper = serverTimingHeader
+                ? new ContentCachingResponseWrapper(response)
+                : null;
+        try {
+            filterChain.doFilter(request, responseWrapper == null ? response : responseWrapper);
+        } finally {
+            StageTimings.clear();
+        }
+        long totalNanos = System.nanoTime() - start;
+
+        record(request, timings);
+        if (responseWrapper != null) {
+            responseWrapper.setHeader(SERVER_TIMING_HEADER, timings.toServerTiming(totalNanos));
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private void record(HttpServletRequest request, StageTimings timings) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+        for (StageTimings.Stage stage : StageTimings.Stage.values()) {
+            if (timings.ran(stage)) {
+                timer(stage, request.getMethod(), uri).record(timings.getNanos(stage), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timer timer(StageTimings.Stage stage, String method, String uri) {
+        // Looked up per sampled request, so the built timers are kept rather than rebuilt
+        return timers.computeIfAbsent(stage.getMetricName() + ' ' + method + ' ' + uri, key -> Timer.builder(TIMER_NAME)
+                .description("Time spent in one stage of a request")
+                .tag("stage", stage.getMetricName())
+                .tag("method", method)
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.ledger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for per-stage request timing (see StageTimings).
+ *
+ * Example YAML:
+ * stage-timing:
+ *   enabled: false
+ *   sample-rate: 0.01
+ *   server-timing-header: false
+ */
+@Component
+@ConfigurationProperties(prefix = "stage-timing")
+public class StageTimingProperties {
+
+    /** Whether StageTimingFilter is installed; off by default. */
+    private boolean enabled = false;
+
+    /** Share of requests whose stages are timed, between 0 and 1. */
+    private double sampleRate = 0.01;
+
+    /** Whether timed requests get their stages in a Server-Timing response header. */
+    private boolean serverTimingHeader = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isServerTimingHeader() {
+        return serverTimingHeader;
+    }
+
+    public void setServerTimingHeader(boolean serverTimingHeader) {
+        this.serverTimingHeader = serverTimingHeader;
+    }
+}
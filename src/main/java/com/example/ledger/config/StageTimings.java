@@ -0,0 +1,148 @@
+package com.example.ledger.config;
+
+/**
+ * Time spent in each stage of the current request, for finding which one a latency
+ * regression is in.
+ *
+ * Code around a stage does:
+ * <pre>
+ * StageTimings timings = StageTimings.current();
+ * long start = timings.start();
+ * ...
+ * timings.end(StageTimings.Stage.PERSIST, start);
+ * </pre>
+ * StageTimingFilter installs an instance for the requests it samples. For every other request,
+ * and whenever the filter is disabled, current() is a no-op instance: start() does not read the
+ * clock and end() returns straight away.
+ *
+ * Not thread-safe: an instance belongs to the thread handling its request.
+ */
+public final class StageTimings {
+
+    public enum Stage {
+        // Reading a keyed request's body into memory
+        CAPTURE("capture"),
+        // Hashing it, with every configured algorithm
+        HASH("hash"),
+        // Looking up a stored response or a conflicting request for the key
+        LOOKUP("lookup"),
+        // Validating the create request
+        VALIDATE("validate"),
+        // Saving the transaction; JPA usually sends the INSERT at COMMIT for a keyed request
+        PERSIST("persist"),
+        // Committing a keyed request's database transaction
+        COMMIT("commit"),
+        // Writing the response body with a message converter
+        SERIALIZE("serialize"),
+        // Storing the response under the idempotency key
+        STORE("store"),
+        // Releasing a captured response to the client
+        RESPOND("respond");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /**
+         * @return the name in the Server-Timing header and the stage tag of the timers
+         */
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final StageTimings DISABLED = new StageTimings(null);
+    private static final ThreadLocal<StageTimings> CURRENT = new ThreadLocal<>();
+
+    // Null when disabled
+    private final long[] nanos;
+    private int ranStages;
+
+    private StageTimings(long[] nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return the timings of the request on this thread, or a no-op instance
+     */
+    public static StageTimings current() {
+        StageTimings timings = CURRENT.get();
+        return timings == null ? DISABLED : timings;
+    }
+
+    /**
+     * Starts timing the current thread's request; {@link #clear()} must follow.
+     */
+    static StageTimings begin() {
+        StageTimings timings = new StageTimings(new long[STAGES.length]);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public boolean isEnabled() {
+        return nanos != null;
+    }
+
+    /**
+     * @return the start of a stage, to pass to {@link #end(Stage, long)}
+     */
+    public long start() {
+        return nanos == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Adds the time since start to the stage; a stage that runs more than once adds up.
+     */
+    public void end(Stage stage, long start) {
+        if (nanos == null) {
+            return;
+        }
+        nanos[stage.ordinal()] += System.nanoTime() - start;
+        ranStages |= 1 << stage.ordinal();
+    }
+
+    public boolean ran(Stage stage) {
+        return (ranStages & 1 << stage.ordinal()) != 0;
+    }
+
+    public long getNanos(Stage stage) {
+        return nanos == null ? 0 : nanos[stage.ordinal()];
+    }
+
+    /**
+     * Formats the stages that ran, then the total, as a Server-Timing header value, e.g.
+     * {@code capture;dur=0.012, persist;dur=1.204, total;dur=2.5}. Durations are in milliseconds.
+     */
+    public String toServerTiming(long totalNanos) {
+        StringBuilder header = new StringBuilder(160);
+        for (Stage stage : STAGES) {
+            if (ran(stage)) {
+                appendMetric(header, stage.metricName, nanos[stage.ordinal()]);
+                header.append(", ");
+            }
+        }
+        appendMetric(header, "total", totalNanos);
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        // Milliseconds with microsecond precision, without going through double formatting
+        long micros = nanos / 1_000;
+        header.append(name).append(";dur=").append(micros / 1_000).append('.');
+        long fraction = micros % 1_000;
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+}
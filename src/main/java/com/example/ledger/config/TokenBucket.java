@@ -0,0 +1,88 @@
+package com.example.ledger.config;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free token bucket for one client.
+ *
+ * The whole state is one long, updated with compare-and-set: the upper 40 bits hold the
+ * time of the last refill in milliseconds (34 years of range), the lower 24 bits the tokens
+ * left, in thousandths of a token so refills are exact at any whole number of tokens per
+ * second. Capacity and refill rate are not stored here: they are the same for every client
+ * of an endpoint and are passed in by ClientRateLimiter, which keeps each bucket at one long.
+ */
+public final class TokenBucket {
+
+    /** Thousandths of a token held per token. */
+    static final long MILLI_TOKENS = 1000;
+
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    /** The largest capacity the packed state can hold. */
+    public static final int MAX_CAPACITY = (int) (TOKEN_MASK / MILLI_TOKENS);
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(TokenBucket.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused") // Accessed through STATE
+    private volatile long state;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param nowMillis The current time, from a monotonic clock starting at or after zero
+     * @param capacity Tokens the bucket holds when full
+     */
+    TokenBucket(long nowMillis, int capacity) {
+        this.state = pack(nowMillis, capacity * MILLI_TOKENS);
+    }
+
+    /**
+     * Takes a token if one is available, after adding the tokens refilled since the last call.
+     *
+     * @param nowMillis The current time, from the same clock as at creation
+     * @param capacity Tokens the bucket holds when full, at most MAX_CAPACITY
+     * @param refillPerSecond Tokens added per second
+     * @return 0 if a token was taken, otherwise how many milliseconds until one is available
+     */
+    long tryConsume(long nowMillis, int capacity, int refillPerSecond) {
+        long capacityMilliTokens = capacity * MILLI_TOKENS;
+        while (true) {
+            long current = (long) STATE.getVolatile(this);
+            long lastRefill = current >>> TOKEN_BITS;
+            // A racing thread may have moved the refill time past our reading of the clock
+            long elapsed = Math.max(0, nowMillis - lastRefill);
+            // refillPerSecond tokens per second is refillPerSecond thousandths per millisecond
+            long tokens = Math.min(capacityMilliTokens, (current & TOKEN_MASK) + elapsed * refillPerSecond);
+            if (tokens < MILLI_TOKENS) {
+                // Nothing to write back: the next call computes the same refill from the old state
+                return Math.max(1, (MILLI_TOKENS - tokens + refillPerSecond - 1) / refillPerSecond);
+            }
+            if (STATE.compareAndSet(this, current, pack(lastRefill + elapsed, tokens - MILLI_TOKENS))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return true if the bucket has refilled to capacity, i.e. it is no different from a new one
+     */
+    boolean isFull(long nowMillis, int capacity, int refillPerSecond) {
+        long current = (long) STATE.getVolatile(this);
+        long elapsed = Math.max(0, nowMillis - (current >>> TOKEN_BITS));
+        return (current & TOKEN_MASK) + elapsed * refillPerSecond >= capacity * MILLI_TOKENS;
+    }
+
+    private static long pack(long millis, long milliTokens) {
+        return (millis << TOKEN_BITS) | milliTokens;
+    }
+}
@@ -2,9 +2,34 @@ package com.example.ledger.config;
 
 import java.lang.annotation.*;
 
+/**
+ * Counts calls to the annotated method as the counter {@link #value()}, and optionally times
+ * them (see MetricsAspect).
+ */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface TrackMetric {
     String value(); // metric name
+
+    /**
+     * Also record a timer named value() + ".duration", tagged with the outcome: success,
+     * client_error or server_error.
+     */
+    boolean timed() default false;
+
+    /**
+     * Percentiles the timer publishes, computed on this instance, e.g. {0.5, 0.99}.
+     */
+    double[] percentiles() default {};
+
+    /**
+     * Publish histogram buckets as well, so percentiles can be aggregated across instances.
+     */
+    boolean percentileHistogram() default false;
+
+    /**
+     * SLO boundaries in milliseconds; the timer counts calls at or under each one.
+     */
+    long[] sloMillis() default {};
 }
@@ -0,0 +1,49 @@
+package com.example.ledger.config;
+
+import com.example.ledger.adapters.in.web.TransactionBinaryHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Spring MVC settings.
+ *
+ * The binary transaction converter goes after the defaults rather than being declared as a
+ * bean: Spring Boot puts converter beans first, and content negotiation then picks the first
+ * type a converter offers, so clients sending Accept: *&#47;* would get binary instead of JSON.
+ *
+ * The JSON converter is declared here in place of Spring Boot's, with the same ObjectMapper,
+ * to time response serialisation as a stage of sampled requests (see StageTimings).
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new TransactionBinaryHttpMessageConverter());
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(@NonNull Object object, @Nullable Type type,
+                                         @NonNull HttpOutputMessage outputMessage) throws IOException {
+                StageTimings timings = StageTimings.current();
+                long start = timings.start();
+                super.writeInternal(object, type, outputMessage);
+                timings.end(StageTimings.Stage.SERIALIZE, start);
+            }
+        };
+    }
+}
@@ -4,6 +4,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Schema(description = "A financial transaction in the ledger")
@@ -24,14 +26,34 @@ public class Transaction {
     @Schema(description = "Transaction type", example = "EXPENSE", allowableValues = {"EXPENSE", "REVENUE"})
     private final TransactionType type;
 
-    public Transaction(BigDecimal amount, String description, TransactionType type) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Amount must be positive");
+    /**
+     * Validates a new transaction; the constructor throws IllegalArgumentException for the same
+     * rules, so callers that check first never pay for the exception.
+     */
+    public static ValidationResult validate(BigDecimal amount, String description) {
+        List<String> violations = null;
+        if (amount == null) {
+            violations = add(violations, "Amount is required");
+        } else if (amount.signum() <= 0) {
+            violations = add(violations, "Amount must be positive");
         }
         if (description == null || description.trim().isEmpty()) {
-            throw new IllegalArgumentException("Description must not be null or empty");
+            violations = add(violations, "Description must not be null or empty");
         }
+        return violations == null ? ValidationResult.valid() : ValidationResult.of(violations);
+    }
+
+    private static List<String> add(List<String> violations, String violation) {
+        List<String> list = violations == null ? new ArrayList<>(2) : violations;
+        list.add(violation);
+        return list;
+    }
 
+    public Transaction(BigDecimal amount, String description, TransactionType type) {
+        ValidationResult validation = validate(amount, description);
+        if (!validation.isValid()) {
+            throw new IllegalArgumentException(validation.getMessage());
+        }
 
         this.id = UUID.randomUUID();
         this.date = LocalDateTime.now();
@@ -0,0 +1,54 @@
+package com.example.ledger.domain.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of validating transaction data: valid, or the rules it breaks as messages.
+ *
+ * Returned instead of thrown, so rejecting a request costs no exception and stack trace.
+ */
+public final class ValidationResult {
+
+    private static final ValidationResult VALID = new ValidationResult(List.of());
+
+    private final List<String> violations;
+
+    private ValidationResult(List<String> violations) {
+        this.violations = violations;
+    }
+
+    public static ValidationResult valid() {
+        return VALID;
+    }
+
+    public static ValidationResult of(List<String> violations) {
+        return violations.isEmpty() ? VALID : new ValidationResult(List.copyOf(violations));
+    }
+
+    /**
+     * @return this result with one more violation
+     */
+    public ValidationResult withViolation(String violation) {
+        List<String> all = new ArrayList<>(violations.size() + 1);
+        all.addAll(violations);
+        all.add(violation);
+        return new ValidationResult(Collections.unmodifiableList(all));
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    public List<String> getViolations() {
+        return violations;
+    }
+
+    /**
+     * @return the violations as one message, e.g. for an error response
+     */
+    public String getMessage() {
+        return String.join("; ", violations);
+    }
+}
@@ -3,8 +3,11 @@ package com.example.ledger.domain.port;
 import com.example.ledger.domain.model.Transaction;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 public interface TransactionRepositoryPort {
     Transaction save(Transaction transaction);
     List<Transaction> findAll();
+    Optional<Transaction> findById(UUID id);
 }
@@ -0,0 +1,133 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for creating transactions in the binary format, with content negotiation
+ * on the response and idempotent replays.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "feature.get-all-transactions.enabled=true"
+})
+public class BinaryIngestIntegrationTest {
+
+    private static final String BINARY = TransactionBinaryFormat.MEDIA_TYPE_VALUE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldCreateFromBinaryAndAnswerInBinary() throws Exception {
+        byte[] request = TransactionBinaryFormat.encodeCreate(new BigDecimal("42.10"), "Binary supplies", TransactionType.EXPENSE);
+
+        MockHttpServletResponse response = mockMvc.perform(post("/transactions")
+                        .contentType(BINARY)
+                        .accept(BINARY)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BINARY))
+                .andReturn().getResponse();
+
+        Transaction created = TransactionBinaryFormat.decode(response.getContentAsByteArray());
+        assertEquals(new BigDecimal("42.10"), created.getAmount());
+        assertEquals("Binary supplies", created.getDescription());
+        assertEquals(TransactionType.EXPENSE, created.getType());
+    }
+
+    @Test
+    public void shouldAnswerBinaryCreateInJsonByDefault() throws Exception {
+        byte[] request = TransactionBinaryFormat.encodeCreate(new BigDecimal("7.00"), "Binary in, JSON out", TransactionType.REVENUE);
+
+        mockMvc.perform(post("/transactions")
+                        .contentType(BINARY)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.amount").value(7.00))
+                .andExpect(jsonPath("$.type").value("REVENUE"));
+    }
+
+    @Test
+    public void shouldReportErrorsInJsonToBinaryClients() throws Exception {
+        byte[] negative = TransactionBinaryFormat.encodeCreate(new BigDecimal("-1.00"), "Refund", TransactionType.EXPENSE);
+        byte[] unknownType = TransactionBinaryFormat.encodeCreate(new BigDecimal("1.00"), "Gift", TransactionType.EXPENSE);
+        unknownType[1] = 9;
+
+        mockMvc.perform(post("/transactions").contentType(BINARY).accept(BINARY).content(negative))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Amount must be positive"));
+        mockMvc.perform(post("/transactions").contentType(BINARY).accept(BINARY).content(unknownType))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid transaction type. Must be either EXPENSE or REVENUE"));
+        mockMvc.perform(post("/transactions").contentType(BINARY).accept(BINARY).content(new byte[] {1, 0}))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid request format"));
+    }
+
+    @Test
+    public void shouldReplayBinaryResponsesAsBinary() throws Exception {
+        String idempotencyKey = "b10e8400-e29b-41d4-a716-446655440046";
+        byte[] request = TransactionBinaryFormat.encodeCreate(new BigDecimal("99.99"), "Binary retry", TransactionType.EXPENSE);
+
+        MockHttpServletResponse first = sendKeyed(idempotencyKey, request);
+        MockHttpServletResponse replay = sendKeyed(idempotencyKey, request);
+
+        assertEquals(BINARY, replay.getContentType());
+        assertArrayEquals(first.getContentAsByteArray(), replay.getContentAsByteArray());
+    }
+
+    @Test
+    public void shouldListTransactionsInBinary() throws Exception {
+        mockMvc.perform(post("/transactions")
+                        .contentType(BINARY)
+                        .content(TransactionBinaryFormat.encodeCreate(new BigDecimal("3.00"), "Listed", TransactionType.EXPENSE)))
+                .andExpect(status().isOk());
+
+        byte[] list = mockMvc.perform(get("/transactions").accept(BINARY))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BINARY))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(TransactionBinaryFormat.VERSION_1, list[0]);
+        int count = java.nio.ByteBuffer.wrap(list, 1, 4).getInt();
+        assertTrue("Expected at least one transaction but got " + count, count >= 1);
+    }
+
+    private MockHttpServletResponse sendKeyed(String idempotencyKey, byte[] request) throws Exception {
+        return mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(BINARY)
+                        .accept(BINARY)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.ledger.adapters.in.web;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for CachedBodyHttpServletRequest.
+ *
+ * Verifies that the body hash computed on capture matches a plain SHA-256 of the body
+ * and that the cached body can be re-read in bulk and byte by byte.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class CachedBodyHttpServletRequestTest {
+
+    @Test
+    public void shouldHashBodyOnceCaptured() throws Exception {
+        byte[] body = "{\"amount\":100.00,\"description\":\"Café supplies\",\"type\":\"EXPENSE\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        CachedBodyHttpServletRequest wrapper = new CachedBodyHttpServletRequest(requestWithBody(body));
+
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        assertEquals(expected, wrapper.getBodyHash());
+    }
+
+    @Test
+    public void shouldHashBodyWithTheGivenHasher() throws Exception {
+        byte[] body = "{\"amount\":100.00,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        CachedBodyHttpServletRequest wrapper =
+                new CachedBodyHttpServletRequest(requestWithBody(body), Murmur3RequestHasher.INSTANCE);
+
+        assertEquals("murmur3:f8ef4a42fc76c11457425502ecb6414e", wrapper.getBodyHash());
+        assertEquals(Sha256RequestHasher.INSTANCE.hash(body, 0, body.length),
+                wrapper.hashBody(Sha256RequestHasher.INSTANCE));
+    }
+
+    @Test
+    public void shouldReplayBodyWithBulkReadsWhenLargerThanOneChunk() throws Exception {
+        byte[] body = new byte[70_000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        // Simulate a chunked request without a Content-Length header
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transactions") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+        };
+        request.setContent(body);
+
+        CachedBodyHttpServletRequest wrapper = new CachedBodyHttpServletRequest(request);
+
+        assertEquals(body.length, wrapper.getContentLength());
+        assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+        // The body can be read more than once
+        assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+    }
+
+    @Test
+    public void shouldNotTrustAHugeContentLength() throws Exception {
+        byte[] body = "{\"amount\":1.00,\"description\":\"Small\",\"type\":\"EXPENSE\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        // Claims ~2 GB: the buffer must not be sized from it before any bytes arrive
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transactions") {
+            @Override
+            public int getContentLength() {
+                return Integer.MAX_VALUE - 8;
+            }
+        };
+        request.setContent(body);
+
+        CachedBodyHttpServletRequest wrapper = new CachedBodyHttpServletRequest(request);
+
+        assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+    }
+
+    @Test
+    public void shouldGrowPastTheInitialBufferForALargeDeclaredBody() throws Exception {
+        byte[] body = new byte[CachedBodyHttpServletRequest.MAX_INITIAL_BUFFER_SIZE * 3 + 17];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i * 31);
+        }
+
+        CachedBodyHttpServletRequest wrapper = new CachedBodyHttpServletRequest(requestWithBody(body));
+
+        assertEquals(body.length, wrapper.getContentLength());
+        assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+    }
+
+    @Test
+    public void shouldReturnUnsignedBytesFromSingleByteRead() throws Exception {
+        byte[] body = "é".getBytes(StandardCharsets.UTF_8);
+
+        CachedBodyHttpServletRequest wrapper = new CachedBodyHttpServletRequest(requestWithBody(body));
+        var in = wrapper.getInputStream();
+
+        assertEquals(body[0] & 0xff, in.read());
+        assertEquals(body[1] & 0xff, in.read());
+        assertEquals(-1, in.read());
+        assertTrue(in.isFinished());
+    }
+
+    @Test
+    public void shouldHandleEmptyBody() throws Exception {
+        CachedBodyHttpServletRequest wrapper = new CachedBodyHttpServletRequest(requestWithBody(new byte[0]));
+
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", wrapper.getBodyHash());
+        assertEquals(-1, wrapper.getInputStream().read());
+    }
+
+    private MockHttpServletRequest requestWithBody(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transactions");
+        request.setContent(body);
+        return request;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ledger.adapters.in.web;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for CapturingHttpServletResponse.
+ *
+ * Verifies that nothing reaches the wrapped response before it is released, and that the
+ * captured bytes are released unchanged with a matching Content-Length.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class CapturingHttpServletResponseTest {
+
+    private static final String BODY = "{\"amount\":100.00,\"description\":\"Café supplies\",\"type\":\"EXPENSE\"}";
+
+    @Test
+    public void shouldHoldBackBodyUntilReleased() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CapturingHttpServletResponse wrapper = new CapturingHttpServletResponse(response);
+
+        wrapper.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        wrapper.setContentLength(3);
+        wrapper.flushBuffer();
+
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertFalse(response.isCommitted());
+        assertNull(response.getHeader("Content-Length"));
+    }
+
+    @Test
+    public void shouldReleaseCapturedBytesWithContentLength() throws Exception {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CapturingHttpServletResponse wrapper = new CapturingHttpServletResponse(response);
+
+        wrapper.getOutputStream().write(body, 0, 10);
+        wrapper.getOutputStream().write(body, 10, body.length - 10);
+        byte[] captured = wrapper.getContent();
+        wrapper.copyBodyToResponse();
+
+        assertArrayEquals(body, captured);
+        assertArrayEquals(body, response.getContentAsByteArray());
+        assertEquals(body.length, response.getContentLength());
+    }
+
+    @Test
+    public void shouldCaptureWriterOutputInResponseCharset() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CapturingHttpServletResponse wrapper = new CapturingHttpServletResponse(response);
+        wrapper.setCharacterEncoding("UTF-8");
+
+        wrapper.getWriter().write(BODY);
+
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), wrapper.getContent());
+    }
+
+    @Test
+    public void shouldGrowBeyondInitialBuffer() throws Exception {
+        byte[] body = new byte[70_000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CapturingHttpServletResponse wrapper = new CapturingHttpServletResponse(response);
+
+        for (byte b : body) {
+            wrapper.getOutputStream().write(b);
+        }
+
+        assertEquals(body.length, wrapper.getContentSize());
+        assertArrayEquals(body, wrapper.getContent());
+    }
+
+    @Test
+    public void shouldLetAWriteListenerWriteStraightAway() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CapturingHttpServletResponse wrapper = new CapturingHttpServletResponse(response);
+        ServletOutputStream out = wrapper.getOutputStream();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        out.setWriteListener(new WriteListener() {
+            @Override
+            public void onWritePossible() throws IOException {
+                while (out.isReady() && wrapper.getContentSize() == 0) {
+                    out.write(BODY.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                error.set(t);
+            }
+        });
+
+        assertNull(error.get());
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), wrapper.getContent());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void shouldCaptureSentErrorsInsteadOfPassingThemOn() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CapturingHttpServletResponse wrapper = new CapturingHttpServletResponse(response);
+        wrapper.getWriter().write("partial");
+
+        wrapper.sendError(415, "Content type \"text/plain\" not supported");
+
+        assertEquals(415, wrapper.getStatus());
+        assertFalse(response.isCommitted());
+        assertNull(response.getErrorMessage());
+        String error = "{\"error\":\"Content type \\\"text/plain\\\" not supported\"}";
+        assertEquals(error, new String(wrapper.getContent(), StandardCharsets.UTF_8));
+
+        wrapper.copyBodyToResponse();
+        assertEquals(error, response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("application/json;charset=UTF-8", response.getContentType());
+    }
+
+    @Test
+    public void shouldUseTheReasonPhraseForAnErrorWithoutMessage() throws Exception {
+        CapturingHttpServletResponse wrapper = new CapturingHttpServletResponse(new MockHttpServletResponse());
+
+        wrapper.sendError(404);
+
+        assertEquals(404, wrapper.getStatus());
+        assertEquals("{\"error\":\"Not Found\"}", new String(wrapper.getContent(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.ledger.adapters.in.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for caching client errors under the idempotency key.
+ *
+ * A retry of a rejected request must get the stored rejection back, while a corrected
+ * request must still be processed under the same key.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "idempotency.client-errors.enabled=true"
+})
+public class ClientErrorCachingIntegrationTest {
+
+    private static final String INVALID_BODY =
+            "{\"amount\":-50.00,\"description\":\"Refund\",\"type\":\"EXPENSE\"}";
+    private static final String CORRECTED_BODY =
+            "{\"amount\":50.00,\"description\":\"Refund\",\"type\":\"EXPENSE\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void shouldReplayClientErrorButAcceptCorrectedRequest() throws Exception {
+        String idempotencyKey = "ee0e8400-e29b-41d4-a716-446655440080";
+        double hits = meterRegistry.counter("idempotency.cache.hits").count();
+
+        String rejection = mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(INVALID_BODY))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsString();
+
+        // Retry - answered from the store
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(INVALID_BODY))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json(rejection));
+        assertEquals(hits + 1, meterRegistry.counter("idempotency.cache.hits").count(), 0.0);
+
+        // Corrected request under the same key - not a conflict
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(CORRECTED_BODY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(50.00));
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.out.persistence.TransactionRepositoryAdapter;
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.port.TransactionRepositoryPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Load test for ConcurrencyLimitFilter against a database that has slowed down.
+ *
+ * The repository is wrapped so that saves take 100 ms and only two run at a time, like a
+ * database whose connection pool is exhausted. Far more clients than that keep posting.
+ * Without a limit, every request would queue behind all the others (24 clients / 2 x 100 ms
+ * = 1.2 s each); with it, the excess is rejected with 503 and Retry-After, the requests
+ * that are admitted stay fast, and goodput stays close to what the database can do.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "concurrency-limit.enabled=true",
+        "concurrency-limit.initial-limit=20",
+        // React within the few seconds of load the test can afford
+        "concurrency-limit.smoothing=0.5"
+})
+public class ConcurrencyLimitLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitLoadTest.class);
+
+    private static final int CLIENTS = 24;
+    private static final int DATABASE_CONNECTIONS = 2;
+    private static final long SAVE_MILLIS = 100;
+    private static final long LOAD_SECONDS = 12;
+    // Latency is judged once the limit has had time to adapt from its initial value
+    private static final long ADAPTATION_SECONDS = 3;
+    // Clients back off after a 503, for less than Retry-After so the test stays short
+    private static final long BACKOFF_MILLIS = 250;
+    private static final int WARM_UP_REQUESTS = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @TestConfiguration
+    static class SlowDatabaseConfiguration {
+
+        @Bean
+        @Primary
+        TransactionRepositoryPort slowTransactionRepository(TransactionRepositoryAdapter adapter) {
+            Semaphore connections = new Semaphore(DATABASE_CONNECTIONS, true);
+            return new TransactionRepositoryPort() {
+                @Override
+                public Transaction save(Transaction transaction) {
+                    connections.acquireUninterruptibly();
+                    try {
+                        Thread.sleep(SAVE_MILLIS);
+                        return adapter.save(transaction);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    } finally {
+                        connections.release();
+                    }
+                }
+
+                @Override
+                public List<Transaction> findAll() {
+                    return adapter.findAll();
+                }
+
+                @Override
+                public Optional<Transaction> findById(UUID id) {
+                    return adapter.findById(id);
+                }
+            };
+        }
+    }
+
+    @Test
+    public void shouldShedExcessLoadAndKeepAdmittedRequestsFast() throws Exception {
+        // Warm up one request at a time, as a deployment would be before taking traffic;
+        // this is also when the limiter measures its baseline
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            assertEquals(200, post().status);
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long loadStart = System.nanoTime();
+        long adapted = loadStart + TimeUnit.SECONDS.toNanos(ADAPTATION_SECONDS);
+        long deadline = loadStart + TimeUnit.SECONDS.toNanos(LOAD_SECONDS);
+        List<Future<List<Result>>> futures = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            futures.add(clients.submit(() -> postUntil(deadline)));
+        }
+        List<Result> results = new ArrayList<>();
+        for (Future<List<Result>> future : futures) {
+            results.addAll(future.get(LOAD_SECONDS + 60, TimeUnit.SECONDS));
+        }
+        clients.shutdownNow();
+
+        int created = 0;
+        List<Long> adaptedLatencies = new ArrayList<>();
+        int rejected = 0;
+        for (Result result : results) {
+            if (result.status == 200) {
+                created++;
+                if (result.startNanos >= adapted) {
+                    adaptedLatencies.add(result.latencyNanos);
+                }
+            } else {
+                assertEquals("Unexpected status " + result.status, 503, result.status);
+                assertEquals("1", result.retryAfter);
+                rejected++;
+            }
+        }
+        Collections.sort(adaptedLatencies);
+        long p50 = adaptedLatencies.get(adaptedLatencies.size() / 2);
+        long p99 = adaptedLatencies.get((int) Math.ceil(adaptedLatencies.size() * 0.99) - 1);
+        double goodput = created / (double) LOAD_SECONDS;
+        double capacity = DATABASE_CONNECTIONS * 1000.0 / SAVE_MILLIS;
+        double limit = meterRegistry.get("concurrency.limit").tag("endpoint", "POST /transactions").gauge().value();
+        logger.info("Concurrency limit under overload: {} created ({} /s of {} /s the database can do), {} rejected,"
+                        + " created after adapting p50={} ms p99={} ms, limit settled at {}",
+                created, Math.round(goodput), Math.round(capacity), rejected,
+                TimeUnit.NANOSECONDS.toMillis(p50), TimeUnit.NANOSECONDS.toMillis(p99), limit);
+
+        assertTrue("Excess requests should be rejected", rejected > 0);
+        assertTrue("Limit " + limit + " should have dropped below the initial 20", limit < 20);
+        assertTrue("Goodput " + goodput + " /s should stay close to " + capacity + " /s", goodput > capacity * 0.6);
+        // Unlimited, every request would queue behind all the others
+        long unlimitedMillis = CLIENTS / DATABASE_CONNECTIONS * SAVE_MILLIS;
+        assertTrue("p50 " + TimeUnit.NANOSECONDS.toMillis(p50) + " ms should stay well below " + unlimitedMillis + " ms",
+                p50 < TimeUnit.MILLISECONDS.toNanos(unlimitedMillis) / 2);
+        assertTrue("p99 " + TimeUnit.NANOSECONDS.toMillis(p99) + " ms should stay below " + unlimitedMillis + " ms",
+                p99 < TimeUnit.MILLISECONDS.toNanos(unlimitedMillis));
+    }
+
+    private List<Result> postUntil(long deadline) throws Exception {
+        List<Result> results = new ArrayList<>();
+        while (System.nanoTime() < deadline) {
+            Result result = post();
+            results.add(result);
+            if (result.status == 503) {
+                Thread.sleep(BACKOFF_MILLIS);
+            }
+        }
+        return results;
+    }
+
+    private Result post() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transactions"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"amount\":150.00,\"description\":\"Overload\",\"type\":\"EXPENSE\"}"))
+                .build();
+        long begin = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return new Result(response.statusCode(), begin, System.nanoTime() - begin,
+                response.headers().firstValue("Retry-After").orElse(null));
+    }
+
+    private record Result(int status, long startNanos, long latencyNanos, String retryAfter) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ledger.adapters.in.web;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for FeatureFlagFilter with a flag that is only rolled out to targeted clients.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "feature.get-all-transactions.enabled=true",
+        "feature.get-all-transactions.percentage=0",
+        "feature.get-all-transactions.clients=beta-client"
+})
+public class FeatureFlagRolloutIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldServeTargetedClients() throws Exception {
+        mockMvc.perform(get("/transactions").header("X-Client-Id", "beta-client"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectClientsOutsideTheRollout() throws Exception {
+        mockMvc.perform(get("/transactions").header("X-Client-Id", "other-client"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("Feature is disabled"));
+    }
+
+    @Test
+    public void shouldRejectRequestsWithoutAClientId() throws Exception {
+        mockMvc.perform(get("/transactions"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.out.persistence.IdempotencyJpaRepository;
+import com.example.ledger.adapters.out.persistence.ResponseBodyCodec;
+import com.example.ledger.adapters.out.persistence.TransactionJpaRepository;
+import com.example.ledger.adapters.out.persistence.entity.IdempotencyEntity;
+import com.example.ledger.adapters.out.scheduling.IdempotencyCleanupScheduler;
+import com.example.ledger.adapters.out.scheduling.IdempotencyStoreMonitor;
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the single database transaction around a keyed create.
+ *
+ * The transaction and its idempotency record must be committed together: if storing the
+ * record fails, the transaction must not be persisted either, otherwise a retry with the
+ * same key would create a duplicate. If another instance stores the same key and request
+ * first, the losing request must be rolled back and answered with the winner's response.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true"
+})
+public class IdempotencyAtomicWriteIntegrationTest {
+
+    private static final String REQUEST_BODY = """
+            {
+              "amount": 75.00,
+              "description": "Printer paper",
+              "type": "EXPENSE"
+            }
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private IdempotencyRepositoryPort idempotencyRepository;
+
+    // Stubbing a spy is not thread-safe, so keep the scheduled jobs, which start with the
+    // context, from calling it at the same time
+    @MockBean
+    private IdempotencyCleanupScheduler cleanupScheduler;
+
+    @MockBean
+    private IdempotencyStoreMonitor storeMonitor;
+
+    @Autowired
+    private TransactionJpaRepository transactionJpaRepository;
+
+    @Autowired
+    private IdempotencyJpaRepository idempotencyJpaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void shouldCommitTransactionAndIdempotencyRecordTogether() throws Exception {
+        long transactions = transactionJpaRepository.count();
+        long records = idempotencyJpaRepository.count();
+
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", "bb0e8400-e29b-41d4-a716-446655440050")
+                        .contentType("application/json")
+                        .content(REQUEST_BODY))
+                .andExpect(status().isOk());
+
+        assertEquals(transactions + 1, transactionJpaRepository.count());
+        assertEquals(records + 1, idempotencyJpaRepository.count());
+    }
+
+    @Test
+    public void shouldNotPersistTransactionWhenIdempotencyRecordCannotBeStored() throws Exception {
+        String idempotencyKey = "bb0e8400-e29b-41d4-a716-446655440051";
+        doThrow(new IllegalStateException("Idempotency store unavailable"))
+                .when(idempotencyRepository).storeResponse(eq(idempotencyKey), anyString(), any(), any());
+        long transactions = transactionJpaRepository.count();
+
+        try {
+            mockMvc.perform(post("/transactions")
+                    .header("Idempotency-Key", idempotencyKey)
+                    .contentType("application/json")
+                    .content(REQUEST_BODY));
+            fail("Expected the storage failure to propagate");
+        } catch (Exception e) {
+            // Expected - MockMvc rethrows what escapes the filter chain
+        }
+
+        assertEquals(transactions, transactionJpaRepository.count());
+    }
+
+    @Test
+    public void shouldNotTreatOtherConstraintViolationsAsALostRace() throws Exception {
+        // The description column holds 255 characters, which only the database checks, at commit
+        String idempotencyKey = "bb0e8400-e29b-41d4-a716-446655440053";
+        String body = REQUEST_BODY.replace("Printer paper", "x".repeat(300));
+        long transactions = transactionJpaRepository.count();
+
+        try {
+            MockHttpServletResponse response = mockMvc.perform(post("/transactions")
+                            .header("Idempotency-Key", idempotencyKey)
+                            .contentType("application/json")
+                            .content(body))
+                    .andReturn().getResponse();
+            fail("Expected the failed commit to propagate, got " + response.getStatus());
+        } catch (Exception e) {
+            // Expected - MockMvc rethrows what escapes the filter chain, rather than a 409
+            // asking the client to retry a request that can never succeed
+        }
+
+        assertEquals(transactions, transactionJpaRepository.count());
+        assertTrue(idempotencyJpaRepository.findAll().stream()
+                .noneMatch(record -> record.getIdempotencyKey().equals(idempotencyKey)));
+    }
+
+    @Test
+    public void shouldRollBackAndReplayWinnerWhenAnotherInstanceStoredTheKeyFirst() throws Exception {
+        String idempotencyKey = "bb0e8400-e29b-41d4-a716-446655440052";
+        String winnerBody = "{\"id\":\"123e4567-e89b-12d3-a456-426614174052\",\"amount\":75.00}";
+        // The other instance commits its record while this request is being processed, in a
+        // transaction of its own, before this request stores its record
+        doAnswer(invocation -> {
+            TransactionTemplate otherInstance = new TransactionTemplate(transactionManager);
+            otherInstance.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            otherInstance.executeWithoutResult(status -> {
+                IdempotencyEntity winner = new IdempotencyEntity();
+                winner.setIdempotencyKey(idempotencyKey);
+                winner.setRequestHash(invocation.getArgument(1));
+                winner.setStatusCode(200);
+                winner.setResponseBody(ResponseBodyCodec.encode(winnerBody));
+                winner.setCreatedAt(LocalDateTime.now());
+                winner.setExpiresAt(LocalDateTime.now().plusHours(24));
+                idempotencyJpaRepository.save(winner);
+            });
+            return invocation.callRealMethod();
+        }).when(idempotencyRepository).storeResponse(eq(idempotencyKey), anyString(), any(), any());
+        long transactions = transactionJpaRepository.count();
+
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(REQUEST_BODY))
+                .andExpect(status().isOk())
+                .andExpect(content().json(winnerBody));
+
+        // Only the winner's transaction and record are left
+        assertEquals(transactions, transactionJpaRepository.count());
+        List<IdempotencyEntity> records = idempotencyJpaRepository.findAll().stream()
+                .filter(record -> record.getIdempotencyKey().equals(idempotencyKey))
+                .toList();
+        assertEquals(1, records.size());
+        assertEquals(winnerBody, ResponseBodyCodec.decodeToString(records.get(0).getResponseBody()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.ledger.adapters.in.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the Bloom filter fast path in IdempotencyFilter.
+ *
+ * A brand-new key must skip the store lookups, while a retry with the same key must
+ * still find the cached response and a different body must still conflict.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "idempotency.bloom-filter.enabled=true"
+})
+public class IdempotencyBloomFilterIntegrationTest {
+
+    private static final String REQUEST_BODY = """
+            {
+              "amount": 300.00,
+              "description": "Office chairs",
+              "type": "EXPENSE"
+            }
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void shouldSkipLookupsForNewKeysButStillReplayAndDetectConflicts() throws Exception {
+        String idempotencyKey = "aa0e8400-e29b-41d4-a716-446655440040";
+        double skipped = meterRegistry.counter("idempotency.bloom.skipped.lookups").count();
+        double hits = meterRegistry.counter("idempotency.cache.hits").count();
+
+        // First attempt - never-seen key skips the lookups
+        String firstResponse = mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(REQUEST_BODY))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(skipped + 1, meterRegistry.counter("idempotency.bloom.skipped.lookups").count(), 0.0);
+
+        // Retry - the key is now in the filter, so the cached response is found
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(REQUEST_BODY))
+                .andExpect(status().isOk())
+                .andExpect(content().json(firstResponse));
+        assertEquals(hits + 1, meterRegistry.counter("idempotency.cache.hits").count(), 0.0);
+
+        // Same key, different body - still a conflict
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(REQUEST_BODY.replace("300.00", "301.00")))
+                .andExpect(status().isConflict());
+        assertEquals(skipped + 1, meterRegistry.counter("idempotency.bloom.skipped.lookups").count(), 0.0);
+    }
+}
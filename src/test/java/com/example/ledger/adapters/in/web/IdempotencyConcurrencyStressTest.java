@@ -0,0 +1,248 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.out.persistence.TransactionJpaRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrency stress tests for IdempotencyFilter against the embedded server.
+ *
+ * Hundreds of keyed requests are released at once, with the same key and request, the same
+ * key and different requests, and many keys in parallel. Whatever the interleaving, each key
+ * must create exactly one transaction, no request may fail with a 5xx, and every other answer
+ * must be a replay of the winner or a 409. Throughput and latency percentiles are logged so
+ * changes to this path can be compared.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true"
+})
+public class IdempotencyConcurrencyStressTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyConcurrencyStressTest.class);
+
+    private static final int CLIENT_THREADS = 32;
+    private static final int REQUESTS_PER_KEY = 200;
+    private static final int DISTINCT_KEYS = 100;
+    private static final int ATTEMPTS_PER_DISTINCT_KEY = 3;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TransactionJpaRepository transactionJpaRepository;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private ExecutorService clients;
+
+    @Before
+    public void setUp() {
+        clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        clients.shutdownNow();
+    }
+
+    @Test
+    public void shouldCreateExactlyOnceWhenTheSameRequestIsSentConcurrently() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        String description = "Stress retry " + idempotencyKey;
+        List<Call> calls = new ArrayList<>();
+        for (int i = 0; i < REQUESTS_PER_KEY; i++) {
+            calls.add(new Call(idempotencyKey, body("120.00", description)));
+        }
+
+        List<Result> results = runConcurrently("same key, same request", calls);
+
+        assertNoServerErrors(results);
+        assertOnlyReplaysOrConflicts(results);
+        assertEquals(1, countTransactions(description));
+        // Once the winner has committed, a retry is replayed
+        Result retry = send(new Call(idempotencyKey, body("120.00", description)));
+        assertEquals(200, retry.status);
+        assertEquals(winningBody(results), retry.body);
+    }
+
+    @Test
+    public void shouldCreateExactlyOnceWhenDifferentRequestsShareAKey() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        String first = "Stress conflict A " + idempotencyKey;
+        String second = "Stress conflict B " + idempotencyKey;
+        List<Call> calls = new ArrayList<>();
+        for (int i = 0; i < REQUESTS_PER_KEY; i++) {
+            calls.add(i % 2 == 0
+                    ? new Call(idempotencyKey, body("130.00", first))
+                    : new Call(idempotencyKey, body("131.00", second)));
+        }
+
+        List<Result> results = runConcurrently("same key, different requests", calls);
+
+        assertNoServerErrors(results);
+        assertOnlyReplaysOrConflicts(results);
+        assertEquals(1, countTransactions(first) + countTransactions(second));
+        // Whichever request won, the other one is now a conflict
+        boolean firstWon = countTransactions(first) == 1;
+        assertEquals(409, send(new Call(idempotencyKey, firstWon
+                ? body("131.00", second)
+                : body("130.00", first))).status);
+    }
+
+    @Test
+    public void shouldKeepKeysIndependentUnderLoad() throws Exception {
+        List<Call> calls = new ArrayList<>();
+        List<String> descriptions = new ArrayList<>();
+        for (int k = 0; k < DISTINCT_KEYS; k++) {
+            String idempotencyKey = UUID.randomUUID().toString();
+            String description = "Stress load " + idempotencyKey;
+            descriptions.add(description);
+            for (int attempt = 0; attempt < ATTEMPTS_PER_DISTINCT_KEY; attempt++) {
+                calls.add(new Call(idempotencyKey, body("140.00", description)));
+            }
+        }
+
+        List<Result> results = runConcurrently("many keys", calls);
+
+        assertNoServerErrors(results);
+        Map<String, Long> created = transactionJpaRepository.findAll().stream()
+                .filter(entity -> entity.getDescription().startsWith("Stress load "))
+                .collect(Collectors.groupingBy(entity -> entity.getDescription(), Collectors.counting()));
+        for (String description : descriptions) {
+            assertEquals("Transactions for " + description, Long.valueOf(1), created.get(description));
+        }
+    }
+
+    private List<Result> runConcurrently(String scenario, List<Call> calls) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (Call call : calls) {
+            futures.add(clients.submit(() -> {
+                start.await();
+                return send(call);
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        report(scenario, results, System.nanoTime() - begin);
+        return results;
+    }
+
+    private Result send(Call call) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transactions"))
+                .header("Idempotency-Key", call.idempotencyKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(call.body))
+                .build();
+        long begin = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return new Result(response.statusCode(), response.body(), System.nanoTime() - begin);
+    }
+
+    private void report(String scenario, List<Result> results, long elapsedNanos) {
+        long[] latencies = results.stream().mapToLong(result -> result.latencyNanos).sorted().toArray();
+        Set<Integer> statuses = results.stream().map(result -> result.status).collect(Collectors.toSet());
+        logger.info("Idempotency stress [{}]: {} requests in {} ms ({} req/s), latency p50={} ms p95={} ms p99={} ms max={} ms, statuses {}",
+                scenario,
+                results.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                Math.round(results.size() / (elapsedNanos / 1e9)),
+                millis(percentile(latencies, 0.50)),
+                millis(percentile(latencies, 0.95)),
+                millis(percentile(latencies, 0.99)),
+                millis(latencies[latencies.length - 1]),
+                statuses);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    private static void assertNoServerErrors(List<Result> results) {
+        for (Result result : results) {
+            assertTrue("Unexpected status " + result.status + ": " + result.body, result.status < 500);
+        }
+    }
+
+    /**
+     * Exactly one request wins; every other one is either a replay of it or a 409.
+     */
+    private static void assertOnlyReplaysOrConflicts(List<Result> results) {
+        String winningBody = winningBody(results);
+        for (Result result : results) {
+            if (result.status == 200) {
+                assertEquals(winningBody, result.body);
+            } else {
+                assertEquals("Unexpected status " + result.status + ": " + result.body, 409, result.status);
+            }
+        }
+    }
+
+    private static String winningBody(List<Result> results) {
+        List<String> bodies = results.stream()
+                .filter(result -> result.status == 200)
+                .map(result -> result.body)
+                .distinct()
+                .toList();
+        assertFalse("No request succeeded", bodies.isEmpty());
+        assertEquals("Different responses for one key: " + bodies, 1, bodies.size());
+        return bodies.get(0);
+    }
+
+    private long countTransactions(String description) {
+        return transactionJpaRepository.findAll().stream()
+                .filter(entity -> description.equals(entity.getDescription()))
+                .count();
+    }
+
+    private static String body(String amount, String description) {
+        return "{\"amount\":" + amount + ",\"description\":\"" + description + "\",\"type\":\"EXPENSE\"}";
+    }
+
+    private record Call(String idempotencyKey, String body) {
+    }
+
+    private record Result(int status, String body, long latencyNanos) {
+    }
+}
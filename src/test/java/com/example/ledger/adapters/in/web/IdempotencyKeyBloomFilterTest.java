@@ -0,0 +1,127 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.config.IdempotencyProperties;
+import com.example.ledger.support.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Unit tests for IdempotencyKeyBloomFilter.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class IdempotencyKeyBloomFilterTest {
+
+    private static final String KEY = "880e8400-e29b-41d4-a716-446655440030";
+
+    @Mock
+    private IdempotencyRepositoryPort idempotencyRepository;
+
+    private IdempotencyProperties.BloomFilter properties;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private IdempotencyKeyBloomFilter bloomFilter;
+
+    @Before
+    public void setUp() {
+        properties = new IdempotencyProperties.BloomFilter();
+        properties.setExpectedKeysPerDay(24_000);
+        properties.setFalsePositiveRate(0.01);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2024-01-15T10:30:00Z"));
+        bloomFilter = new IdempotencyKeyBloomFilter(idempotencyRepository, properties, meterRegistry, clock);
+    }
+
+    @Test
+    public void shouldAnswerMaybeUntilLoaded() {
+        assertTrue(bloomFilter.mightContain(KEY));
+
+        bloomFilter.afterSingletonsInstantiated();
+
+        assertFalse(bloomFilter.mightContain(KEY));
+    }
+
+    @Test
+    public void shouldStayUnloadedWhenStoreCannotBeRead() {
+        doThrow(new RuntimeException("Database error")).when(idempotencyRepository).forEachLiveKey(any());
+
+        bloomFilter.afterSingletonsInstantiated();
+
+        assertTrue(bloomFilter.mightContain(KEY));
+    }
+
+    @Test
+    public void shouldRememberStoredKeysForTwentyFourHours() {
+        bloomFilter.afterSingletonsInstantiated();
+        bloomFilter.put(KEY);
+
+        clock.advance(Duration.ofHours(24));
+        assertTrue(bloomFilter.mightContain(KEY));
+
+        clock.advance(Duration.ofHours(1));
+        assertFalse(bloomFilter.mightContain(KEY));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldLoadLiveKeysIntoTheSliceOfTheHourTheyWereStored() {
+        String olderKey = "880e8400-e29b-41d4-a716-446655440031";
+        doAnswer(invocation -> {
+            BiConsumer<String, Instant> action = invocation.getArgument(0);
+            action.accept(KEY, clock.instant().plus(Duration.ofHours(24)));
+            action.accept(olderKey, clock.instant().plus(Duration.ofHours(2)));
+            return null;
+        }).when(idempotencyRepository).forEachLiveKey(any());
+
+        bloomFilter.afterSingletonsInstantiated();
+        assertTrue(bloomFilter.mightContain(KEY));
+        assertTrue(bloomFilter.mightContain(olderKey));
+
+        // The older key was stored 22 hours ago, so it ages out first
+        clock.advance(Duration.ofHours(3));
+        assertTrue(bloomFilter.mightContain(KEY));
+        assertFalse(bloomFilter.mightContain(olderKey));
+    }
+
+    @Test
+    public void shouldKeepFalsePositivesNearTheConfiguredRate() {
+        bloomFilter.afterSingletonsInstantiated();
+        // A full day of keys at the expected rate
+        for (int hour = 0; hour < 24; hour++) {
+            for (int i = 0; i < 1_000; i++) {
+                bloomFilter.put(new UUID(hour, i).toString());
+            }
+            clock.advance(Duration.ofHours(1));
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (bloomFilter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        double estimated = meterRegistry.get("idempotency.bloom.false.positive.rate").gauge().value();
+        assertEquals(0.01, estimated, 0.005);
+        assertTrue("Observed false-positive rate " + falsePositives / (double) probes,
+                falsePositives < probes * 0.02);
+        assertTrue(meterRegistry.get("idempotency.bloom.memory").gauge().value() > 0);
+    }
+}
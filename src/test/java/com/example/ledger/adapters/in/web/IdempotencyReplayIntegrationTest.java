@@ -0,0 +1,82 @@
+package com.example.ledger.adapters.in.web;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for replaying cached responses.
+ *
+ * A replay must send exactly the bytes of the first response, including non-ASCII
+ * characters, with a Content-Length.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true"
+})
+public class IdempotencyReplayIntegrationTest {
+
+    private static final String REQUEST_BODY =
+            "{\"amount\":12.50,\"description\":\"Café crème – Zürich\",\"type\":\"EXPENSE\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldReplayTheSameBytesWithContentLength() throws Exception {
+        String idempotencyKey = "dd0e8400-e29b-41d4-a716-446655440070";
+
+        MockHttpServletResponse first = send(idempotencyKey);
+        MockHttpServletResponse replay = send(idempotencyKey);
+
+        byte[] body = first.getContentAsByteArray();
+        assertArrayEquals(body, replay.getContentAsByteArray());
+        assertEquals(body.length, first.getContentLength());
+        assertEquals(body.length, replay.getContentLength());
+        assertTrue(replay.getContentAsString(StandardCharsets.UTF_8).contains("Café crème – Zürich"));
+    }
+
+    @Test
+    public void shouldReturnTheAmountAsSentWhenStoringFullResponses() throws Exception {
+        String idempotencyKey = "dd0e8400-e29b-41d4-a716-446655440071";
+        String body = REQUEST_BODY.replace("12.50", "100");
+
+        MockHttpServletResponse first = send(idempotencyKey, body);
+        MockHttpServletResponse replay = send(idempotencyKey, body);
+
+        assertTrue(first.getContentAsString(StandardCharsets.UTF_8).contains("\"amount\":100,"));
+        assertArrayEquals(first.getContentAsByteArray(), replay.getContentAsByteArray());
+    }
+
+    private MockHttpServletResponse send(String idempotencyKey) throws Exception {
+        return send(idempotencyKey, REQUEST_BODY);
+    }
+
+    private MockHttpServletResponse send(String idempotencyKey, String body) throws Exception {
+        return mockMvc.perform(
+                        post("/transactions")
+                                .header("Idempotency-Key", idempotencyKey)
+                                .contentType("application/json")
+                                .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.out.scheduling.IdempotencyStoreMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for idempotency store observability.
+ *
+ * Store calls made by a keyed request must be timed per operation, and the actuator
+ * endpoint must report the refreshed statistics, the hit ratio and those timings.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true"
+})
+public class IdempotencyStoreEndpointIntegrationTest {
+
+    private static final String REQUEST_BODY = """
+            {
+              "amount": 64.00,
+              "description": "Desk lamps",
+              "type": "EXPENSE"
+            }
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private IdempotencyStoreMonitor storeMonitor;
+
+    @Test
+    public void shouldTimeStoreCallsAndSummariseStoreHealth() throws Exception {
+        String idempotencyKey = "ab0e8400-e29b-41d4-a716-446655440100";
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/transactions")
+                            .header("Idempotency-Key", idempotencyKey)
+                            .contentType("application/json")
+                            .content(REQUEST_BODY))
+                    .andExpect(status().isOk());
+        }
+
+        Timer lookups = meterRegistry.find("idempotency.store.operation")
+                .tags("operation", "getCachedResponse", "outcome", "success")
+                .timer();
+        assertNotNull(lookups);
+        assertTrue(lookups.count() >= 2);
+
+        storeMonitor.refresh();
+
+        mockMvc.perform(get("/actuator/idempotency"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.store").exists())
+                .andExpect(jsonPath("$.entries").value(greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.storedBytes").value(greaterThan(0)))
+                .andExpect(jsonPath("$.cleanupLagSeconds").value(0))
+                .andExpect(jsonPath("$.statisticsRefreshedAt").exists())
+                .andExpect(jsonPath("$.hitRatio").value(greaterThan(0.0)))
+                .andExpect(jsonPath("$.operations['getCachedResponse.success'].count").value(greaterThanOrEqualTo(2)))
+                .andExpect(jsonPath("$.operations['getCachedResponse.success'].p99Millis").exists())
+                .andExpect(jsonPath("$.operations['storeResponse.success'].count").value(greaterThanOrEqualTo(1)));
+    }
+}
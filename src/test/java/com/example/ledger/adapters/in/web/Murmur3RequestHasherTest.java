@@ -0,0 +1,51 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.config.IdempotencyProperties.RequestHash.Algorithm;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Murmur3RequestHasher.
+ *
+ * Expected values come from the reference MurmurHash3_x64_128 (seed 0) and cover every
+ * tail length class: empty, under 8 bytes, exactly one block, one block plus a byte.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class Murmur3RequestHasherTest {
+
+    @Test
+    public void shouldMatchReferenceImplementation() {
+        assertHash("00000000000000000000000000000000", "");
+        assertHash("897859f6655555855a890e51483ab5e6", "a");
+        assertHash("5123bfc0f6d52da6f04c547c0cf5cc4f", "0123456789abcde");
+        assertHash("a7d14acf946de04bda08a7635c5bc387", "0123456789abcdef");
+        assertHash("75c0a58587ae24ebca283131b368fb73", "0123456789abcdef0");
+        assertHash("6c1b07bc7bbc4be347939ac4a93c437a", "The quick brown fox jumps over the lazy dog");
+    }
+
+    @Test
+    public void shouldHashOnlyTheGivenRange() {
+        byte[] padded = "xx0123456789abcdef0yy".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("murmur3:75c0a58587ae24ebca283131b368fb73",
+                Murmur3RequestHasher.INSTANCE.hash(padded, 2, padded.length - 4));
+    }
+
+    @Test
+    public void shouldTagHashesButKeepSha256Untagged() {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(RequestHasher.of(Algorithm.MURMUR3)
+                .hash(body, 0, body.length).startsWith("murmur3:"));
+        assertTrue(Sha256RequestHasher.INSTANCE.hash(body, 0, body.length).matches("[0-9a-f]{64}"));
+    }
+
+    private static void assertHash(String expectedHex, String input) {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        assertEquals("murmur3:" + expectedHex, Murmur3RequestHasher.INSTANCE.hash(bytes, 0, bytes.length));
+    }
+}
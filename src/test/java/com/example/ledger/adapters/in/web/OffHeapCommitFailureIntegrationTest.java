@@ -0,0 +1,125 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.out.persistence.TransactionJpaRepository;
+import com.example.ledger.adapters.out.scheduling.IdempotencyCleanupScheduler;
+import com.example.ledger.adapters.out.scheduling.IdempotencyStoreMonitor;
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for a keyed create whose commit fails, with the off-heap store.
+ *
+ * The off-heap files are not part of the database transaction, so a record must only be
+ * written once the transaction commits: otherwise retries would replay a transaction that
+ * was never saved.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "idempotency.store=offheap",
+        "idempotency.off-heap.directory=" + OffHeapCommitFailureIntegrationTest.DIRECTORY,
+        "idempotency.off-heap.index-capacity=1024",
+        "idempotency.off-heap.segment-size=256KB"
+})
+public class OffHeapCommitFailureIntegrationTest {
+
+    static final String DIRECTORY = "target/offheap-commit-failure-test";
+
+    private static final String REQUEST_BODY =
+            "{\"amount\":42.00,\"description\":\"Toner\",\"type\":\"EXPENSE\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private IdempotencyRepositoryPort idempotencyRepository;
+
+    // Stubbing a spy is not thread-safe, so keep the scheduled jobs, which start with the
+    // context, from calling it at the same time
+    @MockBean
+    private IdempotencyCleanupScheduler cleanupScheduler;
+
+    @MockBean
+    private IdempotencyStoreMonitor storeMonitor;
+
+    @Autowired
+    private TransactionJpaRepository transactionJpaRepository;
+
+    @BeforeClass
+    public static void clearStore() throws IOException {
+        // The mapped files outlive the context, so start every run from an empty store
+        FileSystemUtils.deleteRecursively(Path.of(DIRECTORY));
+    }
+
+    @Test
+    public void shouldNotReplayATransactionWhoseCommitFailed() throws Exception {
+        String idempotencyKey = "ab0e8400-e29b-41d4-a716-446655440060";
+        long transactions = transactionJpaRepository.count();
+        // The record is stored, then the transaction it was stored in fails to commit
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new TransactionSystemException("Commit failed");
+                }
+            });
+            return null;
+        }).when(idempotencyRepository).storeResponse(eq(idempotencyKey), anyString(), any(), any());
+
+        try {
+            send(idempotencyKey);
+            fail("Expected the commit failure to propagate");
+        } catch (Exception e) {
+            // Expected - MockMvc rethrows what escapes the filter chain
+        }
+
+        assertEquals(transactions, transactionJpaRepository.count());
+        assertEquals(0, idempotencyRepository.statistics().getEntries());
+
+        // The retry is processed, not answered with the lost transaction
+        doCallRealMethod().when(idempotencyRepository).storeResponse(eq(idempotencyKey), anyString(), any(), any());
+        send(idempotencyKey);
+        assertEquals(transactions + 1, transactionJpaRepository.count());
+        assertEquals(1, idempotencyRepository.statistics().getEntries());
+    }
+
+    private void send(String idempotencyKey) throws Exception {
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(REQUEST_BODY))
+                .andExpect(status().isOk());
+    }
+}
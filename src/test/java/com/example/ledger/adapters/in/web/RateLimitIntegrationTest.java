@@ -0,0 +1,81 @@
+package com.example.ledger.adapters.in.web;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for RateLimitFilter.
+ *
+ * Each client gets its own bucket per endpoint: once a client has spent its burst it gets
+ * 429 with Retry-After, while other clients and its other endpoint are unaffected.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "feature.get-all-transactions.enabled=true",
+        "rate-limit.enabled=true",
+        "rate-limit.endpoints[POST\\ /transactions].capacity=2",
+        "rate-limit.endpoints[POST\\ /transactions].refill-per-second=1",
+        "rate-limit.endpoints[GET\\ /transactions].capacity=2",
+        "rate-limit.endpoints[GET\\ /transactions].refill-per-second=1"
+})
+public class RateLimitIntegrationTest {
+
+    private static final String REQUEST_BODY =
+            "{\"amount\":20.00,\"description\":\"Rate limited\",\"type\":\"EXPENSE\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldThrottleAClientOnceItsBurstIsSpent() throws Exception {
+        String client = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(createTransaction(client)).andExpect(status().isOk());
+        }
+
+        mockMvc.perform(createTransaction(client))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error").value("Rate limit exceeded"));
+    }
+
+    @Test
+    public void shouldNotThrottleOtherClientsOrOtherEndpoints() throws Exception {
+        String noisyClient = UUID.randomUUID().toString();
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(createTransaction(noisyClient));
+        }
+        mockMvc.perform(createTransaction(noisyClient)).andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(createTransaction(UUID.randomUUID().toString())).andExpect(status().isOk());
+        mockMvc.perform(get("/transactions").header("X-Client-Id", noisyClient)).andExpect(status().isOk());
+    }
+
+    private static RequestBuilder createTransaction(String client) {
+        return post("/transactions")
+                .header("X-Client-Id", client)
+                .contentType("application/json")
+                .content(REQUEST_BODY);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.out.persistence.IdempotencyJpaRepository;
+import com.example.ledger.adapters.out.persistence.TransactionJpaRepository;
+import com.example.ledger.adapters.out.persistence.entity.IdempotencyEntity;
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for storing idempotent responses as references.
+ *
+ * Only the created transaction's id is stored; a replay must still return exactly the bytes
+ * of the original response, whether it comes from the rendered cache or a fresh lookup.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "idempotency.response-storage.mode=reference"
+})
+public class ReferenceStorageIntegrationTest {
+
+    private static final String REQUEST_BODY =
+            "{\"amount\":640.00,\"description\":\"Standing desk\",\"type\":\"EXPENSE\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotencyRepositoryPort idempotencyRepository;
+
+    @Autowired
+    private IdempotencyJpaRepository idempotencyJpaRepository;
+
+    @Autowired
+    private TransactionJpaRepository transactionJpaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void shouldStoreOnlyReferenceAndReplayTheSameBytes() throws Exception {
+        String idempotencyKey = "ff0e8400-e29b-41d4-a716-446655440090";
+
+        MockHttpServletResponse first = send(idempotencyKey, REQUEST_BODY);
+        MockHttpServletResponse replay = send(idempotencyKey, REQUEST_BODY);
+
+        assertArrayEquals(first.getContentAsByteArray(), replay.getContentAsByteArray());
+        UUID transactionId = UUID.fromString(objectMapper.readTree(first.getContentAsByteArray()).get("id").asText());
+        IdempotencyEntity record = idempotencyJpaRepository.findAll().stream()
+                .filter(entity -> entity.getIdempotencyKey().equals(idempotencyKey))
+                .findFirst().orElseThrow();
+        assertNull(record.getResponseBody());
+        assertEquals(transactionId, record.getResourceId());
+    }
+
+    @Test
+    public void shouldRenderReferenceWithPointLookupWhenNotCached() throws Exception {
+        // A transaction created without a key, then referenced by a record written directly
+        String body = REQUEST_BODY.replace("Standing desk", "Monitor arm");
+        byte[] original = mockMvc.perform(post("/transactions")
+                        .contentType("application/json")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        UUID transactionId = UUID.fromString(objectMapper.readTree(original).get("id").asText());
+        String idempotencyKey = "ff0e8400-e29b-41d4-a716-446655440091";
+        idempotencyRepository.storeResponse(idempotencyKey, sha256(body),
+                IdempotencyRepositoryPort.IdempotencyResponse.reference(200, transactionId));
+        double lookups = meterRegistry.counter("idempotency.reference.lookups").count();
+        long transactions = transactionJpaRepository.count();
+
+        MockHttpServletResponse replay = send(idempotencyKey, body);
+
+        assertArrayEquals(original, replay.getContentAsByteArray());
+        assertEquals(lookups + 1, meterRegistry.counter("idempotency.reference.lookups").count(), 0.0);
+        assertEquals(transactions, transactionJpaRepository.count());
+    }
+
+    @Test
+    public void shouldRoundNewTransactionsSoARenderMatchesTheOriginalResponse() throws Exception {
+        // Stored as numeric(38,2), so a render can only show the amount with two decimals
+        String body = REQUEST_BODY.replace("Standing desk", "Desk mat").replace("640.00", "640");
+        byte[] original = mockMvc.perform(post("/transactions")
+                        .contentType("application/json")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        UUID transactionId = UUID.fromString(objectMapper.readTree(original).get("id").asText());
+        String idempotencyKey = "ff0e8400-e29b-41d4-a716-446655440093";
+        idempotencyRepository.storeResponse(idempotencyKey, sha256(body),
+                IdempotencyRepositoryPort.IdempotencyResponse.reference(200, transactionId));
+
+        MockHttpServletResponse replay = send(idempotencyKey, body);
+
+        assertTrue(new String(original, StandardCharsets.UTF_8).contains("\"amount\":640.00,"));
+        assertArrayEquals(original, replay.getContentAsByteArray());
+    }
+
+    @Test
+    public void shouldProcessRequestAgainWhenReferencedTransactionIsMissing() throws Exception {
+        String body = REQUEST_BODY.replace("Standing desk", "Desk lamp");
+        String idempotencyKey = "ff0e8400-e29b-41d4-a716-446655440092";
+        idempotencyRepository.storeResponse(idempotencyKey, sha256(body),
+                IdempotencyRepositoryPort.IdempotencyResponse.reference(200, UUID.randomUUID()));
+        long transactions = transactionJpaRepository.count();
+
+        send(idempotencyKey, body);
+
+        assertEquals(transactions + 1, transactionJpaRepository.count());
+    }
+
+    private MockHttpServletResponse send(String idempotencyKey, String body) throws Exception {
+        return mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private static String sha256(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return Sha256RequestHasher.INSTANCE.hash(bytes, 0, bytes.length);
+    }
+}
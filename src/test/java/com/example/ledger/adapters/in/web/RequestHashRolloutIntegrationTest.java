@@ -0,0 +1,95 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for switching the request hash algorithm.
+ *
+ * With murmur3 as the algorithm and sha256 as the previous one, records stored before
+ * the switch must still be replayed, and a different body must still conflict.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "idempotency.request-hash.algorithm=murmur3",
+        "idempotency.request-hash.previous-algorithm=sha256"
+})
+public class RequestHashRolloutIntegrationTest {
+
+    private static final String REQUEST_BODY =
+            "{\"amount\":42.00,\"description\":\"Stored before the switch\",\"type\":\"EXPENSE\"}";
+    private static final String STORED_RESPONSE =
+            "{\"id\":\"123e4567-e89b-12d3-a456-426614174000\",\"amount\":42.00}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotencyRepositoryPort idempotencyRepository;
+
+    @Test
+    public void shouldReplayRecordStoredWithPreviousAlgorithm() throws Exception {
+        String idempotencyKey = "cc0e8400-e29b-41d4-a716-446655440060";
+        storeWithSha256(idempotencyKey);
+
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(REQUEST_BODY))
+                .andExpect(status().isOk())
+                .andExpect(content().json(STORED_RESPONSE));
+    }
+
+    @Test
+    public void shouldStillDetectConflictsAgainstRecordStoredWithPreviousAlgorithm() throws Exception {
+        String idempotencyKey = "cc0e8400-e29b-41d4-a716-446655440061";
+        storeWithSha256(idempotencyKey);
+
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(REQUEST_BODY.replace("42.00", "43.00")))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void shouldStoreNewRecordsWithTaggedHash() throws Exception {
+        String idempotencyKey = "cc0e8400-e29b-41d4-a716-446655440062";
+        String body = REQUEST_BODY.replace("Stored before the switch", "Stored after the switch");
+
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType("application/json")
+                        .content(body))
+                .andExpect(status().isOk());
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String murmur3 = Murmur3RequestHasher.INSTANCE.hash(bytes, 0, bytes.length);
+        assertTrue(idempotencyRepository.getCachedResponse(idempotencyKey, murmur3).isPresent());
+    }
+
+    private void storeWithSha256(String idempotencyKey) {
+        byte[] bytes = REQUEST_BODY.getBytes(StandardCharsets.UTF_8);
+        idempotencyRepository.storeResponse(idempotencyKey,
+                Sha256RequestHasher.INSTANCE.hash(bytes, 0, bytes.length),
+                new IdempotencyRepositoryPort.IdempotencyResponse(200, STORED_RESPONSE));
+    }
+}
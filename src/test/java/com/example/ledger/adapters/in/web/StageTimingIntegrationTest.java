@@ -0,0 +1,84 @@
+package com.example.ledger.adapters.in.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for per-stage request timing.
+ *
+ * With every request sampled, a keyed create must report each stage of the idempotent write
+ * path in Server-Timing and record it in the stage timers, and the body must be unchanged.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "feature.create-transaction.enabled=true",
+        "feature.get-all-transactions.enabled=true",
+        "stage-timing.enabled=true",
+        "stage-timing.sample-rate=1.0",
+        "stage-timing.server-timing-header=true"
+})
+public class StageTimingIntegrationTest {
+
+    private static final Pattern METRIC = Pattern.compile("([a-z]+);dur=\\d+\\.\\d{3}");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void shouldReportEveryStageOfAKeyedCreate() throws Exception {
+        MvcResult result = mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", "5a0e8400-e29b-41d4-a716-446655440050")
+                        .contentType("application/json")
+                        .content("{\"amount\":42.00,\"description\":\"Timed stages\",\"type\":\"EXPENSE\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Timed stages"))
+                .andReturn();
+
+        assertEquals(List.of("capture", "hash", "lookup", "validate", "persist", "commit", "serialize",
+                        "store", "respond", "total"),
+                metricNames(result.getResponse().getHeader("Server-Timing")));
+        assertTrue(meterRegistry.get("http.server.requests.stage")
+                .tags("stage", "commit", "method", "POST", "uri", "/transactions")
+                .timer().count() >= 1);
+    }
+
+    @Test
+    public void shouldReportSerialisationOfAList() throws Exception {
+        MvcResult result = mockMvc.perform(get("/transactions"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals(List.of("serialize", "total"), metricNames(result.getResponse().getHeader("Server-Timing")));
+        assertTrue(result.getResponse().getContentAsString().startsWith("["));
+    }
+
+    private static List<String> metricNames(String serverTiming) {
+        assertNotNull("Server-Timing header", serverTiming);
+        Matcher matcher = METRIC.matcher(serverTiming);
+        return matcher.results().map(match -> match.group(1)).toList();
+    }
+}
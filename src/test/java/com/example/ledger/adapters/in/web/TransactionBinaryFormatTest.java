@@ -0,0 +1,94 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.adapters.in.web.dto.CreateTransactionRequest;
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for TransactionBinaryFormat.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class TransactionBinaryFormatTest {
+
+    @Test
+    public void shouldDecodeCreateRequestIntoTransaction() throws IOException {
+        byte[] message = TransactionBinaryFormat.encodeCreate(new BigDecimal("1234.56"), "Café – Zürich", TransactionType.REVENUE);
+
+        Transaction transaction = TransactionBinaryFormat.decodeCreate(message);
+
+        assertEquals(new BigDecimal("1234.56"), transaction.getAmount());
+        assertEquals("Café – Zürich", transaction.getDescription());
+        assertEquals(TransactionType.REVENUE, transaction.getType());
+        assertNotNull(transaction.getId());
+    }
+
+    @Test
+    public void shouldEncodeCreateRequestCompactly() {
+        byte[] message = TransactionBinaryFormat.encodeCreate(new BigDecimal("100.00"), "Office supplies", TransactionType.EXPENSE);
+        String json = "{\"amount\":100.00,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+        // version, type, amount, description length, description
+        assertEquals(1 + 1 + 8 + 2 + 15, message.length);
+        assertTrue(message.length < json.getBytes(StandardCharsets.UTF_8).length / 2);
+    }
+
+    @Test
+    public void shouldRoundTripTransaction() throws IOException {
+        Transaction transaction = new Transaction(UUID.randomUUID(), LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000),
+                new BigDecimal("25.50"), "Office supplies", TransactionType.EXPENSE);
+
+        Transaction decoded = TransactionBinaryFormat.decode(TransactionBinaryFormat.encode(transaction));
+
+        assertEquals(transaction.getId(), decoded.getId());
+        assertEquals(transaction.getDate(), decoded.getDate());
+        assertEquals(transaction.getAmount(), decoded.getAmount());
+        assertEquals(transaction.getDescription(), decoded.getDescription());
+        assertEquals(transaction.getType(), decoded.getType());
+    }
+
+    @Test
+    public void shouldLetTheDomainValidateDecodedRequests() {
+        byte[] message = TransactionBinaryFormat.encodeCreate(new BigDecimal("-5.00"), "Refund", TransactionType.EXPENSE);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> TransactionBinaryFormat.decodeCreate(message));
+        assertEquals("Amount must be positive", e.getMessage());
+    }
+
+    @Test
+    public void shouldRejectMalformedMessages() {
+        byte[] message = TransactionBinaryFormat.encodeCreate(new BigDecimal("10.00"), "Lunch", TransactionType.EXPENSE);
+
+        assertThrows(IOException.class, () -> TransactionBinaryFormat.decodeCreate(Arrays.copyOf(message, message.length - 1)));
+        assertThrows(IOException.class, () -> TransactionBinaryFormat.decodeCreate(Arrays.copyOf(message, message.length + 1)));
+        byte[] unknownVersion = message.clone();
+        unknownVersion[0] = 2;
+        assertThrows(IOException.class, () -> TransactionBinaryFormat.decodeCreate(unknownVersion));
+    }
+
+    @Test
+    public void shouldReportUnknownTypeCodesAsValidationViolations() throws IOException {
+        byte[] message = TransactionBinaryFormat.encodeCreate(new BigDecimal("-1.00"), "Lunch", TransactionType.EXPENSE);
+        message[1] = 7;
+
+        CreateTransactionRequest request = TransactionBinaryFormat.decodeCreateRequest(message);
+        assertNull(request.getType());
+        assertEquals(List.of("Amount must be positive", CreateTransactionRequest.INVALID_TYPE_MESSAGE),
+                request.validate().getViolations());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> TransactionBinaryFormat.decodeCreate(message));
+        assertTrue(e.getMessage().contains(CreateTransactionRequest.INVALID_TYPE_MESSAGE));
+    }
+}
@@ -22,6 +22,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -103,4 +105,28 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$.type").value("EXPENSE"));
     }
 
+    @Test
+    public void shouldRejectInvalidRequestWithEveryViolation() throws Exception {
+        String requestJson = """
+        {
+          "amount": 0,
+          "description": "",
+          "type": "TRANSFER"
+        }
+        """;
+
+        mockMvc.perform(
+                        org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post("/transactions")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(requestJson)
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.violations.length()").value(3))
+                .andExpect(jsonPath("$.violations[0]").value("Amount must be positive"))
+                .andExpect(jsonPath("$.violations[1]").value("Description must not be null or empty"))
+                .andExpect(jsonPath("$.violations[2]").value("Invalid transaction type. Must be either EXPENSE or REVENUE"));
+
+        verify(createTransactionUseCase, never()).create(any(Transaction.class));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.example.ledger.adapters.in.web;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that TransactionJsonSerializer, as registered with the application's ObjectMapper,
+ * writes exactly the bytes of Jackson's reflective serialisation.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@JsonTest
+public class TransactionJsonSerializerTest {
+
+    // The application's Jackson settings without the serializer
+    private static final ObjectMapper REFLECTIVE = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void shouldBeRegisteredWithTheApplicationObjectMapper() throws Exception {
+        Object serializer = objectMapper.getSerializerProviderInstance().findValueSerializer(Transaction.class);
+
+        assertTrue(serializer instanceof TransactionJsonSerializer);
+    }
+
+    @Test
+    public void shouldWriteTheDocumentedShape() throws Exception {
+        Transaction transaction = new Transaction(UUID.fromString("123e4567-e89b-12d3-a456-426614174000"),
+                LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("25.50"), "Office supplies", TransactionType.EXPENSE);
+
+        assertEquals("{\"id\":\"123e4567-e89b-12d3-a456-426614174000\",\"date\":\"2024-01-15T10:30:00\","
+                        + "\"amount\":25.50,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}",
+                new String(objectMapper.writeValueAsBytes(transaction), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldMatchReflectiveSerialisationForRandomTransactions() throws Exception {
+        Random random = new Random(47);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            transactions.add(randomTransaction(random));
+        }
+
+        for (Transaction transaction : transactions) {
+            assertSameBytes(transaction);
+        }
+        assertArrayEquals(REFLECTIVE.writeValueAsBytes(transactions), objectMapper.writeValueAsBytes(transactions));
+        assertEquals(REFLECTIVE.writeValueAsString(transactions), objectMapper.writeValueAsString(transactions));
+    }
+
+    @Test
+    public void shouldMatchReflectiveSerialisationForEdgeCases() throws Exception {
+        UUID id = new UUID(0, 1);
+        assertSameBytes(new Transaction(id, LocalDateTime.of(2024, 12, 31, 23, 59, 59, 999_999_999),
+                new BigDecimal("1E+3"), "Quote \" backslash \\ newline \n tab \t \u0001 €", TransactionType.REVENUE));
+        assertSameBytes(new Transaction(id, LocalDateTime.of(5, 1, 1, 0, 0, 0, 100_000_000),
+                new BigDecimal("0.0000001"), "Early", TransactionType.EXPENSE));
+        assertSameBytes(new Transaction(id, LocalDateTime.of(12345, 6, 7, 8, 9, 10, 1),
+                new BigDecimal("-12.3"), "Far future", TransactionType.EXPENSE));
+        assertSameBytes(new Transaction(id, LocalDateTime.of(-44, 3, 15, 12, 0), BigDecimal.ZERO, "Ides", TransactionType.EXPENSE));
+        assertSameBytes(new Transaction(null, null, null, null, null));
+    }
+
+    private void assertSameBytes(Transaction transaction) throws Exception {
+        assertArrayEquals(REFLECTIVE.writeValueAsBytes(transaction), objectMapper.writeValueAsBytes(transaction));
+    }
+
+    private static Transaction randomTransaction(Random random) {
+        int nano = switch (random.nextInt(4)) {
+            case 0 -> 0;
+            case 1 -> random.nextInt(1000) * 1_000_000;
+            case 2 -> random.nextInt(1_000_000) * 1_000;
+            default -> random.nextInt(1_000_000_000);
+        };
+        LocalDateTime date = LocalDateTime.of(random.nextInt(10000), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                random.nextInt(24), random.nextInt(60), random.nextInt(60), nano);
+        BigDecimal amount = new BigDecimal(BigInteger.valueOf(random.nextLong() >> random.nextInt(63)), random.nextInt(12) - 2);
+        StringBuilder description = new StringBuilder();
+        for (int i = random.nextInt(40); i > 0; i--) {
+            description.append((char) (random.nextBoolean() ? 0x20 + random.nextInt(0x5F) : random.nextInt(0x3000)));
+        }
+        TransactionType type = TransactionType.values()[random.nextInt(TransactionType.values().length)];
+        return new Transaction(new UUID(random.nextLong(), random.nextLong()), date, amount, description.toString(), type);
+    }
+}
@@ -21,6 +21,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * These tests verify that transaction operations track metrics correctly:
  * - transactions.created: Counter for created transactions
  * - transactions.fetched: Counter for retrieved transactions
+ * - transactions.created.duration: Timer tagged with the outcome of the request
  * 
  * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
  */
@@ -86,6 +87,29 @@ public class TransactionMetricsIntegrationTest {
                 .andExpect(jsonPath("$.measurements[0].value").value(initialTransactionsCreated + 1.0));
     }
 
+    @Test
+    public void shouldTimeCreatedTransactionsByOutcome() throws Exception {
+        double successes = getMetricValue("transactions.created.duration?tag=outcome:success");
+        double clientErrors = getMetricValue("transactions.created.duration?tag=outcome:client_error");
+
+        mockMvc.perform(post("/transactions")
+                        .contentType("application/json")
+                        .content("{\"amount\": 10.00, \"description\": \"Timed\", \"type\": \"EXPENSE\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/transactions")
+                        .contentType("application/json")
+                        .content("{\"amount\": -10.00, \"description\": \"Timed\", \"type\": \"EXPENSE\"}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/actuator/metrics/transactions.created.duration").param("tag", "outcome:success"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].statistic").value("COUNT"))
+                .andExpect(jsonPath("$.measurements[0].value").value(successes + 1.0));
+        mockMvc.perform(get("/actuator/metrics/transactions.created.duration").param("tag", "outcome:client_error"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value(clientErrors + 1.0));
+    }
+
     @Test
     public void shouldIncrementMetricWhenTransactionsAreFetched() throws Exception {
         // 1. Trigger metric by calling the controller
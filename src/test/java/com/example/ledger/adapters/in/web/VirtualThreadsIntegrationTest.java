@@ -0,0 +1,116 @@
+package com.example.ledger.adapters.in.web;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for the virtual-threads profile.
+ *
+ * Tests verify that requests, @Scheduled jobs and async tasks run on virtual threads once
+ * the profile is active, and that the connection pool is sized for the database rather
+ * than left at the default meant for Tomcat's thread pool.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("virtual-threads")
+@TestPropertySource(properties = "feature.create-transaction.enabled=true")
+public class VirtualThreadsIntegrationTest {
+
+    private static final AtomicReference<Thread> requestThread = new AtomicReference<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @TestConfiguration
+    static class RequestThreadConfiguration {
+
+        @Bean
+        OncePerRequestFilter requestThreadRecorder() {
+            return new OncePerRequestFilter() {
+                @Override
+                protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                                @NonNull HttpServletResponse response,
+                                                @NonNull FilterChain filterChain) throws ServletException, IOException {
+                    requestThread.set(Thread.currentThread());
+                    filterChain.doFilter(request, response);
+                }
+            };
+        }
+    }
+
+    @Test
+    public void shouldHandleRequestsOnVirtualThreads() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transactions"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"amount\":25.50,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}"))
+                .build();
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue("Handled on " + requestThread.get(), requestThread.get().isVirtual());
+    }
+
+    @Test
+    public void shouldRunScheduledAndAsyncTasksOnVirtualThreads() throws Exception {
+        CompletableFuture<Thread> scheduled = new CompletableFuture<>();
+        taskScheduler.schedule(() -> scheduled.complete(Thread.currentThread()), Instant.now());
+        Thread async = applicationTaskExecutor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+
+        assertTrue(scheduled.get(10, TimeUnit.SECONDS).isVirtual());
+        assertTrue(async.isVirtual());
+    }
+
+    @Test
+    public void shouldSizeTheConnectionPoolForTheDatabase() {
+        HikariDataSource pool = (HikariDataSource) dataSource;
+
+        assertEquals(50, pool.getMaximumPoolSize());
+        assertEquals(2000, pool.getConnectionTimeout());
+    }
+}
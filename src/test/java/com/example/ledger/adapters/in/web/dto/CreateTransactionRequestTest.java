@@ -0,0 +1,57 @@
+package com.example.ledger.adapters.in.web.dto;
+
+import com.example.ledger.domain.model.TransactionType;
+import com.example.ledger.domain.model.ValidationResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for reading and validating CreateTransactionRequest.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class CreateTransactionRequestTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void shouldReadKnownTypeAsValid() throws Exception {
+        CreateTransactionRequest request = objectMapper.readValue(
+                "{\"amount\":25.50,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}",
+                CreateTransactionRequest.class);
+
+        assertEquals(TransactionType.EXPENSE, request.getType());
+        assertTrue(request.validate().isValid());
+    }
+
+    @Test
+    public void shouldReportUnknownTypeInsteadOfFailingToRead() throws Exception {
+        CreateTransactionRequest request = objectMapper.readValue(
+                "{\"amount\":-1,\"description\":\"Transfer\",\"type\":\"expense\"}",
+                CreateTransactionRequest.class);
+
+        ValidationResult result = request.validate();
+
+        assertNull(request.getType());
+        assertEquals(List.of("Amount must be positive", CreateTransactionRequest.INVALID_TYPE_MESSAGE),
+                result.getViolations());
+    }
+
+    @Test
+    public void shouldWriteTypeByName() throws Exception {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setAmount(new BigDecimal("7.00"));
+        request.setDescription("Refund");
+        request.setType(TransactionType.REVENUE);
+
+        String json = objectMapper.writeValueAsString(request);
+
+        assertTrue(json, json.contains("\"type\":\"REVENUE\""));
+        assertEquals(TransactionType.REVENUE, objectMapper.readValue(json, CreateTransactionRequest.class).getType());
+    }
+}
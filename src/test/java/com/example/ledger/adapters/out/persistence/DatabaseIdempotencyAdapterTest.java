@@ -13,8 +13,13 @@ import com.example.ledger.adapters.out.persistence.entity.IdempotencyEntity;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.Assert.*;
 
@@ -214,6 +219,63 @@ public class DatabaseIdempotencyAdapterTest {
                 hasConflict);
     }
 
+    /**
+     * Test: a cached client error must not cause a conflict, and expires after its own TTL.
+     * 
+     * A rejected request had no effect, so the client may correct it and retry with the
+     * same idempotency key.
+     */
+    @Test
+    public void shouldNotReportConflictForCachedClientError() {
+        // Arrange - Store a validation error with a short TTL
+        String idempotencyKey = "880e8400-e29b-41d4-a716-446655440003";
+        String rejectedRequestHash = hashRequest(-100.00, "Office supplies", "EXPENSE");
+        IdempotencyRepositoryPort.IdempotencyResponse rejection =
+                new IdempotencyRepositoryPort.IdempotencyResponse(400, "{\"error\":\"Amount must be positive\"}");
+
+        idempotencyRepository.storeResponse(idempotencyKey, rejectedRequestHash, rejection, Duration.ofMinutes(10));
+
+        // Act - Check the corrected request
+        boolean hasConflict = idempotencyRepository.hasKeyWithDifferentHash(idempotencyKey,
+                hashRequest(100.00, "Office supplies", "EXPENSE"));
+
+        // Assert
+        assertFalse("A cached client error should not conflict with a corrected request", hasConflict);
+        assertEquals(400, idempotencyRepository.getCachedResponse(idempotencyKey, rejectedRequestHash)
+                .get().getStatusCode());
+        IdempotencyEntity entity = idempotencyJpaRepository
+                .findByIdempotencyKeyAndRequestHash(idempotencyKey, rejectedRequestHash).get();
+        assertTrue("Client errors should use their own TTL",
+                entity.getExpiresAt().isBefore(LocalDateTime.now().plusMinutes(11)));
+    }
+
+    /**
+     * Test: a reference response stores only the status and the created transaction's id.
+     * 
+     * The body is re-rendered from the transaction on replay, so no copy of it is written.
+     */
+    @Test
+    public void shouldStoreReferenceWithoutResponseBody() {
+        // Arrange
+        String idempotencyKey = "880e8400-e29b-41d4-a716-446655440003";
+        String requestHash = hashRequest(100.00, "Office supplies", "EXPENSE");
+        UUID transactionId = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+        // Act
+        idempotencyRepository.storeResponse(idempotencyKey, requestHash,
+                IdempotencyRepositoryPort.IdempotencyResponse.reference(200, transactionId));
+
+        // Assert
+        IdempotencyRepositoryPort.IdempotencyResponse cached =
+                idempotencyRepository.getCachedResponse(idempotencyKey, requestHash).get();
+        assertTrue(cached.isReference());
+        assertEquals(transactionId, cached.getResourceId());
+        IdempotencyEntity entity = idempotencyJpaRepository
+                .findByIdempotencyKeyAndRequestHash(idempotencyKey, requestHash).get();
+        assertNull("No response body should be stored for a reference", entity.getResponseBody());
+        assertEquals(transactionId, entity.getResourceId());
+    }
+
     /**
      * Test: hasKeyWithDifferentHash should return false when key doesn't exist.
      */
@@ -284,7 +346,7 @@ public class DatabaseIdempotencyAdapterTest {
         expiredEntity.setIdempotencyKey(idempotencyKey);
         expiredEntity.setRequestHash(requestHash);
         expiredEntity.setStatusCode(200);
-        expiredEntity.setResponseBody("{\"id\":\"123e4567-e89b-12d3-a456-426614174000\"}");
+        expiredEntity.setResponseBody(ResponseBodyCodec.encode("{\"id\":\"123e4567-e89b-12d3-a456-426614174000\"}"));
         expiredEntity.setCreatedAt(LocalDateTime.now().minusHours(25)); // Expired (older than 24 hours)
         expiredEntity.setExpiresAt(LocalDateTime.now().minusHours(1)); // Expired
         
@@ -329,6 +391,54 @@ public class DatabaseIdempotencyAdapterTest {
         assertEquals(responseBody, cachedResponse.get().getResponseBody());
     }
 
+    /**
+     * Test: a live response is never overwritten, so the request that stored it is the only
+     * one to take effect. Storing it again reports the lost race instead.
+     */
+    @Test
+    public void shouldNotOverwriteALiveResponse() {
+        String idempotencyKey = "880e8400-e29b-41d4-a716-446655440004";
+        String requestHash = hashRequest(100.00, "Office supplies", "EXPENSE");
+        String winnerBody = "{\"id\":\"123e4567-e89b-12d3-a456-426614174004\",\"amount\":100.00}";
+        idempotencyRepository.storeResponse(idempotencyKey, requestHash,
+                new IdempotencyRepositoryPort.IdempotencyResponse(200, winnerBody));
+
+        assertThrows(IdempotencyRepositoryPort.RecordAlreadyStoredException.class,
+                () -> idempotencyRepository.storeResponse(idempotencyKey, requestHash,
+                        new IdempotencyRepositoryPort.IdempotencyResponse(200,
+                                "{\"id\":\"123e4567-e89b-12d3-a456-426614174005\",\"amount\":100.00}")));
+
+        assertEquals(winnerBody, idempotencyRepository.getCachedResponse(idempotencyKey, requestHash).get().getResponseBody());
+        assertEquals(1, idempotencyJpaRepository.count());
+    }
+
+    /**
+     * Test: an expired response that cleanup has not removed yet is replaced in place.
+     */
+    @Test
+    public void shouldReplaceAnExpiredResponse() {
+        String idempotencyKey = "880e8400-e29b-41d4-a716-446655440004";
+        String requestHash = hashRequest(100.00, "Office supplies", "EXPENSE");
+        IdempotencyEntity expiredEntity = new IdempotencyEntity();
+        expiredEntity.setIdempotencyKey(idempotencyKey);
+        expiredEntity.setRequestHash(requestHash);
+        expiredEntity.setStatusCode(400);
+        expiredEntity.setResponseBody(ResponseBodyCodec.encode("{\"error\":\"Amount must be positive\"}"));
+        expiredEntity.setCreatedAt(LocalDateTime.now().minusMinutes(11));
+        expiredEntity.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        idempotencyJpaRepository.save(expiredEntity);
+
+        String responseBody = "{\"id\":\"123e4567-e89b-12d3-a456-426614174004\",\"amount\":100.00}";
+        idempotencyRepository.storeResponse(idempotencyKey, requestHash,
+                new IdempotencyRepositoryPort.IdempotencyResponse(200, responseBody));
+
+        IdempotencyRepositoryPort.IdempotencyResponse cached =
+                idempotencyRepository.getCachedResponse(idempotencyKey, requestHash).get();
+        assertEquals(200, cached.getStatusCode());
+        assertEquals(responseBody, cached.getResponseBody());
+        assertEquals(1, idempotencyJpaRepository.count());
+    }
+
     /**
      * Test: storeResponse should handle null parameters gracefully.
      */
@@ -464,12 +574,70 @@ public class DatabaseIdempotencyAdapterTest {
                 idempotencyJpaRepository.findByIdempotencyKeyAndRequestHash(activeKey, requestHash).isPresent());
     }
     
+    /**
+     * Test: Batched cleanup should delete at most the requested number of expired keys
+     * and report how many it removed.
+     */
+    @Test
+    public void shouldDeleteExpiredKeysInBoundedBatches() {
+        // Arrange - Five expired entities and one active entity
+        String requestHash = hashRequest(100.00, "Test", "EXPENSE");
+        for (int i = 0; i < 5; i++) {
+            createExpiredEntity("expired-key-00" + i, requestHash);
+        }
+        createActiveEntity("active-key-001", requestHash);
+
+        // Act & Assert - Batches of two until the expired keys are gone
+        assertEquals(5L, idempotencyRepository.countExpiredKeys());
+        assertEquals(2, idempotencyRepository.deleteExpiredKeys(2));
+        assertEquals(2, idempotencyRepository.deleteExpiredKeys(2));
+        assertEquals(1, idempotencyRepository.deleteExpiredKeys(2));
+        assertEquals(0, idempotencyRepository.deleteExpiredKeys(2));
+        assertEquals(0L, idempotencyRepository.countExpiredKeys());
+        assertTrue("Active entity should remain",
+                idempotencyJpaRepository.findByIdempotencyKeyAndRequestHash("active-key-001", requestHash).isPresent());
+    }
+
+    /**
+     * Test: Unbounded cleanup should report how many keys it removed.
+     */
+    @Test
+    public void shouldReturnNumberOfDeletedKeys() {
+        // Arrange
+        String requestHash = hashRequest(100.00, "Test", "EXPENSE");
+        createExpiredEntity("expired-key-001", requestHash);
+        createExpiredEntity("expired-key-002", requestHash);
+        createActiveEntity("active-key-001", requestHash);
+
+        // Act & Assert
+        assertEquals(2, idempotencyRepository.deleteExpiredKeys());
+    }
+
+    /**
+     * Test: Startup warm-up should see every live key, but no expired ones.
+     */
+    @Test
+    public void shouldVisitOnlyLiveKeys() {
+        // Arrange
+        String requestHash = hashRequest(100.00, "Test", "EXPENSE");
+        createExpiredEntity("expired-key-001", requestHash);
+        createActiveEntity("active-key-001", requestHash);
+        createActiveEntity("active-key-002", requestHash);
+
+        // Act
+        List<String> liveKeys = new ArrayList<>();
+        idempotencyRepository.forEachLiveKey((key, expiresAt) -> liveKeys.add(key));
+
+        // Assert
+        assertEquals(List.of("active-key-001", "active-key-002"), liveKeys);
+    }
+    
     private void createExpiredEntity(String key, String requestHash) {
         IdempotencyEntity entity = new IdempotencyEntity();
         entity.setIdempotencyKey(key);
         entity.setRequestHash(requestHash);
         entity.setStatusCode(200);
-        entity.setResponseBody("{\"id\":\"expired\"}");
+        entity.setResponseBody(ResponseBodyCodec.encode("{\"id\":\"expired\"}"));
         entity.setCreatedAt(LocalDateTime.now().minusHours(25));
         entity.setExpiresAt(LocalDateTime.now().minusHours(1));
         idempotencyJpaRepository.save(entity);
@@ -480,7 +648,7 @@ public class DatabaseIdempotencyAdapterTest {
         entity.setIdempotencyKey(key);
         entity.setRequestHash(requestHash);
         entity.setStatusCode(200);
-        entity.setResponseBody("{\"id\":\"active\"}");
+        entity.setResponseBody(ResponseBodyCodec.encode("{\"id\":\"active\"}"));
         entity.setCreatedAt(LocalDateTime.now());
         entity.setExpiresAt(LocalDateTime.now().plusHours(23));
         idempotencyJpaRepository.save(entity);
@@ -510,4 +678,24 @@ public class DatabaseIdempotencyAdapterTest {
             return String.valueOf(requestBody.hashCode());
         }
     }
+
+    @Test
+    public void shouldEstimateStatisticsFromIndexes() {
+        // Arrange
+        assertEquals(0, idempotencyRepository.statistics().getEntries());
+        String requestHash = hashRequest(100.00, "Test", "EXPENSE");
+        createExpiredEntity("expired-key-002", requestHash);
+        createActiveEntity("active-key-003", requestHash);
+        createActiveEntity("active-key-004", requestHash);
+
+        // Act
+        IdempotencyRepositoryPort.StoreStatistics statistics = idempotencyRepository.statistics();
+
+        // Assert - the expired key is still stored and has been waiting about an hour
+        Instant now = Instant.now();
+        assertEquals(3, statistics.getEntries());
+        assertTrue(statistics.getStoredBytes() > 0);
+        assertTrue(statistics.oldestEntryAge(now).compareTo(Duration.ofHours(25)) >= 0);
+        assertTrue(statistics.cleanupLag(now).compareTo(Duration.ofHours(1)) >= 0);
+    }
 }
@@ -0,0 +1,90 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.application.port.SchedulerLeasePort;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for DatabaseSchedulerLeaseAdapter.
+ *
+ * Two owners stand in for two nodes competing for the same scheduled job.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class DatabaseSchedulerLeaseAdapterTest {
+
+    private static final String JOB = "test-job";
+    private static final String NODE_A = "node-a";
+    private static final String NODE_B = "node-b";
+
+    @Autowired
+    private SchedulerLeasePort schedulerLeasePort;
+
+    @Autowired
+    private SchedulerLeaseJpaRepository schedulerLeaseJpaRepository;
+
+    @Before
+    public void setUp() {
+        schedulerLeaseJpaRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldGrantLeaseToOnlyOneNode() {
+        assertTrue(schedulerLeasePort.tryAcquire(JOB, NODE_A, Duration.ofMinutes(30)));
+        assertFalse(schedulerLeasePort.tryAcquire(JOB, NODE_B, Duration.ofMinutes(30)));
+        // Not re-entrant: the holder's next tick is skipped too
+        assertFalse(schedulerLeasePort.tryAcquire(JOB, NODE_A, Duration.ofMinutes(30)));
+        assertEquals(NODE_A, schedulerLeaseJpaRepository.findById(JOB).orElseThrow().getOwner());
+    }
+
+    @Test
+    public void shouldKeepLeaseForAtLeastTheMinimumAfterRelease() {
+        schedulerLeasePort.tryAcquire(JOB, NODE_A, Duration.ofMinutes(30));
+
+        schedulerLeasePort.release(JOB, NODE_A, Duration.ofMinutes(55));
+
+        assertFalse(schedulerLeasePort.tryAcquire(JOB, NODE_B, Duration.ofMinutes(30)));
+        assertTrue(schedulerLeaseJpaRepository.findById(JOB).orElseThrow().getLockUntil()
+                .isAfter(LocalDateTime.now().plusMinutes(50)));
+    }
+
+    @Test
+    public void shouldHandLeaseOverOnceReleased() {
+        schedulerLeasePort.tryAcquire(JOB, NODE_A, Duration.ofMinutes(30));
+
+        schedulerLeasePort.release(JOB, NODE_A, Duration.ZERO);
+
+        assertTrue(schedulerLeasePort.tryAcquire(JOB, NODE_B, Duration.ofMinutes(30)));
+    }
+
+    @Test
+    public void shouldFailOverWhenHolderDiesWithoutReleasing() {
+        // Node A takes a lease that has already run out, as if it died long ago
+        assertTrue(schedulerLeasePort.tryAcquire(JOB, NODE_A, Duration.ofMillis(-1)));
+
+        assertTrue(schedulerLeasePort.tryAcquire(JOB, NODE_B, Duration.ofMinutes(30)));
+        assertEquals(NODE_B, schedulerLeaseJpaRepository.findById(JOB).orElseThrow().getOwner());
+    }
+
+    @Test
+    public void shouldIgnoreReleaseByNonOwner() {
+        schedulerLeasePort.tryAcquire(JOB, NODE_A, Duration.ofMinutes(30));
+
+        schedulerLeasePort.release(JOB, NODE_B, Duration.ZERO);
+
+        assertFalse(schedulerLeasePort.tryAcquire(JOB, NODE_B, Duration.ofMinutes(30)));
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.RecordAlreadyStoredException;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.StoreStatistics;
+import com.example.ledger.support.MutableClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for OffHeapIdempotencyAdapter.
+ *
+ * Each test maps a fresh store in a temporary folder and moves a test clock forward,
+ * so keys can be stored, expired and remapped without waiting.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class OffHeapIdempotencyAdapterTest {
+
+    private static final String KEY = "880e8400-e29b-41d4-a716-446655440020";
+    private static final String HASH = "a".repeat(64);
+    private static final String OTHER_HASH = "b".repeat(64);
+    private static final String BODY = "{\"id\":\"123e4567-e89b-12d3-a456-426614174000\",\"amount\":100.00}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private MutableClock clock;
+    private OffHeapIdempotencyAdapter adapter;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("idempotency").toPath();
+        clock = new MutableClock(Instant.parse("2024-01-15T10:30:00Z"));
+        adapter = new OffHeapIdempotencyAdapter(directory, 1024, 256 * 1024, clock);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        adapter.close();
+    }
+
+    @Test
+    public void shouldReplayStoredResponseAndDetectConflicts() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        Optional<IdempotencyResponse> cached = adapter.getCachedResponse(KEY, HASH);
+
+        assertTrue(cached.isPresent());
+        assertEquals(201, cached.get().getStatusCode());
+        assertEquals(BODY, cached.get().getResponseBody());
+        assertFalse(adapter.getCachedResponse(KEY, OTHER_HASH).isPresent());
+        assertTrue(adapter.hasKeyWithDifferentHash(KEY, OTHER_HASH));
+        assertFalse(adapter.hasKeyWithDifferentHash(KEY, HASH));
+        assertFalse(adapter.getCachedResponse("880e8400-e29b-41d4-a716-446655440021", HASH).isPresent());
+    }
+
+    @Test
+    public void shouldReplaceRecordWhenKeyIsStoredAgainForAnotherRequest() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(400, "{}"), Duration.ofMinutes(10));
+        adapter.storeResponse(KEY, OTHER_HASH, new IdempotencyResponse(201, BODY));
+
+        assertEquals(201, adapter.getCachedResponse(KEY, OTHER_HASH).get().getStatusCode());
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+    }
+
+    @Test
+    public void shouldNotOverwriteALiveResponseForTheSameRequest() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        assertThrows(RecordAlreadyStoredException.class,
+                () -> adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, "{}")));
+        assertEquals(BODY, adapter.getCachedResponse(KEY, HASH).get().getResponseBody());
+    }
+
+    @Test
+    public void shouldStoreAgainOnceAMissingReferenceIsExpired() throws IOException {
+        UUID missing = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        adapter.storeResponse(KEY, HASH, IdempotencyResponse.reference(200, missing));
+
+        // Only the record that still references the missing transaction is expired
+        adapter.expireReference(KEY, HASH, UUID.randomUUID());
+        assertTrue(adapter.getCachedResponse(KEY, HASH).isPresent());
+        adapter.expireReference(KEY, HASH, missing);
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+
+        // Also once the index is rebuilt from the segments
+        adapter.close();
+        adapter = new OffHeapIdempotencyAdapter(directory, 2048, 256 * 1024, clock);
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(200, BODY));
+        assertEquals(BODY, adapter.getCachedResponse(KEY, HASH).get().getResponseBody());
+    }
+
+    @Test
+    public void shouldExpireKeysAfterTwentyFourHoursAndFreeTheirSegment() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        clock.advance(Duration.ofHours(23));
+        assertEquals(0, adapter.deleteExpiredKeys(1000));
+        assertTrue(adapter.getCachedResponse(KEY, HASH).isPresent());
+
+        clock.advance(Duration.ofHours(1));
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+        assertEquals(1, adapter.countExpiredKeys());
+
+        // The segment is only emptied once its whole hour has passed
+        clock.advance(Duration.ofHours(1));
+        assertEquals(1, adapter.deleteExpiredKeys(1000));
+        assertEquals(0, adapter.deleteExpiredKeys(1000));
+        assertEquals(0, adapter.countExpiredKeys());
+    }
+
+    @Test
+    public void shouldKeepKeysAcrossRestart() throws IOException {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+        adapter.close();
+
+        adapter = new OffHeapIdempotencyAdapter(directory, 1024, 256 * 1024, clock);
+
+        assertEquals(BODY, adapter.getCachedResponse(KEY, HASH).get().getResponseBody());
+    }
+
+    @Test
+    public void shouldRebuildIndexFromSegmentsWhenItIsMissing() throws IOException {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+        adapter.close();
+        Files.delete(directory.resolve("index.dat"));
+
+        adapter = new OffHeapIdempotencyAdapter(directory, 2048, 256 * 1024, clock);
+
+        assertEquals(BODY, adapter.getCachedResponse(KEY, HASH).get().getResponseBody());
+    }
+
+    @Test
+    public void shouldStoreManyKeysAndSkipNewOnesWhenIndexIsFull() {
+        // 1024 slots filled to at most 75%
+        for (int i = 0; i < 1000; i++) {
+            adapter.storeResponse(new UUID(0x880e8400e29b41d4L, i).toString(), HASH, new IdempotencyResponse(201, "{}"));
+        }
+
+        for (int i = 0; i < 768; i++) {
+            assertTrue(adapter.getCachedResponse(new UUID(0x880e8400e29b41d4L, i).toString(), HASH).isPresent());
+        }
+        assertFalse(adapter.getCachedResponse(new UUID(0x880e8400e29b41d4L, 999).toString(), HASH).isPresent());
+    }
+
+    @Test
+    public void shouldVisitOnlyLiveKeys() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+        clock.advance(Duration.ofHours(12));
+        adapter.storeResponse("880e8400-e29b-41d4-a716-446655440021", HASH, new IdempotencyResponse(201, BODY));
+        clock.advance(Duration.ofHours(12));
+
+        Map<String, Instant> live = new HashMap<>();
+        adapter.forEachLiveKey(live::put);
+
+        assertEquals(Map.of("880e8400-e29b-41d4-a716-446655440021", clock.instant().plus(Duration.ofHours(12))), live);
+    }
+
+    @Test
+    public void shouldRejectKeysThatAreNotUuids() {
+        assertTrue(adapter.isValidKey(KEY));
+        assertFalse(adapter.isValidKey("not-a-uuid"));
+
+        adapter.storeResponse("not-a-uuid", HASH, new IdempotencyResponse(201, BODY));
+        assertFalse(adapter.getCachedResponse("not-a-uuid", HASH).isPresent());
+    }
+
+    @Test
+    public void shouldKeepClientErrorsForTheirOwnTtlWithoutConflicts() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(400, "{\"error\":\"Amount must be positive\"}"),
+                Duration.ofMinutes(10));
+
+        assertEquals(400, adapter.getCachedResponse(KEY, HASH).get().getStatusCode());
+        assertFalse(adapter.hasKeyWithDifferentHash(KEY, OTHER_HASH));
+
+        clock.advance(Duration.ofMinutes(10));
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+    }
+
+    @Test
+    public void shouldStoreReferenceResponsesWithoutBody() throws IOException {
+        UUID transactionId = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        String otherKey = "880e8400-e29b-41d4-a716-446655440029";
+        adapter.storeResponse(KEY, HASH, IdempotencyResponse.reference(200, transactionId));
+        adapter.storeResponse(otherKey, HASH, new IdempotencyResponse(200, BODY));
+
+        // Reopening with another capacity rebuilds the index by walking the records
+        adapter.close();
+        adapter = new OffHeapIdempotencyAdapter(directory, 2048, 256 * 1024, clock);
+
+        IdempotencyResponse cached = adapter.getCachedResponse(KEY, HASH).get();
+        assertTrue(cached.isReference());
+        assertEquals(transactionId, cached.getResourceId());
+        assertNull(cached.getResponseBodyBytes());
+        assertEquals(BODY, adapter.getCachedResponse(otherKey, HASH).get().getResponseBody());
+    }
+
+    @Test
+    public void shouldReportStatisticsFromIndexAndSegmentHeaders() {
+        assertEquals(0, adapter.statistics().getEntries());
+        assertEquals(0, adapter.statistics().getStoredBytes());
+
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+        adapter.storeResponse("880e8400-e29b-41d4-a716-446655440021", HASH, new IdempotencyResponse(201, BODY));
+
+        StoreStatistics statistics = adapter.statistics();
+        assertEquals(2, statistics.getEntries());
+        assertTrue(statistics.getStoredBytes() > 0);
+        // Ages are kept to the hour: stored at 10:30, in the segment of the hour from 10:00 a day later
+        assertEquals(Duration.ofMinutes(30), statistics.oldestEntryAge(clock.instant()));
+        assertEquals(Duration.ZERO, statistics.cleanupLag(clock.instant()));
+
+        // The segment's whole hour passed 30 minutes ago and the wheel has not advanced
+        clock.advance(Duration.ofHours(25));
+        assertEquals(Duration.ofMinutes(30), adapter.statistics().cleanupLag(clock.instant()));
+
+        adapter.deleteExpiredKeys();
+        assertEquals(0, adapter.statistics().getEntries());
+        assertEquals(0, adapter.statistics().getStoredBytes());
+        assertNull(adapter.statistics().getOldestExpiry());
+    }
+
+    @Test
+    public void shouldOnlyWriteAStoreMadeInATransactionOnceItCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+            assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(201, adapter.getCachedResponse(KEY, HASH).get().getStatusCode());
+    }
+
+    @Test
+    public void shouldNotWriteAStoreMadeInATransactionThatRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+        assertEquals(0, adapter.statistics().getEntries());
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.RecordAlreadyStoredException;
+import com.example.ledger.application.port.IdempotencyRepositoryPort.StoreStatistics;
+import com.example.ledger.support.MutableClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PartitionedIdempotencyAdapter.
+ *
+ * Runs against an in-memory H2 database with a clock the tests move forward,
+ * so keys can be stored, expired and rotated out without waiting.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class PartitionedIdempotencyAdapterTest {
+
+    private static final String KEY = "880e8400-e29b-41d4-a716-446655440010";
+    private static final String HASH = "a".repeat(64);
+    private static final String OTHER_HASH = "b".repeat(64);
+    private static final String BODY = "{\"id\":\"123e4567-e89b-12d3-a456-426614174000\",\"amount\":100.00}";
+
+    private JdbcTemplate jdbcTemplate;
+    private MutableClock clock;
+    private PartitionedIdempotencyAdapter adapter;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:partitioned;DB_CLOSE_DELAY=-1", "sa", ""));
+        clock = new MutableClock(Instant.parse("2024-01-15T10:30:00Z"));
+        adapter = new PartitionedIdempotencyAdapter(jdbcTemplate, clock);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void shouldReplayStoredResponse() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        Optional<IdempotencyResponse> cached = adapter.getCachedResponse(KEY, HASH);
+
+        assertTrue(cached.isPresent());
+        assertEquals(201, cached.get().getStatusCode());
+        assertEquals(BODY, cached.get().getResponseBody());
+        assertFalse(adapter.getCachedResponse(KEY, OTHER_HASH).isPresent());
+    }
+
+    @Test
+    public void shouldFindKeysStoredInEarlierPartitionsUntilTheyExpire() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        clock.advance(Duration.ofHours(23).plusMinutes(59));
+        assertTrue(adapter.getCachedResponse(KEY, HASH).isPresent());
+        assertTrue(adapter.hasKeyWithDifferentHash(KEY, OTHER_HASH));
+
+        clock.advance(Duration.ofMinutes(1));
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+        assertFalse(adapter.hasKeyWithDifferentHash(KEY, OTHER_HASH));
+        assertEquals(1, adapter.countExpiredKeys());
+    }
+
+    @Test
+    public void shouldNotOverwriteALiveResponseStoredInAnyPartition() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        assertThrows(RecordAlreadyStoredException.class,
+                () -> adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, "{}")));
+        // The primary key of the current partition no longer covers the stored row
+        clock.advance(Duration.ofHours(3));
+        assertThrows(RecordAlreadyStoredException.class,
+                () -> adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, "{}")));
+
+        assertEquals(BODY, adapter.getCachedResponse(KEY, HASH).get().getResponseBody());
+    }
+
+    @Test
+    public void shouldReplaceAnExpiredResponseWithinTheHour() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(400, "{\"error\":\"Amount must be positive\"}"),
+                Duration.ofMinutes(10));
+        clock.advance(Duration.ofMinutes(10));
+
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        assertEquals(201, adapter.getCachedResponse(KEY, HASH).get().getStatusCode());
+        assertEquals(1, adapter.statistics().getEntries());
+    }
+
+    @Test
+    public void shouldDropExpiredKeysByTruncatingTheNextPartitions() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        // Within the TTL nothing is dropped
+        clock.advance(Duration.ofHours(12));
+        assertEquals(0, adapter.deleteExpiredKeys(1000));
+
+        // 25 hours later the key's partition is next in the ring
+        clock.advance(Duration.ofHours(13));
+        assertEquals(1, adapter.deleteExpiredKeys(1000));
+        assertEquals(0, adapter.deleteExpiredKeys(1000));
+        assertEquals(0, adapter.countExpiredKeys());
+    }
+
+    @Test
+    public void shouldNotSeeExpiredRowsWhenARotationWasMissed() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+
+        // A full turn of the ring later, without any cleanup, the same partition is current again
+        clock.advance(Duration.ofHours(PartitionedIdempotencyAdapter.PARTITIONS));
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+
+        adapter.storeResponse(KEY, OTHER_HASH, new IdempotencyResponse(201, BODY));
+        assertTrue(adapter.getCachedResponse(KEY, OTHER_HASH).isPresent());
+        assertFalse(adapter.hasKeyWithDifferentHash(KEY, OTHER_HASH));
+    }
+
+    @Test
+    public void shouldVisitOnlyLiveKeys() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+        clock.advance(Duration.ofHours(12));
+        adapter.storeResponse("880e8400-e29b-41d4-a716-446655440011", HASH, new IdempotencyResponse(201, BODY));
+        clock.advance(Duration.ofHours(12));
+
+        Map<String, Instant> live = new HashMap<>();
+        adapter.forEachLiveKey(live::put);
+
+        assertEquals(Map.of("880e8400-e29b-41d4-a716-446655440011", clock.instant().plus(Duration.ofHours(12))), live);
+    }
+
+    @Test
+    public void shouldValidateKeyFormat() {
+        assertTrue(adapter.isValidKey(KEY));
+        assertFalse(adapter.isValidKey("not-a-uuid"));
+        assertFalse(adapter.isValidKey(" "));
+    }
+
+    @Test
+    public void shouldKeepClientErrorsForTheirOwnTtlWithoutConflicts() {
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(400, "{\"error\":\"Amount must be positive\"}"),
+                Duration.ofMinutes(10));
+
+        assertEquals(400, adapter.getCachedResponse(KEY, HASH).get().getStatusCode());
+        assertFalse(adapter.hasKeyWithDifferentHash(KEY, OTHER_HASH));
+
+        clock.advance(Duration.ofMinutes(10));
+        assertFalse(adapter.getCachedResponse(KEY, HASH).isPresent());
+    }
+
+    @Test
+    public void shouldStoreReferenceResponsesWithoutBody() {
+        UUID transactionId = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        adapter.storeResponse(KEY, HASH, IdempotencyResponse.reference(200, transactionId));
+
+        IdempotencyResponse cached = adapter.getCachedResponse(KEY, HASH).get();
+
+        assertTrue(cached.isReference());
+        assertEquals(200, cached.getStatusCode());
+        assertEquals(transactionId, cached.getResourceId());
+        assertNull(cached.getResponseBodyBytes());
+        assertTrue(adapter.hasKeyWithDifferentHash(KEY, OTHER_HASH));
+    }
+
+    @Test
+    public void shouldReportStatisticsWithoutCountingPartitions() {
+        assertEquals(0, adapter.statistics().getEntries());
+        assertNull(adapter.statistics().getOldestEntry());
+
+        adapter.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY));
+        adapter.storeResponse("880e8400-e29b-41d4-a716-446655440011", HASH, new IdempotencyResponse(201, BODY));
+
+        StoreStatistics statistics = adapter.statistics();
+        assertEquals(2, statistics.getEntries());
+        assertTrue(statistics.getStoredBytes() > 0);
+        assertEquals(clock.instant(), statistics.getOldestEntry());
+        assertEquals(Duration.ZERO, statistics.cleanupLag(clock.instant()));
+
+        // Expired an hour ago, and its partition is not truncated yet
+        clock.advance(Duration.ofHours(25));
+        assertEquals(Duration.ofHours(1), adapter.statistics().cleanupLag(clock.instant()));
+
+        // Another instance, e.g. one started since, sees and removes the same keys
+        PartitionedIdempotencyAdapter restarted = new PartitionedIdempotencyAdapter(jdbcTemplate, clock);
+        assertEquals(2, restarted.statistics().getEntries());
+        assertEquals(2, restarted.countExpiredKeys());
+        assertEquals(2, restarted.deleteExpiredKeys());
+        assertEquals(0, adapter.statistics().getEntries());
+        assertEquals(Duration.ZERO, adapter.statistics().cleanupLag(clock.instant()));
+    }
+
+    @Test
+    public void shouldReportALostInsertRaceSoTheCallerReplaysTheWinner() {
+        // Another instance stores the same key and hash between this instance's lookup and INSERT
+        PartitionedIdempotencyAdapter winner = new PartitionedIdempotencyAdapter(jdbcTemplate, clock);
+        AtomicReference<Runnable> concurrentStore = new AtomicReference<>(
+                () -> winner.storeResponse(KEY, HASH, new IdempotencyResponse(201, BODY)));
+        JdbcTemplate racingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int update(String sql, Object... args) {
+                int rows = super.update(sql, args);
+                Runnable store = concurrentStore.getAndSet(null);
+                if (store != null) {
+                    store.run();
+                }
+                return rows;
+            }
+        };
+        PartitionedIdempotencyAdapter loser = new PartitionedIdempotencyAdapter(racingTemplate, clock);
+
+        assertThrows(RecordAlreadyStoredException.class,
+                () -> loser.storeResponse(KEY, HASH, new IdempotencyResponse(201, "{}")));
+
+        // The winner's response is kept, which is what IdempotencyFilter replays to the loser
+        IdempotencyResponse cached = loser.getCachedResponse(KEY, HASH).get();
+        assertEquals(201, cached.getStatusCode());
+        assertEquals(BODY, cached.getResponseBody());
+        // Both read the figures from the database, so they agree on the one row stored
+        assertEquals(1, winner.statistics().getEntries());
+        assertEquals(1, loser.statistics().getEntries());
+    }
+}
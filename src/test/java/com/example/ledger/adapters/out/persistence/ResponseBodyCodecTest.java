@@ -0,0 +1,98 @@
+package com.example.ledger.adapters.out.persistence;
+
+import com.example.ledger.application.port.IdempotencyRepositoryPort.IdempotencyResponse;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ResponseBodyCodec.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class ResponseBodyCodecTest {
+
+    private static final String TRANSACTION_JSON =
+            "{\"id\":\"123e4567-e89b-12d3-a456-426614174000\",\"date\":\"2024-01-15T10:30:00.123456\","
+            + "\"amount\":100.00,\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}";
+
+    @Test
+    public void shouldRoundTripTransactionResponse() {
+        byte[] stored = ResponseBodyCodec.encode(TRANSACTION_JSON);
+
+        assertEquals(TRANSACTION_JSON, ResponseBodyCodec.decodeToString(stored));
+    }
+
+    @Test
+    public void shouldCompressTransactionResponseUsingDictionary() {
+        byte[] raw = TRANSACTION_JSON.getBytes(StandardCharsets.UTF_8);
+
+        byte[] stored = ResponseBodyCodec.encode(TRANSACTION_JSON);
+
+        assertEquals(ResponseBodyCodec.FORMAT_DEFLATE_DICT_V2, stored[0]);
+        // The dictionary only holds structure; the id, date and description are left to deflate
+        assertTrue("Expected at least 25% saving but got " + stored.length + "/" + raw.length,
+                stored.length < raw.length * 0.75);
+    }
+
+    @Test
+    public void shouldDecodeBodiesStoredWithTheFirstDictionary() {
+        // Deflated with DICTIONARY_V1 before it was replaced, as still found in rows younger than the TTL
+        byte[] stored = HexFormat.of().parseHex("010000006e783f8d494389831a0c74702ac8c5baa9169649ba864629c6ba8940beae"
+                + "89919999a189a1b909aac18660dbd08d470b052cb601004dbe1f3a");
+
+        assertEquals("{\"id\":\"123e4567-e89b-12d3-a456-426614174000\",\"amount\":100.00,"
+                + "\"description\":\"Office supplies\",\"type\":\"EXPENSE\"}", ResponseBodyCodec.decodeToString(stored));
+    }
+
+    @Test
+    public void shouldStoreIncompressibleBodiesUncompressed() {
+        byte[] random = new byte[256];
+        new Random(42).nextBytes(random);
+
+        byte[] stored = ResponseBodyCodec.encode(random, 0, random.length);
+
+        assertEquals(ResponseBodyCodec.FORMAT_STORED, stored[0]);
+        assertArrayEquals(random, ResponseBodyCodec.decode(stored));
+    }
+
+    @Test
+    public void shouldRoundTripEmptyAndNonAsciiBodies() {
+        assertEquals("", ResponseBodyCodec.decodeToString(ResponseBodyCodec.encode("")));
+
+        String json = "{\"description\":\"Café – 東京\"}";
+        assertEquals(json, ResponseBodyCodec.decodeToString(ResponseBodyCodec.encode(json)));
+    }
+
+    @Test
+    public void shouldKeepTheContentTypeWithTheBody() {
+        byte[] random = new byte[64];
+        new Random(7).nextBytes(random);
+        byte[] json = TRANSACTION_JSON.getBytes(StandardCharsets.UTF_8);
+
+        byte[] binary = ResponseBodyCodec.encode(random, "application/x-ledger-transaction");
+        byte[] compressed = ResponseBodyCodec.encode(json, "application/json;charset=UTF-8");
+
+        assertArrayEquals(random, ResponseBodyCodec.decode(binary));
+        assertEquals("application/x-ledger-transaction", ResponseBodyCodec.contentType(binary));
+        assertArrayEquals(json, ResponseBodyCodec.decode(compressed));
+        assertEquals("application/json;charset=UTF-8", ResponseBodyCodec.contentType(compressed));
+        // JSON, the usual content type, costs nothing to store
+        assertArrayEquals(ResponseBodyCodec.encode(json, 0, json.length),
+                ResponseBodyCodec.encode(json, IdempotencyResponse.DEFAULT_CONTENT_TYPE));
+        assertEquals(IdempotencyResponse.DEFAULT_CONTENT_TYPE,
+                ResponseBodyCodec.decodeResponse(200, ResponseBodyCodec.encode(TRANSACTION_JSON)).getContentType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownFormat() {
+        byte[] stored = ResponseBodyCodec.encode(TRANSACTION_JSON);
+        stored[0] = 99;
+
+        ResponseBodyCodec.decode(stored);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ledger.application.usecase;
+
+import com.example.ledger.domain.model.Transaction;
+import com.example.ledger.domain.model.TransactionType;
+import com.example.ledger.domain.port.TransactionRepositoryPort;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for GetTransactionService.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class GetTransactionServiceTest {
+
+    private TransactionRepositoryPort repository;
+
+    private GetTransactionService service;
+
+    @Before
+    public void setUp() {
+        repository = mock(TransactionRepositoryPort.class);
+        service = new GetTransactionService(repository);
+    }
+
+    @Test
+    public void shouldReturnTransactionById() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        Transaction transaction = new Transaction(id, LocalDateTime.now(), new BigDecimal("10.00"), "Test", TransactionType.EXPENSE);
+        when(repository.findById(id)).thenReturn(Optional.of(transaction));
+
+        // Act
+        Optional<Transaction> result = service.getById(id);
+
+        // Assert
+        assertSame(transaction, result.get());
+        verify(repository, times(1)).findById(id);
+    }
+
+    @Test
+    public void shouldReturnEmptyWhenTransactionDoesNotExist() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        when(repository.findById(id)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertTrue(service.getById(id).isEmpty());
+    }
+}
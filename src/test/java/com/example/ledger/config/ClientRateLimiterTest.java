@@ -0,0 +1,122 @@
+package com.example.ledger.config;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ClientRateLimiter and its TokenBucket.
+ *
+ * Tests verify bursts and refills, the wait reported to throttled clients, that clients are
+ * independent, that concurrent requests never take more tokens than there are, and that the
+ * number of tracked clients stays bounded.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class ClientRateLimiterTest {
+
+    @Test
+    public void shouldAllowABurstUpToCapacityThenThrottle() {
+        ClientRateLimiter limiter = new ClientRateLimiter(5, 1, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("client-a", 0));
+        }
+
+        assertEquals("Next token is a second away", 1000, limiter.tryAcquire("client-a", 0));
+        assertEquals(400, limiter.tryAcquire("client-a", 600));
+    }
+
+    @Test
+    public void shouldRefillAtTheConfiguredRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(2, 10, 1000);
+        limiter.tryAcquire("client-a", 0);
+        limiter.tryAcquire("client-a", 0);
+        assertTrue(limiter.tryAcquire("client-a", 0) > 0);
+
+        // 10 per second: a token every 100 ms, never more than capacity
+        assertEquals(0, limiter.tryAcquire("client-a", 100));
+        assertTrue(limiter.tryAcquire("client-a", 150) > 0);
+        assertEquals(0, limiter.tryAcquire("client-a", 60_000));
+        assertEquals(0, limiter.tryAcquire("client-a", 60_000));
+        assertTrue(limiter.tryAcquire("client-a", 60_000) > 0);
+    }
+
+    @Test
+    public void shouldKeepClientsIndependent() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 1000);
+
+        assertEquals(0, limiter.tryAcquire("client-a", 0));
+        assertTrue(limiter.tryAcquire("client-a", 0) > 0);
+
+        assertEquals(0, limiter.tryAcquire("client-b", 0));
+    }
+
+    @Test
+    public void shouldNeverHandOutMoreTokensThanCapacityUnderContention() throws Exception {
+        ClientRateLimiter limiter = new ClientRateLimiter(1000, 1, 1000);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(threads.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    if (limiter.tryAcquire("shared-client", 0) == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+
+        assertEquals(1000, allowed.get());
+    }
+
+    @Test
+    public void shouldBoundTheNumberOfTrackedClients() {
+        ClientRateLimiter limiter = new ClientRateLimiter(5, 1, 640);
+
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("client-" + i, 0);
+        }
+
+        assertTrue("Tracked " + limiter.size() + " clients", limiter.size() <= 640);
+    }
+
+    @Test
+    public void shouldForgetClientsWhoseBucketsHaveRefilled() {
+        ClientRateLimiter limiter = new ClientRateLimiter(5, 1, 1000);
+        limiter.tryAcquire("idle-client", 0);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("busy-client", 0);
+        }
+
+        assertEquals(1, limiter.sweep(1000));
+        assertEquals(1, limiter.size());
+        // The forgotten client starts over with a full bucket, exactly as if it had been kept
+        assertEquals(0, limiter.tryAcquire("idle-client", 1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCapacitiesThatDoNotFitTheBucketState() {
+        new ClientRateLimiter(TokenBucket.MAX_CAPACITY + 1, 1, 1000);
+    }
+}
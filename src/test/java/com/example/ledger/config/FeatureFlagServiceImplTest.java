@@ -0,0 +1,185 @@
+package com.example.ledger.config;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for FeatureFlagServiceImpl and the FeatureFlagSnapshot it publishes.
+ *
+ * Tests verify that flags are read from application properties and overridden by the flag
+ * file, that a changed file is reloaded into a new snapshot while a broken one is ignored,
+ * and that percentage rollouts and client targeting are evaluated consistently.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class FeatureFlagServiceImplTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MockEnvironment environment;
+    private FeatureFlagProperties properties;
+
+    @Before
+    public void setUp() {
+        environment = new MockEnvironment()
+                .withProperty("feature.create-transaction.enabled", "true")
+                .withProperty("feature.get-all-transactions.enabled", "false");
+        properties = new FeatureFlagProperties();
+        properties.setEndpoints(Map.of(
+                "POST /transactions", "create-transaction",
+                "GET /transactions", "get-all-transactions"));
+    }
+
+    @Test
+    public void shouldReadFlagsFromApplicationProperties() {
+        FeatureFlagServiceImpl service = new FeatureFlagServiceImpl(properties, environment);
+
+        assertTrue(service.isEnabled("create-transaction"));
+        assertFalse(service.isEnabled("get-all-transactions"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownFlags() {
+        new FeatureFlagServiceImpl(properties, environment).isEnabled("no-such-feature");
+    }
+
+    @Test
+    public void shouldResolveEndpointsToTheirFlags() {
+        FeatureFlagSnapshot snapshot = new FeatureFlagServiceImpl(properties, environment).snapshot();
+
+        assertEquals("create-transaction", snapshot.endpointFlag("POST", "/transactions").getName());
+        assertEquals("get-all-transactions", snapshot.endpointFlag("GET", "/transactions").getName());
+        assertNull(snapshot.endpointFlag("DELETE", "/transactions"));
+        assertNull(snapshot.endpointFlag("GET", "/transactions/123"));
+    }
+
+    @Test
+    public void shouldLetTheFlagFileOverrideApplicationProperties() throws IOException {
+        Path file = writeFlagFile("get-all-transactions.enabled=true\nnew-feature.enabled=false\n");
+        properties.setFile(file.toString());
+
+        FeatureFlagServiceImpl service = new FeatureFlagServiceImpl(properties, environment);
+
+        assertTrue(service.isEnabled("get-all-transactions"));
+        assertTrue(service.isEnabled("create-transaction"));
+        assertFalse(service.isEnabled("new-feature"));
+    }
+
+    @Test
+    public void shouldPublishANewSnapshotWhenTheFlagFileChanges() throws IOException {
+        Path file = writeFlagFile("create-transaction.enabled=true\n");
+        properties.setFile(file.toString());
+        FeatureFlagServiceImpl service = new FeatureFlagServiceImpl(properties, environment);
+        FeatureFlagSnapshot before = service.snapshot();
+
+        service.reloadIfChanged();
+        assertSame("An unchanged file is not reloaded", before, service.snapshot());
+
+        rewriteFlagFile(file, "create-transaction.enabled=false\n");
+        service.reloadIfChanged();
+
+        assertNotSame(before, service.snapshot());
+        assertFalse(service.isEnabled("create-transaction"));
+        assertTrue("Snapshots are immutable", before.flag("create-transaction").isEnabled());
+    }
+
+    @Test
+    public void shouldKeepTheCurrentFlagsWhenTheFlagFileIsBroken() throws IOException {
+        Path file = writeFlagFile("create-transaction.percentage=50\n");
+        properties.setFile(file.toString());
+        FeatureFlagServiceImpl service = new FeatureFlagServiceImpl(properties, environment);
+        FeatureFlagSnapshot before = service.snapshot();
+
+        rewriteFlagFile(file, "create-transaction.percentage=half\n");
+        service.reloadIfChanged();
+
+        assertSame(before, service.snapshot());
+    }
+
+    @Test
+    public void shouldRollOutToRoughlyThePercentageOfClients() {
+        environment.setProperty("feature.create-transaction.percentage", "25");
+        FeatureFlagServiceImpl service = new FeatureFlagServiceImpl(properties, environment);
+
+        int enabled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (service.isEnabled("create-transaction", UUID.randomUUID().toString())) {
+                enabled++;
+            }
+        }
+
+        assertTrue("Enabled for " + enabled + " of 10000 clients", enabled > 2_200 && enabled < 2_800);
+        assertFalse("Not fully rolled out", service.isEnabled("create-transaction"));
+        assertFalse("Requests without a client id only get fully rolled out features",
+                service.isEnabled("create-transaction", null));
+    }
+
+    @Test
+    public void shouldKeepEachClientInTheSameBucketAcrossReloads() throws IOException {
+        Path file = writeFlagFile("create-transaction.percentage=10\n");
+        properties.setFile(file.toString());
+        FeatureFlagServiceImpl service = new FeatureFlagServiceImpl(properties, environment);
+        String[] clients = new String[200];
+        boolean[] enabledAtTen = new boolean[clients.length];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "client-" + i;
+            enabledAtTen[i] = service.isEnabled("create-transaction", clients[i]);
+        }
+
+        rewriteFlagFile(file, "create-transaction.percentage=50\n");
+        service.reloadIfChanged();
+
+        for (int i = 0; i < clients.length; i++) {
+            if (enabledAtTen[i]) {
+                assertTrue("Widening a rollout keeps " + clients[i], service.isEnabled("create-transaction", clients[i]));
+            }
+        }
+    }
+
+    @Test
+    public void shouldAlwaysEnableTargetedClientsUnlessSwitchedOff() {
+        environment.setProperty("feature.create-transaction.percentage", "0");
+        environment.setProperty("feature.create-transaction.clients", "beta-client, partner-client");
+        FeatureFlagServiceImpl service = new FeatureFlagServiceImpl(properties, environment);
+
+        assertTrue(service.isEnabled("create-transaction", "beta-client"));
+        assertTrue(service.isEnabled("create-transaction", "partner-client"));
+        assertFalse(service.isEnabled("create-transaction", "other-client"));
+
+        environment.setProperty("feature.create-transaction.enabled", "false");
+        assertFalse(new FeatureFlagServiceImpl(properties, environment).isEnabled("create-transaction", "beta-client"));
+    }
+
+    private Path writeFlagFile(String content) throws IOException {
+        Path file = temporaryFolder.newFile("feature-flags.properties").toPath();
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static void rewriteFlagFile(Path file, String content) throws IOException {
+        FileTime previous = Files.getLastModifiedTime(file);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        // File systems with coarse timestamps may not see a change within the same second
+        Files.setLastModifiedTime(file, FileTime.from(previous.toInstant().plusSeconds(1)));
+    }
+}
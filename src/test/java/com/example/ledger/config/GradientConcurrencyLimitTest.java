@@ -0,0 +1,159 @@
+package com.example.ledger.config;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for GradientConcurrencyLimit.
+ *
+ * Tests verify that admission stops at the limit, that the baseline is probed at min-limit,
+ * that the limit grows while round trips stay near the baseline and shrinks once they get
+ * slower, and that it stays within [min-limit, max-limit].
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class GradientConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int WINDOW_SIZE = 10;
+
+    private ConcurrencyLimitProperties properties;
+
+    @Before
+    public void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(20);
+        properties.setMinLimit(4);
+        properties.setMaxLimit(50);
+        properties.setWindowSize(WINDOW_SIZE);
+    }
+
+    @Test
+    public void shouldStartAtMinLimitUntilTheBaselineIsMeasured() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        assertEquals(4, limit.getLimit());
+
+        probe(limit, FAST);
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    public void shouldRejectRequestsBeyondTheLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        probe(limit, FAST);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(20, limit.getInFlight());
+
+        limit.release(FAST);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    public void shouldGrowWhileRoundTripsStayNearTheBaseline() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        probe(limit, FAST);
+
+        runWindows(limit, 20, FAST);
+
+        assertEquals(50, limit.getLimit());
+    }
+
+    @Test
+    public void shouldShrinkWhenRoundTripsGetSlower() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        probe(limit, FAST);
+
+        runWindows(limit, 100, SLOW);
+
+        // Converges towards min-limit, where the square root growth balances the shrinking
+        assertTrue("Limit " + limit.getLimit() + " should be near min-limit", limit.getLimit() <= 5);
+    }
+
+    @Test
+    public void shouldNotGrowWhenTheEndpointNeverComesCloseToItsLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        probe(limit, FAST);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(FAST);
+        }
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    public void shouldIgnoreRequestsQueuedBeforeTheProbeWhenMeasuringTheBaseline() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        // Requests that were already in flight when the probe started complete slowly; they
+        // must not become the baseline, or queueing would look normal
+        int queued = 0;
+        while (limit.tryAcquire()) {
+            queued++;
+        }
+        for (int i = 0; i < queued; i++) {
+            limit.release(SLOW);
+        }
+        probe(limit, FAST);
+
+        runWindows(limit, 100, SLOW);
+
+        assertTrue("Limit " + limit.getLimit() + " should be near min-limit", limit.getLimit() <= 5);
+    }
+
+    @Test
+    public void shouldReprobeTheBaselineSoItCanAdaptToASlowerBackend() {
+        properties.setBaselineProbeInterval(5);
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        probe(limit, FAST);
+
+        // The backend is now permanently ten times slower; once the baseline is probed again
+        // the slower round trips are the new normal and the limit recovers
+        for (int i = 0; i < 60; i++) {
+            runWindows(limit, 1, SLOW);
+            probe(limit, SLOW);
+        }
+
+        assertEquals(50, limit.getLimit());
+    }
+
+    /**
+     * Completes a probe if one is running: enough requests, one at a time, to measure the baseline.
+     */
+    private static void probe(GradientConcurrencyLimit limit, long rttNanos) {
+        if (limit.getLimit() != 4) {
+            return;
+        }
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(rttNanos);
+        }
+    }
+
+    /**
+     * Completes windows of requests that keep the endpoint at its limit.
+     */
+    private static void runWindows(GradientConcurrencyLimit limit, int windows, long rttNanos) {
+        for (int w = 0; w < windows; w++) {
+            int admitted = 0;
+            while (limit.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limit.release(rttNanos);
+            }
+        }
+    }
+}
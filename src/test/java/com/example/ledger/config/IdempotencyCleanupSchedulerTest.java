@@ -1,33 +1,56 @@
 package com.example.ledger.config;
 
 import com.example.ledger.adapters.out.scheduling.IdempotencyCleanupScheduler;
+import com.example.ledger.adapters.out.scheduling.ScheduledJobLease;
 import com.example.ledger.application.port.IdempotencyRepositoryPort;
+import com.example.ledger.application.port.SchedulerLeasePort;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for IdempotencyCleanupScheduler.
- * 
+ *
  * Tests verify that the scheduler correctly calls the repository port
- * and handles exceptions gracefully.
+ * in bounded batches, respects its time budget, publishes metrics,
+ * only runs while holding the cluster-wide lease and handles exceptions gracefully.
  */
 @RunWith(MockitoJUnitRunner.class)
 public class IdempotencyCleanupSchedulerTest {
 
+    private static final int BATCH_SIZE = 100;
+
     @Mock
     private IdempotencyRepositoryPort idempotencyRepository;
 
+    @Mock
+    private SchedulerLeasePort schedulerLeasePort;
+
+    private IdempotencyProperties properties;
+    private SimpleMeterRegistry meterRegistry;
     private IdempotencyCleanupScheduler scheduler;
 
     @Before
     public void setUp() {
-        // This will fail compilation - class doesn't exist yet (Red phase)
-        scheduler = new IdempotencyCleanupScheduler(idempotencyRepository);
+        properties = new IdempotencyProperties();
+        properties.getCleanup().setBatchSize(BATCH_SIZE);
+        properties.getCleanup().setPauseBetweenBatches(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(schedulerLeasePort.tryAcquire(anyString(), anyString(), any())).thenReturn(true);
+        scheduler = new IdempotencyCleanupScheduler(idempotencyRepository, properties,
+                new ScheduledJobLease(schedulerLeasePort, meterRegistry), meterRegistry);
     }
 
     @Test
@@ -36,18 +59,97 @@ public class IdempotencyCleanupSchedulerTest {
         scheduler.cleanupExpiredKeys();
 
         // Assert
-        verify(idempotencyRepository, times(1)).deleteExpiredKeys();
+        verify(idempotencyRepository, times(1)).deleteExpiredKeys(BATCH_SIZE);
+    }
+
+    @Test
+    public void shouldDeleteInBatchesUntilABatchIsNotFull() {
+        // Arrange - two full batches, then a partial one
+        when(idempotencyRepository.deleteExpiredKeys(BATCH_SIZE)).thenReturn(BATCH_SIZE, BATCH_SIZE, 42);
+
+        // Act
+        scheduler.cleanupExpiredKeys();
+
+        // Assert
+        verify(idempotencyRepository, times(3)).deleteExpiredKeys(BATCH_SIZE);
+        verify(idempotencyRepository, never()).countExpiredKeys();
+        assertEquals(242.0, meterRegistry.counter("idempotency.cleanup.rows.deleted").count(), 0.0);
+        assertEquals(3.0, meterRegistry.counter("idempotency.cleanup.batches").count(), 0.0);
+        assertEquals(1L, meterRegistry.timer("idempotency.cleanup.duration").count());
+        assertEquals(0.0, meterRegistry.get("idempotency.cleanup.backlog").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void shouldStopWhenTimeBudgetIsSpentAndReportBacklog() {
+        // Arrange - every batch is full, but the run has no time budget
+        properties.getCleanup().setMaxRunDuration(Duration.ZERO);
+        when(idempotencyRepository.deleteExpiredKeys(BATCH_SIZE)).thenReturn(BATCH_SIZE);
+        when(idempotencyRepository.countExpiredKeys()).thenReturn(5000L);
+
+        // Act
+        scheduler.cleanupExpiredKeys();
+
+        // Assert
+        verify(idempotencyRepository, times(1)).deleteExpiredKeys(BATCH_SIZE);
+        assertEquals(5000.0, meterRegistry.get("idempotency.cleanup.backlog").gauge().value(), 0.0);
     }
 
     @Test
     public void shouldHandleExceptionsGracefully() {
         // Arrange
-        doThrow(new RuntimeException("Database error")).when(idempotencyRepository).deleteExpiredKeys();
+        doThrow(new RuntimeException("Database error")).when(idempotencyRepository).deleteExpiredKeys(anyInt());
 
         // Act - Should not throw exception
         scheduler.cleanupExpiredKeys();
 
         // Assert - Method was called despite exception
-        verify(idempotencyRepository, times(1)).deleteExpiredKeys();
+        verify(idempotencyRepository, times(1)).deleteExpiredKeys(BATCH_SIZE);
+        assertEquals(1L, meterRegistry.timer("idempotency.cleanup.duration").count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectALeaseHeldAtLeastLongerThanAtMost() {
+        properties.getCleanup().setLockAtMostFor(Duration.ofMinutes(30));
+
+        new IdempotencyCleanupScheduler(idempotencyRepository, properties,
+                new ScheduledJobLease(schedulerLeasePort, meterRegistry), meterRegistry);
+    }
+
+    @Test
+    public void shouldHoldLeaseWhileCleaningUp() {
+        // Act
+        scheduler.cleanupExpiredKeys();
+
+        // Assert - lease taken and released with the configured durations
+        verify(schedulerLeasePort).tryAcquire(eq("idempotency-cleanup"), anyString(), eq(Duration.ofMinutes(59)));
+        verify(schedulerLeasePort).release(eq("idempotency-cleanup"), anyString(), eq(Duration.ofMinutes(55)));
+        assertEquals(1.0, meterRegistry.counter("scheduler.lease.acquired", "job", "idempotency-cleanup").count(), 0.0);
+    }
+
+    @Test
+    public void shouldSkipCleanupWhenAnotherNodeHoldsTheLease() {
+        // Arrange
+        when(schedulerLeasePort.tryAcquire(anyString(), anyString(), any())).thenReturn(false);
+
+        // Act
+        scheduler.cleanupExpiredKeys();
+
+        // Assert
+        verifyNoInteractions(idempotencyRepository);
+        verify(schedulerLeasePort, never()).release(anyString(), anyString(), any());
+        assertEquals(1.0, meterRegistry.counter("scheduler.lease.skipped", "job", "idempotency-cleanup").count(), 0.0);
+        assertEquals(0L, meterRegistry.timer("idempotency.cleanup.duration").count());
+    }
+
+    @Test
+    public void shouldReleaseLeaseEvenWhenCleanupFails() {
+        // Arrange
+        doThrow(new RuntimeException("Database error")).when(idempotencyRepository).deleteExpiredKeys(anyInt());
+
+        // Act
+        scheduler.cleanupExpiredKeys();
+
+        // Assert
+        verify(schedulerLeasePort).release(eq("idempotency-cleanup"), anyString(), any());
     }
 }
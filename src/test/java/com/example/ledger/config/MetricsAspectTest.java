@@ -0,0 +1,104 @@
+package com.example.ledger.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for MetricsAspect.
+ *
+ * Tests verify that calls are counted, that timed methods record a timer per outcome with the
+ * configured percentiles and SLO buckets, and that exceptions are classified by status.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class MetricsAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private Endpoints endpoints;
+
+    @Before
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Endpoints());
+        factory.addAspect(new MetricsAspect(registry));
+        endpoints = factory.getProxy();
+    }
+
+    @Test
+    public void shouldOnlyCountUntimedMethods() {
+        endpoints.counted();
+        endpoints.counted();
+
+        assertEquals(2.0, registry.counter("test.counted").count(), 0.0);
+        assertNull(registry.find("test.counted" + MetricsAspect.TIMER_SUFFIX).timer());
+    }
+
+    @Test
+    public void shouldTimeByOutcome() {
+        endpoints.timed(200);
+        endpoints.timed(201);
+        endpoints.timed(400);
+        endpoints.timed(503);
+
+        assertEquals(4.0, registry.counter("test.timed").count(), 0.0);
+        assertEquals(2, timer("success").count());
+        assertEquals(1, timer("client_error").count());
+        assertEquals(1, timer("server_error").count());
+    }
+
+    @Test
+    public void shouldClassifyExceptionsAndRethrowThem() {
+        assertThrows(IllegalArgumentException.class, () -> endpoints.failing(new IllegalArgumentException("bad")));
+        assertThrows(FeatureFlagDisabledException.class, () -> endpoints.failing(new FeatureFlagDisabledException("off")));
+        assertThrows(IllegalStateException.class, () -> endpoints.failing(new IllegalStateException("broken")));
+
+        assertEquals(2, timer("client_error").count());
+        assertEquals(1, timer("server_error").count());
+    }
+
+    @Test
+    public void shouldPublishConfiguredPercentilesAndSloBuckets() {
+        endpoints.timed(200);
+
+        HistogramSnapshot snapshot = timer("success").takeSnapshot();
+
+        assertArrayEquals(new double[] {0.5, 0.99},
+                Arrays.stream(snapshot.percentileValues()).mapToDouble(ValueAtPercentile::percentile).toArray(), 0.0);
+        double[] bucketsMillis = Arrays.stream(snapshot.histogramCounts())
+                .mapToDouble(bucket -> bucket.bucket(TimeUnit.MILLISECONDS))
+                .toArray();
+        assertArrayEquals(new double[] {10, 100}, bucketsMillis, 0.0);
+    }
+
+    private Timer timer(String outcome) {
+        return registry.get("test.timed" + MetricsAspect.TIMER_SUFFIX).tag("outcome", outcome).timer();
+    }
+
+    public static class Endpoints {
+
+        @TrackMetric("test.counted")
+        public void counted() {
+        }
+
+        @TrackMetric(value = "test.timed", timed = true, percentiles = {0.5, 0.99}, sloMillis = {10, 100})
+        public ResponseEntity<Void> timed(int status) {
+            return ResponseEntity.status(status).build();
+        }
+
+        @TrackMetric(value = "test.timed", timed = true, percentiles = {0.5, 0.99}, sloMillis = {10, 100})
+        public void failing(RuntimeException e) {
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ledger.config;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for StageTimings.
+ *
+ * Tests verify that timing is a no-op outside a sampled request, that repeated stages add up,
+ * and the Server-Timing header format.
+ *
+ * Uses JUnit 4 to match Surefire configuration for Cucumber compatibility.
+ */
+public class StageTimingsTest {
+
+    @After
+    public void tearDown() {
+        StageTimings.clear();
+    }
+
+    @Test
+    public void shouldDoNothingOutsideASampledRequest() {
+        StageTimings timings = StageTimings.current();
+
+        assertFalse(timings.isEnabled());
+        assertEquals("No clock read", 0, timings.start());
+        timings.end(StageTimings.Stage.PERSIST, 0);
+        assertFalse(timings.ran(StageTimings.Stage.PERSIST));
+    }
+
+    @Test
+    public void shouldAddUpRepeatedStages() {
+        StageTimings timings = StageTimings.begin();
+        assertSame(timings, StageTimings.current());
+
+        timings.end(StageTimings.Stage.LOOKUP, System.nanoTime() - 1_000);
+        timings.end(StageTimings.Stage.LOOKUP, System.nanoTime() - 2_000);
+
+        assertTrue(timings.ran(StageTimings.Stage.LOOKUP));
+        assertFalse(timings.ran(StageTimings.Stage.COMMIT));
+        assertTrue(timings.getNanos(StageTimings.Stage.LOOKUP) >= 3_000);
+
+        StageTimings.clear();
+        assertFalse(StageTimings.current().isEnabled());
+    }
+
+    @Test
+    public void shouldFormatStagesThatRanInMilliseconds() {
+        StageTimings timings = StageTimings.begin();
+        long now = System.nanoTime();
+        timings.end(StageTimings.Stage.PERSIST, now - 1_204_000);
+        timings.end(StageTimings.Stage.CAPTURE, now - 12_000);
+
+        String header = timings.toServerTiming(25_000_000);
+
+        // Stage order, not recording order; a stage cannot have finished before now
+        assertTrue(header, header.matches(
+                "capture;dur=0\\.0(1[2-9]|[2-9]\\d), persist;dur=1\\.[2-9]\\d\\d, total;dur=25\\.000"));
+    }
+}
@@ -3,6 +3,7 @@ package com.example.ledger.domain.model;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,4 +62,24 @@ public class TransactionTest {
         assertEquals("Description must not be null or empty", ex.getMessage());
     }
 
+    @Test
+    void shouldValidateWithoutThrowing() {
+        assertTrue(Transaction.validate(new BigDecimal("50.00"), "Office supplies").isValid());
+
+        ValidationResult result = Transaction.validate(new BigDecimal("-1.00"), " ");
+
+        assertFalse(result.isValid());
+        assertEquals(List.of("Amount must be positive", "Description must not be null or empty"), result.getViolations());
+        assertEquals("Amount is required", Transaction.validate(null, "Refund").getMessage());
+    }
+
+    @Test
+    void shouldThrowForAllViolationsAtOnce() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                new Transaction(null, "", TransactionType.EXPENSE)
+        );
+
+        assertEquals("Amount is required; Description must not be null or empty", ex.getMessage());
+    }
+
 }
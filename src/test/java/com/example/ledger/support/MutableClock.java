@@ -0,0 +1,38 @@
+package com.example.ledger.support;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * UTC clock that tests move forward by hand, for code that expires data after a fixed time.
+ */
+public class MutableClock extends Clock {
+
+    private volatile Instant instant;
+
+    public MutableClock(Instant instant) {
+        this.instant = instant;
+    }
+
+    public void advance(Duration duration) {
+        instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}